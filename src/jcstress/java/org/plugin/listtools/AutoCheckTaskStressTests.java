@@ -0,0 +1,89 @@
+package org.plugin.listtools;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.I_Result;
+
+import java.util.List;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * {@link AutoCheckTask} 启动、停止和重启的并发测试
+ * 结果为结束时仍在调度中的检查任务数，任何时候最多只能有一个
+ */
+public class AutoCheckTaskStressTests {
+
+    private AutoCheckTaskStressTests() {
+    }
+
+    private static AutoCheckTask createTask(StressFixture.FakeScheduler scheduler) {
+        return new AutoCheckTask(StressFixture.config(List.of()), null, null, null, scheduler.proxyServer,
+                                 StressFixture.LOGGER, scheduler);
+    }
+
+    /**
+     * 两次重启并发执行（例如重载配置与命令同时触发），结束后只保留一个任务
+     */
+    @JCStressTest
+    @Description("并发重启自动检查任务")
+    @Outcome(id = "1", expect = ACCEPTABLE, desc = "只保留最后一次重启的任务")
+    @Outcome(expect = FORBIDDEN, desc = "任务泄漏或全部被取消")
+    @State
+    public static class ConcurrentRestarts {
+        private final StressFixture.FakeScheduler scheduler = new StressFixture.FakeScheduler();
+        private final AutoCheckTask task = createTask(scheduler);
+
+        public ConcurrentRestarts() {
+            task.start();
+        }
+
+        @Actor
+        public void first() {
+            task.restart();
+        }
+
+        @Actor
+        public void second() {
+            task.restart();
+        }
+
+        @Arbiter
+        public void arbiter(I_Result r) {
+            r.r1 = scheduler.active.get();
+        }
+    }
+
+    /**
+     * 启动与停止并发执行，结束时要么没有任务，要么只有一个
+     */
+    @JCStressTest
+    @Description("并发启动和停止自动检查任务")
+    @Outcome(id = "0", expect = ACCEPTABLE, desc = "停止发生在启动之后")
+    @Outcome(id = "1", expect = ACCEPTABLE, desc = "启动发生在停止之后")
+    @Outcome(expect = FORBIDDEN, desc = "任务泄漏")
+    @State
+    public static class StartRacingStop {
+        private final StressFixture.FakeScheduler scheduler = new StressFixture.FakeScheduler();
+        private final AutoCheckTask task = createTask(scheduler);
+
+        public StartRacingStop() {
+            task.start();
+        }
+
+        @Actor
+        public void starter() {
+            task.restart();
+        }
+
+        @Actor
+        public void stopper() {
+            task.stop();
+        }
+
+        @Arbiter
+        public void arbiter(I_Result r) {
+            r.r1 = scheduler.active.get();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import com.velocitypowered.api.scheduler.Scheduler;
+import com.velocitypowered.api.scheduler.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并发测试共用的组件
+ * jcstress 会创建大量状态对象，所有状态共享同一个只读的数据目录和I/O执行器；
+ * 每个状态有独立的 {@link ConfigManager}，初始白名单在内存中设置，修改不写回 config.yml，
+ * 历史版本全部留在内存中，不写历史日志，状态之间不会通过数据目录中的文件互相影响
+ */
+final class StressFixture {
+    static final Logger LOGGER = NOPLogger.NOP_LOGGER;
+    static final IoExecutor IO_EXECUTOR = new IoExecutor(LOGGER);
+    static final Path DATA_DIRECTORY = createDataDirectory();
+
+    private StressFixture() {
+    }
+
+    /**
+     * 创建以指定玩家为初始白名单的配置管理器
+     */
+    static ConfigManager config(List<String> whitelist) {
+        ConfigManager configManager = new InMemoryConfigManager();
+        configManager.loadConfig();
+        configManager.setWhitelist(whitelist);
+        return configManager;
+    }
+
+    /**
+     * 创建以指定玩家为初始白名单的白名单管理器
+     */
+    static WhitelistManager whitelist(List<String> whitelist) {
+        return new WhitelistManager(config(whitelist), IO_EXECUTOR, LOGGER);
+    }
+
+    private static Path createDataDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("listtools-stress");
+            // 历史版本数大于任何测试的修改次数，版本不会被压缩写入日志
+            Path config = Files.write(directory.resolve("config.yml"),
+                                      "enabled: true\nwhitelist: []\nwhitelist_history_size: 1000\n".getBytes(StandardCharsets.UTF_8));
+            config.toFile().setReadOnly();
+            directory.toFile().setReadOnly();
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 不写配置文件的配置管理器，修改只保存在内存中
+     */
+    private static final class InMemoryConfigManager extends ConfigManager {
+        private InMemoryConfigManager() {
+            super(DATA_DIRECTORY, IO_EXECUTOR, LOGGER);
+        }
+
+        @Override
+        public void saveConfig() {
+        }
+
+        @Override
+        public CompletableFuture<Void> saveConfigAsync() {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * 只记录任务创建和取消的代理服务器，任务不会真正执行
+     */
+    static final class FakeScheduler {
+        // 已调度且尚未取消的任务数
+        final AtomicInteger active = new AtomicInteger();
+        final ProxyServer proxyServer;
+
+        FakeScheduler() {
+            Scheduler scheduler = proxy(Scheduler.class, (self, method, args) -> {
+                if ("buildTask".equals(method.getName())) {
+                    return taskBuilder();
+                }
+                return null;
+            });
+            this.proxyServer = proxy(ProxyServer.class,
+                (self, method, args) -> "getScheduler".equals(method.getName()) ? scheduler : null);
+        }
+
+        private Scheduler.TaskBuilder taskBuilder() {
+            return proxy(Scheduler.TaskBuilder.class, (builder, method, args) -> {
+                if ("schedule".equals(method.getName())) {
+                    active.incrementAndGet();
+                    return scheduledTask();
+                }
+                // delay、repeat 等配置方法返回构建器本身
+                return method.getReturnType().isInstance(builder) ? builder : null;
+            });
+        }
+
+        private ScheduledTask scheduledTask() {
+            AtomicInteger cancelled = new AtomicInteger();
+            return proxy(ScheduledTask.class, (task, method, args) -> {
+                switch (method.getName()) {
+                    case "cancel":
+                        if (cancelled.compareAndSet(0, 1)) {
+                            active.decrementAndGet();
+                        }
+                        return null;
+                    case "status":
+                        return cancelled.get() == 0 ? TaskStatus.SCHEDULED : TaskStatus.CANCELLED;
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+                if (method.getDeclaringClass() == Object.class) {
+                    // 按对象身份比较，供日志和集合使用
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "equals":
+                            return self == args[0];
+                        default:
+                            return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                    }
+                }
+                return handler.invoke(self, method, args);
+            });
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.plugin.listtools;
+
+import java.util.*;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Supplier;
+
+/**
+ * 白名单的线性一致性检查器
+ * 多个线程同时对一个白名单实现随机执行添加、移除和查询，记录每个操作的开始、结束时间和结果，
+ * 再搜索是否存在一个与实时顺序相容、且每个结果都符合集合语义的串行执行顺序（Wing &amp; Gong 算法，按已线性化的操作和集合状态记忆）
+ *
+ * 替换白名单存储引擎时，新实现通过 {@link Engine} 接入并必须通过 {@link #check(Supplier, int, long)}：
+ * <pre>
+ * mvn -P jcstress verify
+ * </pre>
+ */
+public final class WhitelistLinearizabilityChecker {
+    private static final int THREADS = 3;
+    private static final int OPERATIONS_PER_THREAD = 5;
+    private static final String[] KEYS = {"Alice", "Bob", "Carol"};
+    private static final int DEFAULT_ROUNDS = 2000;
+
+    private WhitelistLinearizabilityChecker() {
+    }
+
+    /**
+     * 被检查的白名单实现
+     */
+    public interface Engine {
+        /**
+         * @return 玩家原本不在白名单中、本次添加成功时返回true
+         */
+        boolean add(String playerName);
+
+        /**
+         * @return 玩家原本在白名单中、本次移除成功时返回true
+         */
+        boolean remove(String playerName);
+
+        boolean contains(String playerName);
+    }
+
+    /**
+     * 执行多轮随机并发操作并逐轮检查
+     * @param engines 每轮创建一个空白名单
+     * @param seed 随机种子，失败时可用同一种子重现操作序列
+     * @return 第一段无法线性化的历史，全部通过时返回null
+     */
+    public static List<Operation> check(Supplier<Engine> engines, int rounds, long seed) throws InterruptedException {
+        Random random = new Random(seed);
+        for (int round = 0; round < rounds; round++) {
+            List<Operation> history = record(engines.get(), random.nextLong());
+            if (!isLinearizable(history)) {
+                return history;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 检查历史是否可线性化，初始白名单为空
+     */
+    static boolean isLinearizable(List<Operation> history) {
+        if (history.size() > Long.SIZE - 8) {
+            throw new IllegalArgumentException("历史过长: " + history.size());
+        }
+        return search(history, 0L, 0, new HashSet<>());
+    }
+
+    /**
+     * @param done 已线性化的操作
+     * @param state 当前集合状态，第 i 位表示 KEYS[i] 是否在白名单中
+     * @param failed 已证明无法完成的 (done, state) 组合
+     */
+    private static boolean search(List<Operation> history, long done, int state, Set<Long> failed) {
+        if (Long.bitCount(done) == history.size()) {
+            return true;
+        }
+        long memo = done << 8 | state;
+        if (failed.contains(memo)) {
+            return false;
+        }
+
+        // 只有在所有未线性化操作中最早结束者之前开始的操作才能排在下一个
+        long earliestReturn = Long.MAX_VALUE;
+        for (int i = 0; i < history.size(); i++) {
+            if ((done & 1L << i) == 0) {
+                earliestReturn = Math.min(earliestReturn, history.get(i).returnedAt);
+            }
+        }
+        for (int i = 0; i < history.size(); i++) {
+            Operation operation = history.get(i);
+            if ((done & 1L << i) != 0 || operation.invokedAt > earliestReturn) {
+                continue;
+            }
+            int bit = 1 << operation.key;
+            boolean present = (state & bit) != 0;
+            boolean expected;
+            int next;
+            switch (operation.kind) {
+                case ADD:
+                    expected = !present;
+                    next = state | bit;
+                    break;
+                case REMOVE:
+                    expected = present;
+                    next = state & ~bit;
+                    break;
+                default:
+                    expected = present;
+                    next = state;
+                    break;
+            }
+            if (expected == operation.result && search(history, done | 1L << i, next, failed)) {
+                return true;
+            }
+        }
+        failed.add(memo);
+        return false;
+    }
+
+    /**
+     * 让各线程同时开始，对同一个实现执行随机操作并记录历史
+     */
+    private static List<Operation> record(Engine engine, long seed) throws InterruptedException {
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        List<List<Operation>> perThread = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(seed + t);
+            List<Operation> operations = new ArrayList<>();
+            perThread.add(operations);
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    return;
+                }
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    Kind kind = Kind.values()[random.nextInt(Kind.values().length)];
+                    int key = random.nextInt(KEYS.length);
+                    long invokedAt = System.nanoTime();
+                    boolean result;
+                    switch (kind) {
+                        case ADD:
+                            result = engine.add(KEYS[key]);
+                            break;
+                        case REMOVE:
+                            result = engine.remove(KEYS[key]);
+                            break;
+                        default:
+                            result = engine.contains(KEYS[key]);
+                            break;
+                    }
+                    operations.add(new Operation(thread, kind, key, result, invokedAt, System.nanoTime()));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        List<Operation> history = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            threads.get(t).join();
+            history.addAll(perThread.get(t));
+        }
+        return history;
+    }
+
+    /**
+     * 检查 {@link WhitelistManager}，失败时打印无法线性化的历史并以非零状态退出
+     * 参数依次为轮数和随机种子
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROUNDS;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        List<Operation> failure = check(() -> {
+            WhitelistManager whitelist = StressFixture.whitelist(List.of());
+            return new Engine() {
+                public boolean add(String playerName) {
+                    return whitelist.addPlayer(playerName);
+                }
+
+                public boolean remove(String playerName) {
+                    return whitelist.removePlayer(playerName);
+                }
+
+                public boolean contains(String playerName) {
+                    return whitelist.isWhitelisted(playerName);
+                }
+            };
+        }, rounds, seed);
+
+        if (failure != null) {
+            System.err.println("WhitelistManager 的历史无法线性化（种子 " + seed + "）:");
+            for (Operation operation : failure) {
+                System.err.println("  " + operation);
+            }
+            System.exit(1);
+        }
+        System.out.println("WhitelistManager 通过 " + rounds + " 轮线性一致性检查（种子 " + seed + "）");
+        StressFixture.IO_EXECUTOR.shutdown(5000);
+    }
+
+    enum Kind {
+        ADD, REMOVE, CONTAINS
+    }
+
+    /**
+     * 历史中的一个操作
+     */
+    public static final class Operation {
+        private final int thread;
+        private final Kind kind;
+        private final int key;
+        private final boolean result;
+        private final long invokedAt;
+        private final long returnedAt;
+
+        Operation(int thread, Kind kind, int key, boolean result, long invokedAt, long returnedAt) {
+            this.thread = thread;
+            this.kind = kind;
+            this.key = key;
+            this.result = result;
+            this.invokedAt = invokedAt;
+            this.returnedAt = returnedAt;
+        }
+
+        @Override
+        public String toString() {
+            return "线程" + thread + " " + kind + "(" + KEYS[key] + ") = " + result + " [" + invokedAt + ", " + returnedAt + "]";
+        }
+    }
+}
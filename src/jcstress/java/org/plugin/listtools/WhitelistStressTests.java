@@ -0,0 +1,173 @@
+package org.plugin.listtools;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.II_Result;
+import org.openjdk.jcstress.infra.results.III_Result;
+import org.openjdk.jcstress.infra.results.IIII_Result;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * {@link WhitelistManager} 的并发测试
+ * 结果中 1 表示在白名单中（或一致），0 表示不在
+ */
+public class WhitelistStressTests {
+
+    private WhitelistStressTests() {
+    }
+
+    private static int bit(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    /**
+     * 读取与写入竞争：同一个快照中的成员和人数必须对应同一个版本
+     */
+    @JCStressTest
+    @Description("读取快照时并发添加玩家")
+    @Outcome(id = "0, 1", expect = ACCEPTABLE, desc = "读取发生在添加之前")
+    @Outcome(id = "1, 2", expect = ACCEPTABLE, desc = "读取发生在添加之后")
+    @Outcome(expect = FORBIDDEN, desc = "快照中的成员与人数不属于同一版本")
+    @State
+    public static class ReadRacingWrite {
+        private final WhitelistManager whitelist = StressFixture.whitelist(List.of("Alice"));
+
+        @Actor
+        public void writer() {
+            whitelist.addPlayer("Bob");
+        }
+
+        @Actor
+        public void reader(II_Result r) {
+            WhitelistSnapshot snapshot = whitelist.getSnapshot();
+            r.r1 = bit(snapshot.contains("Bob"));
+            r.r2 = snapshot.size();
+        }
+    }
+
+    /**
+     * 连续两次读取不会看到已发布的修改消失
+     */
+    @JCStressTest
+    @Description("连续读取时并发添加玩家")
+    @Outcome(id = "0, 0", expect = ACCEPTABLE, desc = "两次读取都在添加之前")
+    @Outcome(id = "0, 1", expect = ACCEPTABLE_INTERESTING, desc = "添加发生在两次读取之间")
+    @Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "两次读取都在添加之后")
+    @Outcome(id = "1, 0", expect = FORBIDDEN, desc = "已看到的修改又消失")
+    @State
+    public static class MonotonicReads {
+        private final WhitelistManager whitelist = StressFixture.whitelist(List.of("Alice"));
+
+        @Actor
+        public void writer() {
+            whitelist.addPlayer("Bob");
+        }
+
+        @Actor
+        public void reader(II_Result r) {
+            r.r1 = bit(whitelist.isWhitelisted("Bob"));
+            r.r2 = bit(whitelist.isWhitelisted("Bob"));
+        }
+    }
+
+    /**
+     * 批量添加与批量移除竞争：每次批量操作整体生效，
+     * 结束后内存中的白名单与待保存的配置一致
+     * 结果依次为 Bob、Carol 是否在白名单中，Dave 是否在白名单中，配置是否与白名单一致
+     */
+    @JCStressTest
+    @Description("批量添加与批量移除重叠的玩家")
+    @Outcome(id = "0, 0, 0, 1", expect = ACCEPTABLE, desc = "先添加后移除")
+    @Outcome(id = "1, 1, 0, 1", expect = ACCEPTABLE, desc = "先移除后添加")
+    @Outcome(expect = FORBIDDEN, desc = "批量操作交错执行或配置与白名单不一致")
+    @State
+    public static class BulkAddRacingRemove {
+        private final ConfigManager configManager = StressFixture.config(List.of("Alice", "Dave"));
+        private final WhitelistManager whitelist =
+            new WhitelistManager(configManager, StressFixture.IO_EXECUTOR, StressFixture.LOGGER);
+
+        @Actor
+        public void adder() {
+            whitelist.addPlayers(List.of("Bob", "Carol"));
+        }
+
+        @Actor
+        public void remover() {
+            whitelist.removePlayers(List.of("Bob", "Carol", "Dave"));
+        }
+
+        @Arbiter
+        public void arbiter(IIII_Result r) {
+            WhitelistSnapshot snapshot = whitelist.getSnapshot();
+            r.r1 = bit(snapshot.contains("Bob"));
+            r.r2 = bit(snapshot.contains("Carol"));
+            r.r3 = bit(snapshot.contains("Dave"));
+            r.r4 = bit(new HashSet<>(snapshot.getPlayers()).equals(new HashSet<>(configManager.getWhitelist())));
+        }
+    }
+
+    /**
+     * 批量操作进行中的读取者只能看到操作前或操作后的白名单
+     */
+    @JCStressTest
+    @Description("读取快照时并发批量添加")
+    @Outcome(id = "0, 0", expect = ACCEPTABLE, desc = "读取发生在批量添加之前")
+    @Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "读取发生在批量添加之后")
+    @Outcome(expect = FORBIDDEN, desc = "看到了批量添加的中间状态")
+    @State
+    public static class BulkAddAtomicity {
+        private final WhitelistManager whitelist = StressFixture.whitelist(List.of("Alice"));
+
+        @Actor
+        public void adder() {
+            whitelist.addPlayers(List.of("Bob", "Carol"));
+        }
+
+        @Actor
+        public void reader(II_Result r) {
+            WhitelistSnapshot snapshot = whitelist.getSnapshot();
+            r.r1 = bit(snapshot.contains("Bob"));
+            r.r2 = bit(snapshot.contains("Carol"));
+        }
+    }
+
+    /**
+     * 重载配置与查询竞争：配置中的白名单已从 [Alice, Bob] 改为 [Alice, Carol]，
+     * 查询只能看到重载前或重载后的白名单，两者都有的 Alice 始终在白名单中
+     * 结果依次为 Bob、Carol、Alice 是否在白名单中
+     */
+    @JCStressTest
+    @Description("查询时并发重载白名单")
+    @Outcome(id = "1, 0, 1", expect = ACCEPTABLE, desc = "查询发生在重载之前")
+    @Outcome(id = "0, 1, 1", expect = ACCEPTABLE, desc = "查询发生在重载之后")
+    @Outcome(expect = FORBIDDEN, desc = "看到了重载的中间状态")
+    @State
+    public static class RefreshDuringLookup {
+        private final WhitelistManager whitelist;
+
+        public RefreshDuringLookup() {
+            ConfigManager configManager = StressFixture.config(List.of("Alice", "Bob"));
+            whitelist = new WhitelistManager(configManager, StressFixture.IO_EXECUTOR, StressFixture.LOGGER);
+            // 模拟管理员修改了配置文件，尚未重载
+            configManager.setWhitelist(List.of("Alice", "Carol"));
+        }
+
+        @Actor
+        public void refresher() {
+            whitelist.refreshCache();
+        }
+
+        @Actor
+        public void reader(III_Result r) {
+            WhitelistSnapshot snapshot = whitelist.getSnapshot();
+            r.r1 = bit(snapshot.contains("Bob"));
+            r.r2 = bit(snapshot.contains("Carol"));
+            r.r3 = bit(whitelist.isWhitelisted("Alice"));
+        }
+    }
+}
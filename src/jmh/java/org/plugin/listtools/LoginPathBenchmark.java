@@ -0,0 +1,145 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.event.EventTask;
+import com.velocitypowered.api.event.connection.PreLoginEvent;
+import com.velocitypowered.api.proxy.InboundConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 登录前检查的分配基准
+ * 按插件启动时的方式组装各组件，分别测量白名单玩家和非白名单玩家从 PreLoginEvent 到结论的完整路径。
+ *
+ * 通过 main 方法运行时附带 GC 分析器，任一基准每次操作分配超过 {@link #MAX_BYTES_PER_OP} 字节即以非零状态退出：
+ * <pre>
+ * mvn -P benchmark verify
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginPathBenchmark {
+    // 允许的测量误差：GC 分析器统计所有线程的分配，后台线程在一次迭代中的少量分配平摊到数百万次操作上，
+    // 不分配的操作也会得到 0.01~0.1 的值；而每次操作只要分配一个对象就至少是 16 字节
+    private static final double MAX_BYTES_PER_OP = 0.5;
+    private static final int WHITELIST_SIZE = 10000;
+
+    private Path dataDirectory;
+    private IoExecutor ioExecutor;
+    private PlayerConnectionListener listener;
+    private PreLoginEvent allowedEvent;
+    private PreLoginEvent deniedEvent;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("listtools-benchmark");
+        StringBuilder config = new StringBuilder("enabled: true\nwhitelist:\n");
+        for (int i = 0; i < WHITELIST_SIZE; i++) {
+            config.append("  - Player").append(i).append('\n');
+        }
+        Files.write(dataDirectory.resolve("config.yml"), config.toString().getBytes(StandardCharsets.UTF_8));
+
+        Logger logger = NOPLogger.NOP_LOGGER;
+        ioExecutor = new IoExecutor(logger);
+        ConfigManager configManager = new ConfigManager(dataDirectory, ioExecutor, logger);
+        configManager.loadConfig();
+        WhitelistManager whitelistManager = new WhitelistManager(configManager, ioExecutor, logger);
+        GroupManager groupManager = new GroupManager(configManager, whitelistManager, logger);
+        PatternRuleManager patternRuleManager = new PatternRuleManager(configManager, logger);
+        IpRuleManager ipRuleManager = new IpRuleManager(configManager, logger);
+        AccessWindowManager accessWindowManager = new AccessWindowManager(configManager, groupManager, logger);
+        AccessPolicy accessPolicy = new AccessPolicy(whitelistManager, groupManager, patternRuleManager,
+                                                     ipRuleManager, accessWindowManager);
+
+        AdmissionPipeline admissionPipeline = new AdmissionPipeline(accessPolicy, logger);
+        DefaultAdmissionStages.registerAll(admissionPipeline, configManager, whitelistManager, groupManager,
+                                           patternRuleManager, ipRuleManager, accessWindowManager,
+                                           new LoginRateLimitStage(configManager),
+                                           new ExternalCheckStage(configManager, ioExecutor, logger));
+        // 未启动维护任务，不需要代理服务器
+        AdmissionController admissionController = new AdmissionController(configManager, groupManager, null, logger, this);
+        ServerAccessManager serverAccessManager = new ServerAccessManager(configManager, whitelistManager, logger);
+        LastSeenTracker lastSeenTracker = new LastSeenTracker(dataDirectory, whitelistManager, ioExecutor, logger);
+        listener = new PlayerConnectionListener(configManager, whitelistManager, admissionPipeline,
+                                                admissionController, accessPolicy, serverAccessManager,
+                                                lastSeenTracker, logger);
+
+        InetSocketAddress remote = new InetSocketAddress("203.0.113.7", 25565);
+        InboundConnection connection = (InboundConnection) Proxy.newProxyInstance(
+            InboundConnection.class.getClassLoader(), new Class<?>[]{InboundConnection.class},
+            (proxy, method, args) -> "getRemoteAddress".equals(method.getName()) ? remote : null);
+        allowedEvent = new PreLoginEvent(connection, "Player4242");
+        deniedEvent = new PreLoginEvent(connection, "Stranger");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ioExecutor.shutdown(1000);
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public EventTask allowed() {
+        allowedEvent.setResult(PreLoginEvent.PreLoginComponentResult.allowed());
+        return listener.onPreLogin(allowedEvent);
+    }
+
+    @Benchmark
+    public EventTask denied() {
+        // 重置为放行，否则监听器会把事件视为已被其他插件拒绝
+        deniedEvent.setResult(PreLoginEvent.PreLoginComponentResult.allowed());
+        return listener.onPreLogin(deniedEvent);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(LoginPathBenchmark.class.getName())
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        boolean failed = false;
+        for (RunResult result : new Runner(options).run()) {
+            String benchmark = result.getParams().getBenchmark();
+            Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (allocation == null) {
+                System.err.println(benchmark + ": 没有得到分配数据");
+                failed = true;
+                continue;
+            }
+            System.out.printf("%s: %.4f B/op%n", benchmark, allocation.getScore());
+            if (allocation.getScore() > MAX_BYTES_PER_OP) {
+                System.err.println(benchmark + ": 登录路径每次分配 " + allocation.getScore() + " 字节，超过 " +
+                                   MAX_BYTES_PER_OP);
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.proxy.Player;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 访问策略
+ * 汇总IP规则、访问时间窗口、白名单、分组规则和模式规则，判断玩家是否允许留在代理中
+ * 自动检查和踢出队列复查都通过此处判断；登录准入流水线的内置阶段使用相同的顺序，保证各处结论一致
+ */
+public class AccessPolicy {
+    private final WhitelistManager whitelistManager;
+    private final GroupManager groupManager;
+    private final PatternRuleManager patternRuleManager;
+    private final IpRuleManager ipRuleManager;
+    private final AccessWindowManager accessWindowManager;
+    private final Set<String> sessionGrants;
+
+    public AccessPolicy(WhitelistManager whitelistManager, GroupManager groupManager,
+                        PatternRuleManager patternRuleManager, IpRuleManager ipRuleManager,
+                        AccessWindowManager accessWindowManager) {
+        this.whitelistManager = whitelistManager;
+        this.groupManager = groupManager;
+        this.patternRuleManager = patternRuleManager;
+        this.ipRuleManager = ipRuleManager;
+        this.accessWindowManager = accessWindowManager;
+        this.sessionGrants = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * 复查在线玩家是否仍被允许，不记录IP规则命中
+     * 判断顺序与登录准入流水线的内置阶段一致，内置规则都未给出结论时，
+     * 由外部准入阶段放行的玩家在本次会话中仍视为已授权
+     */
+    public boolean isStillAllowed(Player player) {
+        InetSocketAddress remote = player.getRemoteAddress();
+        IpRuleManager.IpRule ipRule = ipRuleManager.find(remote != null ? remote.getAddress() : null);
+        if (ipRule != null) {
+            return ipRule.isAllow();
+        }
+        String playerName = player.getUsername();
+        Boolean decision = decide(playerName);
+        return decision != null ? decision : sessionGrants.contains(playerName);
+    }
+
+    /**
+     * 按玩家名检查是否被允许
+     * 配置了时间窗口的玩家在窗口关闭时直接拒绝；
+     * 其余情况精确白名单优先，其次是分组规则，最后按顺序匹配模式规则
+     */
+    public boolean isAllowed(String playerName) {
+        return Boolean.TRUE.equals(decide(playerName));
+    }
+
+    /**
+     * 记录由外部准入阶段放行的玩家，直到其断开连接
+     */
+    public void grantSession(String playerName) {
+        if (playerName != null) {
+            sessionGrants.add(playerName);
+        }
+    }
+
+    /**
+     * 移除玩家的会话授权
+     */
+    public void revokeSession(String playerName) {
+        if (playerName != null) {
+            sessionGrants.remove(playerName);
+        }
+    }
+
+    /**
+     * 按玩家名规则判断
+     * @return 放行为 true，拒绝为 false，没有任何规则给出结论时返回 null
+     */
+    private Boolean decide(String playerName) {
+        if (!accessWindowManager.isWithinWindow(playerName)) {
+            return false;
+        }
+        if (whitelistManager.isWhitelisted(playerName) || groupManager.isAllowed(playerName)) {
+            return true;
+        }
+        PatternRuleManager.PatternRule rule = patternRuleManager.match(playerName);
+        return rule != null ? rule.isAllow() : null;
+    }
+
+    /**
+     * 获取策略版本号
+     * 任一组成部分变化时都会增大，用于判断是否需要重新检查在线玩家
+     */
+    public long getVersion() {
+        return whitelistManager.getVersion() + groupManager.getVersion() + patternRuleManager.getVersion()
+            + ipRuleManager.getVersion() + accessWindowManager.getVersion();
+    }
+}
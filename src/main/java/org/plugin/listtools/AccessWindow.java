@@ -0,0 +1,172 @@
+package org.plugin.listtools;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 每周重复的访问时间窗口
+ * 格式为 "<星期> <开始>-<结束>"，例如 "Mon-Fri 08:00-16:00"、"Sat,Sun 10:00-22:00"、"daily 18:00-23:00"
+ * 结束时间早于开始时间表示跨越午夜，例如 "Fri 22:00-02:00" 持续到周六凌晨
+ */
+public class AccessWindow {
+    private static final String[] DAY_NAMES = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+
+    private final String source;
+    // 第 i 位表示星期 i+1（周一为第0位）
+    private final int dayMask;
+    private final LocalTime start;
+    private final long durationMinutes;
+
+    private AccessWindow(String source, int dayMask, LocalTime start, long durationMinutes) {
+        this.source = source;
+        this.dayMask = dayMask;
+        this.start = start;
+        this.durationMinutes = durationMinutes;
+    }
+
+    /**
+     * 解析时间窗口
+     * @throws IllegalArgumentException 格式无效时抛出
+     */
+    public static AccessWindow parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("时间窗口为空");
+        }
+        String[] parts = text.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("格式应为 \"<星期> <开始>-<结束>\"，例如 Mon-Fri 08:00-16:00");
+        }
+
+        int dayMask = parseDays(parts[0]);
+        String[] times = parts[1].split("-");
+        if (times.length != 2) {
+            throw new IllegalArgumentException("无效的时间段: " + parts[1]);
+        }
+        LocalTime start = parseTime(times[0]);
+        LocalTime end = parseTime(times[1]);
+
+        long startMinute = start.getHour() * 60L + start.getMinute();
+        long endMinute = end.getHour() * 60L + end.getMinute();
+        long duration = endMinute > startMinute ? endMinute - startMinute : endMinute + 1440 - startMinute;
+        return new AccessWindow(parts[0] + " " + parts[1], dayMask, start, duration);
+    }
+
+    /**
+     * 检查某一时刻是否处于窗口内
+     */
+    public boolean isOpen(long epochMillis, ZoneId zone) {
+        LocalDate today = ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone).toLocalDate();
+        // 前一天开始的窗口可能跨越午夜持续到今天
+        for (LocalDate date = today.minusDays(1); !date.isAfter(today); date = date.plusDays(1)) {
+            if (!appliesTo(date)) {
+                continue;
+            }
+            ZonedDateTime opensAt = ZonedDateTime.of(date, start, zone);
+            long openMillis = opensAt.toInstant().toEpochMilli();
+            long closeMillis = opensAt.plusMinutes(durationMinutes).toInstant().toEpochMilli();
+            if (epochMillis >= openMillis && epochMillis < closeMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 收集 [from, to) 区间内的所有开始和结束时刻
+     */
+    public void collectBoundaries(long from, long to, ZoneId zone, List<Long> boundaries) {
+        LocalDate first = ZonedDateTime.ofInstant(Instant.ofEpochMilli(from), zone).toLocalDate().minusDays(1);
+        LocalDate last = ZonedDateTime.ofInstant(Instant.ofEpochMilli(to), zone).toLocalDate();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            if (!appliesTo(date)) {
+                continue;
+            }
+            ZonedDateTime opensAt = ZonedDateTime.of(date, start, zone);
+            long openMillis = opensAt.toInstant().toEpochMilli();
+            long closeMillis = opensAt.plusMinutes(durationMinutes).toInstant().toEpochMilli();
+            if (openMillis >= from && openMillis < to) {
+                boundaries.add(openMillis);
+            }
+            if (closeMillis >= from && closeMillis < to) {
+                boundaries.add(closeMillis);
+            }
+        }
+    }
+
+    /**
+     * 获取窗口的原始文本
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private boolean appliesTo(LocalDate date) {
+        return (dayMask & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+    }
+
+    /**
+     * 解析星期部分，支持 daily、*、单个星期、逗号分隔的列表和范围（如 Mon-Fri、Fri-Mon）
+     */
+    private static int parseDays(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        if ("daily".equals(lower) || "*".equals(lower)) {
+            return 0x7F;
+        }
+
+        int mask = 0;
+        for (String item : lower.split(",")) {
+            String[] range = item.split("-");
+            if (range.length == 1) {
+                mask |= 1 << dayIndex(range[0]);
+            } else if (range.length == 2) {
+                int from = dayIndex(range[0]);
+                int to = dayIndex(range[1]);
+                for (int day = from; ; day = (day + 1) % 7) {
+                    mask |= 1 << day;
+                    if (day == to) {
+                        break;
+                    }
+                }
+            } else {
+                throw new IllegalArgumentException("无效的星期: " + item);
+            }
+        }
+        return mask;
+    }
+
+    private static int dayIndex(String name) {
+        for (int i = 0; i < DAY_NAMES.length; i++) {
+            if (DAY_NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        try {
+            return DayOfWeek.valueOf(name.toUpperCase(Locale.ROOT)).getValue() - 1;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的星期: " + name);
+        }
+    }
+
+    private static LocalTime parseTime(String text) {
+        if ("24:00".equals(text)) {
+            return LocalTime.MIDNIGHT;
+        }
+        try {
+            return LocalTime.parse(text.length() == 4 ? "0" + text : text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的时间: " + text);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 访问时间窗口管理器
+ * 为单个玩家或整个分组配置每周重复的时间窗口，配置了窗口的玩家只能在窗口开放时进入代理
+ *
+ * 所有窗口的开始和结束时刻预先编译成一条有序时间线，只有到达时间线上的边界时才重新计算开放状态，
+ * 登录检查只读取已发布的开放状态，无需加锁
+ */
+public class AccessWindowManager {
+    // 分组目标的前缀，例如 group:students
+    public static final String GROUP_PREFIX = "group:";
+    // 时间线覆盖的时长，用尽后向后延展
+    private static final long HORIZON_MS = 8L * 24 * 60 * 60 * 1000;
+
+    private final ConfigManager configManager;
+    private final GroupManager groupManager;
+    private final Logger logger;
+    private final Object writeLock;
+    private final AtomicLong version;
+    private volatile Schedule schedule;
+    private volatile Set<String> openTargets;
+    // 以下字段只在持有写锁时访问
+    private final TreeSet<Long> timeline;
+    private long timelineEnd;
+
+    public AccessWindowManager(ConfigManager configManager, GroupManager groupManager, Logger logger) {
+        this.configManager = configManager;
+        this.groupManager = groupManager;
+        this.logger = logger;
+        this.writeLock = new Object();
+        this.version = new AtomicLong();
+        this.schedule = new Schedule(Collections.emptyMap(), ZoneId.systemDefault());
+        this.openTargets = Collections.emptySet();
+        this.timeline = new TreeSet<>();
+
+        refresh();
+    }
+
+    /**
+     * 从配置重新加载时间窗口并重新编译时间线
+     */
+    public void refresh() {
+        synchronized (writeLock) {
+            Map<String, List<AccessWindow>> loaded = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : configManager.getAccessWindows().entrySet()) {
+                List<AccessWindow> windows = new ArrayList<>();
+                for (String text : entry.getValue()) {
+                    try {
+                        windows.add(AccessWindow.parse(text));
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("忽略 {} 的无效时间窗口 \"{}\": {}", entry.getKey(), text, e.getMessage());
+                    }
+                }
+                if (!windows.isEmpty()) {
+                    loaded.put(entry.getKey(), windows);
+                }
+            }
+            publish(new Schedule(loaded, configManager.getAccessWindowZone()));
+            logger.debug("时间窗口已刷新，共 {} 个目标", loaded.size());
+        }
+    }
+
+    /**
+     * 检查玩家当前是否处于允许的时间窗口内
+     * 没有配置窗口的玩家总是返回 true；配置了多个窗口（本人或所在分组）时，任一窗口开放即可
+     */
+    public boolean isWithinWindow(String playerName) {
+        Schedule current = schedule;
+        if (current.windows.isEmpty() || playerName == null) {
+            return true;
+        }
+
+        Set<String> open = openTargets;
+        boolean restricted = false;
+        if (current.windows.containsKey(playerName)) {
+            if (open.contains(playerName)) {
+                return true;
+            }
+            restricted = true;
+        }
+        for (int i = 0; i < current.groups.size(); i++) {
+            if (groupManager.isMember(current.groups.get(i), playerName)) {
+                if (open.contains(current.groupTargets.get(i))) {
+                    return true;
+                }
+                restricted = true;
+            }
+        }
+        return !restricted;
+    }
+
+    /**
+     * 推进到指定时刻，重新计算越过边界的开放状态
+     * @return 从开放变为关闭的目标，玩家名或 group:分组名
+     */
+    public List<String> advance(long now) {
+        synchronized (writeLock) {
+            SortedSet<Long> passed = timeline.headSet(now, true);
+            if (passed.isEmpty()) {
+                return Collections.emptyList();
+            }
+            passed.clear();
+            if (timeline.isEmpty()) {
+                extendTimeline(now);
+            }
+
+            Set<String> previous = openTargets;
+            Set<String> updated = computeOpen(schedule, now);
+            openTargets = updated;
+
+            List<String> closed = new ArrayList<>();
+            for (String target : previous) {
+                if (!updated.contains(target)) {
+                    closed.add(target);
+                }
+            }
+            return closed;
+        }
+    }
+
+    /**
+     * 获取下一个边界时刻
+     * @return 毫秒时间戳，没有任何窗口时返回 -1
+     */
+    public long getNextBoundary() {
+        synchronized (writeLock) {
+            return timeline.isEmpty() ? -1 : timeline.first();
+        }
+    }
+
+    /**
+     * 为目标添加时间窗口
+     * @param target 玩家名或 group:分组名
+     * @throws IllegalArgumentException 时间窗口格式无效时抛出
+     */
+    public AccessWindow addWindow(String target, String text) {
+        AccessWindow window = AccessWindow.parse(text);
+        synchronized (writeLock) {
+            Map<String, List<AccessWindow>> updated = copyWindows();
+            updated.computeIfAbsent(target, key -> new ArrayList<>()).add(window);
+            publish(new Schedule(updated, schedule.zone));
+            save();
+        }
+        logger.info("已为 {} 添加时间窗口: {}", target, window);
+        return window;
+    }
+
+    /**
+     * 移除目标的时间窗口
+     * @param index 窗口序号，从1开始；小于1时移除该目标的全部窗口
+     * @return 移除的窗口数量
+     */
+    public int removeWindow(String target, int index) {
+        synchronized (writeLock) {
+            Map<String, List<AccessWindow>> updated = copyWindows();
+            List<AccessWindow> windows = updated.get(target);
+            if (windows == null) {
+                return 0;
+            }
+
+            int removed;
+            if (index < 1) {
+                removed = windows.size();
+                updated.remove(target);
+            } else if (index <= windows.size()) {
+                windows.remove(index - 1);
+                removed = 1;
+                if (windows.isEmpty()) {
+                    updated.remove(target);
+                }
+            } else {
+                return 0;
+            }
+
+            publish(new Schedule(updated, schedule.zone));
+            save();
+            logger.info("已移除 {} 的 {} 个时间窗口", target, removed);
+            return removed;
+        }
+    }
+
+    /**
+     * 获取所有目标的时间窗口
+     */
+    public Map<String, List<AccessWindow>> getWindows() {
+        return schedule.windows;
+    }
+
+    /**
+     * 检查目标当前是否开放
+     */
+    public boolean isOpen(String target) {
+        return openTargets.contains(target);
+    }
+
+    /**
+     * 获取窗口配置版本号，只在窗口增删或重载时递增，边界切换不改变版本
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 发布新的窗口配置，重新计算开放状态并重建时间线
+     * 调用方需持有写锁
+     */
+    private void publish(Schedule updated) {
+        long now = System.currentTimeMillis();
+        schedule = updated;
+        openTargets = computeOpen(updated, now);
+        timeline.clear();
+        timelineEnd = now;
+        extendTimeline(now);
+        version.incrementAndGet();
+    }
+
+    /**
+     * 将时间线向后延展一个周期，直到其中至少有一个边界或没有任何窗口
+     * 调用方需持有写锁
+     */
+    private void extendTimeline(long now) {
+        Schedule current = schedule;
+        if (current.windows.isEmpty()) {
+            return;
+        }
+
+        long from = Math.max(timelineEnd, now + 1);
+        // 每个窗口每周至少有一个边界，最多延展两个周期即可找到
+        for (int attempt = 0; attempt < 2 && timeline.isEmpty(); attempt++) {
+            long to = from + HORIZON_MS;
+            List<Long> boundaries = new ArrayList<>();
+            for (List<AccessWindow> windows : current.windows.values()) {
+                for (AccessWindow window : windows) {
+                    window.collectBoundaries(from, to, current.zone, boundaries);
+                }
+            }
+            timeline.addAll(boundaries);
+            timelineEnd = to;
+            from = to;
+        }
+    }
+
+    private static Set<String> computeOpen(Schedule current, long now) {
+        Set<String> open = new HashSet<>();
+        for (Map.Entry<String, List<AccessWindow>> entry : current.windows.entrySet()) {
+            for (AccessWindow window : entry.getValue()) {
+                if (window.isOpen(now, current.zone)) {
+                    open.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableSet(open);
+    }
+
+    private Map<String, List<AccessWindow>> copyWindows() {
+        Map<String, List<AccessWindow>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<AccessWindow>> entry : schedule.windows.entrySet()) {
+            copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * 保存时间窗口到配置
+     * 调用方需持有写锁
+     */
+    private void save() {
+        Map<String, List<String>> persisted = new LinkedHashMap<>();
+        for (Map.Entry<String, List<AccessWindow>> entry : schedule.windows.entrySet()) {
+            List<String> texts = new ArrayList<>();
+            for (AccessWindow window : entry.getValue()) {
+                texts.add(window.getSource());
+            }
+            persisted.put(entry.getKey(), texts);
+        }
+        configManager.setAccessWindows(persisted);
+        configManager.saveConfigAsync();
+    }
+
+    /**
+     * 某一时刻的全部窗口配置，发布后不再修改
+     */
+    private static class Schedule {
+        private final Map<String, List<AccessWindow>> windows;
+        // 配置了窗口的分组名，以及对应的带前缀的目标名
+        private final List<String> groups;
+        private final List<String> groupTargets;
+        private final ZoneId zone;
+
+        private Schedule(Map<String, List<AccessWindow>> windows, ZoneId zone) {
+            Map<String, List<AccessWindow>> copy = new LinkedHashMap<>();
+            List<String> groupNames = new ArrayList<>();
+            List<String> targets = new ArrayList<>();
+            for (Map.Entry<String, List<AccessWindow>> entry : windows.entrySet()) {
+                copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+                if (entry.getKey().startsWith(GROUP_PREFIX)) {
+                    groupNames.add(entry.getKey().substring(GROUP_PREFIX.length()));
+                    targets.add(entry.getKey());
+                }
+            }
+            this.windows = Collections.unmodifiableMap(copy);
+            this.groups = Collections.unmodifiableList(groupNames);
+            this.groupTargets = Collections.unmodifiableList(targets);
+            this.zone = zone;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问时间窗口边界任务
+ * 只调度一个单次任务，恰好在时间线上的下一个边界触发，窗口关闭时只踢出受影响的玩家，然后调度下一个边界
+ */
+public class AccessWindowTask {
+    // 单次等待的最长时间，系统时钟被调整后最迟在此时间内重新对齐
+    private static final long MAX_DELAY_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final ConfigManager configManager;
+    private final AccessWindowManager accessWindowManager;
+    private final GroupManager groupManager;
+    private final DisconnectQueue disconnectQueue;
+    private final ProxyServer proxyServer;
+    private final Logger logger;
+    private final Object plugin;
+    private ScheduledTask currentTask;
+    private boolean running;
+
+    public AccessWindowTask(ConfigManager configManager, AccessWindowManager accessWindowManager,
+                            GroupManager groupManager, DisconnectQueue disconnectQueue,
+                            ProxyServer proxyServer, Logger logger, Object plugin) {
+        this.configManager = configManager;
+        this.accessWindowManager = accessWindowManager;
+        this.groupManager = groupManager;
+        this.disconnectQueue = disconnectQueue;
+        this.proxyServer = proxyServer;
+        this.logger = logger;
+        this.plugin = plugin;
+    }
+
+    /**
+     * 启动边界任务
+     */
+    public synchronized void start() {
+        running = true;
+        reschedule();
+    }
+
+    /**
+     * 停止边界任务
+     */
+    public synchronized void stop() {
+        running = false;
+        if (currentTask != null) {
+            currentTask.cancel();
+            currentTask = null;
+        }
+    }
+
+    /**
+     * 按当前时间线重新调度下一个边界
+     * 窗口配置变化后调用
+     */
+    public synchronized void reschedule() {
+        if (currentTask != null) {
+            currentTask.cancel();
+            currentTask = null;
+        }
+        if (!running) {
+            return;
+        }
+
+        long next = accessWindowManager.getNextBoundary();
+        if (next < 0) {
+            logger.debug("没有配置时间窗口，边界任务空闲");
+            return;
+        }
+        long delay = Math.max(0, Math.min(next - System.currentTimeMillis(), MAX_DELAY_MS));
+        currentTask = proxyServer.getScheduler()
+            .buildTask(plugin, this::fire)
+            .delay(delay, TimeUnit.MILLISECONDS)
+            .schedule();
+    }
+
+    /**
+     * 获取下一个边界的剩余时间
+     * @return 剩余毫秒数，没有时间窗口时返回 -1
+     */
+    public long getTimeUntilNextBoundary() {
+        long next = accessWindowManager.getNextBoundary();
+        return next < 0 ? -1 : Math.max(0, next - System.currentTimeMillis());
+    }
+
+    /**
+     * 到达边界：更新开放状态，踢出窗口刚关闭的在线玩家
+     */
+    private void fire() {
+        try {
+            List<String> closed = accessWindowManager.advance(System.currentTimeMillis());
+            if (!closed.isEmpty() && configManager.isEnabled()) {
+                Component kickComponent = Component.text(configManager.getKickMessage(), NamedTextColor.RED);
+                int queued = 0;
+                for (String target : closed) {
+                    queued += enqueueAffected(target, kickComponent);
+                }
+                logger.info("时间窗口已关闭: {}，{} 个在线玩家已加入踢出队列", closed, queued);
+            }
+        } catch (Exception e) {
+            logger.error("处理时间窗口边界时发生错误", e);
+        }
+        reschedule();
+    }
+
+    /**
+     * 将目标对应的在线玩家加入踢出队列
+     * 轮到玩家时会重新检查访问策略，仍有其他窗口开放的玩家会被跳过
+     */
+    private int enqueueAffected(String target, Component kickComponent) {
+        if (!target.startsWith(AccessWindowManager.GROUP_PREFIX)) {
+            return proxyServer.getPlayer(target)
+                .map(player -> {
+                    disconnectQueue.enqueue(player, kickComponent);
+                    return 1;
+                })
+                .orElse(0);
+        }
+
+        String group = target.substring(AccessWindowManager.GROUP_PREFIX.length());
+        List<String> members = groupManager.getMembers(group);
+        int queued = 0;
+        if (members.size() <= proxyServer.getPlayerCount()) {
+            for (String member : members) {
+                Player player = proxyServer.getPlayer(member).orElse(null);
+                if (player != null) {
+                    disconnectQueue.enqueue(player, kickComponent);
+                    queued++;
+                }
+            }
+        } else {
+            // 分组比在线人数还大时改为扫描在线玩家
+            for (Player player : proxyServer.getAllPlayers()) {
+                if (groupManager.isMember(group, player.getUsername())) {
+                    disconnectQueue.enqueue(player, kickComponent);
+                    queued++;
+                }
+            }
+        }
+        return queued;
+    }
+}
@@ -0,0 +1,420 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 登录容量控制器
+ * 限制同时处于登录过程中的玩家数量，超出部分按优先级分层排队，把重启后的重连风暴变成平稳的爬坡
+ *
+ * 每个优先级一条无锁队列，许可数用 CAS 维护。排队超过 login_queue_wait 的玩家会收到自己的排位并断开，
+ * 其位置保留 login_queue_reservation；轮到时若玩家不在线，则为其保留一个许可直到重新连接或保留到期
+ */
+public class AdmissionController {
+    // 登录许可的最长持有时间，超时未完成登录的许可会被回收
+    private static final long LEASE_MS = 30_000;
+    private static final long TICK_MS = 1000;
+
+    private static final int WAITING = 0;
+    private static final int RESERVED = 1;
+    private static final int DONE = 2;
+
+    private final ConfigManager configManager;
+    private final GroupManager groupManager;
+    private final ProxyServer proxyServer;
+    private final Logger logger;
+    private final Object plugin;
+    private final AtomicInteger inFlight;
+    private final ConcurrentHashMap<String, Long> leases;
+    private final ConcurrentHashMap<String, Waiter> waiters;
+    private volatile List<ConcurrentLinkedQueue<Waiter>> tiers;
+    private volatile List<String> priorityGroups;
+    private volatile ScheduledTask task;
+
+    public AdmissionController(ConfigManager configManager, GroupManager groupManager,
+                               ProxyServer proxyServer, Logger logger, Object plugin) {
+        this.configManager = configManager;
+        this.groupManager = groupManager;
+        this.proxyServer = proxyServer;
+        this.logger = logger;
+        this.plugin = plugin;
+        this.inFlight = new AtomicInteger();
+        this.leases = new ConcurrentHashMap<>();
+        this.waiters = new ConcurrentHashMap<>();
+        this.priorityGroups = List.of();
+        this.tiers = List.of(new ConcurrentLinkedQueue<>());
+
+        refresh();
+    }
+
+    /**
+     * 启动维护任务，回收超时的许可和过期的保留位置
+     */
+    public synchronized void start() {
+        if (task != null) {
+            return;
+        }
+        task = proxyServer.getScheduler()
+            .buildTask(plugin, this::tick)
+            .repeat(TICK_MS, TimeUnit.MILLISECONDS)
+            .schedule();
+    }
+
+    /**
+     * 停止维护任务并放行所有排队中的玩家
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Waiter waiter : waiters.values()) {
+            waiter.future.complete(Boolean.TRUE);
+        }
+        waiters.clear();
+        for (ConcurrentLinkedQueue<Waiter> queue : tiers) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * 从配置重新加载优先级分组
+     * 已在排队的玩家保留原来的优先级
+     */
+    public synchronized void refresh() {
+        List<String> groups = configManager.getLoginPriorityGroups();
+        List<ConcurrentLinkedQueue<Waiter>> current = tiers;
+        List<ConcurrentLinkedQueue<Waiter>> updated = new ArrayList<>();
+        for (int i = 0; i <= groups.size(); i++) {
+            updated.add(new ConcurrentLinkedQueue<>());
+        }
+        priorityGroups = List.copyOf(groups);
+        tiers = List.copyOf(updated);
+        // 先发布新队列再迁移，减少迁移期间入队到旧队列的玩家
+        for (ConcurrentLinkedQueue<Waiter> queue : current) {
+            Waiter waiter;
+            while ((waiter = queue.poll()) != null) {
+                updated.get(Math.min(waiter.tier, groups.size())).offer(waiter);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * 为已通过准入检查的玩家申请登录许可
+     * 白名单系统关闭时不限制登录，直接放行
+     * @return 获得许可时以 ALLOW 完成；等待超时时以带排位提示的拒绝完成
+     */
+    public CompletableFuture<AdmissionDecision> admit(String playerName) {
+        int capacity = configManager.getLoginMaxInFlight();
+        if (capacity <= 0 || !configManager.isEnabled()) {
+            return AdmissionDecision.ALLOW.toFuture();
+        }
+
+        Waiter existing = waiters.get(playerName);
+        if (existing != null) {
+            if (existing.state.compareAndSet(RESERVED, DONE)) {
+                // 轮到时不在线，使用为其保留的许可
+                waiters.remove(playerName, existing);
+                startLease(playerName);
+                logger.debug("玩家 {} 使用保留的登录许可", playerName);
+                return AdmissionDecision.ALLOW.toFuture();
+            }
+            if (existing.state.get() == WAITING) {
+                // 在保留期内重新连接，回到原来的位置继续等待
+                existing.attach();
+                if (existing.state.compareAndSet(RESERVED, DONE)) {
+                    // 重新连接的同时轮到了该玩家
+                    waiters.remove(playerName, existing);
+                    startLease(playerName);
+                    return AdmissionDecision.ALLOW.toFuture();
+                }
+                dispatch();
+                return await(existing);
+            }
+        }
+
+        if (isQueueEmpty() && tryAcquirePermit(capacity)) {
+            startLease(playerName);
+            return AdmissionDecision.ALLOW.toFuture();
+        }
+
+        Waiter waiter = new Waiter(playerName, tierOf(playerName));
+        waiters.put(playerName, waiter);
+        tiers.get(Math.min(waiter.tier, tiers.size() - 1)).offer(waiter);
+        dispatch();
+        return await(waiter);
+    }
+
+    /**
+     * 玩家完成登录或断开连接时归还许可
+     */
+    public void release(String playerName) {
+        if (leases.remove(playerName) != null) {
+            inFlight.decrementAndGet();
+            dispatch();
+        }
+    }
+
+    /**
+     * 获取正在登录的玩家数量
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * 获取排队中的玩家数量（含保留位置）
+     */
+    public int getQueuedCount() {
+        return waiters.size();
+    }
+
+    /**
+     * 等待许可，超时后计算排位并返回拒绝结果，位置继续保留
+     */
+    private CompletableFuture<AdmissionDecision> await(Waiter waiter) {
+        long waitMs = configManager.getLoginQueueWait();
+        CompletableFuture<Boolean> future = waiter.future;
+        future.completeOnTimeout(Boolean.FALSE, waitMs, TimeUnit.MILLISECONDS);
+        return future.thenApply(granted -> {
+            if (granted) {
+                return AdmissionDecision.ALLOW;
+            }
+            long reservationMs = configManager.getLoginQueueReservation();
+            waiter.detachedUntil = System.currentTimeMillis() + reservationMs;
+            int position = positionOf(waiter);
+            logger.info("玩家 {} 排队超时，当前排在第 {} 位", waiter.playerName, position);
+            String message = configManager.getLoginQueueMessage()
+                .replace("{position}", String.valueOf(position))
+                .replace("{time}", (reservationMs / 1000) + "秒");
+            return AdmissionDecision.deny(Component.text(message, NamedTextColor.YELLOW));
+        });
+    }
+
+    /**
+     * 在容量允许时按优先级依次放行
+     * 先取得许可再取队首，取不到玩家时归还许可并重新检查队列，避免与并发入队的玩家错过唤醒
+     */
+    private void dispatch() {
+        int capacity = configManager.getLoginMaxInFlight();
+        if (capacity <= 0 || !configManager.isEnabled()) {
+            releaseAll();
+            return;
+        }
+        while (true) {
+            if (!tryAcquirePermit(capacity)) {
+                return;
+            }
+            Waiter waiter = pollNext();
+            if (waiter == null) {
+                inFlight.decrementAndGet();
+                if (isQueueEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            grant(waiter);
+        }
+    }
+
+    /**
+     * 容量限制或白名单系统被关闭时放行所有排队的玩家并归还保留的许可
+     */
+    private void releaseAll() {
+        for (ConcurrentLinkedQueue<Waiter> queue : tiers) {
+            Waiter waiter;
+            while ((waiter = queue.poll()) != null) {
+                waiter.future.complete(Boolean.TRUE);
+                if (waiter.state.compareAndSet(WAITING, DONE)) {
+                    waiters.remove(waiter.playerName, waiter);
+                }
+            }
+        }
+        for (Waiter waiter : waiters.values()) {
+            if (waiter.state.compareAndSet(RESERVED, DONE)) {
+                waiters.remove(waiter.playerName, waiter);
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 将许可交给排队的玩家
+     * 玩家仍在等待时直接放行；已断开时为其保留许可
+     */
+    private void grant(Waiter waiter) {
+        // 先登记租约再唤醒，避免玩家完成登录并释放许可时租约尚不存在
+        long expiresAt = System.currentTimeMillis() + LEASE_MS;
+        Long previous = leases.put(waiter.playerName, expiresAt);
+        if (waiter.future.complete(Boolean.TRUE)) {
+            if (previous != null) {
+                inFlight.decrementAndGet();
+            }
+            waiter.state.set(DONE);
+            waiters.remove(waiter.playerName, waiter);
+            return;
+        }
+        // 玩家已断开，撤回租约，许可继续为其保留
+        if (previous != null) {
+            leases.replace(waiter.playerName, expiresAt, previous);
+        } else {
+            leases.remove(waiter.playerName, expiresAt);
+        }
+        waiter.reservedUntil = System.currentTimeMillis() + configManager.getLoginQueueReservation();
+        waiter.state.set(RESERVED);
+        // 玩家可能恰好在此时重新连接并换用了新的等待结果
+        CompletableFuture<Boolean> reattached = waiter.future;
+        if (!reattached.isDone() && waiter.state.compareAndSet(RESERVED, DONE)) {
+            waiters.remove(waiter.playerName, waiter);
+            startLease(waiter.playerName);
+            reattached.complete(Boolean.TRUE);
+            return;
+        }
+        logger.debug("轮到玩家 {} 登录，但其已断开，保留许可", waiter.playerName);
+    }
+
+    /**
+     * 按优先级取出下一个仍有效的排队玩家，跳过保留期已过的玩家
+     */
+    private Waiter pollNext() {
+        long now = System.currentTimeMillis();
+        for (ConcurrentLinkedQueue<Waiter> queue : tiers) {
+            Waiter waiter;
+            while ((waiter = queue.poll()) != null) {
+                if (waiter.future.isDone() && waiter.detachedUntil < now) {
+                    // 断开后未在保留期内重新连接
+                    waiter.state.set(DONE);
+                    waiters.remove(waiter.playerName, waiter);
+                    continue;
+                }
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 回收超时的许可和过期的保留许可
+     */
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Long> lease : leases.entrySet()) {
+                if (lease.getValue() < now && leases.remove(lease.getKey(), lease.getValue())) {
+                    inFlight.decrementAndGet();
+                    logger.debug("回收玩家 {} 超时的登录许可", lease.getKey());
+                }
+            }
+            for (Waiter waiter : waiters.values()) {
+                if (waiter.reservedUntil < now && waiter.state.compareAndSet(RESERVED, DONE)) {
+                    waiters.remove(waiter.playerName, waiter);
+                    inFlight.decrementAndGet();
+                    logger.debug("玩家 {} 的保留许可已过期", waiter.playerName);
+                }
+            }
+            dispatch();
+        } catch (Exception e) {
+            logger.error("处理登录队列时发生错误", e);
+        }
+    }
+
+    private boolean tryAcquirePermit(int capacity) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void startLease(String playerName) {
+        if (leases.put(playerName, System.currentTimeMillis() + LEASE_MS) != null) {
+            // 同名玩家重复登录，旧许可合并到新许可
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private boolean isQueueEmpty() {
+        for (ConcurrentLinkedQueue<Waiter> queue : tiers) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 计算玩家的优先级，属于第一个优先级分组时为0，不属于任何优先级分组时排在最后
+     */
+    private int tierOf(String playerName) {
+        List<String> groups = priorityGroups;
+        for (int i = 0; i < groups.size(); i++) {
+            if (groupManager.isMember(groups.get(i), playerName)) {
+                return i;
+            }
+        }
+        return groups.size();
+    }
+
+    /**
+     * 计算排位：更高优先级的所有玩家加上同优先级中更早入队的玩家
+     */
+    private int positionOf(Waiter target) {
+        int position = 1;
+        for (ConcurrentLinkedQueue<Waiter> queue : tiers) {
+            for (Waiter waiter : queue) {
+                if (waiter == target) {
+                    return position;
+                }
+                if (waiter.state.get() == WAITING) {
+                    position++;
+                }
+            }
+        }
+        return position;
+    }
+
+    /**
+     * 一个排队中的玩家
+     */
+    private static final class Waiter {
+        private final String playerName;
+        private final int tier;
+        private final AtomicInteger state;
+        private volatile CompletableFuture<Boolean> future;
+        private volatile long detachedUntil;
+        private volatile long reservedUntil;
+
+        private Waiter(String playerName, int tier) {
+            this.playerName = playerName;
+            this.tier = tier;
+            this.state = new AtomicInteger(WAITING);
+            this.future = new CompletableFuture<>();
+            this.detachedUntil = Long.MAX_VALUE;
+        }
+
+        /**
+         * 玩家重新连接，换用新的等待结果
+         */
+        private void attach() {
+            detachedUntil = Long.MAX_VALUE;
+            future = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.plugin.listtools;
+
+import net.kyori.adventure.text.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 准入阶段的判断结果
+ * ALLOW 和 DENY 是结论性结果，流水线在第一个结论性结果处停止；PASS 表示交给后续阶段判断
+ */
+public final class AdmissionDecision {
+    public static final AdmissionDecision ALLOW = new AdmissionDecision(Outcome.ALLOW, null);
+    public static final AdmissionDecision DENY = new AdmissionDecision(Outcome.DENY, null);
+    public static final AdmissionDecision PASS = new AdmissionDecision(Outcome.PASS, null);
+
+    private final Outcome outcome;
+    private final Component message;
+    // 以本结果完成的共享 Future，首次使用时创建
+    private CompletableFuture<AdmissionDecision> completed;
+
+    private AdmissionDecision(Outcome outcome, Component message) {
+        this.outcome = outcome;
+        this.message = message;
+    }
+
+    /**
+     * 带自定义提示的拒绝结果
+     * @param message 显示给玩家的断开提示，为 null 时使用配置中的 kick_message
+     */
+    public static AdmissionDecision deny(Component message) {
+        return message == null ? DENY : new AdmissionDecision(Outcome.DENY, message);
+    }
+
+    /**
+     * 是否为结论性结果
+     */
+    public boolean isConclusive() {
+        return outcome != Outcome.PASS;
+    }
+
+    public boolean isAllowed() {
+        return outcome == Outcome.ALLOW;
+    }
+
+    public boolean isDenied() {
+        return outcome == Outcome.DENY;
+    }
+
+    /**
+     * 获取拒绝提示
+     * @return 自定义提示，没有时返回 null
+     */
+    public Component getMessage() {
+        return message;
+    }
+
+    /**
+     * 获取以本结果完成的 Future
+     * 同一结果总是返回同一个已完成的实例，同步得出结论时不必每次创建；调用方不能再修改它的结果
+     */
+    CompletableFuture<AdmissionDecision> toFuture() {
+        CompletableFuture<AdmissionDecision> future = completed;
+        if (future == null) {
+            // 并发时可能创建多个，任意一个都可以使用
+            future = CompletableFuture.completedFuture(this);
+            completed = future;
+        }
+        return future;
+    }
+
+    @Override
+    public String toString() {
+        return outcome.name().toLowerCase();
+    }
+
+    private enum Outcome {
+        ALLOW, DENY, PASS
+    }
+}
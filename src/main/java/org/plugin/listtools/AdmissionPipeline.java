@@ -0,0 +1,291 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录准入流水线
+ * 依次执行各个准入阶段，在第一个结论性结果处停止；所有阶段都未给出结论时拒绝
+ *
+ * 每个阶段都记录调用次数、结论次数和耗时。同一顺序组内的阶段定期按
+ * "平均耗时 / 结论概率" 从小到大重新排序，使常见情况尽早以最低代价得出结论
+ */
+public class AdmissionPipeline {
+    // 内置阶段使用的顺序组
+    public static final int ORDER_GATE = 0;
+    public static final int ORDER_RATE_LIMIT = 100;
+    public static final int ORDER_IP = 200;
+    public static final int ORDER_WINDOW = 300;
+    public static final int ORDER_NAME = 400;
+    public static final int ORDER_PATTERN = 500;
+    public static final int ORDER_EXTERNAL = 600;
+
+    // 每隔多少次准入检查检查一次顺序
+    private static final long REORDER_INTERVAL = 1024;
+    // 相邻阶段的代价差距超过此比例时才重新排序，避免代价接近的阶段反复交换
+    private static final double REORDER_MARGIN = 1.25;
+
+    private final AccessPolicy accessPolicy;
+    private final Logger logger;
+    private final Object writeLock;
+    private final AtomicLong evaluations;
+    private volatile StageEntry[] stages;
+
+    public AdmissionPipeline(AccessPolicy accessPolicy, Logger logger) {
+        this.accessPolicy = accessPolicy;
+        this.logger = logger;
+        this.writeLock = new Object();
+        this.evaluations = new AtomicLong();
+        this.stages = new StageEntry[0];
+    }
+
+    /**
+     * 注册阶段，已存在同名阶段时替换
+     */
+    public void register(AdmissionStage stage) {
+        synchronized (writeLock) {
+            List<StageEntry> updated = new ArrayList<>();
+            for (StageEntry entry : stages) {
+                if (!entry.stage.getName().equals(stage.getName())) {
+                    updated.add(entry);
+                }
+            }
+            updated.add(new StageEntry(stage));
+            publish(updated);
+        }
+        logger.debug("已注册准入阶段: {} (顺序组 {})", stage.getName(), stage.getOrderGroup());
+    }
+
+    /**
+     * 注销阶段
+     * @return 阶段存在并被移除时返回 true
+     */
+    public boolean unregister(String name) {
+        synchronized (writeLock) {
+            List<StageEntry> updated = new ArrayList<>();
+            for (StageEntry entry : stages) {
+                if (!entry.stage.getName().equals(name)) {
+                    updated.add(entry);
+                }
+            }
+            if (updated.size() == stages.length) {
+                return false;
+            }
+            publish(updated);
+        }
+        logger.debug("已注销准入阶段: {}", name);
+        return true;
+    }
+
+    /**
+     * 执行准入检查
+     * 只包含同步阶段时返回的 Future 已经完成，并且是各结果共享的实例，调用方不能修改它；
+     * 遇到异步阶段时在其完成后继续执行后续阶段。执行失败的阶段按 PASS 处理
+     */
+    public CompletableFuture<AdmissionDecision> evaluate(AdmissionRequest request) {
+        if (evaluations.incrementAndGet() % REORDER_INTERVAL == 0 && isOrderStale()) {
+            reorder();
+        }
+        return evaluateFrom(stages, 0, request);
+    }
+
+    /**
+     * 获取各阶段的统计信息，按当前执行顺序排列
+     */
+    public List<StageStats> getStats() {
+        List<StageStats> result = new ArrayList<>();
+        for (StageEntry entry : stages) {
+            result.add(new StageStats(entry));
+        }
+        return result;
+    }
+
+    /**
+     * 按实测数据重新排序
+     */
+    public void reorder() {
+        synchronized (writeLock) {
+            publish(Arrays.asList(stages));
+        }
+    }
+
+    /**
+     * 当前顺序是否已明显偏离实测代价
+     * 只比较同组内相邻的阶段，不分配对象，顺序稳定后登录路径上不再重新排序
+     */
+    private boolean isOrderStale() {
+        StageEntry[] order = stages;
+        for (int i = 1; i < order.length; i++) {
+            StageEntry previous = order[i - 1];
+            StageEntry current = order[i];
+            if (previous.stage.getOrderGroup() == current.stage.getOrderGroup()
+                    && previous.expectedCost() > current.expectedCost() * REORDER_MARGIN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CompletableFuture<AdmissionDecision> evaluateFrom(StageEntry[] order, int index, AdmissionRequest request) {
+        for (int i = index; i < order.length; i++) {
+            StageEntry entry = order[i];
+            if (entry.stage.isAsync()) {
+                int next = i + 1;
+                // 调用方复用的请求对象不能带到异步阶段
+                AdmissionRequest detached = request.copy();
+                long start = System.nanoTime();
+                CompletableFuture<AdmissionDecision> future;
+                try {
+                    future = entry.stage.checkAsync(detached);
+                } catch (Exception e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                return future.exceptionally(error -> {
+                    logger.error("准入阶段 {} 执行失败，跳过该阶段", entry.stage.getName(), error);
+                    return AdmissionDecision.PASS;
+                }).thenCompose(decision -> {
+                    entry.record(System.nanoTime() - start, decision);
+                    if (decision.isConclusive()) {
+                        return conclude(entry, decision, detached).toFuture();
+                    }
+                    return evaluateFrom(order, next, detached);
+                });
+            }
+
+            long start = System.nanoTime();
+            AdmissionDecision decision;
+            try {
+                decision = entry.stage.check(request);
+            } catch (Exception e) {
+                logger.error("准入阶段 {} 执行失败，跳过该阶段", entry.stage.getName(), e);
+                decision = AdmissionDecision.PASS;
+            }
+            entry.record(System.nanoTime() - start, decision);
+            if (decision.isConclusive()) {
+                return conclude(entry, decision, request).toFuture();
+            }
+        }
+        return AdmissionDecision.DENY.toFuture();
+    }
+
+    private AdmissionDecision conclude(StageEntry entry, AdmissionDecision decision, AdmissionRequest request) {
+        if (decision.isAllowed() && entry.stage.grantsSession()) {
+            accessPolicy.grantSession(request.getPlayerName());
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("准入阶段 {} 对玩家 {} 的结论: {}", entry.stage.getName(), request.getPlayerName(), decision);
+        }
+        return decision;
+    }
+
+    /**
+     * 排序并发布阶段列表
+     * 调用方需持有写锁
+     */
+    private void publish(List<StageEntry> entries) {
+        // 统计数据在排序过程中仍可能变化，先固定每个阶段的估计值
+        Map<StageEntry, Double> costs = new IdentityHashMap<>();
+        for (StageEntry entry : entries) {
+            costs.put(entry, entry.expectedCost());
+        }
+        StageEntry[] sorted = entries.toArray(new StageEntry[0]);
+        Arrays.sort(sorted, Comparator
+            .comparingInt((StageEntry entry) -> entry.stage.getOrderGroup())
+            .thenComparingDouble(costs::get));
+        stages = sorted;
+    }
+
+    /**
+     * 已注册的阶段及其统计数据
+     */
+    private static class StageEntry {
+        private final AdmissionStage stage;
+        private final LongAdder invocations;
+        private final LongAdder conclusive;
+        private final LongAdder totalNanos;
+
+        private StageEntry(AdmissionStage stage) {
+            this.stage = stage;
+            this.invocations = new LongAdder();
+            this.conclusive = new LongAdder();
+            this.totalNanos = new LongAdder();
+        }
+
+        private void record(long nanos, AdmissionDecision decision) {
+            invocations.increment();
+            totalNanos.add(nanos);
+            if (decision.isConclusive()) {
+                conclusive.increment();
+            }
+        }
+
+        /**
+         * 得出一次结论的期望耗时，数据不足时按平滑后的估计值计算
+         */
+        private double expectedCost() {
+            long calls = invocations.sum();
+            double averageNanos = calls == 0 ? 0 : (double) totalNanos.sum() / calls;
+            double hitRate = (conclusive.sum() + 1.0) / (calls + 2.0);
+            return averageNanos / hitRate;
+        }
+    }
+
+    /**
+     * 一个阶段的统计快照
+     */
+    public static class StageStats {
+        private final String name;
+        private final int orderGroup;
+        private final boolean async;
+        private final long invocations;
+        private final long conclusive;
+        private final long totalNanos;
+
+        private StageStats(StageEntry entry) {
+            this.name = entry.stage.getName();
+            this.orderGroup = entry.stage.getOrderGroup();
+            this.async = entry.stage.isAsync();
+            this.invocations = entry.invocations.sum();
+            this.conclusive = entry.conclusive.sum();
+            this.totalNanos = entry.totalNanos.sum();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getOrderGroup() {
+            return orderGroup;
+        }
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        public long getConclusive() {
+            return conclusive;
+        }
+
+        /**
+         * 获取得出结论的比例
+         */
+        public double getHitRate() {
+            return invocations == 0 ? 0 : (double) conclusive / invocations;
+        }
+
+        /**
+         * 获取平均耗时（微秒）
+         */
+        public double getAverageMicros() {
+            return invocations == 0 ? 0 : totalNanos / 1000.0 / invocations;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.plugin.listtools;
+
+import java.net.InetAddress;
+
+/**
+ * 一次登录准入请求
+ * 登录监听器在每个事件线程上复用同一个请求对象，同步阶段不应在 check 返回后继续持有它；
+ * 流水线转入异步阶段前会复制一份，异步阶段收到的请求可以保留
+ */
+public final class AdmissionRequest {
+    private String playerName;
+    private InetAddress address;
+    // 地址字节，每个连接只复制一次，供IP规则等阶段共用
+    private byte[] addressBytes;
+
+    public AdmissionRequest(String playerName, InetAddress address) {
+        reset(playerName, address);
+    }
+
+    /**
+     * 复用请求对象
+     */
+    AdmissionRequest reset(String playerName, InetAddress address) {
+        this.playerName = playerName;
+        if (address != this.address) {
+            // 地址对象不变时复用已复制的字节，每个连接只复制一次
+            this.addressBytes = address != null ? address.getAddress() : null;
+        }
+        this.address = address;
+        return this;
+    }
+
+    /**
+     * 复制一份不会被复用的请求
+     */
+    AdmissionRequest copy() {
+        return new AdmissionRequest(playerName, address);
+    }
+
+    /**
+     * 获取玩家名
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * 获取连接来源地址
+     * @return 来源地址，无法获取时返回 null
+     */
+    public InetAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * 获取来源地址的字节形式，不要修改返回的数组
+     * @return 4字节的 IPv4 或16字节的 IPv6 地址，无法获取时返回 null
+     */
+    byte[] getAddressBytes() {
+        return addressBytes;
+    }
+}
@@ -0,0 +1,53 @@
+package org.plugin.listtools;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 准入流水线中的一个阶段
+ * 其他插件可以实现此接口并通过 {@link AdmissionPipeline#register(AdmissionStage)} 注册自己的检查
+ *
+ * 流水线先按顺序组从小到大执行，同一顺序组内的阶段按实测的耗时和命中率自动排序，
+ * 因此同组阶段之间的结论不能互相矛盾（例如都只会放行）；需要先于或晚于某个内置阶段的检查应放在不同的顺序组
+ */
+public interface AdmissionStage {
+    /**
+     * 阶段名称，在流水线中唯一
+     */
+    String getName();
+
+    /**
+     * 顺序组，数值小的组先执行
+     * 内置阶段使用的顺序组见 {@link AdmissionPipeline} 中的常量
+     */
+    int getOrderGroup();
+
+    /**
+     * 同步检查
+     * 在登录事件线程上调用，不能阻塞；需要等待外部资源的阶段应返回 {@link #isAsync()} 为 true 并实现 {@link #checkAsync}。
+     * 请求对象会被复用，不要在返回后继续持有
+     */
+    AdmissionDecision check(AdmissionRequest request);
+
+    /**
+     * 是否为异步阶段
+     */
+    default boolean isAsync() {
+        return false;
+    }
+
+    /**
+     * 异步检查，仅在 {@link #isAsync()} 返回 true 时调用
+     */
+    default CompletableFuture<AdmissionDecision> checkAsync(AdmissionRequest request) {
+        return CompletableFuture.completedFuture(check(request));
+    }
+
+    /**
+     * 本阶段放行的玩家是否在本次会话中被访问策略视为已授权
+     * 访问策略复查在线玩家时不会重新执行外部阶段，返回 true 可避免这些玩家被自动检查踢出；
+     * 内置阶段的结论可由访问策略直接复查，返回 false
+     */
+    default boolean grantsSession() {
+        return true;
+    }
+}
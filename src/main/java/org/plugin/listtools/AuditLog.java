@@ -0,0 +1,557 @@
+package org.plugin.listtools;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 审计日志，记录白名单变更和踢出
+ * 记录先写入无锁环形缓冲区，调用方不做任何磁盘或日志I/O；后台在I/O执行器上按批写入数据目录的 audit/audit.log，
+ * 每行一个 JSON 对象。文件超过 audit_log_max_file_size 时归档为带时间戳的文件并 gzip 压缩，
+ * 最多保留 audit_log_max_files 个归档文件
+ *
+ * 作为 {@link WhitelistManager} 的变更监听器注册，所有来源（命令、接口、到期、重载、回滚）的变更都会记录；
+ * 操作者由 {@link #runAs} 按线程设置，未设置时为"系统"；在其他线程上完成的提交（如需要读取历史日志的回滚）同样记为"系统"
+ */
+public class AuditLog implements Consumer<WhitelistChangeSet> {
+    public static final String DIRECTORY = "audit";
+    public static final String ACTIVE_FILE = "audit.log";
+    public static final String SYSTEM_ACTOR = "系统";
+
+    private static final int BUFFER_CAPACITY = 8192;
+    // 记录后延迟写入的时间，同一段时间内的记录合并为一批
+    private static final long FLUSH_DELAY_MS = 1000;
+    private static final String ARCHIVE_PREFIX = "audit-";
+    private static final String ARCHIVE_SUFFIX = ".log.gz";
+    private static final String ARCHIVE_TIME_FORMAT = "yyyyMMdd-HHmmss-SSS";
+
+    private final Path directory;
+    private final Path activeFile;
+    private final IoExecutor ioExecutor;
+    private final Logger logger;
+    private final MpscRingBuffer<Entry> buffer;
+    private final AtomicBoolean flushScheduled;
+    private final AtomicLong dropped;
+    private final AtomicLong written;
+    private final ThreadLocal<String> actor;
+    private volatile boolean enabled;
+    private volatile long maxFileSize;
+    private volatile int maxFiles;
+    // 当前文件的大小，只在 AUDIT 队列上访问，-1 表示尚未读取
+    private long activeSize;
+
+    public AuditLog(Path dataDirectory, IoExecutor ioExecutor, Logger logger) {
+        this.directory = dataDirectory.resolve(DIRECTORY);
+        this.activeFile = directory.resolve(ACTIVE_FILE);
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+        this.buffer = new MpscRingBuffer<>(BUFFER_CAPACITY);
+        this.flushScheduled = new AtomicBoolean();
+        this.dropped = new AtomicLong();
+        this.written = new AtomicLong();
+        this.actor = new ThreadLocal<>();
+        this.activeSize = -1;
+    }
+
+    /**
+     * 应用配置，启动和重载时调用
+     */
+    public void configure(boolean enabled, long maxFileSize, int maxFiles) {
+        this.enabled = enabled;
+        this.maxFileSize = Math.max(1024, maxFileSize);
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 以指定操作者的身份在当前线程上执行任务，期间产生的记录都归于该操作者
+     */
+    public void runAs(String actorName, Runnable task) {
+        String previous = actor.get();
+        actor.set(actorName);
+        try {
+            task.run();
+        } finally {
+            if (previous != null) {
+                actor.set(previous);
+            } else {
+                actor.remove();
+            }
+        }
+    }
+
+    /**
+     * 记录一个事件
+     * @param action 事件类型，如 kick
+     * @param players 涉及的玩家
+     * @param detail 附加说明，可以为 null
+     */
+    public void record(String action, List<String> players, String detail) {
+        if (!enabled) {
+            return;
+        }
+        String actorName = actor.get();
+        Entry entry = new Entry(System.currentTimeMillis(), action, actorName != null ? actorName : SYSTEM_ACTOR,
+                                players, detail, 0);
+        offer(entry);
+    }
+
+    /**
+     * 按新增、移除、更新分别记录白名单变更，说明为提交原因
+     */
+    @Override
+    public void accept(WhitelistChangeSet changes) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String actorName = actor.get();
+        if (actorName == null) {
+            actorName = SYSTEM_ACTOR;
+        }
+        String reason = changes.getReason().isEmpty() ? null : changes.getReason();
+        if (!changes.getAdded().isEmpty()) {
+            offer(new Entry(now, "add", actorName, changes.getAdded(), reason, changes.getVersion()));
+        }
+        if (!changes.getRemoved().isEmpty()) {
+            offer(new Entry(now, "remove", actorName, changes.getRemoved(), reason, changes.getVersion()));
+        }
+        if (!changes.getUpdated().isEmpty()) {
+            offer(new Entry(now, "update", actorName, changes.getUpdated(), reason, changes.getVersion()));
+        }
+    }
+
+    private void offer(Entry entry) {
+        if (!buffer.offer(entry)) {
+            // 缓冲区满时丢弃，写入时会记录丢弃的数量
+            dropped.incrementAndGet();
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(FLUSH_DELAY_MS, TimeUnit.MILLISECONDS).execute(() -> {
+                flushScheduled.set(false);
+                ioExecutor.run(IoExecutor.AUDIT, this::drain);
+            });
+        }
+    }
+
+    /**
+     * 立即写入缓冲区中的记录，插件关闭和查询前调用
+     * 与定时写入在同一队列上依次执行
+     */
+    public CompletableFuture<Void> flush() {
+        return ioExecutor.run(IoExecutor.AUDIT, this::drain);
+    }
+
+    /**
+     * 获取状态摘要
+     */
+    public String getStats() {
+        long archived = 0;
+        long bytes = 0;
+        for (Path file : listArchives()) {
+            archived++;
+            bytes += sizeOf(file);
+        }
+        bytes += sizeOf(activeFile);
+        return (enabled ? "已启用" : "未启用") + "，缓冲 " + buffer.size() + "/" + buffer.capacity() + "，已写入 " +
+               written.get() + " 条，丢弃 " + dropped.get() + " 条，归档文件 " + archived + " 个，共 " + (bytes / 1024) + "KB";
+    }
+
+    /**
+     * 从旧到新流式读取所有日志文件，返回最新的 limit 条匹配记录
+     * 要读取的文件在 AUDIT 队列上一次性打开，之后的归档只会删除已打开的文件，不会漏读或重复读取其中的记录；
+     * 读取在调用线程上进行，不阻塞写入。归档时间早于 since 的文件直接跳过，内存中最多保留 limit 条记录
+     * @param since 只返回该时间戳之后的记录，0 表示不限
+     * @return 从新到旧排列的记录
+     */
+    public List<Entry> query(Predicate<Entry> filter, long since, int limit) throws IOException {
+        List<InputStream> files;
+        try {
+            files = ioExecutor.submit(IoExecutor.AUDIT, () -> openFiles(since)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+
+        ArrayDeque<Entry> result = new ArrayDeque<>();
+        try {
+            for (InputStream in : files) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry entry = Entry.parse(line);
+                    if (entry == null || entry.timestamp < since || !filter.test(entry)) {
+                        continue;
+                    }
+                    result.addLast(entry);
+                    if (result.size() > limit) {
+                        result.removeFirst();
+                    }
+                }
+            }
+        } finally {
+            for (InputStream in : files) {
+                in.close();
+            }
+        }
+        List<Entry> newestFirst = new ArrayList<>(result);
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    /**
+     * 按时间从旧到新打开要查询的归档文件和当前文件
+     * 只在 AUDIT 队列上执行；当前文件只读取到打开时已写入的位置
+     */
+    private List<InputStream> openFiles(long since) throws IOException {
+        List<InputStream> files = new ArrayList<>();
+        try {
+            for (Path archive : listArchives()) {
+                // 归档时间是该文件中最后一条记录之后的时间
+                if (archiveTime(archive) < since) {
+                    continue;
+                }
+                try {
+                    files.add(new GZIPInputStream(Files.newInputStream(archive)));
+                } catch (NoSuchFileException e) {
+                    // 列出之后被手动删除
+                    logger.debug("审计日志文件已不存在: {}", archive.getFileName());
+                }
+            }
+            if (Files.exists(activeFile)) {
+                long size = activeSize >= 0 ? activeSize : sizeOf(activeFile);
+                files.add(new BoundedInputStream(Files.newInputStream(activeFile), size));
+            }
+        } catch (IOException e) {
+            for (InputStream in : files) {
+                in.close();
+            }
+            throw e;
+        }
+        return files;
+    }
+
+    /**
+     * 把缓冲区中的记录按批写入当前文件，超过大小时先归档
+     * 只在 AUDIT 队列上执行
+     */
+    private void drain() {
+        List<String> lines = new ArrayList<>();
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            lines.add(new Entry(System.currentTimeMillis(), "dropped", SYSTEM_ACTOR, Collections.emptyList(),
+                                "缓冲区已满，丢弃了 " + lost + " 条记录", 0).toJson());
+            logger.warn("审计日志缓冲区已满，丢弃了 {} 条记录", lost);
+        }
+        buffer.drain(entry -> lines.add(entry.toJson()));
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            if (activeSize < 0) {
+                activeSize = sizeOf(activeFile);
+            }
+            OutputStream out = null;
+            try {
+                for (String line : lines) {
+                    byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+                    if (activeSize > 0 && activeSize + bytes.length > maxFileSize) {
+                        if (out != null) {
+                            out.close();
+                            out = null;
+                        }
+                        rotate();
+                    }
+                    if (out == null) {
+                        out = new BufferedOutputStream(Files.newOutputStream(activeFile, StandardOpenOption.CREATE,
+                                                                             StandardOpenOption.APPEND));
+                    }
+                    out.write(bytes);
+                    activeSize += bytes.length;
+                }
+            } finally {
+                if (out != null) {
+                    out.close();
+                }
+            }
+            written.addAndGet(lines.size());
+        } catch (IOException e) {
+            activeSize = -1;
+            logger.warn("写入审计日志失败，{} 条记录丢失: {}", lines.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 把当前文件压缩为归档文件，并删除超出数量的最旧归档
+     */
+    private void rotate() throws IOException {
+        // 同一毫秒内多次归档时顺延文件名中的时间，保持文件名唯一且按时间排序
+        long now = System.currentTimeMillis();
+        Path archive;
+        while (Files.exists(archive = directory.resolve(ARCHIVE_PREFIX + formatArchiveTime(now) + ARCHIVE_SUFFIX))) {
+            now++;
+        }
+        Path temp = archive.resolveSibling(archive.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+            Files.copy(activeFile, out);
+        }
+        Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(activeFile);
+        activeSize = 0;
+
+        List<Path> archives = listArchives();
+        for (int i = 0; i < archives.size() - maxFiles; i++) {
+            Files.deleteIfExists(archives.get(i));
+        }
+        logger.debug("审计日志已归档为 {}", archive.getFileName());
+    }
+
+    /**
+     * 列出归档文件，按时间从旧到新排列
+     */
+    private List<Path> listArchives() {
+        List<Path> archives = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return archives;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, ARCHIVE_PREFIX + "*" + ARCHIVE_SUFFIX)) {
+            for (Path file : stream) {
+                archives.add(file);
+            }
+        } catch (IOException e) {
+            logger.warn("读取审计日志目录失败: {}", e.getMessage());
+        }
+        // 文件名中的时间格式按字典序即按时间排序
+        archives.sort(Comparator.comparing(file -> file.getFileName().toString()));
+        return archives;
+    }
+
+    private static String formatArchiveTime(long timestamp) {
+        return new SimpleDateFormat(ARCHIVE_TIME_FORMAT).format(new Date(timestamp));
+    }
+
+    private static long archiveTime(Path archive) {
+        String name = archive.getFileName().toString();
+        try {
+            return new SimpleDateFormat(ARCHIVE_TIME_FORMAT)
+                .parse(name.substring(ARCHIVE_PREFIX.length(), name.length() - ARCHIVE_SUFFIX.length())).getTime();
+        } catch (java.text.ParseException | RuntimeException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 一条审计记录
+     * JSON 格式: {"time":时间戳,"action":类型,"actor":操作者,"players":[玩家...],"detail":说明,"version":白名单版本}，
+     * 没有说明或版本时省略对应字段
+     */
+    public static final class Entry {
+        private final long timestamp;
+        private final String action;
+        private final String actor;
+        private final List<String> players;
+        private final String detail;
+        private final long version;
+
+        Entry(long timestamp, String action, String actor, List<String> players, String detail, long version) {
+            this.timestamp = timestamp;
+            this.action = action;
+            this.actor = actor;
+            this.players = players;
+            this.detail = detail;
+            this.version = version;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * 获取事件类型: add、remove、update、kick 或 dropped
+         */
+        public String getAction() {
+            return action;
+        }
+
+        public String getActor() {
+            return actor;
+        }
+
+        public List<String> getPlayers() {
+            return players;
+        }
+
+        /**
+         * 获取附加说明，白名单变更为提交原因，没有时返回null
+         */
+        public String getDetail() {
+            return detail;
+        }
+
+        /**
+         * 获取白名单变更后的版本号，其他事件为0
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        String toJson() {
+            StringWriter text = new StringWriter();
+            try (JsonWriter writer = new JsonWriter(text)) {
+                writer.beginObject();
+                writer.name("time").value(timestamp);
+                writer.name("action").value(action);
+                writer.name("actor").value(actor);
+                writer.name("players").beginArray();
+                for (String player : players) {
+                    writer.value(player);
+                }
+                writer.endArray();
+                if (detail != null) {
+                    writer.name("detail").value(detail);
+                }
+                if (version > 0) {
+                    writer.name("version").value(version);
+                }
+                writer.endObject();
+            } catch (IOException e) {
+                // 写入 StringWriter 不会失败
+                throw new IllegalStateException(e);
+            }
+            return text.toString();
+        }
+
+        /**
+         * @return 格式无效（如写入中途被截断）的行返回null
+         */
+        static Entry parse(String line) {
+            long timestamp = 0;
+            String action = null;
+            String actor = SYSTEM_ACTOR;
+            List<String> players = new ArrayList<>();
+            String detail = null;
+            long version = 0;
+            try (JsonReader reader = new JsonReader(new StringReader(line))) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                        continue;
+                    }
+                    switch (name) {
+                        case "time":
+                            timestamp = reader.nextLong();
+                            break;
+                        case "action":
+                            action = reader.nextString();
+                            break;
+                        case "actor":
+                            actor = reader.nextString();
+                            break;
+                        case "players":
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                players.add(reader.nextString());
+                            }
+                            reader.endArray();
+                            break;
+                        case "detail":
+                            detail = reader.nextString();
+                            break;
+                        case "version":
+                            version = reader.nextLong();
+                            break;
+                        default:
+                            reader.skipValue();
+                            break;
+                    }
+                }
+                reader.endObject();
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+            return action != null ? new Entry(timestamp, action, actor, players, detail, version) : null;
+        }
+    }
+
+    /**
+     * 最多读取 limit 个字节的输入流，查询不会读到打开之后追加的半行记录
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int value = super.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (count > 0) {
+                remaining -= count;
+            }
+            return count;
+        }
+    }
+}
@@ -7,6 +7,8 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -14,17 +16,30 @@ import java.util.concurrent.TimeUnit;
  * 定期检查在线玩家的白名单状态，踢出未授权玩家
  */
 public class AutoCheckTask {
+    // 分片之间的最小间隔，避免间隔过短时分片退化为连续执行
+    private static final long MIN_SLICE_PERIOD_MS = 50;
+
     private final ConfigManager configManager;
     private final WhitelistManager whitelistManager;
+    private final AccessPolicy accessPolicy;
+    private final DisconnectQueue disconnectQueue;
     private final ProxyServer proxyServer;
     private final Logger logger;
     private final Object plugin;
-    private ScheduledTask currentTask;
+    private volatile ScheduledTask currentTask;
+    // 下次执行检查的时间戳（毫秒）
+    private volatile long nextRunAt;
+    // 上一次完整检查时的访问策略版本，-1 表示需要重新检查
+    private volatile long lastCheckedVersion = -1;
+    // 正在进行中的分片检查
+    private Sweep activeSweep;
 
-    public AutoCheckTask(ConfigManager configManager, WhitelistManager whitelistManager,
-                        ProxyServer proxyServer, Logger logger, Object plugin) {
+    public AutoCheckTask(ConfigManager configManager, WhitelistManager whitelistManager, AccessPolicy accessPolicy,
+                        DisconnectQueue disconnectQueue, ProxyServer proxyServer, Logger logger, Object plugin) {
         this.configManager = configManager;
         this.whitelistManager = whitelistManager;
+        this.accessPolicy = accessPolicy;
+        this.disconnectQueue = disconnectQueue;
         this.proxyServer = proxyServer;
         this.logger = logger;
         this.plugin = plugin;
@@ -33,11 +48,13 @@ public class AutoCheckTask {
     /**
      * 启动自动检查任务
      */
-    public void start() {
+    public synchronized void start() {
         // 停止现有任务
         stop();
         
         long interval = configManager.getAutoCheckInterval();
+        lastCheckedVersion = -1;
+        nextRunAt = System.currentTimeMillis();
         
         currentTask = proxyServer.getScheduler()
             .buildTask(plugin, this::performCheck)
@@ -50,7 +67,8 @@ public class AutoCheckTask {
     /**
      * 停止自动检查任务
      */
-    public void stop() {
+    public synchronized void stop() {
+        cancelSweep();
         if (currentTask != null) {
             currentTask.cancel();
             currentTask = null;
@@ -69,50 +87,133 @@ public class AutoCheckTask {
 
     /**
      * 执行检查逻辑
+     * 白名单版本未变化时直接跳过；否则把在线玩家分片，均匀分布在检查间隔内处理
      */
     private void performCheck() {
+        long interval = configManager.getAutoCheckInterval();
+        nextRunAt = System.currentTimeMillis() + interval;
+
         try {
             // 检查白名单系统是否启用
             if (!configManager.isEnabled()) {
+                // 重新启用后需要完整检查一次
+                lastCheckedVersion = -1;
                 logger.debug("白名单系统已禁用，跳过自动检查");
                 return;
             }
 
-            logger.debug("开始执行自动白名单检查");
-            
-            String kickMessage = configManager.getKickMessage();
-            Component kickComponent = Component.text(kickMessage, NamedTextColor.RED);
-            
-            int kickedCount = 0;
-            int totalPlayers = proxyServer.getPlayerCount();
-            
-            // 检查所有在线玩家
-            for (Player player : proxyServer.getAllPlayers()) {
+            long version = accessPolicy.getVersion();
+            if (version == lastCheckedVersion) {
+                logger.debug("白名单和分组未变化（版本 {}），跳过本轮自动检查", version);
+                return;
+            }
+
+            startSweep(version, interval);
+        } catch (Exception e) {
+            logger.error("执行自动检查时发生错误", e);
+        }
+    }
+
+    /**
+     * 开始一轮分片检查
+     * 如果上一轮尚未完成，则由本轮取代
+     */
+    private synchronized void startSweep(long version, long interval) {
+        if (activeSweep != null) {
+            logger.debug("上一轮自动检查尚未完成，由新一轮检查取代");
+            cancelSweep();
+        }
+
+        List<Player> players = new ArrayList<>(proxyServer.getAllPlayers());
+        if (players.isEmpty()) {
+            lastCheckedVersion = version;
+            logger.debug("自动检查：当前没有在线玩家");
+            return;
+        }
+
+        SweepPlan plan = SweepPlan.of(players.size(), configManager.getAutoCheckSliceSize(), interval);
+
+        Sweep sweep = new Sweep(version, players, plan.sliceSize,
+                Component.text(configManager.getKickMessage(), NamedTextColor.RED));
+        activeSweep = sweep;
+        sweep.task = proxyServer.getScheduler()
+            .buildTask(plugin, () -> runSlice(sweep))
+            .repeat(plan.period, TimeUnit.MILLISECONDS)
+            .schedule();
+
+        logger.debug("开始自动白名单检查：{} 个玩家，分为 {} 个分片，每片 {} 个，分片间隔 {}ms",
+                   players.size(), plan.sliceCount, plan.sliceSize, plan.period);
+    }
+
+    /**
+     * 执行一个分片的检查
+     */
+    private synchronized void runSlice(Sweep sweep) {
+        if (activeSweep != sweep) {
+            // 已被取消或取代
+            return;
+        }
+
+        try {
+            int end = Math.min(sweep.position + sweep.sliceSize, sweep.players.size());
+            for (int i = sweep.position; i < end; i++) {
+                Player player = sweep.players.get(i);
+                if (!player.isActive()) {
+                    continue;
+                }
+
                 String playerName = player.getUsername();
-                
-                if (!whitelistManager.isWhitelisted(playerName)) {
-                    // 玩家不在白名单中，踢出
-                    player.disconnect(kickComponent);
-                    kickedCount++;
-                    logger.info("自动检查：踢出未授权玩家 {}", playerName);
+                if (!accessPolicy.isStillAllowed(player)) {
+                    // 玩家不在白名单中，加入限速踢出队列
+                    disconnectQueue.enqueue(player, sweep.kickComponent);
+                    sweep.queuedCount++;
+                    logger.debug("自动检查：未授权玩家 {} 已加入踢出队列", playerName);
                 }
             }
-            
-            if (kickedCount > 0) {
-                logger.info("自动检查完成：检查了 {} 个玩家，踢出了 {} 个未授权玩家", 
-                          totalPlayers, kickedCount);
-            } else {
-                logger.debug("自动检查完成：检查了 {} 个玩家，无需踢出", totalPlayers);
-            }
-            
+            sweep.position = end;
         } catch (Exception e) {
             logger.error("执行自动检查时发生错误", e);
         }
+
+        if (sweep.position >= sweep.players.size()) {
+            finishSweep(sweep);
+        }
+    }
+
+    /**
+     * 完成一轮分片检查
+     */
+    private void finishSweep(Sweep sweep) {
+        if (sweep.task != null) {
+            sweep.task.cancel();
+        }
+        activeSweep = null;
+        lastCheckedVersion = sweep.version;
+
+        if (sweep.queuedCount > 0) {
+            logger.info("自动检查完成：检查了 {} 个玩家，{} 个未授权玩家已加入踢出队列", 
+                      sweep.players.size(), sweep.queuedCount);
+        } else {
+            logger.debug("自动检查完成：检查了 {} 个玩家，无需踢出", sweep.players.size());
+        }
+    }
+
+    /**
+     * 取消正在进行的分片检查
+     */
+    private synchronized void cancelSweep() {
+        if (activeSweep != null) {
+            if (activeSweep.task != null) {
+                activeSweep.task.cancel();
+            }
+            activeSweep = null;
+        }
     }
 
     /**
      * 手动执行一次检查
-     * @return 踢出的玩家数量
+     * 未授权玩家通过限速踢出队列断开连接
+     * @return 加入踢出队列的玩家数量
      */
     public int performManualCheck() {
         if (!configManager.isEnabled()) {
@@ -130,14 +231,15 @@ public class AutoCheckTask {
         for (Player player : proxyServer.getAllPlayers()) {
             String playerName = player.getUsername();
             
-            if (!whitelistManager.isWhitelisted(playerName)) {
-                player.disconnect(kickComponent);
+            if (!accessPolicy.isStillAllowed(player)) {
+                disconnectQueue.enqueue(player, kickComponent);
                 kickedCount++;
-                logger.info("手动检查：踢出未授权玩家 {}", playerName);
+                logger.debug("手动检查：未授权玩家 {} 已加入踢出队列", playerName);
             }
         }
         
-        logger.info("手动检查完成：踢出了 {} 个未授权玩家", kickedCount);
+        logger.info("手动检查完成：{} 个未授权玩家已加入踢出队列", kickedCount);
+        lastCheckedVersion = accessPolicy.getVersion();
         return kickedCount;
     }
 
@@ -157,9 +259,7 @@ public class AutoCheckTask {
             return -1;
         }
         
-        // Velocity的ScheduledTask没有直接获取下次执行时间的方法
-        // 这里返回配置的间隔时间作为估计
-        return configManager.getAutoCheckInterval();
+        return Math.max(0, nextRunAt - System.currentTimeMillis());
     }
 
     /**
@@ -174,6 +274,62 @@ public class AutoCheckTask {
         );
     }
 
+    /**
+     * 一轮分片检查的分片大小和间隔
+     * 分片均匀分布在检查间隔内，并在下一轮开始前完成；玩家过多或间隔过短、分片间隔会低于
+     * {@link #MIN_SLICE_PERIOD_MS} 时改为增大分片，否则未完成的一轮会被下一轮取代，列表末尾的玩家永远检查不到
+     */
+    static final class SweepPlan {
+        final int sliceSize;
+        final int sliceCount;
+        final long period;
+
+        private SweepPlan(int sliceSize, int sliceCount, long period) {
+            this.sliceSize = sliceSize;
+            this.sliceCount = sliceCount;
+            this.period = period;
+        }
+
+        /**
+         * @param playerCount 在线玩家数，大于0
+         * @param sliceSize 配置的分片大小
+         * @param interval 检查间隔（毫秒）
+         */
+        static SweepPlan of(int playerCount, int sliceSize, long interval) {
+            int size = Math.max(1, sliceSize);
+            int count = (playerCount + size - 1) / size;
+            long period = interval / (count + 1);
+            if (period < MIN_SLICE_PERIOD_MS) {
+                // 第一个分片立即执行，maxSlices 个分片在 (maxSlices - 1) * MIN_SLICE_PERIOD_MS 内完成
+                long maxSlices = Math.max(1, interval / MIN_SLICE_PERIOD_MS - 1);
+                size = (int) Math.max(size, (playerCount + maxSlices - 1) / maxSlices);
+                count = (playerCount + size - 1) / size;
+                period = MIN_SLICE_PERIOD_MS;
+            }
+            return new SweepPlan(size, count, period);
+        }
+    }
+
+    /**
+     * 一轮分片检查的状态
+     */
+    private static class Sweep {
+        private final long version;
+        private final List<Player> players;
+        private final int sliceSize;
+        private final Component kickComponent;
+        private ScheduledTask task;
+        private int position;
+        private int queuedCount;
+
+        private Sweep(long version, List<Player> players, int sliceSize, Component kickComponent) {
+            this.version = version;
+            this.players = players;
+            this.sliceSize = sliceSize;
+            this.kickComponent = kickComponent;
+        }
+    }
+
     /**
      * 任务统计信息类
      */
@@ -0,0 +1,99 @@
+package org.plugin.listtools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 布隆过滤器
+ * 每个元素占用约10位，使用7个哈希函数，误判率约1%；不会漏判
+ *
+ * 元素以64位哈希值表示，由 {@link #hash(String)} 或 {@link #hash(ByteBuffer, int, int)} 计算，
+ * 两者对同一玩家名的 UTF-8 编码给出相同结果，从映射文件建立过滤器时不需要创建字符串
+ */
+public final class BloomFilter {
+    private static final int BITS_PER_ELEMENT = 10;
+    private static final int HASH_FUNCTIONS = 7;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] words;
+    private final long bitCount;
+
+    public BloomFilter(long expectedElements) {
+        long bits = Math.max(64, expectedElements * BITS_PER_ELEMENT);
+        this.words = new long[(int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6)];
+        this.bitCount = (long) words.length << 6;
+    }
+
+    public void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= HASH_FUNCTIONS; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * 检查元素是否可能存在，返回false时一定不存在
+     */
+    public boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= HASH_FUNCTIONS; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取过滤器占用的字节数
+     */
+    public long getSizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * 计算字符串 UTF-8 编码的哈希值
+     * 只含 ASCII 字符时直接逐字符计算，不分配内存
+     */
+    public static long hash(String value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                return hash(ByteBuffer.wrap(bytes), 0, bytes.length);
+            }
+            hash = (hash ^ c) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * 计算缓冲区中一段字节的哈希值
+     */
+    public static long hash(ByteBuffer buffer, int offset, int length) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (buffer.get(offset + i) & 0xff)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * 打散各位，使高低32位都能作为独立的哈希函数
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
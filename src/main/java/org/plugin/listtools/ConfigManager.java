@@ -5,24 +5,53 @@ import org.yaml.snakeyaml.Yaml;
 import org.slf4j.Logger;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 配置文件管理器
  * 负责处理config.yml的读取、写入和默认配置生成
+ *
+ * 配置映射发布后不再修改：每个 set 方法复制被修改的值，生成新的顶层映射并通过 volatile 字段发布，
+ * 其他线程读取时不需要加锁，也不会看到修改到一半的配置。
+ * 修改配置后通过 {@link #saveConfigAsync()} 保存：调用时取当前映射作为快照，序列化和写盘在I/O执行器上进行；
+ * 写盘开始前的多次保存请求合并为一次，只写入最新的快照
  */
 public class ConfigManager {
     private final Path configPath;
+    private final IoExecutor ioExecutor;
     private final Logger logger;
-    private Map<String, Object> config;
+    private volatile Map<String, Object> config;
     private final Yaml yaml;
+    // 串行化配置修改，保护等待写入的快照，同时保证快照按修改顺序生成
+    private final Object saveLock;
+    // 串行化文件写入
+    private final Object writeLock;
+    private Map<String, Object> pendingSnapshot;
+    private CompletableFuture<Void> pendingSave;
+    // 最近一次保存请求对应的写入
+    private CompletableFuture<Void> lastSave;
+    private final AtomicLong saveCount;
+    // 登录检查每次都会读取的配置项，配置变化时重新计算
+    private volatile LoginSettings loginSettings;
 
-    public ConfigManager(Path dataDirectory, Logger logger) {
+    public ConfigManager(Path dataDirectory, IoExecutor ioExecutor, Logger logger) {
         this.configPath = dataDirectory.resolve("config.yml");
+        this.ioExecutor = ioExecutor;
         this.logger = logger;
+        this.saveLock = new Object();
+        this.writeLock = new Object();
+        this.lastSave = CompletableFuture.completedFuture(null);
+        this.saveCount = new AtomicLong();
         
         // 配置YAML输出格式
         DumperOptions options = new DumperOptions();
@@ -47,35 +76,149 @@ public class ConfigManager {
             }
             
             try (InputStream inputStream = Files.newInputStream(configPath)) {
-                config = yaml.load(inputStream);
-                if (config == null) {
-                    config = new HashMap<>();
-                }
+                Map<String, Object> loaded = yaml.load(inputStream);
+                config = loaded != null ? loaded : new HashMap<>();
+                loginSettings = new LoginSettings(config);
                 logger.info("配置文件加载成功");
             }
         } catch (IOException e) {
             logger.error("加载配置文件失败", e);
             config = createDefaultConfigMap();
+            loginSettings = new LoginSettings(config);
         }
     }
 
     /**
-     * 保存配置文件
+     * 在当前线程上立即保存配置文件
+     * 仅用于启动和关闭等必须同步完成的场合，其他情况使用 {@link #saveConfigAsync()}
      */
     public void saveConfig() {
-        try (FileWriter writer = new FileWriter(configPath.toFile())) {
-            yaml.dump(config, writer);
-            logger.debug("配置文件保存成功");
+        Map<String, Object> snapshot;
+        synchronized (saveLock) {
+            snapshot = config;
+        }
+        try {
+            writeSnapshot(snapshot);
         } catch (IOException e) {
             logger.error("保存配置文件失败", e);
         }
     }
 
+    /**
+     * 异步保存配置文件
+     * 立即复制当前配置，写盘在I/O执行器上完成；尚未开始写入的保存请求会合并
+     * @return 包含本次修改的快照写入完成后结束，写入失败时以异常结束
+     */
+    public CompletableFuture<Void> saveConfigAsync() {
+        CompletableFuture<Void> result;
+        synchronized (saveLock) {
+            saveCount.incrementAndGet();
+            pendingSnapshot = config;
+            if (pendingSave != null) {
+                // 已有排队中的写入，它会写入这份更新的快照
+                return pendingSave;
+            }
+            pendingSave = new CompletableFuture<>();
+            lastSave = pendingSave;
+            result = pendingSave;
+        }
+        ioExecutor.run(IoExecutor.CONFIG, this::writePending);
+        return result;
+    }
+
+    /**
+     * 获取包含此前所有修改的写入
+     * @return 最近一次保存请求写盘后结束；没有保存请求时已经结束
+     */
+    public CompletableFuture<Void> whenSaved() {
+        synchronized (saveLock) {
+            return lastSave;
+        }
+    }
+
+    /**
+     * 获取累计的保存请求次数，用于判断一段操作是否修改了配置
+     */
+    public long getSaveCount() {
+        return saveCount.get();
+    }
+
+    private void writePending() {
+        Map<String, Object> snapshot;
+        CompletableFuture<Void> future;
+        synchronized (saveLock) {
+            snapshot = pendingSnapshot;
+            future = pendingSave;
+            pendingSnapshot = null;
+            pendingSave = null;
+        }
+        if (future == null) {
+            return;
+        }
+        try {
+            writeSnapshot(snapshot);
+            future.complete(null);
+        } catch (IOException e) {
+            logger.error("保存配置文件失败", e);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 序列化快照并写入配置文件
+     * 先写入临时文件再替换，避免写到一半时损坏原有配置
+     */
+    private void writeSnapshot(Map<String, Object> snapshot) throws IOException {
+        synchronized (writeLock) {
+            Path temp = configPath.resolveSibling(configPath.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                yaml.dump(snapshot, writer);
+            }
+            Files.move(temp, configPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("配置文件保存成功");
+        }
+    }
+
+    /**
+     * 替换一个配置项并发布新的配置映射
+     * 值在这里复制一次，调用方之后修改参数不会影响已发布的配置
+     */
+    private void put(String key, Object value) {
+        synchronized (saveLock) {
+            Map<String, Object> updated = new LinkedHashMap<>(config);
+            updated.put(key, deepCopy(value));
+            config = updated;
+        }
+    }
+
+    /**
+     * 复制配置中的所有映射和列表，值对象本身不可变无需复制
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T deepCopy(T value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+            return (T) copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                copy.add(deepCopy(element));
+            }
+            return (T) copy;
+        }
+        return value;
+    }
+
     /**
      * 创建默认配置文件
      */
     private void createDefaultConfig() {
         config = createDefaultConfigMap();
+        loginSettings = new LoginSettings(config);
         saveConfig();
     }
 
@@ -87,36 +230,77 @@ public class ConfigManager {
         defaultConfig.put("enabled", true);
         defaultConfig.put("kick_message", "你还没有白名单！快去服务器群里申请吧！(｀・ω・´)");
         defaultConfig.put("auto_check", "1h");
+        defaultConfig.put("auto_check_slice_size", 100);
+        defaultConfig.put("kick_rate", 20);
         defaultConfig.put("whitelist", new ArrayList<String>());
+        defaultConfig.put("whitelist_expiry", new LinkedHashMap<String, Long>());
+        defaultConfig.put("server_deny_message", "你没有进入该服务器的权限！");
+        defaultConfig.put("server_whitelists", new LinkedHashMap<String, List<String>>());
+        defaultConfig.put("groups", new LinkedHashMap<String, List<String>>());
+        defaultConfig.put("group_rules", new ArrayList<String>());
+        defaultConfig.put("pattern_rules", new ArrayList<Map<String, String>>());
+        defaultConfig.put("ip_rules", new ArrayList<Map<String, String>>());
+        defaultConfig.put("access_windows", new LinkedHashMap<String, List<String>>());
+        defaultConfig.put("access_window_timezone", "");
+        defaultConfig.put("login_rate_limit", 0);
+        defaultConfig.put("rate_limit_message", "连接过于频繁，请稍后再试！");
+        defaultConfig.put("external_check_url", "");
+        defaultConfig.put("external_check_timeout", "3s");
+        defaultConfig.put("external_check_cache", "5m");
+        defaultConfig.put("login_max_in_flight", 0);
+        defaultConfig.put("login_priority_groups", new ArrayList<String>());
+        defaultConfig.put("login_queue_wait", "10s");
+        defaultConfig.put("login_queue_reservation", "2m");
+        defaultConfig.put("login_queue_message", "服务器正忙，你当前排在第 {position} 位，请在 {time} 内重新连接以保留位置");
+        defaultConfig.put("whitelist_uuids", new LinkedHashMap<String, String>());
+        defaultConfig.put("uuid_verification", false);
+        defaultConfig.put("uuid_mismatch_message", "该玩家名的白名单属于另一个账号！");
+        defaultConfig.put("uuid_lookup_url", UuidResolver.DEFAULT_LOOKUP_URL);
+        defaultConfig.put("uuid_lookup_rate", 60);
+        defaultConfig.put("uuid_cache_ttl", "30d");
+        defaultConfig.put("tiered_whitelist", false);
+        defaultConfig.put("tiered_whitelist_cache_size", 10000);
+        defaultConfig.put("audit_log", true);
+        defaultConfig.put("audit_log_max_file_size", 8);
+        defaultConfig.put("audit_log_max_files", 10);
         return defaultConfig;
     }
 
+    /**
+     * 获取插件数据目录
+     */
+    public Path getDataDirectory() {
+        return configPath.getParent();
+    }
+
     /**
      * 获取白名单是否启用
      */
     public boolean isEnabled() {
-        return (Boolean) config.getOrDefault("enabled", true);
+        return loginSettings.enabled;
     }
 
     /**
      * 设置白名单启用状态
      */
     public void setEnabled(boolean enabled) {
-        config.put("enabled", enabled);
+        put("enabled", enabled);
+        loginSettings = new LoginSettings(config);
     }
 
     /**
      * 获取踢出消息
      */
     public String getKickMessage() {
-        return (String) config.getOrDefault("kick_message", "你还没有白名单！快去服务器群里申请吧！(｀・ω・´)");
+        return loginSettings.kickMessage;
     }
 
     /**
      * 设置踢出消息
      */
     public void setKickMessage(String message) {
-        config.put("kick_message", message);
+        put("kick_message", message);
+        loginSettings = new LoginSettings(config);
     }
 
     /**
@@ -131,26 +315,519 @@ public class ConfigManager {
      * 设置自动检查间隔
      */
     public void setAutoCheckInterval(String interval) {
-        config.put("auto_check", interval);
+        put("auto_check", interval);
+    }
+
+    /**
+     * 获取自动检查每个分片处理的玩家数量
+     */
+    public int getAutoCheckSliceSize() {
+        Object value = config.getOrDefault("auto_check_slice_size", 100);
+        if (value instanceof Number) {
+            int size = ((Number) value).intValue();
+            if (size > 0) {
+                return size;
+            }
+        }
+        return 100;
+    }
+
+    /**
+     * 获取每秒最多踢出的玩家数量
+     */
+    public double getKickRate() {
+        Object value = config.getOrDefault("kick_rate", 20);
+        if (value instanceof Number) {
+            double rate = ((Number) value).doubleValue();
+            if (rate > 0) {
+                return rate;
+            }
+        }
+        return 20;
     }
 
     /**
      * 获取白名单列表
+     * 未加引号的纯数字玩家名会被 YAML 解析为数字，按文本读取；空条目跳过
      */
-    @SuppressWarnings("unchecked")
     public List<String> getWhitelist() {
         Object whitelistObj = config.get("whitelist");
-        if (whitelistObj instanceof List) {
-            return new ArrayList<>((List<String>) whitelistObj);
+        if (!(whitelistObj instanceof List)) {
+            return new ArrayList<>();
+        }
+        List<?> entries = (List<?>) whitelistObj;
+        List<String> result = new ArrayList<>(entries.size());
+        int converted = 0;
+        for (Object entry : entries) {
+            if (entry instanceof String) {
+                result.add((String) entry);
+            } else if (entry != null) {
+                result.add(String.valueOf(entry));
+                converted++;
+            }
         }
-        return new ArrayList<>();
+        if (converted > 0) {
+            logger.warn("白名单中有 {} 个条目不是字符串（如未加引号的纯数字玩家名），已按文本读取，请给这些玩家名加引号", converted);
+        }
+        return result;
     }
 
     /**
      * 设置白名单列表
      */
     public void setWhitelist(List<String> whitelist) {
-        config.put("whitelist", new ArrayList<>(whitelist));
+        put("whitelist", whitelist);
+    }
+
+    /**
+     * 获取白名单到期时间
+     * @return 玩家名到到期时间戳（毫秒）的映射
+     */
+    public Map<String, Long> getWhitelistExpiries() {
+        Map<String, Long> result = new HashMap<>();
+        Object expiryObj = config.get("whitelist_expiry");
+        if (expiryObj instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) expiryObj).entrySet()) {
+                if (entry.getKey() != null && entry.getValue() instanceof Number) {
+                    result.put(entry.getKey().toString(), ((Number) entry.getValue()).longValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 设置白名单到期时间
+     */
+    public void setWhitelistExpiries(Map<String, Long> expiries) {
+        put("whitelist_expiry", new TreeMap<>(expiries));
+    }
+
+    /**
+     * 获取进入受限服务器被拒绝时的提示消息
+     */
+    public String getServerDenyMessage() {
+        return (String) config.getOrDefault("server_deny_message", "你没有进入该服务器的权限！");
+    }
+
+    /**
+     * 获取各服务器的访问列表
+     * @return 服务器名到玩家名列表的映射
+     */
+    public Map<String, List<String>> getServerWhitelists() {
+        return getNameListMap("server_whitelists");
+    }
+
+    /**
+     * 设置各服务器的访问列表
+     */
+    public void setServerWhitelists(Map<String, List<String>> serverWhitelists) {
+        put("server_whitelists", serverWhitelists);
+    }
+
+    /**
+     * 设置单个服务器的访问列表，其他服务器的列表不复制，继续与当前配置共享
+     * 服务器名不区分大小写，写入时替换大小写不同的旧条目
+     * @param players 为 null 时删除该服务器的访问列表
+     */
+    public void setServerWhitelist(String serverName, List<String> players) {
+        synchronized (saveLock) {
+            Map<Object, Object> servers = new LinkedHashMap<>();
+            Object current = config.get("server_whitelists");
+            if (current instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) current).entrySet()) {
+                    if (entry.getKey() == null || !serverName.equalsIgnoreCase(entry.getKey().toString())) {
+                        servers.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            if (players != null) {
+                servers.put(serverName, new ArrayList<>(players));
+            }
+            Map<String, Object> updated = new LinkedHashMap<>(config);
+            updated.put("server_whitelists", servers);
+            config = updated;
+        }
+    }
+
+    /**
+     * 获取分组成员
+     * @return 分组名到玩家名列表的映射
+     */
+    public Map<String, List<String>> getGroups() {
+        return getNameListMap("groups");
+    }
+
+    /**
+     * 设置分组成员
+     */
+    public void setGroups(Map<String, List<String>> groups) {
+        put("groups", groups);
+    }
+
+    /**
+     * 获取分组放行规则
+     */
+    public List<String> getGroupRules() {
+        List<String> result = new ArrayList<>();
+        Object rulesObj = config.get("group_rules");
+        if (rulesObj instanceof List) {
+            for (Object rule : (List<?>) rulesObj) {
+                if (rule != null) {
+                    result.add(rule.toString());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 设置分组放行规则
+     */
+    public void setGroupRules(List<String> rules) {
+        put("group_rules", rules);
+    }
+
+    /**
+     * 获取模式规则
+     * @return 按顺序排列的规则，每条包含 pattern 和 action
+     */
+    public List<Map<String, String>> getPatternRules() {
+        List<Map<String, String>> result = new ArrayList<>();
+        Object rulesObj = config.get("pattern_rules");
+        if (rulesObj instanceof List) {
+            for (Object ruleObj : (List<?>) rulesObj) {
+                Map<String, String> rule = new LinkedHashMap<>();
+                if (ruleObj instanceof Map) {
+                    Object pattern = ((Map<?, ?>) ruleObj).get("pattern");
+                    Object action = ((Map<?, ?>) ruleObj).get("action");
+                    rule.put("pattern", pattern != null ? pattern.toString() : null);
+                    rule.put("action", action != null ? action.toString() : "allow");
+                } else if (ruleObj != null) {
+                    // 简写形式：只写模式，默认放行
+                    rule.put("pattern", ruleObj.toString());
+                    rule.put("action", "allow");
+                } else {
+                    continue;
+                }
+                result.add(rule);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 设置模式规则
+     */
+    public void setPatternRules(List<Map<String, String>> rules) {
+        put("pattern_rules", rules);
+    }
+
+    /**
+     * 获取IP规则
+     * @return 规则列表，每条包含 cidr 和 action
+     */
+    public List<Map<String, String>> getIpRules() {
+        List<Map<String, String>> result = new ArrayList<>();
+        Object rulesObj = config.get("ip_rules");
+        if (rulesObj instanceof List) {
+            for (Object ruleObj : (List<?>) rulesObj) {
+                Map<String, String> rule = new LinkedHashMap<>();
+                if (ruleObj instanceof Map) {
+                    Object cidr = ((Map<?, ?>) ruleObj).get("cidr");
+                    Object action = ((Map<?, ?>) ruleObj).get("action");
+                    rule.put("cidr", cidr != null ? cidr.toString() : null);
+                    rule.put("action", action != null ? action.toString() : "allow");
+                } else if (ruleObj != null) {
+                    // 简写形式：只写网段，默认放行
+                    rule.put("cidr", ruleObj.toString());
+                    rule.put("action", "allow");
+                } else {
+                    continue;
+                }
+                result.add(rule);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 设置IP规则
+     */
+    public void setIpRules(List<Map<String, String>> rules) {
+        put("ip_rules", rules);
+    }
+
+    /**
+     * 获取访问时间窗口
+     * @return 玩家名或 group:分组名 到时间窗口列表的映射
+     */
+    public Map<String, List<String>> getAccessWindows() {
+        return getNameListMap("access_windows");
+    }
+
+    /**
+     * 设置访问时间窗口
+     */
+    public void setAccessWindows(Map<String, List<String>> windows) {
+        put("access_windows", windows);
+    }
+
+    /**
+     * 获取计算时间窗口所用的时区
+     * 未配置或无效时使用系统时区
+     */
+    public ZoneId getAccessWindowZone() {
+        Object value = config.getOrDefault("access_window_timezone", "");
+        if (value != null && !value.toString().trim().isEmpty()) {
+            try {
+                return ZoneId.of(value.toString().trim());
+            } catch (DateTimeException e) {
+                logger.warn("无效的时区: {}，使用系统时区", value);
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+
+    /**
+     * 获取每个地址每分钟允许的登录次数
+     * @return 次数，0 表示不限速
+     */
+    public int getLoginRateLimit() {
+        return loginSettings.loginRateLimit;
+    }
+
+    /**
+     * 获取登录限速提示消息
+     */
+    public String getRateLimitMessage() {
+        return loginSettings.rateLimitMessage;
+    }
+
+    /**
+     * 获取外部检查地址，支持 {name} 和 {ip} 占位符
+     * @return 地址，未配置时返回空字符串
+     */
+    public String getExternalCheckUrl() {
+        return loginSettings.externalCheckUrl;
+    }
+
+    /**
+     * 获取外部检查超时时间（毫秒）
+     */
+    public long getExternalCheckTimeout() {
+        long timeout = parseDuration(String.valueOf(config.getOrDefault("external_check_timeout", "3s")));
+        return timeout > 0 ? timeout : 3000;
+    }
+
+    /**
+     * 获取外部检查结论的缓存时间（毫秒）
+     */
+    public long getExternalCheckCacheTime() {
+        long cacheTime = parseDuration(String.valueOf(config.getOrDefault("external_check_cache", "5m")));
+        return cacheTime > 0 ? cacheTime : 300000;
+    }
+
+    /**
+     * 获取同时处于登录过程中的最大玩家数量
+     * @return 数量，0 表示不限制
+     */
+    public int getLoginMaxInFlight() {
+        return loginSettings.loginMaxInFlight;
+    }
+
+    /**
+     * 获取登录排队的优先级分组，排在前面的分组优先
+     */
+    public List<String> getLoginPriorityGroups() {
+        List<String> result = new ArrayList<>();
+        Object groupsObj = config.get("login_priority_groups");
+        if (groupsObj instanceof List) {
+            for (Object group : (List<?>) groupsObj) {
+                if (group != null) {
+                    result.add(group.toString());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取登录排队的最长等待时间（毫秒），超时后告知排位并断开
+     */
+    public long getLoginQueueWait() {
+        long wait = parseDuration(String.valueOf(config.getOrDefault("login_queue_wait", "10s")));
+        return wait > 0 ? wait : 10000;
+    }
+
+    /**
+     * 获取排队位置的保留时间（毫秒）
+     */
+    public long getLoginQueueReservation() {
+        long reservation = parseDuration(String.valueOf(config.getOrDefault("login_queue_reservation", "2m")));
+        return reservation > 0 ? reservation : 120000;
+    }
+
+    /**
+     * 获取排队超时的提示消息，支持 {position} 和 {time} 占位符
+     */
+    public String getLoginQueueMessage() {
+        return (String) config.getOrDefault("login_queue_message",
+            "服务器正忙，你当前排在第 {position} 位，请在 {time} 内重新连接以保留位置");
+    }
+
+    /**
+     * 获取白名单玩家已解析的UUID
+     * @return 玩家名到UUID的映射，格式无效的条目被忽略
+     */
+    public Map<String, UUID> getWhitelistUuids() {
+        Map<String, UUID> result = new HashMap<>();
+        Object uuidsObj = config.get("whitelist_uuids");
+        if (uuidsObj instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) uuidsObj).entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) {
+                    continue;
+                }
+                try {
+                    result.put(entry.getKey().toString(), UUID.fromString(entry.getValue().toString()));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("忽略无效的白名单UUID: {} -> {}", entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 设置白名单玩家已解析的UUID
+     */
+    public void setWhitelistUuids(Map<String, UUID> uuids) {
+        Map<String, String> values = new TreeMap<>();
+        for (Map.Entry<String, UUID> entry : uuids.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().toString());
+        }
+        put("whitelist_uuids", values);
+    }
+
+    /**
+     * 获取是否校验白名单玩家的UUID
+     * 开启后，已解析UUID的白名单条目只允许该UUID对应的账号登录
+     */
+    public boolean isUuidVerificationEnabled() {
+        return (Boolean) config.getOrDefault("uuid_verification", false);
+    }
+
+    /**
+     * 获取UUID不匹配时的提示消息
+     */
+    public String getUuidMismatchMessage() {
+        return (String) config.getOrDefault("uuid_mismatch_message", "该玩家名的白名单属于另一个账号！");
+    }
+
+    /**
+     * 获取批量查询玩家UUID的接口地址
+     */
+    public String getUuidLookupUrl() {
+        Object url = config.getOrDefault("uuid_lookup_url", UuidResolver.DEFAULT_LOOKUP_URL);
+        String result = url != null ? url.toString().trim() : "";
+        return result.isEmpty() ? UuidResolver.DEFAULT_LOOKUP_URL : result;
+    }
+
+    /**
+     * 获取每分钟最多发出的UUID查询请求数
+     */
+    public int getUuidLookupRate() {
+        Object value = config.getOrDefault("uuid_lookup_rate", 60);
+        if (value instanceof Number && ((Number) value).intValue() > 0) {
+            return ((Number) value).intValue();
+        }
+        return 60;
+    }
+
+    /**
+     * 获取UUID查询结果的缓存时间（毫秒）
+     */
+    public long getUuidCacheTtl() {
+        long ttl = parseDuration(String.valueOf(config.getOrDefault("uuid_cache_ttl", "30d")));
+        return ttl > 0 ? ttl : TimeUnit.DAYS.toMillis(30);
+    }
+
+    /**
+     * 获取内存中保留的白名单历史版本数，更早的版本压缩到历史日志
+     */
+    public int getWhitelistHistorySize() {
+        Object value = config.getOrDefault("whitelist_history_size", 20);
+        if (value instanceof Number && ((Number) value).intValue() > 0) {
+            return ((Number) value).intValue();
+        }
+        return 20;
+    }
+
+    /**
+     * 是否启用分层白名单
+     */
+    public boolean isTieredWhitelist() {
+        return (Boolean) config.getOrDefault("tiered_whitelist", false);
+    }
+
+    /**
+     * 获取分层白名单在内存中缓存的玩家数
+     */
+    public int getTieredWhitelistCacheSize() {
+        Object value = config.getOrDefault("tiered_whitelist_cache_size", 10000);
+        if (value instanceof Number && ((Number) value).intValue() > 0) {
+            return ((Number) value).intValue();
+        }
+        return 10000;
+    }
+
+    /**
+     * 是否记录审计日志
+     */
+    public boolean isAuditLogEnabled() {
+        return (Boolean) config.getOrDefault("audit_log", true);
+    }
+
+    /**
+     * 获取单个审计日志文件的最大字节数，配置单位为MB
+     */
+    public long getAuditLogMaxFileSize() {
+        Object value = config.getOrDefault("audit_log_max_file_size", 8);
+        long megabytes = value instanceof Number && ((Number) value).longValue() > 0 ? ((Number) value).longValue() : 8;
+        return megabytes * 1024 * 1024;
+    }
+
+    /**
+     * 获取保留的已归档审计日志文件数，更早的文件被删除
+     */
+    public int getAuditLogMaxFiles() {
+        Object value = config.getOrDefault("audit_log_max_files", 10);
+        if (value instanceof Number && ((Number) value).intValue() > 0) {
+            return ((Number) value).intValue();
+        }
+        return 10;
+    }
+
+    /**
+     * 读取"名称 -> 玩家名列表"形式的配置项
+     */
+    private Map<String, List<String>> getNameListMap(String key) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        Object mapObj = config.get(key);
+        if (mapObj instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) mapObj).entrySet()) {
+                List<String> players = new ArrayList<>();
+                if (entry.getValue() instanceof List) {
+                    for (Object player : (List<?>) entry.getValue()) {
+                        if (player != null) {
+                            players.add(player.toString());
+                        }
+                    }
+                }
+                result.put(String.valueOf(entry.getKey()), players);
+            }
+        }
+        return result;
     }
 
     /**
@@ -158,30 +835,65 @@ public class ConfigManager {
      * 支持格式: 30s, 5m, 1h
      */
     private long parseTimeInterval(String interval) {
-        if (interval == null || interval.isEmpty()) {
-            return TimeUnit.HOURS.toMillis(1); // 默认1小时
+        long millis = parseDuration(interval);
+        if (millis < 0) {
+            logger.warn("无效的时间间隔格式: {}, 使用默认值1小时", interval);
+            return TimeUnit.HOURS.toMillis(1);
+        }
+        return millis;
+    }
+
+    /**
+     * 解析命令中给出的文件路径，相对路径基于数据目录
+     * 只允许访问数据目录内的文件，避免通过命令读取代理上的任意文件
+     * @throws IllegalArgumentException 路径无效或位于数据目录之外时抛出
+     */
+    public static Path resolveDataFile(Path dataDirectory, String pathText) {
+        Path base = dataDirectory.toAbsolutePath().normalize();
+        Path resolved;
+        try {
+            resolved = base.resolve(pathText).normalize();
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("无效的文件路径: " + pathText);
+        }
+        if (!resolved.startsWith(base)) {
+            throw new IllegalArgumentException("只能读取插件数据目录中的文件: " + pathText);
+        }
+        return resolved;
+    }
+
+    /**
+     * 解析时长字符串为毫秒
+     * 支持格式: 30s, 5m, 1h, 7d，没有单位时默认为秒
+     * @return 毫秒数，格式无效时返回-1
+     */
+    public static long parseDuration(String duration) {
+        if (duration == null || duration.trim().isEmpty()) {
+            return -1;
         }
         
-        interval = interval.toLowerCase().trim();
+        duration = duration.toLowerCase().trim();
         
         try {
-            if (interval.endsWith("s")) {
-                long seconds = Long.parseLong(interval.substring(0, interval.length() - 1));
-                return TimeUnit.SECONDS.toMillis(seconds);
-            } else if (interval.endsWith("m")) {
-                long minutes = Long.parseLong(interval.substring(0, interval.length() - 1));
-                return TimeUnit.MINUTES.toMillis(minutes);
-            } else if (interval.endsWith("h")) {
-                long hours = Long.parseLong(interval.substring(0, interval.length() - 1));
-                return TimeUnit.HOURS.toMillis(hours);
+            if (duration.endsWith("s")) {
+                long seconds = Long.parseLong(duration.substring(0, duration.length() - 1));
+                return seconds >= 0 ? TimeUnit.SECONDS.toMillis(seconds) : -1;
+            } else if (duration.endsWith("m")) {
+                long minutes = Long.parseLong(duration.substring(0, duration.length() - 1));
+                return minutes >= 0 ? TimeUnit.MINUTES.toMillis(minutes) : -1;
+            } else if (duration.endsWith("h")) {
+                long hours = Long.parseLong(duration.substring(0, duration.length() - 1));
+                return hours >= 0 ? TimeUnit.HOURS.toMillis(hours) : -1;
+            } else if (duration.endsWith("d")) {
+                long days = Long.parseLong(duration.substring(0, duration.length() - 1));
+                return days >= 0 ? TimeUnit.DAYS.toMillis(days) : -1;
             } else {
                 // 如果没有单位，默认为秒
-                long seconds = Long.parseLong(interval);
-                return TimeUnit.SECONDS.toMillis(seconds);
+                long seconds = Long.parseLong(duration);
+                return seconds >= 0 ? TimeUnit.SECONDS.toMillis(seconds) : -1;
             }
         } catch (NumberFormatException e) {
-            logger.warn("无效的时间间隔格式: {}, 使用默认值1小时", interval);
-            return TimeUnit.HOURS.toMillis(1);
+            return -1;
         }
     }
 
@@ -191,4 +903,31 @@ public class ConfigManager {
     public void reloadConfig() {
         loadConfig();
     }
+
+    /**
+     * 登录检查用到的配置项
+     * 在加载配置和修改这些配置项时计算一次，登录时直接读取字段，不再查表和拆箱
+     */
+    private static final class LoginSettings {
+        private final boolean enabled;
+        private final String kickMessage;
+        private final int loginRateLimit;
+        private final String rateLimitMessage;
+        private final String externalCheckUrl;
+        private final int loginMaxInFlight;
+
+        private LoginSettings(Map<String, Object> config) {
+            this.enabled = (Boolean) config.getOrDefault("enabled", true);
+            this.kickMessage = (String) config.getOrDefault("kick_message", "你还没有白名单！快去服务器群里申请吧！(｀・ω・´)");
+            this.loginRateLimit = nonNegative(config.getOrDefault("login_rate_limit", 0));
+            this.rateLimitMessage = (String) config.getOrDefault("rate_limit_message", "连接过于频繁，请稍后再试！");
+            Object url = config.getOrDefault("external_check_url", "");
+            this.externalCheckUrl = url != null ? url.toString().trim() : "";
+            this.loginMaxInFlight = nonNegative(config.getOrDefault("login_max_in_flight", 0));
+        }
+
+        private static int nonNegative(Object value) {
+            return value instanceof Number ? Math.max(0, ((Number) value).intValue()) : 0;
+        }
+    }
 }
@@ -0,0 +1,158 @@
+package org.plugin.listtools;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * 用 SnakeYAML 的事件接口逐条读取 config.yml 中的白名单、到期时间和UUID
+ * 不构建文档树，内存占用与名单长度无关，供离线工具检查和统计很大的配置文件
+ */
+final class ConfigYamlScanner {
+    static final String WHITELIST = "whitelist";
+    static final String WHITELIST_EXPIRY = "whitelist_expiry";
+    static final String WHITELIST_UUIDS = "whitelist_uuids";
+
+    /**
+     * 扫描时的回调，未覆盖的方法忽略对应的条目
+     */
+    interface Handler {
+        /**
+         * whitelist 中的一项
+         * @param index 从 0 开始的序号
+         * @param value 文本，空条目或列表、映射等非标量为 null
+         * @param nonString 未加引号且会被 YAML 解析为数字、布尔值等非字符串
+         */
+        default void whitelistEntry(int index, String value, boolean nonString) {
+        }
+
+        /**
+         * whitelist_expiry 或 whitelist_uuids 中的一项
+         * @param section 所在的配置项
+         * @param value 文本，空值或非标量为 null
+         */
+        default void mappingEntry(String section, String key, String value) {
+        }
+    }
+
+    private final Resolver resolver = new Resolver();
+
+    private ConfigYamlScanner() {
+    }
+
+    static void scan(Path configFile, Handler handler) throws IOException {
+        LoaderOptions options = new LoaderOptions();
+        // 默认只允许 3MB，数百万条目的配置会超出
+        options.setCodePointLimit(Integer.MAX_VALUE);
+        try (Reader reader = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+            new ConfigYamlScanner().scan(new Yaml(options).parse(reader).iterator(), handler);
+        } catch (YAMLException e) {
+            throw new IOException("配置文件格式错误: " + e.getMessage(), e);
+        }
+    }
+
+    private void scan(Iterator<Event> events, Handler handler) {
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (!event.is(Event.ID.MappingStart)) {
+                skip(event, events);
+                continue;
+            }
+            // 顶层映射，只处理白名单相关的三项
+            while (true) {
+                Event key = events.next();
+                if (key.is(Event.ID.MappingEnd)) {
+                    break;
+                }
+                String name = key.is(Event.ID.Scalar) ? ((ScalarEvent) key).getValue() : null;
+                skip(key, events);
+                Event value = events.next();
+                if (WHITELIST.equals(name) && value.is(Event.ID.SequenceStart)) {
+                    readSequence(events, handler);
+                } else if ((WHITELIST_EXPIRY.equals(name) || WHITELIST_UUIDS.equals(name)) && value.is(Event.ID.MappingStart)) {
+                    readMapping(name, events, handler);
+                } else {
+                    skip(value, events);
+                }
+            }
+        }
+    }
+
+    private void readSequence(Iterator<Event> events, Handler handler) {
+        int index = 0;
+        for (Event event = events.next(); !event.is(Event.ID.SequenceEnd); event = events.next()) {
+            if (event.is(Event.ID.Scalar)) {
+                ScalarEvent scalar = (ScalarEvent) event;
+                Tag tag = tagOf(scalar);
+                if (Tag.NULL.equals(tag)) {
+                    handler.whitelistEntry(index++, null, false);
+                } else {
+                    handler.whitelistEntry(index++, scalar.getValue(), !Tag.STR.equals(tag));
+                }
+            } else {
+                skip(event, events);
+                handler.whitelistEntry(index++, null, false);
+            }
+        }
+    }
+
+    private void readMapping(String section, Iterator<Event> events, Handler handler) {
+        for (Event key = events.next(); !key.is(Event.ID.MappingEnd); key = events.next()) {
+            String keyText = key.is(Event.ID.Scalar) ? ((ScalarEvent) key).getValue() : null;
+            skip(key, events);
+            Event value = events.next();
+            String valueText = null;
+            if (value.is(Event.ID.Scalar) && !Tag.NULL.equals(tagOf((ScalarEvent) value))) {
+                valueText = ((ScalarEvent) value).getValue();
+            }
+            skip(value, events);
+            if (keyText != null) {
+                handler.mappingEntry(section, keyText, valueText);
+            }
+        }
+    }
+
+    /**
+     * 按加载时的规则确定标量的类型
+     */
+    private Tag tagOf(ScalarEvent scalar) {
+        String tag = scalar.getTag();
+        if (tag != null && !"!".equals(tag)) {
+            return new Tag(tag);
+        }
+        // 加引号的标量总是字符串，未加引号的按内容解析
+        return scalar.getImplicit().canOmitTagInPlainScalar()
+            ? resolver.resolve(NodeId.scalar, scalar.getValue(), true)
+            : Tag.STR;
+    }
+
+    /**
+     * 跳过一个节点，event 为集合开始时读到对应的结束事件
+     */
+    private static void skip(Event event, Iterator<Event> events) {
+        if (!event.is(Event.ID.MappingStart) && !event.is(Event.ID.SequenceStart)) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            Event next = events.next();
+            if (next.is(Event.ID.MappingStart) || next.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (next.is(Event.ID.MappingEnd) || next.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.plugin.listtools;
+
+import java.util.function.Function;
+
+/**
+ * 内置准入阶段
+ * 判断顺序与 {@link AccessPolicy#isStillAllowed} 一致：启用开关、登录限速、IP规则、时间窗口、
+ * 精确白名单与分组规则、模式规则，最后是外部检查
+ */
+public final class DefaultAdmissionStages {
+    private DefaultAdmissionStages() {
+    }
+
+    /**
+     * 注册所有内置阶段
+     */
+    public static void registerAll(AdmissionPipeline pipeline, ConfigManager configManager,
+                                   WhitelistManager whitelistManager, GroupManager groupManager,
+                                   PatternRuleManager patternRuleManager, IpRuleManager ipRuleManager,
+                                   AccessWindowManager accessWindowManager,
+                                   LoginRateLimitStage rateLimitStage, ExternalCheckStage externalCheckStage) {
+        // 白名单系统关闭时直接放行
+        pipeline.register(new BuiltinStage("enabled", AdmissionPipeline.ORDER_GATE,
+            request -> configManager.isEnabled() ? AdmissionDecision.PASS : AdmissionDecision.ALLOW));
+
+        pipeline.register(rateLimitStage);
+
+        pipeline.register(new BuiltinStage("ip_rules", AdmissionPipeline.ORDER_IP, request -> {
+            IpRuleManager.IpRule rule = ipRuleManager.match(request.getAddressBytes());
+            if (rule == null) {
+                return AdmissionDecision.PASS;
+            }
+            return rule.isAllow() ? AdmissionDecision.ALLOW : AdmissionDecision.DENY;
+        }));
+
+        pipeline.register(new BuiltinStage("access_window", AdmissionPipeline.ORDER_WINDOW,
+            request -> accessWindowManager.isWithinWindow(request.getPlayerName())
+                ? AdmissionDecision.PASS : AdmissionDecision.DENY));
+
+        // 精确白名单和分组规则都只会放行，同组内按实测代价排序
+        pipeline.register(new BuiltinStage("whitelist", AdmissionPipeline.ORDER_NAME,
+            request -> whitelistManager.isWhitelisted(request.getPlayerName())
+                ? AdmissionDecision.ALLOW : AdmissionDecision.PASS));
+        pipeline.register(new BuiltinStage("group_rules", AdmissionPipeline.ORDER_NAME,
+            request -> groupManager.isAllowed(request.getPlayerName())
+                ? AdmissionDecision.ALLOW : AdmissionDecision.PASS));
+
+        pipeline.register(new BuiltinStage("pattern_rules", AdmissionPipeline.ORDER_PATTERN, request -> {
+            PatternRuleManager.PatternRule rule = patternRuleManager.match(request.getPlayerName());
+            if (rule == null) {
+                return AdmissionDecision.PASS;
+            }
+            return rule.isAllow() ? AdmissionDecision.ALLOW : AdmissionDecision.DENY;
+        }));
+
+        pipeline.register(externalCheckStage);
+    }
+
+    /**
+     * 由访问策略直接复查的同步内置阶段
+     */
+    private static final class BuiltinStage implements AdmissionStage {
+        private final String name;
+        private final int orderGroup;
+        private final Function<AdmissionRequest, AdmissionDecision> check;
+
+        private BuiltinStage(String name, int orderGroup, Function<AdmissionRequest, AdmissionDecision> check) {
+            this.name = name;
+            this.orderGroup = orderGroup;
+            this.check = check;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrderGroup() {
+            return orderGroup;
+        }
+
+        @Override
+        public AdmissionDecision check(AdmissionRequest request) {
+            return check.apply(request);
+        }
+
+        @Override
+        public boolean grantsSession() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
+import org.slf4j.Logger;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 限速踢出队列
+ * 所有批量踢出都经过此队列，按配置的速率逐个断开玩家连接，避免瞬间大量断开冲击代理和后端服务器
+ */
+public class DisconnectQueue {
+    // 队列处理的节拍间隔
+    private static final long TICK_MS = 50;
+    // 每个节拍最多处理的跳过项数量，防止大量失效项占用调度线程
+    private static final int MAX_SKIPS_PER_TICK = 1000;
+    // 批次进度回调的最小间隔
+    private static final long PROGRESS_INTERVAL_MS = 5000;
+
+    private final ConfigManager configManager;
+    private final AccessPolicy accessPolicy;
+    private final AuditLog auditLog;
+    private final ProxyServer proxyServer;
+    private final Logger logger;
+    private final Object plugin;
+    private final ConcurrentLinkedQueue<Entry> queue;
+    private final ConcurrentHashMap<UUID, Entry> pending;
+    private volatile ScheduledTask task;
+    // 停止后加入的玩家不再排队，直接以 false 完成
+    private volatile boolean stopped;
+    // 令牌桶中的可用令牌，仅在节拍任务中访问
+    private double tokens;
+
+    public DisconnectQueue(ConfigManager configManager, AccessPolicy accessPolicy, AuditLog auditLog,
+                           ProxyServer proxyServer, Logger logger, Object plugin) {
+        this.configManager = configManager;
+        this.accessPolicy = accessPolicy;
+        this.auditLog = auditLog;
+        this.proxyServer = proxyServer;
+        this.logger = logger;
+        this.plugin = plugin;
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.pending = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 启动队列处理任务
+     */
+    public synchronized void start() {
+        if (task != null) {
+            return;
+        }
+        tokens = 0;
+        stopped = false;
+        task = proxyServer.getScheduler()
+            .buildTask(plugin, this::tick)
+            .repeat(TICK_MS, TimeUnit.MILLISECONDS)
+            .schedule();
+        logger.debug("踢出队列已启动，速率: {} 人/秒", configManager.getKickRate());
+    }
+
+    /**
+     * 停止队列处理任务
+     * 尚未处理的玩家不再踢出，对应的结果以 false 完成
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            pending.remove(entry.player.getUniqueId(), entry);
+            entry.future.complete(false);
+        }
+    }
+
+    /**
+     * 将一名未授权玩家加入踢出队列
+     * 轮到该玩家时会重新检查访问策略，已重新获得授权的玩家将被跳过
+     * @return 玩家最终被踢出时以 true 完成，被跳过时以 false 完成
+     */
+    public CompletableFuture<Boolean> enqueue(Player player, Component reason) {
+        return enqueue(player, reason, p -> !accessPolicy.isStillAllowed(p));
+    }
+
+    /**
+     * 将一名玩家加入踢出队列
+     * @param stillUnauthorized 轮到该玩家时的复查条件，返回 false 则跳过踢出
+     * @return 玩家最终被踢出时以 true 完成，被跳过或队列已停止时以 false 完成
+     */
+    public CompletableFuture<Boolean> enqueue(Player player, Component reason, Predicate<Player> stillUnauthorized) {
+        if (stopped) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Entry entry = new Entry(player, reason, stillUnauthorized);
+        Entry existing = pending.putIfAbsent(player.getUniqueId(), entry);
+        if (existing != null) {
+            // 已在队列中，复用已有结果
+            return existing.future;
+        }
+        queue.offer(entry);
+        if (stopped && queue.remove(entry)) {
+            // 与 stop() 并发时，stop() 可能已清空队列，由这里完成该项
+            pending.remove(player.getUniqueId(), entry);
+            entry.future.complete(false);
+        }
+        return entry.future;
+    }
+
+    /**
+     * 批量加入踢出队列
+     * @return 可跟踪进度和完成状态的批次
+     */
+    public KickBatch enqueueAll(Collection<Player> players, Component reason) {
+        KickBatch batch = new KickBatch(players.size());
+        for (Player player : players) {
+            batch.track(enqueue(player, reason));
+        }
+        return batch;
+    }
+
+    /**
+     * 获取等待踢出的玩家数量
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 按令牌桶速率处理队列
+     */
+    private synchronized void tick() {
+        try {
+            double perTick = configManager.getKickRate() * TICK_MS / 1000.0;
+            // 桶容量至少为1，保证低速率时也能逐个处理
+            tokens = Math.min(tokens + perTick, Math.max(1.0, perTick));
+
+            int skipped = 0;
+            Entry entry;
+            while (tokens >= 1.0 && skipped < MAX_SKIPS_PER_TICK && (entry = queue.poll()) != null) {
+                pending.remove(entry.player.getUniqueId(), entry);
+                Player player = entry.player;
+
+                if (!player.isActive() || !configManager.isEnabled() || !entry.stillUnauthorized.test(player)) {
+                    // 已离线、白名单已关闭或已重新加入白名单，跳过
+                    entry.future.complete(false);
+                    skipped++;
+                    continue;
+                }
+
+                player.disconnect(entry.reason);
+                tokens -= 1.0;
+                // 只写入审计日志缓冲区，大批量踢出时不在调度线程上逐条输出日志
+                auditLog.record("kick", List.of(player.getUsername()), player.getUniqueId().toString());
+                logger.debug("踢出未授权玩家: {}", player.getUsername());
+                entry.future.complete(true);
+            }
+
+            if (queue.isEmpty()) {
+                // 空闲时不积累令牌，避免下一批开始时瞬间突发
+                tokens = Math.min(tokens, 1.0);
+            }
+        } catch (Exception e) {
+            logger.error("处理踢出队列时发生错误", e);
+        }
+    }
+
+    /**
+     * 队列中的一个待踢出玩家
+     */
+    private static class Entry {
+        private final Player player;
+        private final Component reason;
+        private final Predicate<Player> stillUnauthorized;
+        private final CompletableFuture<Boolean> future;
+
+        private Entry(Player player, Component reason, Predicate<Player> stillUnauthorized) {
+            this.player = player;
+            this.reason = reason;
+            this.stillUnauthorized = stillUnauthorized;
+            this.future = new CompletableFuture<>();
+        }
+    }
+
+    /**
+     * 一批踢出请求的进度跟踪
+     */
+    public static class KickBatch {
+        private final int total;
+        private final AtomicInteger kicked;
+        private final AtomicInteger skipped;
+        private final CompletableFuture<KickBatch> future;
+        private volatile Consumer<KickBatch> progressListener;
+        private volatile long lastProgressAt;
+
+        private KickBatch(int total) {
+            this.total = total;
+            this.kicked = new AtomicInteger();
+            this.skipped = new AtomicInteger();
+            this.future = new CompletableFuture<>();
+            this.lastProgressAt = System.currentTimeMillis();
+            if (total == 0) {
+                future.complete(this);
+            }
+        }
+
+        private void track(CompletableFuture<Boolean> result) {
+            result.whenComplete((wasKicked, error) -> {
+                if (Boolean.TRUE.equals(wasKicked)) {
+                    kicked.incrementAndGet();
+                } else {
+                    skipped.incrementAndGet();
+                }
+
+                if (getProcessed() >= total) {
+                    future.complete(this);
+                    return;
+                }
+
+                Consumer<KickBatch> listener = progressListener;
+                long now = System.currentTimeMillis();
+                if (listener != null && now - lastProgressAt >= PROGRESS_INTERVAL_MS) {
+                    lastProgressAt = now;
+                    listener.accept(this);
+                }
+            });
+        }
+
+        /**
+         * 设置进度回调，处理过程中最多每5秒调用一次
+         */
+        public KickBatch onProgress(Consumer<KickBatch> listener) {
+            this.progressListener = listener;
+            return this;
+        }
+
+        /**
+         * 获取批次完成的Future
+         */
+        public CompletableFuture<KickBatch> getFuture() {
+            return future;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getKicked() {
+            return kicked.get();
+        }
+
+        public int getSkipped() {
+            return skipped.get();
+        }
+
+        public int getProcessed() {
+            return kicked.get() + skipped.get();
+        }
+
+        public boolean isDone() {
+            return future.isDone();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限时白名单到期任务
+ * 每秒推进一次到期时间轮，到期的玩家批量移出白名单，并只踢出这些玩家
+ */
+public class ExpiryTask {
+    private final ConfigManager configManager;
+    private final WhitelistManager whitelistManager;
+    private final DisconnectQueue disconnectQueue;
+    private final ProxyServer proxyServer;
+    private final Logger logger;
+    private final Object plugin;
+    private volatile ScheduledTask currentTask;
+
+    public ExpiryTask(ConfigManager configManager, WhitelistManager whitelistManager,
+                      DisconnectQueue disconnectQueue, ProxyServer proxyServer, Logger logger, Object plugin) {
+        this.configManager = configManager;
+        this.whitelistManager = whitelistManager;
+        this.disconnectQueue = disconnectQueue;
+        this.proxyServer = proxyServer;
+        this.logger = logger;
+        this.plugin = plugin;
+    }
+
+    /**
+     * 启动到期任务
+     */
+    public synchronized void start() {
+        stop();
+        currentTask = proxyServer.getScheduler()
+            .buildTask(plugin, this::expire)
+            .repeat(1, TimeUnit.SECONDS)
+            .schedule();
+    }
+
+    /**
+     * 停止到期任务
+     */
+    public synchronized void stop() {
+        if (currentTask != null) {
+            currentTask.cancel();
+            currentTask = null;
+        }
+    }
+
+    /**
+     * 移除到期条目并踢出对应的在线玩家
+     */
+    private void expire() {
+        try {
+            List<String> expired = whitelistManager.expireEntries(System.currentTimeMillis());
+            if (expired.isEmpty()) {
+                return;
+            }
+
+            Component kickComponent = Component.text(configManager.getKickMessage(), NamedTextColor.RED);
+            for (String playerName : expired) {
+                // 到期移除已由审计日志记录，WhitelistManager 另外输出一行汇总
+                logger.debug("玩家 {} 的限时白名单已到期", playerName);
+                proxyServer.getPlayer(playerName)
+                    .ifPresent(player -> disconnectQueue.enqueue(player, kickComponent));
+            }
+        } catch (Exception e) {
+            logger.error("处理限时白名单到期时发生错误", e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 外部检查阶段
+ * 本地规则都未给出结论时，异步请求 external_check_url 询问外部存储：
+ * 返回 200 放行，返回 403 拒绝，其他状态码或请求失败时不下结论
+ *
+ * 结论会按 external_check_cache 缓存，同一玩家在缓存期内重复登录不再请求
+ */
+public class ExternalCheckStage implements AdmissionStage {
+    // 缓存超过此数量时清理已过期的结论
+    private static final int CACHE_CLEANUP_THRESHOLD = 10000;
+
+    private final ConfigManager configManager;
+    private final IoExecutor ioExecutor;
+    private final Logger logger;
+    private final ConcurrentHashMap<String, CachedDecision> cache;
+    private volatile HttpClient httpClient;
+
+    public ExternalCheckStage(ConfigManager configManager, IoExecutor ioExecutor, Logger logger) {
+        this.configManager = configManager;
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public String getName() {
+        return "external";
+    }
+
+    @Override
+    public int getOrderGroup() {
+        return AdmissionPipeline.ORDER_EXTERNAL;
+    }
+
+    @Override
+    public boolean isAsync() {
+        return !configManager.getExternalCheckUrl().isEmpty();
+    }
+
+    @Override
+    public AdmissionDecision check(AdmissionRequest request) {
+        // 未配置外部地址时作为同步阶段直接跳过
+        return AdmissionDecision.PASS;
+    }
+
+    @Override
+    public CompletableFuture<AdmissionDecision> checkAsync(AdmissionRequest request) {
+        String template = configManager.getExternalCheckUrl();
+        if (template.isEmpty()) {
+            return CompletableFuture.completedFuture(AdmissionDecision.PASS);
+        }
+
+        long now = System.currentTimeMillis();
+        if (cache.size() > CACHE_CLEANUP_THRESHOLD) {
+            cache.values().removeIf(entry -> entry.expiresAt <= now);
+        }
+        CachedDecision cached = cache.get(request.getPlayerName());
+        if (cached != null && cached.expiresAt > now) {
+            return CompletableFuture.completedFuture(cached.decision);
+        }
+
+        String address = request.getAddress() != null ? request.getAddress().getHostAddress() : "";
+        String url = template
+            .replace("{name}", URLEncoder.encode(request.getPlayerName(), StandardCharsets.UTF_8))
+            .replace("{ip}", URLEncoder.encode(address, StandardCharsets.UTF_8));
+        HttpRequest httpRequest;
+        try {
+            httpRequest = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(configManager.getExternalCheckTimeout()))
+                .GET()
+                .build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("无效的外部检查地址: {}", url);
+            return CompletableFuture.completedFuture(AdmissionDecision.PASS);
+        }
+
+        return client().sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                if (error != null) {
+                    logger.warn("外部检查请求失败，玩家 {}: {}", request.getPlayerName(), error.getMessage());
+                    return AdmissionDecision.PASS;
+                }
+                AdmissionDecision decision;
+                if (response.statusCode() == 200) {
+                    decision = AdmissionDecision.ALLOW;
+                } else if (response.statusCode() == 403) {
+                    decision = AdmissionDecision.DENY;
+                } else {
+                    return AdmissionDecision.PASS;
+                }
+                cache.put(request.getPlayerName(),
+                          new CachedDecision(decision, System.currentTimeMillis() + configManager.getExternalCheckCacheTime()));
+                return decision;
+            });
+    }
+
+    /**
+     * 清空缓存的结论
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    private HttpClient client() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder()
+                        .executor(ioExecutor.executor())
+                        .connectTimeout(Duration.ofMillis(configManager.getExternalCheckTimeout()))
+                        .build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static final class CachedDecision {
+        private final AdmissionDecision decision;
+        private final long expiresAt;
+
+        private CachedDecision(AdmissionDecision decision, long expiresAt) {
+            this.decision = decision;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
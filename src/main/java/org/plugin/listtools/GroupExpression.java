@@ -0,0 +1,248 @@
+package org.plugin.listtools;
+
+import java.util.*;
+
+/**
+ * 分组表达式
+ * 把形如 {@code staff OR (testers AND NOT suspended)} 的规则编译为后缀形式的位图运算指令，
+ * 之后每次分组成员变化时直接执行指令，无需重新解析
+ *
+ * 支持的运算符：AND / OR / NOT（不区分大小写），也可写作 &amp; / | / !，可使用括号
+ */
+public final class GroupExpression {
+    private static final int OP_PUSH = 0;
+    private static final int OP_AND = 1;
+    private static final int OP_OR = 2;
+    private static final int OP_NOT = 3;
+
+    private final String source;
+    private final int[] ops;
+    // 与 ops 对应的分组名，仅 OP_PUSH 位置有值
+    private final String[] operands;
+
+    private GroupExpression(String source, int[] ops, String[] operands) {
+        this.source = source;
+        this.ops = ops;
+        this.operands = operands;
+    }
+
+    /**
+     * 编译分组表达式
+     * @throws IllegalArgumentException 表达式语法错误时抛出
+     */
+    public static GroupExpression compile(String expression) {
+        if (expression == null || expression.trim().isEmpty()) {
+            throw new IllegalArgumentException("表达式为空");
+        }
+        Parser parser = new Parser(expression.trim());
+        parser.parseOr();
+        if (parser.peek() != null) {
+            throw new IllegalArgumentException("无法识别的内容: " + parser.peek());
+        }
+
+        int[] ops = new int[parser.ops.size()];
+        for (int i = 0; i < ops.length; i++) {
+            ops[i] = parser.ops.get(i);
+        }
+        return new GroupExpression(expression.trim(), ops, parser.operands.toArray(new String[0]));
+    }
+
+    /**
+     * 在位图上执行表达式
+     * @param groups 分组名（小写）到成员位图的映射，不会被修改
+     * @param universe 编号空间大小，NOT 运算在 [0, universe) 范围内取反
+     * @return 满足表达式的玩家编号位图
+     */
+    public BitSet evaluate(Map<String, BitSet> groups, int universe) {
+        Deque<BitSet> stack = new ArrayDeque<>();
+        for (int i = 0; i < ops.length; i++) {
+            switch (ops[i]) {
+                case OP_PUSH: {
+                    BitSet members = groups.get(operands[i]);
+                    stack.push(members != null ? (BitSet) members.clone() : new BitSet());
+                    break;
+                }
+                case OP_NOT: {
+                    BitSet value = stack.peek();
+                    value.flip(0, universe);
+                    break;
+                }
+                case OP_AND: {
+                    BitSet right = stack.pop();
+                    stack.peek().and(right);
+                    break;
+                }
+                case OP_OR: {
+                    BitSet right = stack.pop();
+                    stack.peek().or(right);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("未知指令: " + ops[i]);
+            }
+        }
+        BitSet result = stack.pop();
+        // 编号空间之外的位没有意义
+        result.clear(universe, Math.max(universe, result.length()));
+        return result;
+    }
+
+    /**
+     * 计算不属于任何分组的玩家是否满足表达式
+     */
+    public boolean evaluateEmpty() {
+        Deque<Boolean> stack = new ArrayDeque<>();
+        for (int op : ops) {
+            switch (op) {
+                case OP_PUSH:
+                    stack.push(false);
+                    break;
+                case OP_NOT:
+                    stack.push(!stack.pop());
+                    break;
+                case OP_AND: {
+                    boolean right = stack.pop();
+                    stack.push(stack.pop() && right);
+                    break;
+                }
+                case OP_OR: {
+                    boolean right = stack.pop();
+                    stack.push(stack.pop() || right);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("未知指令: " + op);
+            }
+        }
+        return stack.pop();
+    }
+
+    /**
+     * 获取表达式引用的分组名
+     */
+    public Set<String> getReferencedGroups() {
+        Set<String> result = new TreeSet<>();
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i] == OP_PUSH) {
+                result.add(operands[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取表达式原文
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * 递归下降解析器，直接输出后缀指令
+     */
+    private static class Parser {
+        private final List<String> tokens;
+        private final List<Integer> ops;
+        private final List<String> operands;
+        private int position;
+
+        private Parser(String expression) {
+            this.tokens = tokenize(expression);
+            this.ops = new ArrayList<>();
+            this.operands = new ArrayList<>();
+        }
+
+        private void parseOr() {
+            parseAnd();
+            while (isKeyword(peek(), "OR", "|")) {
+                position++;
+                parseAnd();
+                emit(OP_OR, null);
+            }
+        }
+
+        private void parseAnd() {
+            parseUnary();
+            while (isKeyword(peek(), "AND", "&")) {
+                position++;
+                parseUnary();
+                emit(OP_AND, null);
+            }
+        }
+
+        private void parseUnary() {
+            if (isKeyword(peek(), "NOT", "!")) {
+                position++;
+                parseUnary();
+                emit(OP_NOT, null);
+                return;
+            }
+            parsePrimary();
+        }
+
+        private void parsePrimary() {
+            String token = peek();
+            if (token == null) {
+                throw new IllegalArgumentException("表达式不完整");
+            }
+            position++;
+
+            if ("(".equals(token)) {
+                parseOr();
+                if (!")".equals(peek())) {
+                    throw new IllegalArgumentException("缺少右括号");
+                }
+                position++;
+                return;
+            }
+
+            if (")".equals(token) || isKeyword(token, "AND", "&") || isKeyword(token, "OR", "|")) {
+                throw new IllegalArgumentException("意外的符号: " + token);
+            }
+            emit(OP_PUSH, token.toLowerCase(Locale.ROOT));
+        }
+
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private void emit(int op, String operand) {
+            ops.add(op);
+            operands.add(operand);
+        }
+
+        private static boolean isKeyword(String token, String word, String symbol) {
+            return token != null && (token.equalsIgnoreCase(word) || token.equals(symbol));
+        }
+
+        private static List<String> tokenize(String expression) {
+            List<String> result = new ArrayList<>();
+            int i = 0;
+            while (i < expression.length()) {
+                char c = expression.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '(' || c == ')' || c == '&' || c == '|' || c == '!') {
+                    result.add(String.valueOf(c));
+                    i++;
+                } else if (Character.isLetterOrDigit(c) || c == '_' || c == '-') {
+                    int start = i;
+                    while (i < expression.length()
+                            && (Character.isLetterOrDigit(expression.charAt(i))
+                                || expression.charAt(i) == '_' || expression.charAt(i) == '-')) {
+                        i++;
+                    }
+                    result.add(expression.substring(start, i));
+                } else {
+                    throw new IllegalArgumentException("非法字符: " + c);
+                }
+            }
+            return result;
+        }
+    }
+}
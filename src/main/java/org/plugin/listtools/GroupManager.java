@@ -0,0 +1,347 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分组管理器
+ * 维护命名分组的成员位图和基于分组表达式的放行规则
+ *
+ * 所有规则编译后合并为一张放行位图，成员或规则变化时重新计算，
+ * 登录检查只需一次编号查找和一次位测试
+ */
+public class GroupManager {
+    private final ConfigManager configManager;
+    private final PlayerIdRegistry playerIds;
+    private final Logger logger;
+    private final Object writeLock;
+    private final AtomicLong version;
+    // 分组名（小写）到成员位图的映射，发布后不再修改
+    private volatile Map<String, BitSet> groups;
+    private volatile List<GroupExpression> rules;
+    private volatile Evaluation evaluation;
+
+    public GroupManager(ConfigManager configManager, WhitelistManager whitelistManager, Logger logger) {
+        this.configManager = configManager;
+        this.playerIds = whitelistManager.getPlayerIds();
+        this.logger = logger;
+        this.writeLock = new Object();
+        this.version = new AtomicLong();
+        this.groups = Collections.emptyMap();
+        this.rules = Collections.emptyList();
+        this.evaluation = new Evaluation(new BitSet(), 0, false);
+
+        refresh();
+    }
+
+    /**
+     * 从配置重新加载分组和规则
+     */
+    public void refresh() {
+        synchronized (writeLock) {
+            Map<String, BitSet> loadedGroups = new HashMap<>();
+            for (Map.Entry<String, List<String>> entry : configManager.getGroups().entrySet()) {
+                BitSet bits = new BitSet();
+                for (String playerName : entry.getValue()) {
+                    if (playerName != null && !playerName.trim().isEmpty()) {
+                        bits.set(playerIds.idOf(playerName.trim()));
+                    }
+                }
+                loadedGroups.put(normalize(entry.getKey()), bits);
+            }
+
+            List<GroupExpression> loadedRules = new ArrayList<>();
+            for (String rule : configManager.getGroupRules()) {
+                try {
+                    loadedRules.add(GroupExpression.compile(rule));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("忽略无效的分组规则 \"{}\": {}", rule, e.getMessage());
+                }
+            }
+
+            groups = loadedGroups;
+            rules = Collections.unmodifiableList(loadedRules);
+            recompute();
+            logger.debug("分组已刷新，共 {} 个分组，{} 条规则", loadedGroups.size(), loadedRules.size());
+        }
+    }
+
+    /**
+     * 检查玩家是否被任一分组规则放行
+     */
+    public boolean isAllowed(String playerName) {
+        Evaluation current = evaluation;
+        int id = playerIds.lookup(playerName);
+        if (id < 0 || id >= current.universe) {
+            // 计算之后才注册的玩家不属于任何分组
+            return current.allowEmpty;
+        }
+        return current.allowed.get(id);
+    }
+
+    /**
+     * 检查玩家是否属于指定分组
+     */
+    public boolean isMember(String group, String playerName) {
+        BitSet bits = groups.get(normalize(group));
+        int id = playerIds.lookup(playerName);
+        return bits != null && id >= 0 && bits.get(id);
+    }
+
+    /**
+     * 批量添加分组成员，分组不存在时自动创建
+     * @return 成功添加的玩家数量
+     */
+    public int addMembers(String group, Collection<String> playerNames) {
+        String key = normalize(group);
+        synchronized (writeLock) {
+            BitSet current = groups.get(key);
+            BitSet updated = current != null ? (BitSet) current.clone() : new BitSet();
+            int addedCount = 0;
+            for (String playerName : playerNames) {
+                if (playerName == null || playerName.trim().isEmpty()) {
+                    continue;
+                }
+                int id = playerIds.idOf(playerName.trim());
+                if (!updated.get(id)) {
+                    updated.set(id);
+                    addedCount++;
+                }
+            }
+
+            if (addedCount > 0 || current == null) {
+                publish(key, updated);
+                logger.info("分组 {} 添加了 {} 个成员", key, addedCount);
+            }
+            return addedCount;
+        }
+    }
+
+    /**
+     * 批量移除分组成员
+     * @return 成功移除的玩家数量
+     */
+    public int removeMembers(String group, Collection<String> playerNames) {
+        String key = normalize(group);
+        synchronized (writeLock) {
+            BitSet current = groups.get(key);
+            if (current == null) {
+                return 0;
+            }
+
+            BitSet updated = (BitSet) current.clone();
+            int removedCount = 0;
+            for (String playerName : playerNames) {
+                int id = playerName != null ? playerIds.lookup(playerName.trim()) : -1;
+                if (id >= 0 && updated.get(id)) {
+                    updated.clear(id);
+                    removedCount++;
+                }
+            }
+
+            if (removedCount > 0) {
+                publish(key, updated);
+                logger.info("分组 {} 移除了 {} 个成员", key, removedCount);
+            }
+            return removedCount;
+        }
+    }
+
+    /**
+     * 整体替换分组成员，只写入一次配置
+     * @return 替换后的成员数量
+     */
+    public int setMembers(String group, Collection<String> playerNames) {
+        String key = normalize(group);
+        synchronized (writeLock) {
+            BitSet updated = new BitSet();
+            for (String playerName : playerNames) {
+                if (playerName != null && !playerName.trim().isEmpty()) {
+                    updated.set(playerIds.idOf(playerName.trim()));
+                }
+            }
+            publish(key, updated);
+            logger.info("分组 {} 的成员已替换为 {} 个玩家", key, updated.cardinality());
+            return updated.cardinality();
+        }
+    }
+
+    /**
+     * 删除分组
+     * @return 分组原本是否存在
+     */
+    public boolean deleteGroup(String group) {
+        String key = normalize(group);
+        synchronized (writeLock) {
+            if (!groups.containsKey(key)) {
+                return false;
+            }
+            publish(key, null);
+            logger.info("分组 {} 已删除", key);
+            return true;
+        }
+    }
+
+    /**
+     * 添加放行规则
+     * @throws IllegalArgumentException 表达式语法错误时抛出
+     */
+    public GroupExpression addRule(String expression) {
+        GroupExpression rule = GroupExpression.compile(expression);
+        synchronized (writeLock) {
+            List<GroupExpression> updated = new ArrayList<>(rules);
+            updated.add(rule);
+            rules = Collections.unmodifiableList(updated);
+            recompute();
+            save();
+        }
+        if (rule.evaluateEmpty()) {
+            logger.warn("分组规则 \"{}\" 会放行不属于任何分组的玩家", rule);
+        }
+        logger.info("已添加分组规则: {}", rule);
+        return rule;
+    }
+
+    /**
+     * 移除放行规则
+     * @param index 规则序号，从1开始
+     * @return 被移除的规则，序号无效时返回 null
+     */
+    public GroupExpression removeRule(int index) {
+        synchronized (writeLock) {
+            if (index < 1 || index > rules.size()) {
+                return null;
+            }
+            List<GroupExpression> updated = new ArrayList<>(rules);
+            GroupExpression removed = updated.remove(index - 1);
+            rules = Collections.unmodifiableList(updated);
+            recompute();
+            save();
+            logger.info("已移除分组规则: {}", removed);
+            return removed;
+        }
+    }
+
+    /**
+     * 获取所有放行规则
+     */
+    public List<GroupExpression> getRules() {
+        return rules;
+    }
+
+    /**
+     * 获取分组成员
+     * @return 排序后的玩家名列表，分组不存在时返回空列表
+     */
+    public List<String> getMembers(String group) {
+        return namesOf(groups.get(normalize(group)));
+    }
+
+    /**
+     * 获取所有分组及其成员数量
+     */
+    public Map<String, Integer> getGroupSizes() {
+        Map<String, Integer> result = new TreeMap<>();
+        for (Map.Entry<String, BitSet> entry : groups.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().cardinality());
+        }
+        return result;
+    }
+
+    /**
+     * 获取分组版本号，成员或规则变化时递增
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 发布新的分组位图并保存配置
+     * 调用方需持有写锁
+     * @param bits 新位图，为 null 时删除该分组
+     */
+    private void publish(String key, BitSet bits) {
+        Map<String, BitSet> updated = new HashMap<>(groups);
+        if (bits != null) {
+            updated.put(key, bits);
+        } else {
+            updated.remove(key);
+        }
+        groups = updated;
+        recompute();
+        save();
+    }
+
+    /**
+     * 执行所有规则，合并为一张放行位图
+     * 调用方需持有写锁
+     */
+    private void recompute() {
+        int universe = playerIds.size();
+        Map<String, BitSet> currentGroups = groups;
+        BitSet allowed = new BitSet(universe);
+        boolean allowEmpty = false;
+        for (GroupExpression rule : rules) {
+            allowed.or(rule.evaluate(currentGroups, universe));
+            allowEmpty |= rule.evaluateEmpty();
+        }
+        evaluation = new Evaluation(allowed, universe, allowEmpty);
+        version.incrementAndGet();
+    }
+
+    /**
+     * 保存分组和规则到配置
+     * 调用方需持有写锁
+     */
+    private void save() {
+        Map<String, List<String>> persistedGroups = new TreeMap<>();
+        for (Map.Entry<String, BitSet> entry : groups.entrySet()) {
+            persistedGroups.put(entry.getKey(), namesOf(entry.getValue()));
+        }
+        List<String> persistedRules = new ArrayList<>();
+        for (GroupExpression rule : rules) {
+            persistedRules.add(rule.getSource());
+        }
+        configManager.setGroups(persistedGroups);
+        configManager.setGroupRules(persistedRules);
+        configManager.saveConfigAsync();
+    }
+
+    private List<String> namesOf(BitSet bits) {
+        List<String> result = new ArrayList<>();
+        if (bits == null) {
+            return result;
+        }
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            String playerName = playerIds.nameOf(id);
+            if (playerName != null) {
+                result.add(playerName);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static String normalize(String group) {
+        return group == null ? "" : group.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 规则合并后的计算结果
+     */
+    private static class Evaluation {
+        private final BitSet allowed;
+        // 计算时的编号空间大小
+        private final int universe;
+        // 不属于任何分组的玩家是否被放行
+        private final boolean allowEmpty;
+
+        private Evaluation(BitSet allowed, int universe, boolean allowEmpty) {
+            this.allowed = allowed;
+            this.universe = universe;
+            this.allowEmpty = allowEmpty;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 共享的I/O执行器
+ * 所有磁盘读写和网络请求都在这里执行，不占用 Velocity 的命令线程和调度线程。
+ * 运行在 Java 21 及以上时使用虚拟线程，否则使用固定大小的平台线程池
+ *
+ * 每个资源（如配置文件）有独立的并发上限，超出上限的任务排队等待而不占用线程；
+ * 上限为1的资源上的任务按提交顺序依次执行
+ */
+public class IoExecutor {
+    // 内置资源名
+    public static final String CONFIG = "config";
+    public static final String UUID_CACHE = "uuid_cache";
+    // 管理命令按提交顺序依次执行
+    public static final String COMMANDS = "commands";
+    public static final String HISTORY = "history";
+    public static final String TIERED = "tiered";
+    public static final String LAST_SEEN = "last_seen";
+    public static final String AUDIT = "audit";
+
+    // 未单独设置上限的资源默认串行执行
+    private static final int DEFAULT_LIMIT = 1;
+    // 平台线程池的线程数
+    private static final int POOL_THREADS = 4;
+
+    private final Logger logger;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Map<String, Integer> limits;
+    private final ConcurrentHashMap<String, Lane> lanes;
+
+    public IoExecutor(Logger logger) {
+        this.logger = logger;
+        this.limits = new ConcurrentHashMap<>();
+        this.lanes = new ConcurrentHashMap<>();
+
+        ExecutorService virtualExecutor = createVirtualExecutor();
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.virtual = true;
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_THREADS, POOL_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ListTools-IO-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.virtual = false;
+        }
+        logger.debug("I/O执行器使用{}", virtual ? "虚拟线程" : POOL_THREADS + " 个平台线程");
+    }
+
+    /**
+     * 设置资源的并发上限，只影响之后新建的资源队列
+     */
+    public void setLimit(String resource, int limit) {
+        limits.put(resource, Math.max(1, limit));
+    }
+
+    /**
+     * 在指定资源上执行有返回值的任务
+     */
+    public <T> CompletableFuture<T> submit(String resource, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Lane lane = lanes.computeIfAbsent(resource, key -> new Lane(limits.getOrDefault(key, DEFAULT_LIMIT)));
+        lane.submit(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                lane.finished();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 在指定资源上执行任务
+     */
+    public CompletableFuture<Void> run(String resource, Runnable task) {
+        return submit(resource, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 获取底层执行器，供 HttpClient 等自行管理并发的组件使用
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * 是否使用虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * 关闭执行器并等待已提交的任务完成
+     * 关闭后提交的任务在调用线程上直接执行
+     */
+    public void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("I/O执行器在 {} 毫秒内未能完成所有任务", timeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，运行在 Java 21 以下时返回 null
+     */
+    private static ExecutorService createVirtualExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 单个资源的任务队列，限制同时执行的任务数
+     */
+    private final class Lane {
+        private final int limit;
+        private final ArrayDeque<Runnable> queue;
+        private int running;
+
+        private Lane(int limit) {
+            this.limit = limit;
+            this.queue = new ArrayDeque<>();
+        }
+
+        private void submit(Runnable task) {
+            synchronized (this) {
+                if (running >= limit) {
+                    queue.add(task);
+                    return;
+                }
+                running++;
+            }
+            execute(task);
+        }
+
+        private void finished() {
+            Runnable next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            execute(next);
+        }
+    }
+}
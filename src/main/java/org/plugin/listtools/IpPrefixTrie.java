@@ -0,0 +1,211 @@
+package org.plugin.listtools;
+
+/**
+ * 压缩二叉前缀树（Patricia Trie）
+ * 按地址的二进制位存储 CIDR 前缀，只有分叉点和前缀终点才会产生节点，
+ * 最长前缀匹配的耗时与地址位数成正比，与规则数量无关
+ *
+ * 线程安全：构建完成后只读，可以在多个线程间共享；修改需在发布之前完成
+ */
+public class IpPrefixTrie<V> {
+    private final int addressBits;
+    private Node<V> root;
+    private int size;
+
+    /**
+     * @param addressBits 地址位数，IPv4 为32，IPv6 为128
+     */
+    public IpPrefixTrie(int addressBits) {
+        this.addressBits = addressBits;
+    }
+
+    /**
+     * 插入前缀，已存在相同前缀时替换其值
+     * @param address 地址字节，长度必须与地址位数一致
+     * @param prefixLength 前缀长度
+     */
+    public void put(byte[] address, int prefixLength, V value) {
+        if (address.length * 8 != addressBits || prefixLength < 0 || prefixLength > addressBits) {
+            throw new IllegalArgumentException("地址长度或前缀长度无效");
+        }
+        root = insert(root, mask(address, prefixLength), prefixLength, value);
+    }
+
+    /**
+     * 最长前缀匹配
+     * @return 覆盖该地址的最长前缀对应的值，没有匹配时返回 null
+     */
+    public V longestMatch(byte[] address) {
+        if (address.length * 8 != addressBits) {
+            return null;
+        }
+
+        V best = null;
+        Node<V> node = root;
+        while (node != null && matches(node.key, address, node.length)) {
+            if (node.value != null) {
+                best = node.value;
+            }
+            if (node.length == addressBits) {
+                break;
+            }
+            node = bit(address, node.length) == 0 ? node.left : node.right;
+        }
+        return best;
+    }
+
+    /**
+     * 按32位整数形式的 IPv4 地址做最长前缀匹配，不需要地址字节数组
+     * @return 覆盖该地址的最长前缀对应的值，不是 IPv4 前缀树或没有匹配时返回 null
+     */
+    public V longestMatch(int address) {
+        if (addressBits != 32) {
+            return null;
+        }
+
+        V best = null;
+        Node<V> node = root;
+        while (node != null && matches(node.key, address, node.length)) {
+            if (node.value != null) {
+                best = node.value;
+            }
+            if (node.length == addressBits) {
+                break;
+            }
+            node = ((address >>> (31 - node.length)) & 1) == 0 ? node.left : node.right;
+        }
+        return best;
+    }
+
+    /**
+     * 获取前缀数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private Node<V> insert(Node<V> node, byte[] key, int length, V value) {
+        if (node == null) {
+            size++;
+            return new Node<>(key, length, value);
+        }
+
+        int common = commonPrefix(node.key, key, Math.min(node.length, length));
+        if (common == node.length && common == length) {
+            // 相同前缀
+            if (node.value == null) {
+                size++;
+            }
+            node.value = value;
+            return node;
+        }
+
+        if (common == node.length) {
+            // 当前节点是新前缀的前缀，继续向下
+            if (bit(key, node.length) == 0) {
+                node.left = insert(node.left, key, length, value);
+            } else {
+                node.right = insert(node.right, key, length, value);
+            }
+            return node;
+        }
+
+        size++;
+        if (common == length) {
+            // 新前缀是当前节点的前缀，插入到当前节点上方
+            Node<V> parent = new Node<>(key, length, value);
+            attach(parent, node, bit(node.key, length));
+            return parent;
+        }
+
+        // 在分叉处创建中间节点
+        Node<V> branch = new Node<>(mask(key, common), common, null);
+        attach(branch, new Node<>(key, length, value), bit(key, common));
+        attach(branch, node, bit(node.key, common));
+        return branch;
+    }
+
+    private static <V> void attach(Node<V> parent, Node<V> child, int side) {
+        if (side == 0) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+    }
+
+    private static int bit(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * 检查32位地址的前 length 位是否与 key 相同
+     */
+    private static boolean matches(byte[] key, int address, int length) {
+        if (length == 0) {
+            return true;
+        }
+        int keyBits = (key[0] & 0xFF) << 24 | (key[1] & 0xFF) << 16 | (key[2] & 0xFF) << 8 | (key[3] & 0xFF);
+        int mask = -1 << (32 - length);
+        return ((keyBits ^ address) & mask) == 0;
+    }
+
+    /**
+     * 检查地址的前 length 位是否与 key 相同
+     */
+    private static boolean matches(byte[] key, byte[] address, int length) {
+        int fullBytes = length >>> 3;
+        for (int i = 0; i < fullBytes; i++) {
+            if (key[i] != address[i]) {
+                return false;
+            }
+        }
+        int remaining = length & 7;
+        if (remaining == 0) {
+            return true;
+        }
+        int mask = (0xFF << (8 - remaining)) & 0xFF;
+        return (key[fullBytes] & mask) == (address[fullBytes] & mask);
+    }
+
+    private static int commonPrefix(byte[] a, byte[] b, int limit) {
+        int length = 0;
+        while (length < limit) {
+            int index = length >>> 3;
+            if ((length & 7) == 0 && limit - length >= 8 && a[index] == b[index]) {
+                length += 8;
+                continue;
+            }
+            if (bit(a, length) != bit(b, length)) {
+                break;
+            }
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * 返回只保留前 length 位的地址副本
+     */
+    private static byte[] mask(byte[] address, int length) {
+        byte[] result = address.clone();
+        for (int i = 0; i < result.length; i++) {
+            int bitsInByte = Math.max(0, Math.min(8, length - i * 8));
+            result[i] = (byte) (result[i] & ((0xFF << (8 - bitsInByte)) & 0xFF));
+        }
+        return result;
+    }
+
+    private static class Node<V> {
+        private final byte[] key;
+        private final int length;
+        private V value;
+        private Node<V> left;
+        private Node<V> right;
+
+        private Node(byte[] key, int length, V value) {
+            this.key = key;
+            this.length = length;
+            this.value = value;
+        }
+    }
+}
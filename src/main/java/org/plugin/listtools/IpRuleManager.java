@@ -0,0 +1,330 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * IP 规则管理器
+ * 维护 IPv4/IPv6 的 CIDR 放行和拒绝规则，按最长前缀匹配决定结果，在玩家名检查之前生效
+ *
+ * 规则存放在压缩前缀树中，修改或重载时构建新的前缀树后整体替换，读取方无需加锁
+ */
+public class IpRuleManager {
+    private final ConfigManager configManager;
+    private final Logger logger;
+    private final Object writeLock;
+    private final AtomicLong version;
+    private volatile Snapshot snapshot;
+
+    public IpRuleManager(ConfigManager configManager, Logger logger) {
+        this.configManager = configManager;
+        this.logger = logger;
+        this.writeLock = new Object();
+        this.version = new AtomicLong();
+        this.snapshot = new Snapshot(Collections.emptyList());
+
+        refresh();
+    }
+
+    /**
+     * 从配置重新加载 IP 规则
+     * 规则内容不变时保留其命中计数
+     */
+    public void refresh() {
+        synchronized (writeLock) {
+            List<IpRule> loaded = new ArrayList<>();
+            for (Map<String, String> entry : configManager.getIpRules()) {
+                String cidr = entry.get("cidr");
+                boolean allow = !"deny".equalsIgnoreCase(entry.get("action"));
+                try {
+                    loaded.add(carryOver(IpRule.parse(cidr, allow)));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("忽略无效的IP规则 \"{}\": {}", cidr, e.getMessage());
+                }
+            }
+            publish(loaded);
+            logger.debug("IP规则已刷新，共 {} 条规则", loaded.size());
+        }
+    }
+
+    /**
+     * 查找覆盖该地址的最长前缀规则，并记录一次命中
+     * @return 匹配的规则，没有匹配时返回 null
+     */
+    public IpRule match(InetAddress address) {
+        return match(address != null ? address.getAddress() : null);
+    }
+
+    /**
+     * 按地址字节查找最长前缀规则，并记录一次命中
+     * 登录流水线每个连接只取一次地址字节，各阶段共用
+     * @param address 4字节的 IPv4 或16字节的 IPv6 地址
+     * @return 匹配的规则，没有匹配时返回 null
+     */
+    public IpRule match(byte[] address) {
+        IpRule rule = find(address);
+        if (rule != null) {
+            rule.hits.increment();
+        }
+        return rule;
+    }
+
+    /**
+     * 查找覆盖该地址的最长前缀规则，不记录命中
+     * @return 匹配的规则，没有匹配时返回 null
+     */
+    public IpRule find(InetAddress address) {
+        return find(address != null ? address.getAddress() : null);
+    }
+
+    /**
+     * 按地址字节查找最长前缀规则，不记录命中
+     * @param address 4字节的 IPv4 或16字节的 IPv6 地址
+     * @return 匹配的规则，没有匹配时返回 null
+     */
+    public IpRule find(byte[] address) {
+        if (address == null) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        if (current.rules.isEmpty()) {
+            return null;
+        }
+        if (address.length == 4) {
+            int packed = (address[0] & 0xFF) << 24 | (address[1] & 0xFF) << 16
+                       | (address[2] & 0xFF) << 8 | (address[3] & 0xFF);
+            return current.ipv4.longestMatch(packed);
+        }
+        return current.ipv6.longestMatch(address);
+    }
+
+    /**
+     * 添加或替换规则
+     * @throws IllegalArgumentException CIDR 格式无效时抛出
+     */
+    public IpRule addRule(String cidr, boolean allow) {
+        IpRule rule = IpRule.parse(cidr, allow);
+        synchronized (writeLock) {
+            List<IpRule> updated = new ArrayList<>();
+            for (IpRule existing : snapshot.rules) {
+                if (!existing.cidr.equals(rule.cidr)) {
+                    updated.add(existing);
+                }
+            }
+            updated.add(rule);
+            publish(updated);
+            save();
+        }
+        logger.info("已添加IP规则: {}", rule);
+        return rule;
+    }
+
+    /**
+     * 移除规则
+     * @return 被移除的规则，不存在时返回 null
+     */
+    public IpRule removeRule(String cidr) {
+        String normalized;
+        try {
+            normalized = IpRule.parse(cidr, true).cidr;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        synchronized (writeLock) {
+            List<IpRule> updated = new ArrayList<>();
+            IpRule removed = null;
+            for (IpRule existing : snapshot.rules) {
+                if (existing.cidr.equals(normalized)) {
+                    removed = existing;
+                } else {
+                    updated.add(existing);
+                }
+            }
+            if (removed == null) {
+                return null;
+            }
+            publish(updated);
+            save();
+            logger.info("已移除IP规则: {}", removed);
+            return removed;
+        }
+    }
+
+    /**
+     * 获取所有规则
+     */
+    public List<IpRule> getRules() {
+        return snapshot.rules;
+    }
+
+    /**
+     * 获取规则版本号，规则变化时递增
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 沿用旧规则的命中计数
+     * 调用方需持有写锁
+     */
+    private IpRule carryOver(IpRule rule) {
+        for (IpRule existing : snapshot.rules) {
+            if (existing.cidr.equals(rule.cidr) && existing.allow == rule.allow) {
+                return existing;
+            }
+        }
+        return rule;
+    }
+
+    /**
+     * 构建新的前缀树并发布
+     * 调用方需持有写锁
+     */
+    private void publish(List<IpRule> rules) {
+        snapshot = new Snapshot(rules);
+        version.incrementAndGet();
+    }
+
+    /**
+     * 保存规则到配置
+     * 调用方需持有写锁
+     */
+    private void save() {
+        List<Map<String, String>> persisted = new ArrayList<>();
+        for (IpRule rule : snapshot.rules) {
+            Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("cidr", rule.cidr);
+            entry.put("action", rule.allow ? "allow" : "deny");
+            persisted.add(entry);
+        }
+        configManager.setIpRules(persisted);
+        configManager.saveConfigAsync();
+    }
+
+    /**
+     * 某一时刻的全部规则及其前缀树，发布后不再修改
+     */
+    private static class Snapshot {
+        private final List<IpRule> rules;
+        private final IpPrefixTrie<IpRule> ipv4;
+        private final IpPrefixTrie<IpRule> ipv6;
+
+        private Snapshot(List<IpRule> rules) {
+            this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+            this.ipv4 = new IpPrefixTrie<>(32);
+            this.ipv6 = new IpPrefixTrie<>(128);
+            for (IpRule rule : rules) {
+                (rule.address.length == 4 ? ipv4 : ipv6).put(rule.address, rule.prefixLength, rule);
+            }
+        }
+    }
+
+    /**
+     * 一条 CIDR 规则
+     */
+    public static class IpRule {
+        private final String cidr;
+        private final byte[] address;
+        private final int prefixLength;
+        private final boolean allow;
+        private final LongAdder hits;
+
+        private IpRule(String cidr, byte[] address, int prefixLength, boolean allow) {
+            this.cidr = cidr;
+            this.address = address;
+            this.prefixLength = prefixLength;
+            this.allow = allow;
+            this.hits = new LongAdder();
+        }
+
+        /**
+         * 解析 CIDR，例如 10.0.0.0/8、2001:db8::/32；省略前缀长度时视为单个地址
+         * @throws IllegalArgumentException 格式无效时抛出
+         */
+        public static IpRule parse(String cidr, boolean allow) {
+            if (cidr == null || cidr.trim().isEmpty()) {
+                throw new IllegalArgumentException("CIDR 为空");
+            }
+            String text = cidr.trim();
+            int slash = text.indexOf('/');
+            String host = slash >= 0 ? text.substring(0, slash) : text;
+            InetAddress address = parseLiteral(host);
+            byte[] bytes = address.getAddress();
+
+            int maxLength = bytes.length * 8;
+            int prefixLength = maxLength;
+            if (slash >= 0) {
+                try {
+                    prefixLength = Integer.parseInt(text.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("无效的前缀长度: " + text.substring(slash + 1));
+                }
+                if (prefixLength < 0 || prefixLength > maxLength) {
+                    throw new IllegalArgumentException("前缀长度超出范围: " + prefixLength);
+                }
+            }
+
+            // 规范化：清除前缀之外的位
+            for (int i = 0; i < bytes.length; i++) {
+                int bitsInByte = Math.max(0, Math.min(8, prefixLength - i * 8));
+                bytes[i] = (byte) (bytes[i] & ((0xFF << (8 - bitsInByte)) & 0xFF));
+            }
+            String normalized;
+            try {
+                normalized = InetAddress.getByAddress(bytes).getHostAddress() + "/" + prefixLength;
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("无效的地址: " + host);
+            }
+            return new IpRule(normalized, bytes, prefixLength, allow);
+        }
+
+        /**
+         * 解析 IP 地址字面量，拒绝主机名以避免 DNS 查询
+         * @throws IllegalArgumentException 不是合法的地址字面量时抛出
+         */
+        public static InetAddress parseLiteral(String host) {
+            if (host.isEmpty()) {
+                throw new IllegalArgumentException("地址为空");
+            }
+            for (int i = 0; i < host.length(); i++) {
+                char c = host.charAt(i);
+                boolean hex = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+                if (!hex && c != '.' && c != ':') {
+                    throw new IllegalArgumentException("无效的地址: " + host);
+                }
+            }
+            if (host.indexOf(':') < 0 && host.chars().filter(c -> c == '.').count() != 3) {
+                throw new IllegalArgumentException("无效的地址: " + host);
+            }
+            try {
+                return InetAddress.getByName(host);
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("无效的地址: " + host);
+            }
+        }
+
+        public String getCidr() {
+            return cidr;
+        }
+
+        public boolean isAllow() {
+            return allow;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        @Override
+        public String toString() {
+            return (allow ? "allow " : "deny ") + cidr;
+        }
+    }
+}
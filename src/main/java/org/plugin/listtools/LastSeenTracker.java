@@ -0,0 +1,235 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 白名单玩家的最后在线时间
+ * 时间戳保存在以玩家编号为下标的 long 数组中，每个玩家只占8字节，记录时不分配对象；
+ * 修改后延迟一段时间再整体写入数据目录的 last_seen.txt，同一段时间内的多次登录只写一次文件
+ *
+ * 从未登录过的白名单玩家以加入白名单（或开始记录）的时间为准，避免刚添加的玩家被当作不活跃；
+ * 移出白名单的玩家不再保存
+ */
+public class LastSeenTracker implements Consumer<WhitelistChangeSet> {
+    public static final String DATA_FILE = "last_seen.txt";
+    // 记录后延迟写入的时间
+    private static final long SAVE_DELAY_MS = 60000;
+
+    private final Path dataFile;
+    private final PlayerIdRegistry playerIds;
+    private final IoExecutor ioExecutor;
+    private final Logger logger;
+    private final AtomicBoolean saveScheduled;
+    // 下标为玩家编号，0 表示没有记录，由本对象的锁保护
+    private long[] lastSeen;
+
+    public LastSeenTracker(Path dataDirectory, WhitelistManager whitelistManager, IoExecutor ioExecutor, Logger logger) {
+        this.dataFile = dataDirectory.resolve(DATA_FILE);
+        this.playerIds = whitelistManager.getPlayerIds();
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+        this.saveScheduled = new AtomicBoolean();
+        this.lastSeen = new long[Math.max(16, playerIds.size())];
+
+        WhitelistSnapshot snapshot = whitelistManager.getSnapshot();
+        load(snapshot);
+        // 第一次启用时所有白名单玩家从现在开始计时
+        long now = System.currentTimeMillis();
+        int seeded = 0;
+        synchronized (this) {
+            for (String playerName : snapshot.getPlayers()) {
+                int id = playerIds.idOf(playerName);
+                ensureCapacity(id);
+                if (lastSeen[id] == 0) {
+                    lastSeen[id] = now;
+                    seeded++;
+                }
+            }
+        }
+        if (seeded > 0) {
+            scheduleSave();
+        }
+        whitelistManager.addChangeListener(this);
+    }
+
+    /**
+     * 记录玩家在线
+     */
+    public void record(String playerName, long timestamp) {
+        int id = playerIds.lookup(playerName);
+        if (id < 0) {
+            return;
+        }
+        synchronized (this) {
+            if (id >= lastSeen.length || lastSeen[id] == 0 || lastSeen[id] >= timestamp) {
+                // 不在白名单中的玩家没有记录
+                return;
+            }
+            lastSeen[id] = timestamp;
+        }
+        scheduleSave();
+    }
+
+    /**
+     * 获取玩家的最后在线时间
+     * @return 时间戳，没有记录时返回0
+     */
+    public synchronized long getLastSeen(String playerName) {
+        int id = playerIds.lookup(playerName);
+        return id >= 0 && id < lastSeen.length ? lastSeen[id] : 0;
+    }
+
+    /**
+     * 查找在 cutoff 之前最后在线的白名单玩家
+     * @param snapshot 要检查的白名单版本，只返回其中的玩家
+     * @return 按最后在线时间从早到晚排序的玩家名
+     */
+    public List<String> findInactive(WhitelistSnapshot snapshot, long cutoff) {
+        List<String> inactive = new ArrayList<>();
+        synchronized (this) {
+            for (int id = 0; id < lastSeen.length; id++) {
+                long seen = lastSeen[id];
+                if (seen != 0 && seen < cutoff) {
+                    String playerName = playerIds.nameOf(id);
+                    if (playerName != null && snapshot.contains(playerName)) {
+                        inactive.add(playerName);
+                    }
+                }
+            }
+        }
+        inactive.sort(Comparator.comparingLong(this::getLastSeen));
+        return inactive;
+    }
+
+    /**
+     * 随白名单变化更新记录：新加入的玩家从现在开始计时，被移除的玩家删除记录
+     */
+    @Override
+    public void accept(WhitelistChangeSet changes) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (String playerName : changes.getAdded()) {
+                int id = playerIds.idOf(playerName);
+                ensureCapacity(id);
+                lastSeen[id] = now;
+            }
+            for (String playerName : changes.getRemoved()) {
+                int id = playerIds.lookup(playerName);
+                if (id >= 0 && id < lastSeen.length) {
+                    lastSeen[id] = 0;
+                }
+            }
+        }
+        if (!changes.getAdded().isEmpty() || !changes.getRemoved().isEmpty()) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * 立即写入文件，插件关闭时调用
+     * 与定时写入在同一队列上依次执行
+     */
+    public CompletableFuture<Void> flush() {
+        return ioExecutor.run(IoExecutor.LAST_SEEN, this::save);
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= lastSeen.length) {
+            lastSeen = Arrays.copyOf(lastSeen, Math.max(id + 1, lastSeen.length * 2));
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(SAVE_DELAY_MS, TimeUnit.MILLISECONDS).execute(() -> {
+                saveScheduled.set(false);
+                ioExecutor.run(IoExecutor.LAST_SEEN, this::save);
+            });
+        }
+    }
+
+    /**
+     * 读取记录文件，只保留仍在白名单中的玩家
+     * 每行格式为: 玩家名 \t 最后在线时间戳
+     */
+    private void load(WhitelistSnapshot snapshot) {
+        if (!Files.exists(dataFile)) {
+            return;
+        }
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                String playerName = line.substring(0, tab);
+                if (!snapshot.contains(playerName)) {
+                    continue;
+                }
+                try {
+                    long timestamp = Long.parseLong(line.substring(tab + 1));
+                    int id = playerIds.idOf(playerName);
+                    synchronized (this) {
+                        ensureCapacity(id);
+                        lastSeen[id] = timestamp;
+                    }
+                    loaded++;
+                } catch (NumberFormatException e) {
+                    logger.debug("忽略无效的最后在线记录: {}", line);
+                }
+            }
+            logger.debug("已加载 {} 条最后在线记录", loaded);
+        } catch (IOException e) {
+            logger.warn("读取最后在线记录失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写入记录文件
+     * 先在锁内复制数组，写文件时不阻塞登录；先写入临时文件再替换
+     */
+    private void save() {
+        long[] copy;
+        synchronized (this) {
+            copy = lastSeen.clone();
+        }
+
+        Path temp = dataFile.resolveSibling(DATA_FILE + ".tmp");
+        int written = 0;
+        try {
+            Files.createDirectories(dataFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (int id = 0; id < copy.length; id++) {
+                    String playerName = copy[id] != 0 ? playerIds.nameOf(id) : null;
+                    if (playerName == null) {
+                        continue;
+                    }
+                    writer.write(playerName);
+                    writer.write('\t');
+                    writer.write(Long.toString(copy[id]));
+                    writer.newLine();
+                    written++;
+                }
+            }
+            Files.move(temp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("最后在线记录已保存，共 {} 条", written);
+        } catch (IOException e) {
+            logger.warn("保存最后在线记录失败: {}", e.getMessage());
+        }
+    }
+}
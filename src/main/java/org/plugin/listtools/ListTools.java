@@ -68,11 +68,27 @@ public class ListTools {
     private Path dataDirectory;
 
     // 核心组件
+    private IoExecutor ioExecutor;
     private ConfigManager configManager;
     private WhitelistManager whitelistManager;
+    private ServerAccessManager serverAccessManager;
+    private GroupManager groupManager;
+    private PatternRuleManager patternRuleManager;
+    private IpRuleManager ipRuleManager;
+    private AccessWindowManager accessWindowManager;
+    private AccessPolicy accessPolicy;
+    private AdmissionPipeline admissionPipeline;
+    private AdmissionController admissionController;
+    private UuidResolver uuidResolver;
+    private LastSeenTracker lastSeenTracker;
+    private AuditLog auditLog;
     private PlayerConnectionListener connectionListener;
+    private DisconnectQueue disconnectQueue;
     private AutoCheckTask autoCheckTask;
+    private ExpiryTask expiryTask;
+    private AccessWindowTask accessWindowTask;
     private ListToolsCommand command;
+    private ListToolsApi api;
 
     /**
      * 插件初始化事件
@@ -82,22 +98,75 @@ public class ListTools {
         logger.info("ListTools 白名单系统正在启动...");
 
         try {
-            // 初始化配置管理器
-            configManager = new ConfigManager(dataDirectory, logger);
+            // 初始化I/O执行器和配置管理器
+            ioExecutor = new IoExecutor(logger);
+            configManager = new ConfigManager(dataDirectory, ioExecutor, logger);
             configManager.loadConfig();
             logger.info("配置管理器初始化完成");
 
             // 初始化白名单管理器
-            whitelistManager = new WhitelistManager(configManager, logger);
+            whitelistManager = new WhitelistManager(configManager, ioExecutor, logger);
             logger.info("白名单管理器初始化完成，当前白名单玩家数: {}", whitelistManager.getWhitelistSize());
 
+            // 对外接口和白名单变化事件
+            api = new ListToolsApi(whitelistManager);
+            whitelistManager.addChangeListener(new WhitelistEventPublisher(proxyServer.getEventManager(), logger));
+
+            // 审计日志记录所有白名单变更和踢出
+            auditLog = new AuditLog(dataDirectory, ioExecutor, logger);
+            auditLog.configure(configManager.isAuditLogEnabled(), configManager.getAuditLogMaxFileSize(),
+                               configManager.getAuditLogMaxFiles());
+            whitelistManager.addChangeListener(auditLog);
+
+            // 记录白名单玩家的最后在线时间
+            lastSeenTracker = new LastSeenTracker(dataDirectory, whitelistManager, ioExecutor, logger);
+
+            // 初始化分组、模式规则、IP规则、时间窗口和访问策略
+            groupManager = new GroupManager(configManager, whitelistManager, logger);
+            logger.info("分组管理器初始化完成，分组数: {}，规则数: {}",
+                       groupManager.getGroupSizes().size(), groupManager.getRules().size());
+            patternRuleManager = new PatternRuleManager(configManager, logger);
+            logger.info("模式规则初始化完成，规则数: {}", patternRuleManager.getRules().size());
+            ipRuleManager = new IpRuleManager(configManager, logger);
+            logger.info("IP规则初始化完成，规则数: {}", ipRuleManager.getRules().size());
+            accessWindowManager = new AccessWindowManager(configManager, groupManager, logger);
+            logger.info("时间窗口初始化完成，目标数: {}", accessWindowManager.getWindows().size());
+            accessPolicy = new AccessPolicy(whitelistManager, groupManager, patternRuleManager, ipRuleManager,
+                                            accessWindowManager);
+
+            // 初始化登录准入流水线
+            admissionPipeline = new AdmissionPipeline(accessPolicy, logger);
+            DefaultAdmissionStages.registerAll(admissionPipeline, configManager, whitelistManager, groupManager,
+                                               patternRuleManager, ipRuleManager, accessWindowManager,
+                                               new LoginRateLimitStage(configManager),
+                                               new ExternalCheckStage(configManager, ioExecutor, logger));
+            logger.info("准入流水线初始化完成，阶段数: {}", admissionPipeline.getStats().size());
+            admissionController = new AdmissionController(configManager, groupManager, proxyServer, logger, this);
+            admissionController.start();
+
+            // 初始化UUID解析器
+            uuidResolver = new UuidResolver(configManager, ioExecutor, dataDirectory, logger);
+            logger.info("UUID解析器初始化完成，缓存条目数: {}", uuidResolver.getCacheSize());
+
+            // 初始化服务器访问列表管理器
+            serverAccessManager = new ServerAccessManager(configManager, whitelistManager, logger);
+            logger.info("服务器访问列表初始化完成，受限服务器数: {}", serverAccessManager.getRestrictedServers().size());
+
             // 初始化连接监听器
-            connectionListener = new PlayerConnectionListener(configManager, whitelistManager, logger);
+            connectionListener = new PlayerConnectionListener(configManager, whitelistManager, admissionPipeline,
+                                                              admissionController, accessPolicy,
+                                                              serverAccessManager, lastSeenTracker, logger);
             proxyServer.getEventManager().register(this, connectionListener);
             logger.info("玩家连接监听器注册完成");
 
+            // 初始化限速踢出队列
+            disconnectQueue = new DisconnectQueue(configManager, accessPolicy, auditLog, proxyServer, logger, this);
+            disconnectQueue.start();
+            logger.info("踢出队列启动完成，速率: {} 人/秒", configManager.getKickRate());
+
             // 初始化自动检查任务
-            autoCheckTask = new AutoCheckTask(configManager, whitelistManager, proxyServer, logger, this);
+            autoCheckTask = new AutoCheckTask(configManager, whitelistManager, accessPolicy, disconnectQueue,
+                                              proxyServer, logger, this);
             if (configManager.isEnabled()) {
                 autoCheckTask.start();
                 logger.info("自动检查任务启动完成");
@@ -105,8 +174,23 @@ public class ListTools {
                 logger.info("白名单系统已禁用，自动检查任务未启动");
             }
 
+            // 初始化限时白名单到期任务
+            expiryTask = new ExpiryTask(configManager, whitelistManager, disconnectQueue, proxyServer, logger, this);
+            expiryTask.start();
+            logger.info("限时白名单到期任务启动完成");
+
+            // 初始化时间窗口边界任务
+            accessWindowTask = new AccessWindowTask(configManager, accessWindowManager, groupManager,
+                                                    disconnectQueue, proxyServer, logger, this);
+            accessWindowTask.start();
+            logger.info("时间窗口边界任务启动完成");
+
             // 注册命令
-            command = new ListToolsCommand(configManager, whitelistManager, proxyServer, logger);
+            command = new ListToolsCommand(configManager, whitelistManager, accessPolicy, groupManager,
+                                           patternRuleManager, ipRuleManager, accessWindowManager,
+                                           accessWindowTask, serverAccessManager, admissionPipeline,
+                                           admissionController, uuidResolver, lastSeenTracker, auditLog, disconnectQueue,
+                                           ioExecutor, proxyServer, logger);
             CommandManager commandManager = proxyServer.getCommandManager();
             commandManager.register(commandManager.metaBuilder("listtools")
                     .aliases("lt", "whitelist")
@@ -142,12 +226,57 @@ public class ListTools {
                 logger.info("自动检查任务已停止");
             }
 
+            // 停止限时白名单到期任务
+            if (expiryTask != null) {
+                expiryTask.stop();
+            }
+
+            // 停止时间窗口边界任务
+            if (accessWindowTask != null) {
+                accessWindowTask.stop();
+            }
+
+            // 停止登录容量控制器
+            if (admissionController != null) {
+                admissionController.stop();
+            }
+
+            // 保存UUID缓存
+            if (uuidResolver != null) {
+                uuidResolver.stop();
+            }
+
+            // 停止踢出队列
+            if (disconnectQueue != null) {
+                disconnectQueue.stop();
+            }
+
+            // 把内存中的白名单历史写入日志
+            if (whitelistManager != null) {
+                whitelistManager.getHistory().flush();
+            }
+
+            // 保存最后在线记录
+            if (lastSeenTracker != null) {
+                lastSeenTracker.flush();
+            }
+
+            // 写入缓冲区中的审计记录
+            if (auditLog != null) {
+                auditLog.flush();
+            }
+
             // 保存配置
             if (configManager != null) {
                 configManager.saveConfig();
                 logger.info("配置文件已保存");
             }
 
+            // 等待剩余的I/O任务完成
+            if (ioExecutor != null) {
+                ioExecutor.shutdown(5000);
+            }
+
             logger.info("ListTools 关闭完成");
 
         } catch (Exception e) {
@@ -155,6 +284,20 @@ public class ListTools {
         }
     }
 
+    /**
+     * 获取共享的I/O执行器
+     */
+    public IoExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * 获取供其他插件使用的接口
+     */
+    public ListToolsApi getApi() {
+        return api;
+    }
+
     /**
      * 获取配置管理器
      */
@@ -169,6 +312,63 @@ public class ListTools {
         return whitelistManager;
     }
 
+    /**
+     * 获取分组管理器
+     */
+    public GroupManager getGroupManager() {
+        return groupManager;
+    }
+
+    /**
+     * 获取模式规则管理器
+     */
+    public PatternRuleManager getPatternRuleManager() {
+        return patternRuleManager;
+    }
+
+    /**
+     * 获取IP规则管理器
+     */
+    public IpRuleManager getIpRuleManager() {
+        return ipRuleManager;
+    }
+
+    /**
+     * 获取访问时间窗口管理器
+     */
+    public AccessWindowManager getAccessWindowManager() {
+        return accessWindowManager;
+    }
+
+    /**
+     * 获取访问策略
+     */
+    public AccessPolicy getAccessPolicy() {
+        return accessPolicy;
+    }
+
+    /**
+     * 获取登录准入流水线
+     * 其他插件可以通过它注册自己的准入阶段
+     */
+    public AdmissionPipeline getAdmissionPipeline() {
+        return admissionPipeline;
+    }
+
+    /**
+     * 获取UUID解析器
+     */
+    public UuidResolver getUuidResolver() {
+        return uuidResolver;
+    }
+
+    /**
+     * 获取服务器访问列表管理器
+     */
+    public ServerAccessManager getServerAccessManager() {
+        return serverAccessManager;
+    }
+
     /**
      * 获取自动检查任务
      */
@@ -176,6 +376,13 @@ public class ListTools {
         return autoCheckTask;
     }
 
+    /**
+     * 获取限速踢出队列
+     */
+    public DisconnectQueue getDisconnectQueue() {
+        return disconnectQueue;
+    }
+
     /**
      * 获取插件数据目录
      */
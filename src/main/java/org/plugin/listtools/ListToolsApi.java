@@ -0,0 +1,61 @@
+package org.plugin.listtools;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 供其他插件使用的稳定接口
+ * 通过 {@code ListTools#getApi()} 获取；白名单变化时会触发 {@link WhitelistChangedEvent}
+ *
+ * 查询方法返回 {@link CompletableFuture}，目前总是已完成的，调用方不应依赖这一点，
+ * 以便将来白名单改为由外部存储提供时接口保持不变
+ */
+public class ListToolsApi {
+    private final WhitelistManager whitelistManager;
+
+    public ListToolsApi(WhitelistManager whitelistManager) {
+        this.whitelistManager = whitelistManager;
+    }
+
+    /**
+     * 检查玩家是否在白名单中，严格匹配玩家名
+     * 启用分层白名单时也会在其中查找
+     */
+    public CompletableFuture<Boolean> isWhitelisted(String playerName) {
+        return CompletableFuture.completedFuture(whitelistManager.isWhitelisted(playerName));
+    }
+
+    /**
+     * 批量检查玩家是否在白名单中
+     * 所有玩家基于同一个版本的快照判断，结果之间一致；不在快照中的玩家再到分层白名单中查找
+     * @return 玩家名到是否在白名单中的映射，重复的玩家名只出现一次
+     */
+    public CompletableFuture<Map<String, Boolean>> areWhitelisted(Collection<String> playerNames) {
+        WhitelistSnapshot snapshot = whitelistManager.getSnapshot();
+        TieredWhitelist tiered = whitelistManager.getTieredWhitelist();
+        Map<String, Boolean> result = new HashMap<>();
+        for (String playerName : playerNames) {
+            if (playerName != null) {
+                result.put(playerName, snapshot.contains(playerName) || tiered.contains(playerName));
+            }
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * 获取当前白名单的只读快照
+     * 快照不复制白名单，可以长期持有，内容不会随之后的修改变化；不包含分层白名单
+     */
+    public WhitelistSnapshot getSnapshot() {
+        return whitelistManager.getSnapshot();
+    }
+
+    /**
+     * 获取当前白名单版本号，每次白名单内容变化时递增
+     */
+    public long getVersion() {
+        return whitelistManager.getVersion();
+    }
+}
@@ -0,0 +1,508 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 离线命令行工具，在插件未运行时检查、转换和压缩数据目录中的白名单数据
+ * validate 和 stats 用 {@link ConfigYamlScanner} 流式读取 config.yml；
+ * validate --fix、stats --memory、compact 和 YAML 的 convert 使用插件的 {@link ConfigManager}，会把整个配置文件读入内存
+ * <pre>
+ * java -cp ListTools.jar:velocity.jar org.plugin.listtools.ListToolsCli &lt;命令&gt; ...
+ * </pre>
+ * 退出码: 0 成功，1 发现问题或执行失败，2 参数错误
+ */
+public final class ListToolsCli {
+    // compact 默认保留的历史版本数
+    private static final int DEFAULT_KEEP = 100;
+    // 每类问题最多逐条列出的数量
+    private static final int REPORT_LIMIT = 50;
+    private static final long IO_SHUTDOWN_TIMEOUT_MS = 10000;
+
+    private ListToolsCli() {
+    }
+
+    public static void main(String[] args) {
+        String missing = findMissingDependency();
+        if (missing != null) {
+            System.err.println("缺少依赖 " + missing + "，请把 Velocity 的 jar 加入 classpath:");
+            System.err.println("  java -cp ListTools.jar:velocity.jar " + ListToolsCli.class.getName() + " <命令>");
+            System.exit(2);
+        }
+        System.exit(Commands.execute(args));
+    }
+
+    /**
+     * 插件的依赖由 Velocity 提供，不在插件 jar 中
+     */
+    private static String findMissingDependency() {
+        for (String className : new String[]{"org.slf4j.Logger", "org.yaml.snakeyaml.Yaml", "com.google.gson.stream.JsonReader"}) {
+            try {
+                Class.forName(className, false, ListToolsCli.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return className;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 检查依赖之后才加载，本类引用的插件类和依赖缺失时不会影响 main 输出提示
+     */
+    private static final class Commands {
+        private final IoExecutor ioExecutor;
+        private final Logger logger;
+        private final PrintStream out;
+
+        private Commands(IoExecutor ioExecutor, Logger logger, PrintStream out) {
+            this.ioExecutor = ioExecutor;
+            this.logger = logger;
+            this.out = out;
+        }
+
+        static int execute(String[] args) {
+            // 插件的日志在命令行中没有意义，结果直接输出到控制台
+            Logger logger = NOPLogger.NOP_LOGGER;
+            IoExecutor ioExecutor = new IoExecutor(logger);
+            try {
+                return new Commands(ioExecutor, logger, System.out).run(args);
+            } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+                System.err.println("错误: " + e.getMessage());
+                return 1;
+            } finally {
+                ioExecutor.shutdown(IO_SHUTDOWN_TIMEOUT_MS);
+            }
+        }
+
+        private int run(String[] args) throws IOException {
+            List<String> positional = new ArrayList<>();
+            Map<String, String> options = new HashMap<>();
+            for (int i = 0; i < args.length; i++) {
+                if ("--fix".equals(args[i]) || "--memory".equals(args[i])) {
+                    options.put(args[i].substring(2), "true");
+                } else if (args[i].startsWith("--") && i + 1 < args.length) {
+                    options.put(args[i].substring(2), args[++i]);
+                } else {
+                    positional.add(args[i]);
+                }
+            }
+            if (positional.isEmpty()) {
+                return usage();
+            }
+
+            String command = positional.get(0);
+            switch (command) {
+                case "validate":
+                    return positional.size() == 2 ? validate(Paths.get(positional.get(1)), options.containsKey("fix")) : usage();
+                case "convert":
+                    return positional.size() == 3
+                        ? convert(Paths.get(positional.get(1)), Paths.get(positional.get(2)), options.get("from"), options.get("to"))
+                        : usage();
+                case "compact":
+                    if (positional.size() != 2) {
+                        return usage();
+                    }
+                    int keep;
+                    try {
+                        keep = Integer.parseInt(options.getOrDefault("keep", String.valueOf(DEFAULT_KEEP)));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--keep 必须是整数");
+                    }
+                    return compact(Paths.get(positional.get(1)), keep);
+                case "stats":
+                    return positional.size() == 2 ? stats(Paths.get(positional.get(1)), options.containsKey("memory")) : usage();
+                default:
+                    return usage();
+            }
+        }
+
+        private int usage() {
+            out.println("用法: java -cp ListTools.jar:velocity.jar " + ListToolsCli.class.getName() + " <命令>");
+            out.println("  validate <数据目录> [--fix]           检查 config.yml 中的白名单，--fix 去重并清理无效条目");
+            out.println("  convert <输入> <输出> [--from 格式] [--to 格式]");
+            out.println("                                        在 yml、json（原版 whitelist.json）、csv、txt、idx 之间转换");
+            out.println("  compact <数据目录> [--keep 版本数]     压缩历史日志和缓存文件，默认保留 " + DEFAULT_KEEP + " 个版本");
+            out.println("  stats <数据目录> [--memory]            显示数据文件大小和白名单统计，--memory 加载白名单测量内存占用");
+            out.println("请在插件未运行时使用，否则插件保存时会覆盖修改");
+            return 2;
+        }
+
+        /**
+         * 读取数据目录中的 config.yml，与插件加载配置的方式相同
+         */
+        private ConfigManager loadConfig(Path dataDirectory) throws IOException {
+            Path configFile = dataDirectory.resolve("config.yml");
+            if (!Files.isRegularFile(configFile)) {
+                throw new IOException("找不到配置文件: " + configFile);
+            }
+            ConfigManager configManager = new ConfigManager(dataDirectory, ioExecutor, logger);
+            configManager.loadConfig();
+            return configManager;
+        }
+
+        /**
+         * 检查白名单、到期时间和UUID
+         * 问题指插件会出错或条目永远不会生效的情况，--fix 会修复；提示只列出，不修改
+         * 检查时流式读取 config.yml，只保留玩家名用于查重；--fix 写回时按插件的方式加载整个配置文件
+         */
+        private int validate(Path dataDirectory, boolean fix) throws IOException {
+            Path configFile = dataDirectory.resolve("config.yml");
+            if (!Files.isRegularFile(configFile)) {
+                throw new IOException("找不到配置文件: " + configFile);
+            }
+            Report report = new Report();
+            Set<String> names = new HashSet<>();
+            Map<String, String> lowerCaseNames = new HashMap<>();
+            // 首尾有空白的玩家名，到期时间和UUID按去掉空白后的名字检查
+            Map<String, String> renamed = new HashMap<>();
+            // 只在 --fix 时记录，用于写回
+            List<String> cleaned = new ArrayList<>();
+            int[] total = new int[1];
+
+            // 先读完白名单，再检查到期时间和UUID，与配置项在文件中的顺序无关
+            ConfigYamlScanner.scan(configFile, new ConfigYamlScanner.Handler() {
+                @Override
+                public void whitelistEntry(int index, String playerName, boolean nonString) {
+                    total[0]++;
+                    if (playerName == null) {
+                        report.problem("空条目", "第 " + (index + 1) + " 项为空");
+                        return;
+                    }
+                    if (nonString) {
+                        report.problem("非字符串条目", "第 " + (index + 1) + " 项 " + playerName + " 不是字符串，插件会按文本读取，但可能与原名不同（如 0123 会被读为 83），玩家名需要加引号");
+                    }
+                    String trimmed = playerName.trim();
+                    if (trimmed.isEmpty()) {
+                        report.problem("空条目", "第 " + (index + 1) + " 项为空白");
+                        return;
+                    }
+                    if (trimmed.chars().anyMatch(Character::isWhitespace)) {
+                        report.problem("含空白的玩家名", "\"" + playerName + "\" 含有空白字符，不会匹配任何玩家");
+                        return;
+                    }
+                    if (!trimmed.equals(playerName)) {
+                        report.problem("首尾有空白", "\"" + playerName + "\" 首尾有空白，不会匹配任何玩家");
+                        renamed.put(playerName, trimmed);
+                    }
+                    if (!names.add(trimmed)) {
+                        report.problem("重复条目", trimmed);
+                        return;
+                    }
+                    String other = lowerCaseNames.putIfAbsent(trimmed.toLowerCase(Locale.ROOT), trimmed);
+                    if (other != null) {
+                        report.hint("仅大小写不同", trimmed + " 与 " + other);
+                    }
+                    if (fix) {
+                        cleaned.add(trimmed);
+                    }
+                }
+            });
+            lowerCaseNames.clear();
+
+            long now = System.currentTimeMillis();
+            Map<UUID, String> owners = new HashMap<>();
+            ConfigYamlScanner.scan(configFile, new ConfigYamlScanner.Handler() {
+                @Override
+                public void mappingEntry(String section, String key, String value) {
+                    String playerName = renamed.getOrDefault(key, key);
+                    if (ConfigYamlScanner.WHITELIST_EXPIRY.equals(section)) {
+                        if (!names.contains(playerName)) {
+                            report.problem("孤立的到期时间", key + " 不在白名单中");
+                            return;
+                        }
+                        long expiresAt;
+                        try {
+                            expiresAt = Long.parseLong(String.valueOf(value).trim());
+                        } catch (NumberFormatException e) {
+                            report.problem("无效的到期时间", key + ": " + value);
+                            return;
+                        }
+                        if (expiresAt > 0 && expiresAt <= now) {
+                            report.hint("已过期", key + " 已于 " + new Date(expiresAt) + " 过期，插件启动时会移除");
+                        }
+                        return;
+                    }
+                    if (!names.contains(playerName)) {
+                        report.problem("孤立的UUID", key + " 不在白名单中");
+                        return;
+                    }
+                    UUID uuid;
+                    try {
+                        uuid = UUID.fromString(String.valueOf(value).trim());
+                    } catch (IllegalArgumentException e) {
+                        report.problem("无效的UUID", key + ": " + value);
+                        return;
+                    }
+                    String owner = owners.putIfAbsent(uuid, key);
+                    if (owner != null) {
+                        report.hint("UUID相同", key + " 与 " + owner + " 的UUID都是 " + uuid);
+                    }
+                }
+            });
+
+            report.print(out);
+            out.println("白名单共 " + total[0] + " 项，有效玩家 " + names.size() + " 个，发现 " + report.problems
+                        + " 个问题、" + report.hints + " 个提示");
+            if (report.problems == 0) {
+                return 0;
+            }
+            if (!fix) {
+                out.println("使用 --fix 修复以上问题");
+                return 1;
+            }
+
+            ConfigManager configManager = loadConfig(dataDirectory);
+            Map<String, Long> expiries = configManager.getWhitelistExpiries();
+            Map<String, UUID> uuids = configManager.getWhitelistUuids();
+            for (Map.Entry<String, String> entry : renamed.entrySet()) {
+                moveKey(expiries, entry.getKey(), entry.getValue());
+                moveKey(uuids, entry.getKey(), entry.getValue());
+            }
+            expiries.keySet().retainAll(names);
+            uuids.keySet().retainAll(names);
+            Files.copy(configFile, configFile.resolveSibling("config.yml.bak"), StandardCopyOption.REPLACE_EXISTING);
+            configManager.setWhitelist(cleaned);
+            configManager.setWhitelistExpiries(expiries);
+            configManager.setWhitelistUuids(uuids);
+            configManager.saveConfig();
+            out.println("已修复并保存，原配置备份为 config.yml.bak");
+            return 0;
+        }
+
+        private static <V> void moveKey(Map<String, V> map, String from, String to) {
+            V value = map.remove(from);
+            if (value != null) {
+                map.putIfAbsent(to, value);
+            }
+        }
+
+        /**
+         * 逐条转换白名单，除 YAML 外不把整个名单读入内存
+         */
+        private int convert(Path input, Path output, String fromName, String toName) throws IOException {
+            WhitelistFormat from = fromName != null ? WhitelistFormat.byName(fromName) : WhitelistFormat.of(input);
+            WhitelistFormat to = toName != null ? WhitelistFormat.byName(toName) : WhitelistFormat.of(output);
+            if (from == null || to == null) {
+                throw new IllegalArgumentException("无法判断文件格式，请用 --from/--to 指定 yml、json、csv、txt 或 idx");
+            }
+            if (!Files.exists(input)) {
+                throw new IOException("找不到输入文件: " + input);
+            }
+            if (Files.exists(output) && Files.isSameFile(input, output)) {
+                throw new IllegalArgumentException("输入和输出不能是同一个文件");
+            }
+
+            int[] withoutUuid = new int[1];
+            int count;
+            try (WhitelistFormat.Writer writer = to.openWriter(output, ioExecutor, logger)) {
+                count = from.read(input, ioExecutor, logger, (playerName, uuid) -> {
+                    if (uuid == null) {
+                        withoutUuid[0]++;
+                    }
+                    try {
+                        writer.write(playerName, uuid);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            out.println("已转换 " + count + " 个条目: " + input + " (" + from.getExtension() + ") -> " + output
+                        + " (" + to.getExtension() + ")");
+            if (to == WhitelistFormat.JSON && withoutUuid[0] > 0) {
+                out.println("其中 " + withoutUuid[0] + " 个条目没有UUID，原版服务端会忽略这些条目，可先在插件中执行 /listtools whitelist resolve");
+            } else if ((to == WhitelistFormat.TEXT || to == WhitelistFormat.INDEX) && count > withoutUuid[0]) {
+                out.println(to.getExtension() + " 格式不保存UUID，" + (count - withoutUuid[0]) + " 个UUID未写入");
+            }
+            if (to == WhitelistFormat.YAML || to == WhitelistFormat.INDEX) {
+                out.println("重复的玩家名已合并");
+            }
+            return 0;
+        }
+
+        /**
+         * 压缩历史日志，并按插件保存的方式重写UUID缓存和最后在线记录，去掉过期和已移出白名单的条目
+         */
+        private int compact(Path dataDirectory, int keep) throws IOException {
+            ConfigManager configManager = loadConfig(dataDirectory);
+            Path journal = dataDirectory.resolve(WhitelistHistory.JOURNAL_FILE);
+            Path archive = dataDirectory.resolve(WhitelistHistory.JOURNAL_FILE + ".old");
+            Path uuidCache = dataDirectory.resolve(UuidResolver.CACHE_FILE);
+            Path lastSeen = dataDirectory.resolve(LastSeenTracker.DATA_FILE);
+
+            long journalBefore = sizeOf(journal) + sizeOf(archive);
+            int kept = WhitelistHistory.compactJournal(dataDirectory, keep);
+            out.println(WhitelistHistory.JOURNAL_FILE + ": " + formatBytes(journalBefore) + " -> " + formatBytes(sizeOf(journal))
+                        + "，保留 " + kept + " 个版本");
+
+            if (Files.exists(uuidCache)) {
+                long before = sizeOf(uuidCache);
+                new UuidResolver(configManager, ioExecutor, dataDirectory, logger).stop();
+                ioExecutor.run(IoExecutor.UUID_CACHE, () -> { }).join();
+                out.println(UuidResolver.CACHE_FILE + ": " + formatBytes(before) + " -> " + formatBytes(sizeOf(uuidCache)));
+            }
+            if (Files.exists(lastSeen)) {
+                long before = sizeOf(lastSeen);
+                WhitelistManager whitelistManager = new WhitelistManager(configManager, ioExecutor, logger);
+                new LastSeenTracker(dataDirectory, whitelistManager, ioExecutor, logger).flush().join();
+                out.println(LastSeenTracker.DATA_FILE + ": " + formatBytes(before) + " -> " + formatBytes(sizeOf(lastSeen)));
+            }
+            return 0;
+        }
+
+        /**
+         * 显示数据文件大小，并流式统计 config.yml 中的白名单
+         * --memory 时按插件启动的方式加载整个配置和白名单，测量常驻内存
+         */
+        private int stats(Path dataDirectory, boolean memory) throws IOException {
+            Path configFile = dataDirectory.resolve("config.yml");
+            if (!Files.isRegularFile(configFile)) {
+                throw new IOException("找不到配置文件: " + configFile);
+            }
+            out.println("数据文件:");
+            for (String fileName : new String[]{"config.yml", WhitelistHistory.JOURNAL_FILE, WhitelistHistory.JOURNAL_FILE + ".old",
+                                                UuidResolver.CACHE_FILE, LastSeenTracker.DATA_FILE}) {
+                Path file = dataDirectory.resolve(fileName);
+                if (Files.exists(file)) {
+                    out.println("  " + fileName + ": " + formatBytes(sizeOf(file)));
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            // 条目、限时、已过期、UUID
+            int[] counts = new int[4];
+            ConfigYamlScanner.scan(configFile, new ConfigYamlScanner.Handler() {
+                @Override
+                public void whitelistEntry(int index, String playerName, boolean nonString) {
+                    if (playerName != null) {
+                        counts[0]++;
+                    }
+                }
+
+                @Override
+                public void mappingEntry(String section, String key, String value) {
+                    if (ConfigYamlScanner.WHITELIST_UUIDS.equals(section)) {
+                        counts[3]++;
+                        return;
+                    }
+                    try {
+                        long expiresAt = Long.parseLong(String.valueOf(value).trim());
+                        if (expiresAt > 0) {
+                            counts[1]++;
+                            if (expiresAt <= now) {
+                                counts[2]++;
+                            }
+                        }
+                    } catch (NumberFormatException ignored) {
+                        // 由 validate 报告
+                    }
+                }
+            });
+            out.println("白名单:");
+            out.println("  条目 " + counts[0] + " 个，到期时间 " + counts[1] + " 个（已过期 " + counts[2] + " 个），已解析UUID "
+                        + counts[3] + " 个");
+
+            if (memory) {
+                long before = usedMemory();
+                ConfigManager configManager = loadConfig(dataDirectory);
+                WhitelistManager whitelistManager = new WhitelistManager(configManager, ioExecutor, logger);
+                // 等待分层白名单在I/O线程上加载完成
+                ioExecutor.run(IoExecutor.TIERED, () -> { }).join();
+                long used = Math.max(0, usedMemory() - before);
+                int players = whitelistManager.getSnapshot().size();
+                out.println("  日志中可恢复的历史版本 " + whitelistManager.getHistory().getCompactedCount() + " 个");
+                out.println("  加载后约占用堆内存（含配置和固定开销） " + formatBytes(used)
+                            + (players > 0 ? "，平均每个玩家 " + used / players + " 字节" : ""));
+                Reference.reachabilityFence(configManager);
+                Reference.reachabilityFence(whitelistManager);
+            }
+
+            Path indexFile = TieredWhitelist.findIndex(dataDirectory);
+            if (indexFile != null) {
+                SortedNameFile index = SortedNameFile.open(indexFile);
+                out.println("分层白名单 " + indexFile.getFileName() + ":");
+                out.println("  玩家 " + index.size() + " 个，索引 " + formatBytes(index.getSizeInBytes()) + "（内存映射，不占堆内存），布隆过滤器 "
+                            + formatBytes(new BloomFilter(index.size()).getSizeInBytes()));
+            }
+            return 0;
+        }
+
+        private static long usedMemory() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+
+        private static long sizeOf(Path file) throws IOException {
+            return Files.exists(file) ? Files.size(file) : 0;
+        }
+
+        private static String formatBytes(long bytes) {
+            if (bytes < 1024) {
+                return bytes + "B";
+            }
+            if (bytes < 1024 * 1024) {
+                return String.format("%.1fKB", bytes / 1024.0);
+            }
+            return String.format("%.1fMB", bytes / (1024.0 * 1024));
+        }
+
+        /**
+         * 按类别汇总检查结果，每类最多列出 {@link #REPORT_LIMIT} 条
+         */
+        private static final class Report {
+            private final Map<String, List<String>> details = new LinkedHashMap<>();
+            private final Map<String, Integer> counts = new LinkedHashMap<>();
+            private final Set<String> problemCategories = new HashSet<>();
+            private int problems;
+            private int hints;
+
+            void problem(String category, String detail) {
+                problems++;
+                problemCategories.add(category);
+                add(category, detail);
+            }
+
+            void hint(String category, String detail) {
+                hints++;
+                add(category, detail);
+            }
+
+            private void add(String category, String detail) {
+                counts.merge(category, 1, Integer::sum);
+                List<String> list = details.computeIfAbsent(category, key -> new ArrayList<>());
+                if (list.size() < REPORT_LIMIT) {
+                    list.add(detail);
+                }
+            }
+
+            void print(PrintStream out) {
+                for (Map.Entry<String, List<String>> entry : details.entrySet()) {
+                    String category = entry.getKey();
+                    int count = counts.get(category);
+                    out.println((problemCategories.contains(category) ? "[问题] " : "[提示] ") + category + " (" + count + "):");
+                    for (String detail : entry.getValue()) {
+                        out.println("  " + detail);
+                    }
+                    if (count > entry.getValue().size()) {
+                        out.println("  ... 另有 " + (count - entry.getValue().size()) + " 条");
+                    }
+                }
+            }
+        }
+    }
+}
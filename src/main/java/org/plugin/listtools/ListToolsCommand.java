@@ -4,29 +4,83 @@ import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.command.SimpleCommand;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.slf4j.Logger;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * ListTools主命令处理器
  * 处理/listtools命令及其子命令
  */
 public class ListToolsCommand implements SimpleCommand {
+    // 白名单搜索每部分最多显示的玩家数
+    private static final int SEARCH_LIMIT = 50;
+    // 清理预览最多列出的玩家数
+    private static final int PRUNE_PREVIEW_LIMIT = 20;
+    // 审计日志查询默认和最多返回的记录数
+    private static final int AUDIT_QUERY_LIMIT = 20;
+    private static final int AUDIT_QUERY_MAX_LIMIT = 200;
+    // 每条审计记录最多列出的玩家数
+    private static final int AUDIT_PLAYERS_SHOWN = 10;
+
     private final ConfigManager configManager;
     private final WhitelistManager whitelistManager;
+    private final AccessPolicy accessPolicy;
+    private final GroupManager groupManager;
+    private final PatternRuleManager patternRuleManager;
+    private final IpRuleManager ipRuleManager;
+    private final AccessWindowManager accessWindowManager;
+    private final AccessWindowTask accessWindowTask;
+    private final ServerAccessManager serverAccessManager;
+    private final AdmissionPipeline admissionPipeline;
+    private final AdmissionController admissionController;
+    private final UuidResolver uuidResolver;
+    private final LastSeenTracker lastSeenTracker;
+    private final AuditLog auditLog;
+    private final PlayerSelector playerSelector;
+    private final DisconnectQueue disconnectQueue;
+    private final IoExecutor ioExecutor;
     private final ProxyServer proxyServer;
     private final Logger logger;
 
     public ListToolsCommand(ConfigManager configManager, WhitelistManager whitelistManager, 
-                           ProxyServer proxyServer, Logger logger) {
+                           AccessPolicy accessPolicy, GroupManager groupManager,
+                           PatternRuleManager patternRuleManager, IpRuleManager ipRuleManager,
+                           AccessWindowManager accessWindowManager, AccessWindowTask accessWindowTask,
+                           ServerAccessManager serverAccessManager, AdmissionPipeline admissionPipeline,
+                           AdmissionController admissionController, UuidResolver uuidResolver,
+                           LastSeenTracker lastSeenTracker, AuditLog auditLog, DisconnectQueue disconnectQueue,
+                           IoExecutor ioExecutor, ProxyServer proxyServer, Logger logger) {
         this.configManager = configManager;
         this.whitelistManager = whitelistManager;
+        this.accessPolicy = accessPolicy;
+        this.groupManager = groupManager;
+        this.patternRuleManager = patternRuleManager;
+        this.ipRuleManager = ipRuleManager;
+        this.accessWindowManager = accessWindowManager;
+        this.accessWindowTask = accessWindowTask;
+        this.serverAccessManager = serverAccessManager;
+        this.admissionPipeline = admissionPipeline;
+        this.admissionController = admissionController;
+        this.uuidResolver = uuidResolver;
+        this.lastSeenTracker = lastSeenTracker;
+        this.auditLog = auditLog;
+        this.playerSelector = new PlayerSelector(proxyServer, configManager.getDataDirectory());
+        this.disconnectQueue = disconnectQueue;
+        this.ioExecutor = ioExecutor;
         this.proxyServer = proxyServer;
         this.logger = logger;
     }
@@ -47,11 +101,75 @@ public class ListToolsCommand implements SimpleCommand {
             return;
         }
 
-        String subCommand = args[0].toLowerCase();
-        
+        submit(source, args[0].toLowerCase(), args);
+    }
+
+    /**
+     * 把命令提交到命令队列后立即返回
+     * 命令按提交顺序在I/O执行器上依次执行，修改在队列中立即生效，不等待写盘；修改了配置的命令
+     * 在配置写盘后才算完成，结果在队列之外报告，排队期间多个命令的修改因此合并为一次写盘
+     */
+    private void submit(CommandSource source, String subCommand, String[] args) {
+        ioExecutor.submit(IoExecutor.COMMANDS, () -> {
+            long savesBefore = configManager.getSaveCount();
+            List<CompletableFuture<Void>> pending = new ArrayList<>(1);
+            // 命令执行期间产生的审计记录归于执行者
+            auditLog.runAs(getSourceName(source), () -> pending.add(dispatch(source, subCommand, args)));
+            if (pending.get(0) != null) {
+                // 白名单提交自行报告结果，写盘失败时已撤销修改
+                return pending.get(0);
+            }
+            return configManager.getSaveCount() != savesBefore
+                ? configManager.whenSaved()
+                : CompletableFuture.<Void>completedFuture(null);
+        }).thenCompose(saved -> saved).whenComplete((ignored, error) -> {
+            if (error == null) {
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof IOException) {
+                source.sendMessage(Component.text("修改已生效，但保存配置文件失败: " + cause.getMessage(), NamedTextColor.RED));
+            } else {
+                source.sendMessage(Component.text("执行命令时发生错误: " + cause.getMessage(), NamedTextColor.RED));
+                logger.error("执行命令 /listtools {} 失败", String.join(" ", args), cause);
+            }
+        });
+    }
+
+    /**
+     * 分发子命令
+     * @return 白名单提交在写盘并报告结果后结束，其他命令返回 null
+     */
+    private CompletableFuture<Void> dispatch(CommandSource source, String subCommand, String[] args) {
         switch (subCommand) {
             case "whitelist":
-                handleWhitelistCommand(source, Arrays.copyOfRange(args, 1, args.length));
+                return handleWhitelistCommand(source, Arrays.copyOfRange(args, 1, args.length));
+            case "group":
+                handleGroupCommand(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "rule":
+                handleRuleCommand(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "pattern":
+                handlePatternCommand(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "ip":
+                handleIpCommand(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "window":
+                handleWindowCommand(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "server":
+                handleServerCommand(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "pipeline":
+                handlePipelineCommand(source);
+                break;
+            case "tiered":
+                handleTieredCommand(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "audit":
+                handleAuditCommand(source, Arrays.copyOfRange(args, 1, args.length));
                 break;
             case "reload":
                 handleReloadCommand(source);
@@ -63,73 +181,430 @@ public class ListToolsCommand implements SimpleCommand {
                 sendHelp(source);
                 break;
         }
+        return null;
     }
 
     /**
      * 处理白名单相关命令
+     * @return 修改白名单的子命令返回提交结果，其他返回 null
      */
-    private void handleWhitelistCommand(CommandSource source, String[] args) {
+    private CompletableFuture<Void> handleWhitelistCommand(CommandSource source, String[] args) {
         if (args.length == 0) {
             sendWhitelistHelp(source);
-            return;
+            return null;
         }
 
         String action = args[0].toLowerCase();
         
         switch (action) {
             case "add":
-                handleWhitelistAdd(source, Arrays.copyOfRange(args, 1, args.length));
-                break;
+                return handleWhitelistAdd(source, Arrays.copyOfRange(args, 1, args.length));
             case "remove":
-                handleWhitelistRemove(source, Arrays.copyOfRange(args, 1, args.length));
-                break;
+                return handleWhitelistRemove(source, Arrays.copyOfRange(args, 1, args.length));
             case "list":
                 handleWhitelistList(source);
                 break;
+            case "resolve":
+                handleWhitelistResolve(source);
+                break;
+            case "history":
+                handleWhitelistHistory(source);
+                break;
+            case "search":
+                handleWhitelistSearch(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "rollback":
+                return handleWhitelistRollback(source, Arrays.copyOfRange(args, 1, args.length));
+            case "prune":
+                return handleWhitelistPrune(source, Arrays.copyOfRange(args, 1, args.length));
             default:
                 sendWhitelistHelp(source);
                 break;
         }
+        return null;
     }
 
     /**
      * 处理添加白名单命令
+     * 支持多个玩家名和选择器，最后一个参数为时长（如 7d、12h）时添加限时白名单；
+     * 所有玩家通过批量接口一次添加，只保存一次配置
+     * @return 写盘并报告结果后结束，参数无效时返回 null
      */
-    private void handleWhitelistAdd(CommandSource source, String[] args) {
+    private CompletableFuture<Void> handleWhitelistAdd(CommandSource source, String[] args) {
         if (args.length == 0) {
-            source.sendMessage(Component.text("用法: /listtools whitelist add <玩家名>", NamedTextColor.RED));
-            return;
+            source.sendMessage(Component.text("用法: /listtools whitelist add <玩家名|选择器...> [时长]", NamedTextColor.RED));
+            return null;
         }
 
-        String playerName = args[0];
-        
-        if (whitelistManager.addPlayer(playerName)) {
-            source.sendMessage(Component.text("成功将玩家 " + playerName + " 添加到白名单", NamedTextColor.GREEN));
-            logger.info("{} 将玩家 {} 添加到白名单", getSourceName(source), playerName);
+        List<String> targets = new ArrayList<>(Arrays.asList(args));
+        long expiresAt = 0;
+        String durationText = null;
+        if (targets.size() > 1) {
+            String last = targets.get(targets.size() - 1);
+            long duration = ConfigManager.parseDuration(last);
+            if (duration > 0) {
+                durationText = targets.remove(targets.size() - 1);
+                expiresAt = System.currentTimeMillis() + duration;
+            } else if (Character.isDigit(last.charAt(0))) {
+                // 以数字开头的最后一个参数视为写错的时长，不当作玩家名永久添加
+                source.sendMessage(Component.text("无效的时长: " + last + "，支持格式: 30m, 12h, 7d", NamedTextColor.RED));
+                return null;
+            }
+        }
+
+        List<String> playerNames = resolveTargets(source, targets);
+        if (playerNames == null) {
+            return null;
+        }
+
+        WhitelistBatch batch = whitelistManager.beginBatch();
+        for (String playerName : playerNames) {
+            batch.add(playerName, expiresAt);
+        }
+        long finalExpiresAt = expiresAt;
+        String finalDurationText = durationText;
+        return commitBatch(source, batch, "添加",
+                           changes -> reportAdded(source, playerNames, finalExpiresAt, finalDurationText, changes));
+    }
+
+    /**
+     * 报告添加结果，并为尚未解析UUID的玩家发起解析
+     */
+    private void reportAdded(CommandSource source, List<String> playerNames, long expiresAt, String durationText,
+                             WhitelistChangeSet changes) {
+        int added = changes.getAdded().size() + changes.getUpdated().size();
+        String suffix = expiresAt > 0 ? "，有效期 " + formatInterval(expiresAt - System.currentTimeMillis()) : "";
+        if (playerNames.size() == 1) {
+            String playerName = playerNames.get(0);
+            if (added > 0) {
+                source.sendMessage(Component.text("成功将玩家 " + playerName + " 添加到白名单" + suffix, NamedTextColor.GREEN));
+            } else {
+                source.sendMessage(Component.text("玩家 " + playerName + " 已经在白名单中", NamedTextColor.YELLOW));
+            }
         } else {
-            source.sendMessage(Component.text("玩家 " + playerName + " 已经在白名单中", NamedTextColor.YELLOW));
+            source.sendMessage(Component.text("已将 " + added + " 个玩家添加到白名单" + suffix +
+                                            (added < playerNames.size() ? "，" + (playerNames.size() - added) + " 个已在白名单中" : ""),
+                                            NamedTextColor.GREEN));
+        }
+        if (added > 0) {
+            logger.info("{} 将玩家 {} 添加到白名单{}", getSourceName(source), playerNames,
+                        durationText != null ? "，有效期 " + durationText : "");
+        }
+
+        if (configManager.isUuidVerificationEnabled()) {
+            List<String> unresolved = new ArrayList<>();
+            for (String playerName : playerNames) {
+                if (whitelistManager.getSnapshot().contains(playerName) && whitelistManager.getUuid(playerName) == null) {
+                    unresolved.add(playerName);
+                }
+            }
+            if (unresolved.size() == 1) {
+                resolveUuid(source, unresolved.get(0));
+            } else if (!unresolved.isEmpty()) {
+                uuidResolver.resolveAll(unresolved).thenAccept(resolved -> source.sendMessage(Component.text(
+                    "已解析 " + whitelistManager.setUuids(resolved) + "/" + unresolved.size() + " 个玩家的UUID",
+                    NamedTextColor.GRAY)));
+            }
         }
     }
 
+    /**
+     * 把命令参数中的玩家名和选择器展开为玩家名列表
+     * @return 玩家名列表，选择器无效或结果为空时向执行者说明并返回 null
+     */
+    private List<String> resolveTargets(CommandSource source, List<String> targets) {
+        List<String> playerNames;
+        try {
+            playerNames = playerSelector.resolve(targets);
+        } catch (IllegalArgumentException e) {
+            source.sendMessage(Component.text(e.getMessage(), NamedTextColor.RED));
+            return null;
+        }
+        if (playerNames.isEmpty()) {
+            source.sendMessage(Component.text("没有匹配的玩家", NamedTextColor.YELLOW));
+            return null;
+        }
+        return playerNames;
+    }
+
+    /**
+     * 异步解析新加入白名单玩家的UUID并记录
+     */
+    private void resolveUuid(CommandSource source, String playerName) {
+        uuidResolver.resolve(playerName).whenComplete((uuid, error) -> {
+            if (error != null) {
+                source.sendMessage(Component.text("解析玩家 " + playerName + " 的UUID失败，可稍后使用 /listtools whitelist resolve 重试",
+                                                NamedTextColor.YELLOW));
+            } else if (uuid.isEmpty()) {
+                source.sendMessage(Component.text("未找到玩家 " + playerName + " 的正版账号，该条目不校验UUID", NamedTextColor.YELLOW));
+            } else {
+                whitelistManager.setUuids(Map.of(playerName, uuid.get()));
+                source.sendMessage(Component.text("玩家 " + playerName + " 的UUID: " + uuid.get(), NamedTextColor.GRAY));
+            }
+        });
+    }
+
+    /**
+     * 处理批量解析白名单UUID命令
+     * 所有尚未解析的玩家按批合并查询，完成后一次性保存
+     */
+    private void handleWhitelistResolve(CommandSource source) {
+        List<String> unresolved = whitelistManager.getUnresolvedPlayers();
+        if (unresolved.isEmpty()) {
+            source.sendMessage(Component.text("所有白名单玩家的UUID都已解析", NamedTextColor.GREEN));
+            return;
+        }
+
+        source.sendMessage(Component.text("正在解析 " + unresolved.size() + " 个玩家的UUID...", NamedTextColor.YELLOW));
+        long start = System.currentTimeMillis();
+        uuidResolver.resolveAll(unresolved).thenAccept(resolved -> {
+            int updated = whitelistManager.setUuids(resolved);
+            source.sendMessage(Component.text("UUID解析完成: 成功 " + updated + " 个，未解析 " +
+                                            (unresolved.size() - resolved.size()) + " 个，耗时 " +
+                                            formatInterval(System.currentTimeMillis() - start), NamedTextColor.GREEN));
+            logger.info("{} 解析了 {} 个白名单玩家的UUID", getSourceName(source), updated);
+        });
+    }
+
+    /**
+     * 处理查看白名单历史命令
+     */
+    private void handleWhitelistHistory(CommandSource source) {
+        WhitelistHistory history = whitelistManager.getHistory();
+        List<WhitelistHistory.Version> versions = history.getVersions();
+        long now = System.currentTimeMillis();
+        source.sendMessage(Component.text("白名单历史 (当前版本 v" + whitelistManager.getVersion() + "):", NamedTextColor.AQUA));
+        for (WhitelistHistory.Version version : versions) {
+            source.sendMessage(Component.text("v" + version.getVersion() + " - " +
+                                            formatInterval(Math.max(0, now - version.getTimestamp())) + "前 " +
+                                            version.getReason() + " " + version.getSummary() + "，共 " +
+                                            version.getSize() + " 个玩家", NamedTextColor.WHITE));
+        }
+        int compacted = history.getCompactedCount();
+        if (compacted > 0) {
+            source.sendMessage(Component.text("另有 " + compacted + " 个更早的版本保存在历史日志中，同样可以回滚",
+                                            NamedTextColor.GRAY));
+        }
+    }
+
+    /**
+     * 处理清理不活跃玩家命令
+     * 默认只列出将被移除的玩家，加上 confirm 才执行；所有玩家在一次变更中移除，只保存一次配置
+     * @return 执行移除时在写盘并报告结果后结束，否则返回 null
+     */
+    private CompletableFuture<Void> handleWhitelistPrune(CommandSource source, String[] args) {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !"confirm".equalsIgnoreCase(args[1]))) {
+            source.sendMessage(Component.text("用法: /listtools whitelist prune <时长> [confirm]", NamedTextColor.RED));
+            return null;
+        }
+        long age = ConfigManager.parseDuration(args[0]);
+        if (age <= 0) {
+            source.sendMessage(Component.text("无效的时长: " + args[0] + "，示例: 90d", NamedTextColor.RED));
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        List<String> inactive = new ArrayList<>();
+        for (String playerName : lastSeenTracker.findInactive(whitelistManager.getSnapshot(), now - age)) {
+            // 在线时间超过时长的玩家仍在线，不算不活跃
+            if (proxyServer.getPlayer(playerName).isEmpty()) {
+                inactive.add(playerName);
+            }
+        }
+        if (inactive.isEmpty()) {
+            source.sendMessage(Component.text("没有超过 " + formatInterval(age) + " 未上线的白名单玩家", NamedTextColor.GREEN));
+            return null;
+        }
+
+        if (args.length == 1) {
+            source.sendMessage(Component.text("以下 " + inactive.size() + " 个玩家超过 " + formatInterval(age) +
+                                            " 未上线（预览，未做修改）:", NamedTextColor.AQUA));
+            int shown = Math.min(inactive.size(), PRUNE_PREVIEW_LIMIT);
+            for (int i = 0; i < shown; i++) {
+                String playerName = inactive.get(i);
+                source.sendMessage(Component.text(playerName + " - 最后在线 " +
+                                                formatInterval(now - lastSeenTracker.getLastSeen(playerName)) + "前",
+                                                NamedTextColor.WHITE));
+            }
+            if (shown < inactive.size()) {
+                source.sendMessage(Component.text("... 另有 " + (inactive.size() - shown) + " 个", NamedTextColor.GRAY));
+            }
+            source.sendMessage(Component.text("确认移除请执行 /listtools whitelist prune " + args[0] + " confirm",
+                                            NamedTextColor.YELLOW));
+            return null;
+        }
+
+        return reportCommit(source, whitelistManager.prune(inactive), changes -> {
+            source.sendMessage(Component.text("已从白名单移除 " + changes.getRemoved().size() + " 个超过 " +
+                                            formatInterval(age) + " 未上线的玩家，新版本为 " + changes, NamedTextColor.GREEN));
+            logger.info("{} 清理了 {} 个超过 {} 未上线的白名单玩家", getSourceName(source), changes.getRemoved().size(),
+                        formatInterval(age));
+        });
+    }
+
+    /**
+     * 处理白名单回滚命令
+     * 恢复的内容作为一个新版本发布，只复查被移除的在线玩家
+     * @return 写盘并报告结果后结束，参数无效时返回 null
+     */
+    private CompletableFuture<Void> handleWhitelistRollback(CommandSource source, String[] args) {
+        if (args.length != 1) {
+            source.sendMessage(Component.text("用法: /listtools whitelist rollback <版本号>", NamedTextColor.RED));
+            return null;
+        }
+
+        long targetVersion;
+        try {
+            String text = args[0].startsWith("v") || args[0].startsWith("V") ? args[0].substring(1) : args[0];
+            targetVersion = Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            source.sendMessage(Component.text("无效的版本号: " + args[0], NamedTextColor.RED));
+            return null;
+        }
+
+        PersistentHashMap<String, WhitelistEntry> restored;
+        try {
+            // 较早的版本需要读取历史日志；在队列中等待读取，使回滚在下一条命令之前发布
+            restored = whitelistManager.getHistory().restore(targetVersion).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                source.sendMessage(Component.text(e.getCause().getMessage(), NamedTextColor.RED));
+                return null;
+            }
+            throw e;
+        }
+
+        return reportCommit(source, whitelistManager.rollback(targetVersion, restored), changes -> {
+            if (changes.isEmpty()) {
+                source.sendMessage(Component.text("白名单与版本 v" + targetVersion + " 相同，无需回滚", NamedTextColor.YELLOW));
+                return;
+            }
+            source.sendMessage(Component.text("已将白名单回滚到版本 v" + targetVersion + "，新版本为 " + changes,
+                                            NamedTextColor.GREEN));
+            logger.info("{} 将白名单回滚到版本 v{}: {}", getSourceName(source), targetVersion, changes);
+
+            if (!changes.getRemoved().isEmpty()) {
+                kickUnauthorizedPlayers(source, changes.getRemoved());
+            }
+        });
+    }
+
     /**
      * 处理移除白名单命令
+     * 支持多个玩家名和选择器，一次批量移除、保存一次配置，只复查被移除的在线玩家
+     * @return 写盘并报告结果后结束，参数无效时返回 null
      */
-    private void handleWhitelistRemove(CommandSource source, String[] args) {
+    private CompletableFuture<Void> handleWhitelistRemove(CommandSource source, String[] args) {
         if (args.length == 0) {
-            source.sendMessage(Component.text("用法: /listtools whitelist remove <玩家名>", NamedTextColor.RED));
-            return;
+            source.sendMessage(Component.text("用法: /listtools whitelist remove <玩家名|选择器...>", NamedTextColor.RED));
+            return null;
         }
 
-        String playerName = args[0];
-        
-        if (whitelistManager.removePlayer(playerName)) {
+        List<String> playerNames = resolveTargets(source, Arrays.asList(args));
+        if (playerNames == null) {
+            return null;
+        }
+
+        return commitBatch(source, whitelistManager.beginBatch().removeAll(playerNames), "移除",
+                           changes -> reportRemoved(source, playerNames, changes));
+    }
+
+    /**
+     * 报告移除结果，并复查被移除的在线玩家
+     */
+    private void reportRemoved(CommandSource source, List<String> playerNames, WhitelistChangeSet changes) {
+        int removed = changes.getRemoved().size();
+        if (playerNames.size() == 1) {
+            String playerName = playerNames.get(0);
+            if (removed == 0) {
+                source.sendMessage(Component.text("玩家 " + playerName + " 不在白名单中", NamedTextColor.YELLOW));
+                return;
+            }
             source.sendMessage(Component.text("成功将玩家 " + playerName + " 从白名单中移除", NamedTextColor.GREEN));
-            logger.info("{} 将玩家 {} 从白名单中移除", getSourceName(source), playerName);
-            
-            // 检查在线玩家，踢出没有白名单的玩家
-            kickUnauthorizedPlayers(source);
         } else {
-            source.sendMessage(Component.text("玩家 " + playerName + " 不在白名单中", NamedTextColor.YELLOW));
+            source.sendMessage(Component.text("已将 " + removed + " 个玩家从白名单中移除" +
+                                            (removed < playerNames.size() ? "，" + (playerNames.size() - removed) + " 个不在白名单中" : ""),
+                                            NamedTextColor.GREEN));
+            if (removed == 0) {
+                return;
+            }
+        }
+        logger.info("{} 将玩家 {} 从白名单中移除", getSourceName(source), changes.getRemoved());
+
+        // 只复查被移除的在线玩家
+        kickUnauthorizedPlayers(source, changes.getRemoved());
+    }
+
+    /**
+     * 提交白名单事务
+     * 所有玩家只产生一个版本、一次变更通知和一次配置保存
+     * @see #reportCommit
+     */
+    private CompletableFuture<Void> commitBatch(CommandSource source, WhitelistBatch batch, String reason,
+                                                Consumer<WhitelistChangeSet> report) {
+        return reportCommit(source, batch.commit(reason), report);
+    }
+
+    /**
+     * 在提交写盘后报告结果
+     * 修改在调用时已经发布，这里不等待写盘，命令队列可以继续执行下一条命令，
+     * 之后的修改与本次合并为一次写盘；结果在写盘完成的线程上报告，期间的审计记录仍归于执行者
+     * @param report 写盘成功后以变更集调用
+     * @return 报告结果后结束；玩家名无效或保存失败时向执行者说明，同样正常结束
+     */
+    private CompletableFuture<Void> reportCommit(CommandSource source, CompletableFuture<WhitelistChangeSet> committed,
+                                                 Consumer<WhitelistChangeSet> report) {
+        return committed.handle((changes, error) -> {
+            if (error == null) {
+                auditLog.runAs(getSourceName(source), () -> report.accept(changes));
+                return null;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof IllegalArgumentException) {
+                source.sendMessage(Component.text(cause.getMessage(), NamedTextColor.RED));
+            } else {
+                source.sendMessage(Component.text("保存白名单失败，本次修改已撤销: " + cause.getMessage(), NamedTextColor.RED));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 处理白名单搜索命令
+     * 先列出名字中包含关键词的玩家，再列出拼写相近的玩家，两部分各最多 {@link #SEARCH_LIMIT} 个
+     */
+    private void handleWhitelistSearch(CommandSource source, String[] args) {
+        if (args.length != 1) {
+            source.sendMessage(Component.text("用法: /listtools whitelist search <关键词>", NamedTextColor.RED));
+            return;
+        }
+
+        String query = args[0];
+        long start = System.nanoTime();
+        WhitelistSearchIndex searchIndex = whitelistManager.getSearchIndex();
+        List<String> containing = searchIndex.findContaining(whitelistManager.getSnapshot(), query, SEARCH_LIMIT);
+        Set<String> listed = new HashSet<>(containing);
+        List<String> similar = new ArrayList<>();
+        for (WhitelistSearchIndex.Match match : searchIndex.findSimilar(query, SEARCH_LIMIT + listed.size())) {
+            if (!listed.contains(match.getPlayerName()) && similar.size() < SEARCH_LIMIT) {
+                similar.add(match.getPlayerName() + "(差" + match.getDistance() + ")");
+            }
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        if (containing.isEmpty() && similar.isEmpty()) {
+            source.sendMessage(Component.text("没有找到与 \"" + query + "\" 相关的白名单玩家", NamedTextColor.YELLOW));
+            return;
+        }
+        source.sendMessage(Component.text("搜索 \"" + query + "\" (用时 " + elapsedMs + "ms):", NamedTextColor.AQUA));
+        if (!containing.isEmpty()) {
+            source.sendMessage(Component.text((query.length() < 3 ? "以关键词开头" : "包含关键词") + " (" +
+                                            containing.size() + (containing.size() == SEARCH_LIMIT ? "+" : "") + "): " +
+                                            String.join(" , ", containing), NamedTextColor.WHITE));
+        }
+        if (!similar.isEmpty()) {
+            source.sendMessage(Component.text("拼写相近 (" + similar.size() + "): " + String.join(" , ", similar),
+                                            NamedTextColor.GRAY));
         }
     }
 
@@ -137,26 +612,731 @@ public class ListToolsCommand implements SimpleCommand {
      * 处理查看白名单命令
      */
     private void handleWhitelistList(CommandSource source) {
-        List<String> whitelist = whitelistManager.getWhitelistCopy();
-        
+        // 直接使用快照的有序索引，列表与到期时间来自同一版本
+        WhitelistSnapshot snapshot = whitelistManager.getSnapshot();
+        List<String> whitelist = snapshot.getSortedPlayers().asList();
+
         if (whitelist.isEmpty()) {
             source.sendMessage(Component.text("白名单为空", NamedTextColor.YELLOW));
             return;
         }
 
         source.sendMessage(Component.text("白名单 (" + whitelist.size() + " 个玩家):", NamedTextColor.AQUA));
-        String playerList = String.join(" , ", whitelist);
+        long now = System.currentTimeMillis();
+        List<String> entries = new ArrayList<>(whitelist.size());
+        for (String playerName : whitelist) {
+            long expiresAt = snapshot.getExpiry(playerName);
+            entries.add(expiresAt > 0
+                ? playerName + "(剩余" + formatInterval(Math.max(0, expiresAt - now)) + ")"
+                : playerName);
+        }
+        String playerList = String.join(" , ", entries);
         source.sendMessage(Component.text(playerList, NamedTextColor.WHITE));
     }
 
+    /**
+     * 处理分组命令
+     */
+    private void handleGroupCommand(CommandSource source, String[] args) {
+        if (args.length == 0) {
+            Map<String, Integer> groups = groupManager.getGroupSizes();
+            if (groups.isEmpty()) {
+                source.sendMessage(Component.text("还没有任何分组", NamedTextColor.YELLOW));
+                return;
+            }
+            source.sendMessage(Component.text("分组 (" + groups.size() + " 个):", NamedTextColor.AQUA));
+            for (Map.Entry<String, Integer> entry : groups.entrySet()) {
+                source.sendMessage(Component.text(entry.getKey() + " - " + entry.getValue() + " 个成员", NamedTextColor.WHITE));
+            }
+            return;
+        }
+
+        if (args.length < 2) {
+            sendGroupHelp(source);
+            return;
+        }
+
+        String group = args[0];
+        String action = args[1].toLowerCase();
+        List<String> playerNames = Arrays.asList(Arrays.copyOfRange(args, 2, args.length));
+
+        switch (action) {
+            case "add": {
+                if (playerNames.isEmpty()) {
+                    source.sendMessage(Component.text("用法: /listtools group <分组> add <玩家名...>", NamedTextColor.RED));
+                    return;
+                }
+                int added = groupManager.addMembers(group, playerNames);
+                source.sendMessage(Component.text("分组 " + group + " 添加了 " + added + " 个成员", NamedTextColor.GREEN));
+                logger.info("{} 向分组 {} 添加了玩家 {}", getSourceName(source), group, playerNames);
+                break;
+            }
+            case "remove": {
+                if (playerNames.isEmpty()) {
+                    source.sendMessage(Component.text("用法: /listtools group <分组> remove <玩家名...>", NamedTextColor.RED));
+                    return;
+                }
+                int removed = groupManager.removeMembers(group, playerNames);
+                source.sendMessage(Component.text("分组 " + group + " 移除了 " + removed + " 个成员", NamedTextColor.GREEN));
+                logger.info("{} 从分组 {} 移除了玩家 {}", getSourceName(source), group, playerNames);
+                if (removed > 0) {
+                    kickUnauthorizedPlayers(source);
+                }
+                break;
+            }
+            case "set": {
+                int size = groupManager.setMembers(group, playerNames);
+                source.sendMessage(Component.text("分组 " + group + " 的成员已替换为 " + size + " 个玩家", NamedTextColor.GREEN));
+                logger.info("{} 将分组 {} 的成员替换为 {}", getSourceName(source), group, playerNames);
+                kickUnauthorizedPlayers(source);
+                break;
+            }
+            case "list": {
+                List<String> members = groupManager.getMembers(group);
+                if (members.isEmpty()) {
+                    source.sendMessage(Component.text("分组 " + group + " 没有成员", NamedTextColor.YELLOW));
+                    return;
+                }
+                source.sendMessage(Component.text("分组 " + group + " (" + members.size() + " 个成员):", NamedTextColor.AQUA));
+                source.sendMessage(Component.text(String.join(" , ", members), NamedTextColor.WHITE));
+                break;
+            }
+            case "delete": {
+                if (groupManager.deleteGroup(group)) {
+                    source.sendMessage(Component.text("已删除分组 " + group, NamedTextColor.GREEN));
+                    logger.info("{} 删除了分组 {}", getSourceName(source), group);
+                    kickUnauthorizedPlayers(source);
+                } else {
+                    source.sendMessage(Component.text("分组 " + group + " 不存在", NamedTextColor.YELLOW));
+                }
+                break;
+            }
+            default:
+                sendGroupHelp(source);
+                break;
+        }
+    }
+
+    /**
+     * 处理分组规则命令
+     */
+    private void handleRuleCommand(CommandSource source, String[] args) {
+        String action = args.length > 0 ? args[0].toLowerCase() : "list";
+
+        switch (action) {
+            case "list": {
+                List<GroupExpression> rules = groupManager.getRules();
+                if (rules.isEmpty()) {
+                    source.sendMessage(Component.text("还没有任何分组规则", NamedTextColor.YELLOW));
+                    return;
+                }
+                source.sendMessage(Component.text("分组规则 (" + rules.size() + " 条):", NamedTextColor.AQUA));
+                for (int i = 0; i < rules.size(); i++) {
+                    source.sendMessage(Component.text((i + 1) + ". " + rules.get(i), NamedTextColor.WHITE));
+                }
+                break;
+            }
+            case "add": {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("用法: /listtools rule add <表达式>", NamedTextColor.RED));
+                    return;
+                }
+                String expression = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+                try {
+                    GroupExpression rule = groupManager.addRule(expression);
+                    source.sendMessage(Component.text("已添加分组规则: " + rule, NamedTextColor.GREEN));
+                    if (rule.evaluateEmpty()) {
+                        source.sendMessage(Component.text("注意：该规则会放行不属于任何分组的玩家", NamedTextColor.YELLOW));
+                    }
+                    logger.info("{} 添加了分组规则 {}", getSourceName(source), rule);
+                } catch (IllegalArgumentException e) {
+                    source.sendMessage(Component.text("无效的表达式: " + e.getMessage(), NamedTextColor.RED));
+                }
+                break;
+            }
+            case "remove": {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("用法: /listtools rule remove <序号>", NamedTextColor.RED));
+                    return;
+                }
+                GroupExpression removed;
+                try {
+                    removed = groupManager.removeRule(Integer.parseInt(args[1]));
+                } catch (NumberFormatException e) {
+                    removed = null;
+                }
+                if (removed == null) {
+                    source.sendMessage(Component.text("无效的规则序号: " + args[1], NamedTextColor.RED));
+                    return;
+                }
+                source.sendMessage(Component.text("已移除分组规则: " + removed, NamedTextColor.GREEN));
+                logger.info("{} 移除了分组规则 {}", getSourceName(source), removed);
+                kickUnauthorizedPlayers(source);
+                break;
+            }
+            default:
+                sendGroupHelp(source);
+                break;
+        }
+    }
+
+    /**
+     * 处理模式规则命令
+     */
+    private void handlePatternCommand(CommandSource source, String[] args) {
+        String action = args.length > 0 ? args[0].toLowerCase() : "list";
+
+        switch (action) {
+            case "list": {
+                List<PatternRuleManager.PatternRule> rules = patternRuleManager.getRules();
+                if (rules.isEmpty()) {
+                    source.sendMessage(Component.text("还没有任何模式规则", NamedTextColor.YELLOW));
+                    return;
+                }
+                source.sendMessage(Component.text("模式规则 (" + rules.size() + " 条，自动机 " +
+                                                patternRuleManager.getStateCount() + " 个状态):", NamedTextColor.AQUA));
+                for (int i = 0; i < rules.size(); i++) {
+                    PatternRuleManager.PatternRule rule = rules.get(i);
+                    source.sendMessage(Component.text((i + 1) + ". " + rule,
+                                                    rule.isAllow() ? NamedTextColor.WHITE : NamedTextColor.RED));
+                }
+                break;
+            }
+            case "add": {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("用法: /listtools pattern add <模式> [allow|deny] [位置]", NamedTextColor.RED));
+                    return;
+                }
+                boolean allow = args.length < 3 || !"deny".equalsIgnoreCase(args[2]);
+                int position = -1;
+                if (args.length >= 4) {
+                    try {
+                        position = Integer.parseInt(args[3]);
+                    } catch (NumberFormatException e) {
+                        source.sendMessage(Component.text("无效的位置: " + args[3], NamedTextColor.RED));
+                        return;
+                    }
+                }
+                try {
+                    PatternRuleManager.PatternRule rule = patternRuleManager.addRule(args[1], allow, position);
+                    source.sendMessage(Component.text("已添加模式规则: " + rule, NamedTextColor.GREEN));
+                    logger.info("{} 添加了模式规则 {}", getSourceName(source), rule);
+                    if (!allow) {
+                        kickUnauthorizedPlayers(source);
+                    }
+                } catch (IllegalArgumentException e) {
+                    source.sendMessage(Component.text("无效的模式: " + e.getMessage(), NamedTextColor.RED));
+                }
+                break;
+            }
+            case "remove": {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("用法: /listtools pattern remove <序号>", NamedTextColor.RED));
+                    return;
+                }
+                PatternRuleManager.PatternRule removed;
+                try {
+                    removed = patternRuleManager.removeRule(Integer.parseInt(args[1]));
+                } catch (NumberFormatException e) {
+                    removed = null;
+                }
+                if (removed == null) {
+                    source.sendMessage(Component.text("无效的规则序号: " + args[1], NamedTextColor.RED));
+                    return;
+                }
+                source.sendMessage(Component.text("已移除模式规则: " + removed, NamedTextColor.GREEN));
+                logger.info("{} 移除了模式规则 {}", getSourceName(source), removed);
+                if (removed.isAllow()) {
+                    kickUnauthorizedPlayers(source);
+                }
+                break;
+            }
+            case "test": {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("用法: /listtools pattern test <玩家名>", NamedTextColor.RED));
+                    return;
+                }
+                PatternRuleManager.PatternRule rule = patternRuleManager.match(args[1]);
+                if (rule == null) {
+                    source.sendMessage(Component.text("玩家名 " + args[1] + " 不匹配任何模式规则", NamedTextColor.YELLOW));
+                } else {
+                    source.sendMessage(Component.text("玩家名 " + args[1] + " 匹配规则: " + rule,
+                                                    rule.isAllow() ? NamedTextColor.GREEN : NamedTextColor.RED));
+                }
+                break;
+            }
+            default:
+                sendPatternHelp(source);
+                break;
+        }
+    }
+
+    /**
+     * 处理IP规则命令
+     */
+    private void handleIpCommand(CommandSource source, String[] args) {
+        String action = args.length > 0 ? args[0].toLowerCase() : "list";
+
+        switch (action) {
+            case "list": {
+                List<IpRuleManager.IpRule> rules = ipRuleManager.getRules();
+                if (rules.isEmpty()) {
+                    source.sendMessage(Component.text("还没有任何IP规则", NamedTextColor.YELLOW));
+                    return;
+                }
+                source.sendMessage(Component.text("IP规则 (" + rules.size() + " 条，按最长前缀匹配):", NamedTextColor.AQUA));
+                for (IpRuleManager.IpRule rule : rules) {
+                    source.sendMessage(Component.text(rule + " (命中 " + rule.getHits() + " 次)",
+                                                    rule.isAllow() ? NamedTextColor.WHITE : NamedTextColor.RED));
+                }
+                break;
+            }
+            case "add": {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("用法: /listtools ip add <网段> [allow|deny]", NamedTextColor.RED));
+                    return;
+                }
+                boolean allow = args.length < 3 || !"deny".equalsIgnoreCase(args[2]);
+                try {
+                    IpRuleManager.IpRule rule = ipRuleManager.addRule(args[1], allow);
+                    source.sendMessage(Component.text("已添加IP规则: " + rule, NamedTextColor.GREEN));
+                    logger.info("{} 添加了IP规则 {}", getSourceName(source), rule);
+                    if (!allow) {
+                        kickUnauthorizedPlayers(source);
+                    }
+                } catch (IllegalArgumentException e) {
+                    source.sendMessage(Component.text("无效的网段: " + e.getMessage(), NamedTextColor.RED));
+                }
+                break;
+            }
+            case "remove": {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("用法: /listtools ip remove <网段>", NamedTextColor.RED));
+                    return;
+                }
+                IpRuleManager.IpRule removed = ipRuleManager.removeRule(args[1]);
+                if (removed == null) {
+                    source.sendMessage(Component.text("没有找到IP规则: " + args[1], NamedTextColor.RED));
+                    return;
+                }
+                source.sendMessage(Component.text("已移除IP规则: " + removed, NamedTextColor.GREEN));
+                logger.info("{} 移除了IP规则 {}", getSourceName(source), removed);
+                if (removed.isAllow()) {
+                    kickUnauthorizedPlayers(source);
+                }
+                break;
+            }
+            case "test": {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("用法: /listtools ip test <地址>", NamedTextColor.RED));
+                    return;
+                }
+                IpRuleManager.IpRule rule;
+                try {
+                    rule = ipRuleManager.find(IpRuleManager.IpRule.parseLiteral(args[1]));
+                } catch (IllegalArgumentException e) {
+                    source.sendMessage(Component.text(e.getMessage(), NamedTextColor.RED));
+                    return;
+                }
+                if (rule == null) {
+                    source.sendMessage(Component.text("地址 " + args[1] + " 不匹配任何IP规则，按玩家名检查", NamedTextColor.YELLOW));
+                } else {
+                    source.sendMessage(Component.text("地址 " + args[1] + " 匹配规则: " + rule,
+                                                    rule.isAllow() ? NamedTextColor.GREEN : NamedTextColor.RED));
+                }
+                break;
+            }
+            default:
+                sendIpHelp(source);
+                break;
+        }
+    }
+
+    /**
+     * 处理访问时间窗口命令
+     */
+    private void handleWindowCommand(CommandSource source, String[] args) {
+        if (args.length == 0) {
+            Map<String, List<AccessWindow>> windows = accessWindowManager.getWindows();
+            if (windows.isEmpty()) {
+                source.sendMessage(Component.text("还没有配置任何时间窗口", NamedTextColor.YELLOW));
+                return;
+            }
+            source.sendMessage(Component.text("时间窗口 (" + windows.size() + " 个目标):", NamedTextColor.AQUA));
+            for (Map.Entry<String, List<AccessWindow>> entry : windows.entrySet()) {
+                boolean open = accessWindowManager.isOpen(entry.getKey());
+                source.sendMessage(Component.text(entry.getKey() + (open ? " [开放] " : " [关闭] ") + entry.getValue(),
+                                                open ? NamedTextColor.GREEN : NamedTextColor.GRAY));
+            }
+            return;
+        }
+
+        if (args.length < 2) {
+            sendWindowHelp(source);
+            return;
+        }
+
+        String target = args[0];
+        String action = args[1].toLowerCase();
+
+        switch (action) {
+            case "add": {
+                if (args.length < 4) {
+                    source.sendMessage(Component.text("用法: /listtools window <玩家名|group:分组> add <星期> <开始-结束>", NamedTextColor.RED));
+                    return;
+                }
+                try {
+                    AccessWindow window = accessWindowManager.addWindow(target, args[2] + " " + args[3]);
+                    accessWindowTask.reschedule();
+                    source.sendMessage(Component.text("已为 " + target + " 添加时间窗口: " + window, NamedTextColor.GREEN));
+                    logger.info("{} 为 {} 添加了时间窗口 {}", getSourceName(source), target, window);
+                    kickUnauthorizedPlayers(source);
+                } catch (IllegalArgumentException e) {
+                    source.sendMessage(Component.text("无效的时间窗口: " + e.getMessage(), NamedTextColor.RED));
+                }
+                break;
+            }
+            case "remove": {
+                int index = 0;
+                if (args.length >= 3) {
+                    try {
+                        index = Integer.parseInt(args[2]);
+                    } catch (NumberFormatException e) {
+                        source.sendMessage(Component.text("无效的窗口序号: " + args[2], NamedTextColor.RED));
+                        return;
+                    }
+                }
+                int removed = accessWindowManager.removeWindow(target, index);
+                if (removed == 0) {
+                    source.sendMessage(Component.text(target + " 没有对应的时间窗口", NamedTextColor.YELLOW));
+                    return;
+                }
+                accessWindowTask.reschedule();
+                source.sendMessage(Component.text("已移除 " + target + " 的 " + removed + " 个时间窗口", NamedTextColor.GREEN));
+                logger.info("{} 移除了 {} 的 {} 个时间窗口", getSourceName(source), target, removed);
+                // 剩余窗口可能全部处于关闭状态
+                kickUnauthorizedPlayers(source);
+                break;
+            }
+            case "list": {
+                List<AccessWindow> windows = accessWindowManager.getWindows().get(target);
+                if (windows == null) {
+                    source.sendMessage(Component.text(target + " 没有时间窗口，不受时间限制", NamedTextColor.YELLOW));
+                    return;
+                }
+                boolean open = accessWindowManager.isOpen(target);
+                source.sendMessage(Component.text(target + " 的时间窗口 (当前" + (open ? "开放" : "关闭") + "):", NamedTextColor.AQUA));
+                for (int i = 0; i < windows.size(); i++) {
+                    source.sendMessage(Component.text((i + 1) + ". " + windows.get(i), NamedTextColor.WHITE));
+                }
+                break;
+            }
+            default:
+                sendWindowHelp(source);
+                break;
+        }
+    }
+
+    /**
+     * 处理服务器访问列表命令
+     */
+    private void handleServerCommand(CommandSource source, String[] args) {
+        if (args.length == 0) {
+            Set<String> servers = serverAccessManager.getRestrictedServers();
+            if (servers.isEmpty()) {
+                source.sendMessage(Component.text("没有配置访问列表的服务器，所有服务器对白名单玩家开放", NamedTextColor.YELLOW));
+            } else {
+                source.sendMessage(Component.text("受限服务器 (" + servers.size() + " 个):", NamedTextColor.AQUA));
+                source.sendMessage(Component.text(String.join(" , ", servers), NamedTextColor.WHITE));
+            }
+            return;
+        }
+
+        if (args.length < 2) {
+            sendServerHelp(source);
+            return;
+        }
+
+        String serverName = args[0];
+        String action = args[1].toLowerCase();
+        List<String> playerNames = Arrays.asList(Arrays.copyOfRange(args, 2, args.length));
+
+        switch (action) {
+            case "add": {
+                if (playerNames.isEmpty()) {
+                    source.sendMessage(Component.text("用法: /listtools server <服务器> add <玩家名...>", NamedTextColor.RED));
+                    return;
+                }
+                if (proxyServer.getServer(serverName).isEmpty()) {
+                    source.sendMessage(Component.text("注意：代理中没有名为 " + serverName + " 的服务器", NamedTextColor.YELLOW));
+                }
+                int added = serverAccessManager.addPlayers(serverName, playerNames);
+                source.sendMessage(Component.text("服务器 " + serverName + " 的访问列表添加了 " + added + " 个玩家", NamedTextColor.GREEN));
+                logger.info("{} 向服务器 {} 的访问列表添加了玩家 {}", getSourceName(source), serverName, playerNames);
+                break;
+            }
+            case "remove": {
+                if (playerNames.isEmpty()) {
+                    source.sendMessage(Component.text("用法: /listtools server <服务器> remove <玩家名...>", NamedTextColor.RED));
+                    return;
+                }
+                int removed = serverAccessManager.removePlayers(serverName, playerNames);
+                source.sendMessage(Component.text("服务器 " + serverName + " 的访问列表移除了 " + removed + " 个玩家", NamedTextColor.GREEN));
+                logger.info("{} 从服务器 {} 的访问列表移除了玩家 {}", getSourceName(source), serverName, playerNames);
+                break;
+            }
+            case "list": {
+                if (!serverAccessManager.isRestricted(serverName)) {
+                    source.sendMessage(Component.text("服务器 " + serverName + " 没有访问列表，对所有白名单玩家开放", NamedTextColor.YELLOW));
+                    return;
+                }
+                List<String> players = serverAccessManager.getPlayers(serverName);
+                source.sendMessage(Component.text("服务器 " + serverName + " 的访问列表 (" + players.size() + " 个玩家):", NamedTextColor.AQUA));
+                source.sendMessage(Component.text(String.join(" , ", players), NamedTextColor.WHITE));
+                break;
+            }
+            case "clear": {
+                if (serverAccessManager.clearServer(serverName)) {
+                    source.sendMessage(Component.text("已删除服务器 " + serverName + " 的访问列表", NamedTextColor.GREEN));
+                    logger.info("{} 删除了服务器 {} 的访问列表", getSourceName(source), serverName);
+                } else {
+                    source.sendMessage(Component.text("服务器 " + serverName + " 没有访问列表", NamedTextColor.YELLOW));
+                }
+                break;
+            }
+            default:
+                sendServerHelp(source);
+                break;
+        }
+    }
+
     /**
      * 处理重载配置命令
      */
     private void handleReloadCommand(CommandSource source) {
-        configManager.reloadConfig();
-        whitelistManager.refreshCache();
-        source.sendMessage(Component.text("配置文件已重载", NamedTextColor.GREEN));
-        logger.info("{} 重载了配置文件", getSourceName(source));
+        // 读取配置文件在I/O执行器上进行，命令立即返回
+        String actorName = getSourceName(source);
+        ioExecutor.run(IoExecutor.CONFIG, () -> auditLog.runAs(actorName, () -> {
+            configManager.reloadConfig();
+            auditLog.configure(configManager.isAuditLogEnabled(), configManager.getAuditLogMaxFileSize(),
+                               configManager.getAuditLogMaxFiles());
+            whitelistManager.refreshCache();
+            groupManager.refresh();
+            patternRuleManager.refresh();
+            ipRuleManager.refresh();
+            accessWindowManager.refresh();
+            accessWindowTask.reschedule();
+            serverAccessManager.refresh();
+            admissionController.refresh();
+        })).whenComplete((ignored, error) -> {
+            if (error != null) {
+                source.sendMessage(Component.text("重载配置文件失败: " + error.getMessage(), NamedTextColor.RED));
+                logger.error("重载配置文件失败", error);
+                return;
+            }
+            source.sendMessage(Component.text("配置文件已重载", NamedTextColor.GREEN));
+            logger.info("{} 重载了配置文件", getSourceName(source));
+        });
+    }
+
+    /**
+     * 处理准入流水线查看命令
+     * 按当前执行顺序列出各阶段的调用次数、结论比例和平均耗时
+     */
+    private void handlePipelineCommand(CommandSource source) {
+        List<AdmissionPipeline.StageStats> stats = admissionPipeline.getStats();
+        source.sendMessage(Component.text("=== 准入流水线 (" + stats.size() + " 个阶段) ===", NamedTextColor.GOLD));
+        for (int i = 0; i < stats.size(); i++) {
+            AdmissionPipeline.StageStats stage = stats.get(i);
+            source.sendMessage(Component.text(String.format("%d. %s [组 %d%s] 调用 %d 次，结论 %.1f%%，平均 %.1fμs",
+                                                            i + 1, stage.getName(), stage.getOrderGroup(),
+                                                            stage.isAsync() ? "，异步" : "",
+                                                            stage.getInvocations(), stage.getHitRate() * 100,
+                                                            stage.getAverageMicros()),
+                                              NamedTextColor.AQUA));
+        }
+    }
+
+    /**
+     * 处理分层白名单命令
+     * 导入可能需要数秒，在I/O线程上进行，命令立即返回并在完成后汇报
+     */
+    private void handleTieredCommand(CommandSource source, String[] args) {
+        TieredWhitelist tiered = whitelistManager.getTieredWhitelist();
+        String action = args.length > 0 ? args[0].toLowerCase() : "status";
+        switch (action) {
+            case "status":
+                source.sendMessage(Component.text("分层白名单: " + tiered.getStats(), NamedTextColor.AQUA));
+                break;
+            case "import":
+                if (args.length != 2) {
+                    source.sendMessage(Component.text("用法: /listtools tiered import <文件>", NamedTextColor.RED));
+                    return;
+                }
+                if (!tiered.isEnabled()) {
+                    source.sendMessage(Component.text("分层白名单未启用，请先在配置中设置 tiered_whitelist: true", NamedTextColor.RED));
+                    return;
+                }
+                source.sendMessage(Component.text("正在导入分层白名单...", NamedTextColor.YELLOW));
+                long start = System.currentTimeMillis();
+                tiered.importFile(args[1]).whenComplete((count, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        source.sendMessage(Component.text("导入分层白名单失败: " + cause.getMessage(), NamedTextColor.RED));
+                        return;
+                    }
+                    source.sendMessage(Component.text("已导入 " + count + " 个玩家到分层白名单，耗时 " +
+                                                    formatInterval(System.currentTimeMillis() - start), NamedTextColor.GREEN));
+                    logger.info("{} 从 {} 导入了 {} 个玩家到分层白名单", getSourceName(source), args[1], count);
+                    auditLog.runAs(getSourceName(source), () -> auditLog.record("tiered_import", List.of(),
+                                                                              args[1] + "，" + count + " 个玩家"));
+                    // 新名单整体替换旧名单，复查在线玩家
+                    kickUnauthorizedPlayers(source);
+                });
+                break;
+            case "clear":
+                tiered.clear().thenRun(() -> {
+                    source.sendMessage(Component.text("已清除分层白名单", NamedTextColor.GREEN));
+                    logger.info("{} 清除了分层白名单", getSourceName(source));
+                    auditLog.runAs(getSourceName(source), () -> auditLog.record("tiered_clear", List.of(), null));
+                    kickUnauthorizedPlayers(source);
+                });
+                break;
+            default:
+                source.sendMessage(Component.text("用法: /listtools tiered [status|import <文件>|clear]", NamedTextColor.RED));
+                break;
+        }
+    }
+
+    /**
+     * 处理审计日志命令
+     */
+    private void handleAuditCommand(CommandSource source, String[] args) {
+        String action = args.length > 0 ? args[0].toLowerCase() : "status";
+        switch (action) {
+            case "status":
+                source.sendMessage(Component.text("审计日志: " + auditLog.getStats(), NamedTextColor.AQUA));
+                break;
+            case "query":
+                handleAuditQuery(source, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            default:
+                source.sendMessage(Component.text("用法: /listtools audit [status|query [player:玩家] [actor:操作者] " +
+                                                "[action:类型] [since:时长] [limit:数量]]", NamedTextColor.RED));
+                break;
+        }
+    }
+
+    /**
+     * 处理审计日志查询命令
+     * 先写入缓冲区中的记录，再在命令线程上流式读取所有日志文件，只保留最新的匹配记录
+     */
+    private void handleAuditQuery(CommandSource source, String[] args) {
+        String player = null;
+        String actor = null;
+        String type = null;
+        long since = 0;
+        int limit = AUDIT_QUERY_LIMIT;
+        for (String arg : args) {
+            int colon = arg.indexOf(':');
+            String key = colon > 0 ? arg.substring(0, colon).toLowerCase() : "";
+            String value = colon > 0 ? arg.substring(colon + 1) : "";
+            switch (key) {
+                case "player":
+                    player = value;
+                    break;
+                case "actor":
+                    actor = value;
+                    break;
+                case "action":
+                    type = value;
+                    break;
+                case "since": {
+                    long duration = ConfigManager.parseDuration(value);
+                    if (duration <= 0) {
+                        source.sendMessage(Component.text("无效的时长: " + value + "，示例: 7d", NamedTextColor.RED));
+                        return;
+                    }
+                    since = System.currentTimeMillis() - duration;
+                    break;
+                }
+                case "limit":
+                    try {
+                        limit = Math.max(1, Math.min(AUDIT_QUERY_MAX_LIMIT, Integer.parseInt(value)));
+                    } catch (NumberFormatException e) {
+                        source.sendMessage(Component.text("无效的数量: " + value, NamedTextColor.RED));
+                        return;
+                    }
+                    break;
+                default:
+                    source.sendMessage(Component.text("无效的查询条件: " + arg + "，可用 player:、actor:、action:、since:、limit:",
+                                                    NamedTextColor.RED));
+                    return;
+            }
+        }
+
+        String playerFilter = player;
+        String actorFilter = actor;
+        String typeFilter = type;
+        List<AuditLog.Entry> entries;
+        try {
+            // 命令队列按顺序执行，等待缓冲区写入后再读取
+            auditLog.flush().join();
+            entries = auditLog.query(entry ->
+                (playerFilter == null || entry.getPlayers().stream().anyMatch(playerFilter::equalsIgnoreCase)) &&
+                (actorFilter == null || actorFilter.equalsIgnoreCase(entry.getActor())) &&
+                (typeFilter == null || typeFilter.equalsIgnoreCase(entry.getAction())), since, limit);
+        } catch (IOException e) {
+            source.sendMessage(Component.text("读取审计日志失败: " + e.getMessage(), NamedTextColor.RED));
+            return;
+        }
+
+        if (entries.isEmpty()) {
+            source.sendMessage(Component.text("没有匹配的审计记录", NamedTextColor.YELLOW));
+            return;
+        }
+        long now = System.currentTimeMillis();
+        source.sendMessage(Component.text("审计记录 (最近 " + entries.size() + " 条，从新到旧):", NamedTextColor.AQUA));
+        for (AuditLog.Entry entry : entries) {
+            List<String> players = entry.getPlayers();
+            StringBuilder line = new StringBuilder();
+            line.append(formatInterval(Math.max(0, now - entry.getTimestamp()))).append("前 ")
+                .append(entry.getActor()).append(' ').append(describeAuditAction(entry.getAction()));
+            if (!players.isEmpty()) {
+                line.append(' ').append(String.join(", ", players.subList(0, Math.min(players.size(), AUDIT_PLAYERS_SHOWN))));
+                if (players.size() > AUDIT_PLAYERS_SHOWN) {
+                    line.append(" 等 ").append(players.size()).append(" 个玩家");
+                }
+            }
+            if (entry.getDetail() != null) {
+                line.append(" (").append(entry.getDetail()).append(')');
+            }
+            if (entry.getVersion() > 0) {
+                line.append(" v").append(entry.getVersion());
+            }
+            source.sendMessage(Component.text(line.toString(), NamedTextColor.WHITE));
+        }
+    }
+
+    private static String describeAuditAction(String action) {
+        switch (action) {
+            case "add":
+                return "添加";
+            case "remove":
+                return "移除";
+            case "update":
+                return "更新有效期";
+            case "kick":
+                return "踢出";
+            case "tiered_import":
+                return "导入分层白名单";
+            case "tiered_clear":
+                return "清除分层白名单";
+            case "dropped":
+                return "丢弃记录";
+            default:
+                return action;
+        }
     }
 
     /**
@@ -173,31 +1353,82 @@ public class ListToolsCommand implements SimpleCommand {
         source.sendMessage(Component.text("白名单玩家数量: " + whitelistSize, NamedTextColor.AQUA));
         source.sendMessage(Component.text("自动检查间隔: " + formatInterval(autoCheckInterval), NamedTextColor.AQUA));
         source.sendMessage(Component.text("在线玩家数量: " + proxyServer.getPlayerCount(), NamedTextColor.AQUA));
+        source.sendMessage(Component.text("等待踢出玩家数量: " + disconnectQueue.getPendingCount(), NamedTextColor.AQUA));
+        int maxInFlight = configManager.getLoginMaxInFlight();
+        if (maxInFlight > 0) {
+            source.sendMessage(Component.text("正在登录: " + admissionController.getInFlightCount() + "/" + maxInFlight +
+                                            "，排队中: " + admissionController.getQueuedCount(), NamedTextColor.AQUA));
+        }
+        if (configManager.isUuidVerificationEnabled()) {
+            source.sendMessage(Component.text("UUID校验: 启用，未解析玩家: " + whitelistManager.getUnresolvedPlayers().size() +
+                                            "，缓存条目: " + uuidResolver.getCacheSize(), NamedTextColor.AQUA));
+        }
+        if (whitelistManager.getTieredWhitelist().isEnabled()) {
+            source.sendMessage(Component.text("分层白名单: " + whitelistManager.getTieredWhitelist().getStats(), NamedTextColor.AQUA));
+        }
+        if (auditLog.isEnabled()) {
+            source.sendMessage(Component.text("审计日志: " + auditLog.getStats(), NamedTextColor.AQUA));
+        }
+        long untilBoundary = accessWindowTask.getTimeUntilNextBoundary();
+        if (untilBoundary >= 0) {
+            source.sendMessage(Component.text("下次时间窗口切换: " + formatInterval(untilBoundary) + "后", NamedTextColor.AQUA));
+        }
     }
 
     /**
      * 踢出未授权的在线玩家
+     * 通过限速踢出队列执行，命令立即返回并异步汇报进度
      */
     private void kickUnauthorizedPlayers(CommandSource source) {
         if (!configManager.isEnabled()) {
             return;
         }
 
-        String kickMessage = configManager.getKickMessage();
-        Component kickComponent = Component.text(kickMessage, NamedTextColor.RED);
-        
-        int kickedCount = 0;
+        List<Player> unauthorized = new ArrayList<>();
         for (Player player : proxyServer.getAllPlayers()) {
-            if (!whitelistManager.isWhitelisted(player.getUsername())) {
-                player.disconnect(kickComponent);
-                kickedCount++;
-                logger.info("踢出未授权玩家: {}", player.getUsername());
+            if (!accessPolicy.isStillAllowed(player)) {
+                unauthorized.add(player);
             }
         }
-        
-        if (kickedCount > 0) {
-            source.sendMessage(Component.text("已踢出 " + kickedCount + " 个未授权玩家", NamedTextColor.YELLOW));
+        enqueueKicks(source, unauthorized);
+    }
+
+    /**
+     * 只复查指定的在线玩家，踢出已失去授权的玩家
+     */
+    private void kickUnauthorizedPlayers(CommandSource source, Collection<String> playerNames) {
+        if (!configManager.isEnabled()) {
+            return;
         }
+
+        List<Player> unauthorized = new ArrayList<>();
+        for (String playerName : playerNames) {
+            proxyServer.getPlayer(playerName)
+                .filter(player -> !accessPolicy.isStillAllowed(player))
+                .ifPresent(unauthorized::add);
+        }
+        enqueueKicks(source, unauthorized);
+    }
+
+    /**
+     * 把玩家加入限速踢出队列并向执行者汇报进度
+     */
+    private void enqueueKicks(CommandSource source, List<Player> unauthorized) {
+        if (unauthorized.isEmpty()) {
+            return;
+        }
+
+        Component kickComponent = Component.text(configManager.getKickMessage(), NamedTextColor.RED);
+
+        source.sendMessage(Component.text("已将 " + unauthorized.size() + " 个未授权玩家加入踢出队列", NamedTextColor.YELLOW));
+        disconnectQueue.enqueueAll(unauthorized, kickComponent)
+            .onProgress(batch -> source.sendMessage(Component.text(
+                "踢出进度: " + batch.getProcessed() + "/" + batch.getTotal(), NamedTextColor.GRAY)))
+            .getFuture()
+            .thenAccept(batch -> source.sendMessage(Component.text(
+                "已踢出 " + batch.getKicked() + " 个未授权玩家" +
+                (batch.getSkipped() > 0 ? "，跳过 " + batch.getSkipped() + " 个（已离线或重新加入白名单）" : ""),
+                NamedTextColor.YELLOW)));
     }
 
     /**
@@ -205,9 +1436,23 @@ public class ListToolsCommand implements SimpleCommand {
      */
     private void sendHelp(CommandSource source) {
         source.sendMessage(Component.text("=== ListTools 命令帮助 ===", NamedTextColor.GOLD));
-        source.sendMessage(Component.text("/listtools whitelist add <玩家名> - 添加玩家到白名单", NamedTextColor.AQUA));
-        source.sendMessage(Component.text("/listtools whitelist remove <玩家名> - 从白名单移除玩家", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist add <玩家名|选择器...> [时长] - 添加玩家到白名单，可指定有效期", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist remove <玩家名|选择器...> - 从白名单移除玩家", NamedTextColor.AQUA));
         source.sendMessage(Component.text("/listtools whitelist list - 查看白名单", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist resolve - 批量解析白名单玩家的UUID", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist search <关键词> - 按子串和相近拼写搜索白名单", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist history - 查看白名单历史版本", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist rollback <版本号> - 将白名单恢复到历史版本", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist prune <时长> [confirm] - 清理长期未上线的玩家，不加 confirm 时只预览", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools group [分组] ... - 管理玩家分组", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools rule [add|remove|list] - 管理分组放行规则", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools pattern [add|remove|list|test] - 管理模式规则", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools ip [add|remove|list|test] - 管理IP规则", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools window [目标] ... - 管理访问时间窗口", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools server [服务器] ... - 管理服务器访问列表", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools pipeline - 查看准入流水线各阶段的耗时和命中率", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools tiered [status|import <文件>|clear] - 管理分层白名单（大型名单）", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools audit [status|query ...] - 查询白名单变更和踢出的审计记录", NamedTextColor.AQUA));
         source.sendMessage(Component.text("/listtools reload - 重载配置文件", NamedTextColor.AQUA));
         source.sendMessage(Component.text("/listtools status - 查看插件状态", NamedTextColor.AQUA));
     }
@@ -217,9 +1462,76 @@ public class ListToolsCommand implements SimpleCommand {
      */
     private void sendWhitelistHelp(CommandSource source) {
         source.sendMessage(Component.text("=== 白名单命令帮助 ===", NamedTextColor.GOLD));
-        source.sendMessage(Component.text("/listtools whitelist add <玩家名> - 添加玩家到白名单", NamedTextColor.AQUA));
-        source.sendMessage(Component.text("/listtools whitelist remove <玩家名> - 从白名单移除玩家", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist add <玩家名|选择器...> [时长] - 添加玩家到白名单，可指定有效期", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist remove <玩家名|选择器...> - 从白名单移除玩家", NamedTextColor.AQUA));
         source.sendMessage(Component.text("/listtools whitelist list - 查看白名单", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist resolve - 批量解析白名单玩家的UUID", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist search <关键词> - 按子串和相近拼写搜索白名单", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist history - 查看白名单历史版本", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist rollback <版本号> - 将白名单恢复到历史版本", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools whitelist prune <时长> [confirm] - 清理长期未上线的玩家，不加 confirm 时只预览", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("选择器: @online 所有在线玩家，@server:<服务器> 指定服务器中的玩家，@file:<路径> 文件中的玩家名", NamedTextColor.GRAY));
+    }
+
+    /**
+     * 发送分组命令帮助
+     */
+    private void sendGroupHelp(CommandSource source) {
+        source.sendMessage(Component.text("=== 分组命令帮助 ===", NamedTextColor.GOLD));
+        source.sendMessage(Component.text("/listtools group - 查看所有分组", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools group <分组> add <玩家名...> - 添加分组成员", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools group <分组> remove <玩家名...> - 移除分组成员", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools group <分组> set <玩家名...> - 整体替换分组成员", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools group <分组> list - 查看分组成员", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools group <分组> delete - 删除分组", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools rule add <表达式> - 添加放行规则，如 staff OR (testers AND NOT suspended)", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools rule remove <序号> - 移除放行规则", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools rule list - 查看放行规则", NamedTextColor.AQUA));
+    }
+
+    /**
+     * 发送模式规则命令帮助
+     */
+    private void sendPatternHelp(CommandSource source) {
+        source.sendMessage(Component.text("=== 模式规则命令帮助 ===", NamedTextColor.GOLD));
+        source.sendMessage(Component.text("/listtools pattern list - 查看模式规则", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools pattern add <模式> [allow|deny] [位置] - 添加模式规则，如 Partner_* 或 ^qa[0-9]{3}$", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools pattern remove <序号> - 移除模式规则", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools pattern test <玩家名> - 测试玩家名匹配哪条规则", NamedTextColor.AQUA));
+    }
+
+    /**
+     * 发送IP规则命令帮助
+     */
+    private void sendIpHelp(CommandSource source) {
+        source.sendMessage(Component.text("=== IP规则命令帮助 ===", NamedTextColor.GOLD));
+        source.sendMessage(Component.text("/listtools ip list - 查看IP规则及命中次数", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools ip add <网段> [allow|deny] - 添加IP规则，如 10.0.0.0/8 或 2001:db8::/32", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools ip remove <网段> - 移除IP规则", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools ip test <地址> - 测试地址匹配哪条规则", NamedTextColor.AQUA));
+    }
+
+    /**
+     * 发送访问时间窗口命令帮助
+     */
+    private void sendWindowHelp(CommandSource source) {
+        source.sendMessage(Component.text("=== 时间窗口命令帮助 ===", NamedTextColor.GOLD));
+        source.sendMessage(Component.text("/listtools window - 查看所有时间窗口及开放状态", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools window <玩家名|group:分组> add <星期> <开始-结束> - 添加时间窗口，如 Mon-Fri 08:00-16:00", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools window <玩家名|group:分组> remove [序号] - 移除时间窗口，不指定序号时全部移除", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools window <玩家名|group:分组> list - 查看目标的时间窗口", NamedTextColor.AQUA));
+    }
+
+    /**
+     * 发送服务器访问列表命令帮助
+     */
+    private void sendServerHelp(CommandSource source) {
+        source.sendMessage(Component.text("=== 服务器访问列表命令帮助 ===", NamedTextColor.GOLD));
+        source.sendMessage(Component.text("/listtools server - 查看受限服务器", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools server <服务器> add <玩家名...> - 允许玩家进入该服务器", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools server <服务器> remove <玩家名...> - 移除玩家的服务器权限", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools server <服务器> list - 查看服务器访问列表", NamedTextColor.AQUA));
+        source.sendMessage(Component.text("/listtools server <服务器> clear - 删除访问列表，对所有白名单玩家开放", NamedTextColor.AQUA));
     }
 
     /**
@@ -254,9 +1566,27 @@ public class ListToolsCommand implements SimpleCommand {
             return seconds + "秒";
         } else if (seconds < 3600) {
             return (seconds / 60) + "分钟";
-        } else {
+        } else if (seconds < 86400) {
             return (seconds / 3600) + "小时";
+        } else {
+            return (seconds / 86400) + "天";
+        }
+    }
+
+    /**
+     * 建议玩家选择器
+     */
+    private List<String> suggestSelectors(String input) {
+        List<String> selectors = new ArrayList<>();
+        selectors.add(PlayerSelector.ONLINE);
+        for (RegisteredServer server : proxyServer.getAllServers()) {
+            selectors.add(PlayerSelector.SERVER_PREFIX + server.getServerInfo().getName());
         }
+        selectors.add(PlayerSelector.FILE_PREFIX);
+        String lowerInput = input.toLowerCase();
+        return selectors.stream()
+            .filter(selector -> selector.toLowerCase().startsWith(lowerInput))
+            .toList();
     }
 
     @Override
@@ -271,7 +1601,7 @@ public class ListToolsCommand implements SimpleCommand {
 
         if (args.length == 1) {
             // 第一级子命令建议
-            List<String> suggestions = Arrays.asList("whitelist", "reload", "status");
+            List<String> suggestions = Arrays.asList("whitelist", "group", "rule", "pattern", "ip", "window", "server", "pipeline", "tiered", "audit", "reload", "status");
             String input = args[0].toLowerCase();
 
             // 过滤匹配的建议
@@ -282,7 +1612,7 @@ public class ListToolsCommand implements SimpleCommand {
             );
         } else if (args.length == 2 && "whitelist".equalsIgnoreCase(args[0])) {
             // 白名单子命令建议
-            List<String> suggestions = Arrays.asList("add", "remove", "list");
+            List<String> suggestions = Arrays.asList("add", "remove", "list", "search", "resolve", "history", "rollback", "prune");
             String input = args[1].toLowerCase();
 
             return CompletableFuture.completedFuture(
@@ -290,31 +1620,194 @@ public class ListToolsCommand implements SimpleCommand {
                     .filter(cmd -> cmd.startsWith(input))
                     .toList()
             );
-        } else if (args.length == 3 && "whitelist".equalsIgnoreCase(args[0])) {
+        } else if (args.length >= 3 && "whitelist".equalsIgnoreCase(args[0])) {
             String action = args[1].toLowerCase();
-            String input = args[2];
+            String input = args[args.length - 1];
 
+            if (input.startsWith("@") && ("add".equals(action) || "remove".equals(action))) {
+                return CompletableFuture.completedFuture(suggestSelectors(input));
+            }
+            if ("rollback".equals(action) && args.length == 3) {
+                // 回滚命令建议内存中的历史版本
+                List<String> versions = new ArrayList<>();
+                for (WhitelistHistory.Version version : whitelistManager.getHistory().getVersions()) {
+                    String text = String.valueOf(version.getVersion());
+                    if (text.startsWith(input)) {
+                        versions.add(text);
+                    }
+                }
+                return CompletableFuture.completedFuture(versions);
+            }
             if ("remove".equals(action)) {
                 // 移除命令建议白名单中的玩家
                 return CompletableFuture.completedFuture(
-                    whitelistManager.getWhitelistCopy().stream()
-                        .filter(player -> player.toLowerCase().startsWith(input.toLowerCase()))
-                        .toList()
-                );
+                    whitelistManager.getSnapshot().getSortedPlayers().withPrefix(input));
             } else if ("add".equals(action)) {
                 // 添加命令建议在线玩家（排除已在白名单中的）
                 List<String> onlinePlayers = new ArrayList<>();
                 for (Player player : proxyServer.getAllPlayers()) {
                     String playerName = player.getUsername();
-                    if (!whitelistManager.isWhitelisted(playerName) &&
+                    if (!whitelistManager.getSnapshot().contains(playerName) &&
                         playerName.toLowerCase().startsWith(input.toLowerCase())) {
                         onlinePlayers.add(playerName);
                     }
                 }
                 return CompletableFuture.completedFuture(onlinePlayers);
             }
+        } else if (args.length >= 2 && "group".equalsIgnoreCase(args[0])) {
+            return CompletableFuture.completedFuture(suggestGroup(args));
+        } else if (args.length == 2 && "tiered".equalsIgnoreCase(args[0])) {
+            String input = args[1].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("status", "import", "clear").stream()
+                    .filter(cmd -> cmd.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length == 2 && "audit".equalsIgnoreCase(args[0])) {
+            String input = args[1].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("status", "query").stream()
+                    .filter(cmd -> cmd.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length >= 3 && "audit".equalsIgnoreCase(args[0]) && "query".equalsIgnoreCase(args[1])) {
+            String input = args[args.length - 1].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("player:", "actor:", "action:", "since:", "limit:").stream()
+                    .filter(option -> option.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length == 2 && "rule".equalsIgnoreCase(args[0])) {
+            String input = args[1].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("add", "remove", "list").stream()
+                    .filter(cmd -> cmd.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length == 2 && "pattern".equalsIgnoreCase(args[0])) {
+            String input = args[1].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("add", "remove", "list", "test").stream()
+                    .filter(cmd -> cmd.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length == 4 && "pattern".equalsIgnoreCase(args[0]) && "add".equalsIgnoreCase(args[1])) {
+            String input = args[3].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("allow", "deny").stream()
+                    .filter(cmd -> cmd.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length == 2 && "ip".equalsIgnoreCase(args[0])) {
+            String input = args[1].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("add", "remove", "list", "test").stream()
+                    .filter(cmd -> cmd.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length == 3 && "ip".equalsIgnoreCase(args[0]) && "remove".equalsIgnoreCase(args[1])) {
+            String input = args[2];
+            return CompletableFuture.completedFuture(
+                ipRuleManager.getRules().stream()
+                    .map(IpRuleManager.IpRule::getCidr)
+                    .filter(cidr -> cidr.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length == 4 && "ip".equalsIgnoreCase(args[0]) && "add".equalsIgnoreCase(args[1])) {
+            String input = args[3].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("allow", "deny").stream()
+                    .filter(cmd -> cmd.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length == 2 && "window".equalsIgnoreCase(args[0])) {
+            String input = args[1];
+            List<String> targets = new ArrayList<>(accessWindowManager.getWindows().keySet());
+            for (String group : groupManager.getGroupSizes().keySet()) {
+                targets.add(AccessWindowManager.GROUP_PREFIX + group);
+            }
+            return CompletableFuture.completedFuture(
+                targets.stream()
+                    .distinct()
+                    .filter(target -> target.toLowerCase().startsWith(input.toLowerCase()))
+                    .toList()
+            );
+        } else if (args.length == 3 && "window".equalsIgnoreCase(args[0])) {
+            String input = args[2].toLowerCase();
+            return CompletableFuture.completedFuture(
+                Arrays.asList("add", "remove", "list").stream()
+                    .filter(cmd -> cmd.startsWith(input))
+                    .toList()
+            );
+        } else if (args.length >= 2 && "server".equalsIgnoreCase(args[0])) {
+            return CompletableFuture.completedFuture(suggestServer(args));
         }
 
         return CompletableFuture.completedFuture(new ArrayList<>());
     }
+
+    /**
+     * 分组命令的补全建议
+     */
+    private List<String> suggestGroup(String[] args) {
+        if (args.length == 2) {
+            String input = args[1].toLowerCase();
+            return groupManager.getGroupSizes().keySet().stream()
+                .filter(name -> name.startsWith(input))
+                .toList();
+        } else if (args.length == 3) {
+            String input = args[2].toLowerCase();
+            return Arrays.asList("add", "remove", "set", "list", "delete").stream()
+                .filter(cmd -> cmd.startsWith(input))
+                .toList();
+        } else if (args.length >= 4) {
+            String action = args[2].toLowerCase();
+            String input = args[args.length - 1].toLowerCase();
+            List<String> candidates;
+            if ("remove".equals(action)) {
+                candidates = groupManager.getMembers(args[1]);
+            } else if ("add".equals(action) || "set".equals(action)) {
+                candidates = new ArrayList<>();
+                for (Player player : proxyServer.getAllPlayers()) {
+                    candidates.add(player.getUsername());
+                }
+            } else {
+                return new ArrayList<>();
+            }
+            return candidates.stream()
+                .filter(player -> player.toLowerCase().startsWith(input))
+                .toList();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * 服务器访问列表命令的补全建议
+     */
+    private List<String> suggestServer(String[] args) {
+        if (args.length == 2) {
+            String input = args[1].toLowerCase();
+            return proxyServer.getAllServers().stream()
+                .map(server -> server.getServerInfo().getName())
+                .filter(name -> name.toLowerCase().startsWith(input))
+                .toList();
+        } else if (args.length == 3) {
+            String input = args[2].toLowerCase();
+            return Arrays.asList("add", "remove", "list", "clear").stream()
+                .filter(cmd -> cmd.startsWith(input))
+                .toList();
+        } else if (args.length >= 4) {
+            String action = args[2].toLowerCase();
+            String input = args[args.length - 1].toLowerCase();
+            if ("add".equals(action)) {
+                return whitelistManager.getSnapshot().getSortedPlayers().withPrefix(input);
+            } else if ("remove".equals(action)) {
+                return serverAccessManager.getPlayers(args[1]).stream()
+                    .filter(player -> player.toLowerCase().startsWith(input))
+                    .toList();
+            }
+            return new ArrayList<>();
+        }
+        return new ArrayList<>();
+    }
 }
@@ -0,0 +1,116 @@
+package org.plugin.listtools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+import java.net.InetAddress;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录限速阶段
+ * 按来源地址使用令牌桶限制登录尝试次数，超出 login_rate_limit（次/分钟）的连接直接拒绝
+ */
+public class LoginRateLimitStage implements AdmissionStage {
+    // 超过此数量时清理长时间未使用的令牌桶
+    private static final int CLEANUP_THRESHOLD = 10000;
+    private static final long IDLE_MS = 60_000;
+
+    private final ConfigManager configManager;
+    private final ConcurrentHashMap<InetAddress, Bucket> buckets;
+    // 按当前提示消息预先构建的拒绝结果，消息变化时重建
+    private volatile Denial denial;
+
+    public LoginRateLimitStage(ConfigManager configManager) {
+        this.configManager = configManager;
+        this.buckets = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public String getName() {
+        return "rate_limit";
+    }
+
+    @Override
+    public int getOrderGroup() {
+        return AdmissionPipeline.ORDER_RATE_LIMIT;
+    }
+
+    @Override
+    public AdmissionDecision check(AdmissionRequest request) {
+        int perMinute = configManager.getLoginRateLimit();
+        InetAddress address = request.getAddress();
+        if (perMinute <= 0 || address == null) {
+            return AdmissionDecision.PASS;
+        }
+
+        long now = System.currentTimeMillis();
+        if (buckets.size() > CLEANUP_THRESHOLD) {
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+        }
+
+        // 先查再建，已有令牌桶的地址不创建捕获参数的 lambda
+        Bucket bucket = buckets.get(address);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(address, key -> new Bucket(perMinute, now));
+        }
+        if (bucket.tryAcquire(perMinute, now)) {
+            return AdmissionDecision.PASS;
+        }
+        return deniedDecision();
+    }
+
+    private AdmissionDecision deniedDecision() {
+        String message = configManager.getRateLimitMessage();
+        Denial current = denial;
+        if (current == null || !current.message.equals(message)) {
+            current = new Denial(message);
+            denial = current;
+        }
+        return current.decision;
+    }
+
+    @Override
+    public boolean grantsSession() {
+        return false;
+    }
+
+    /**
+     * 提示消息及对应的拒绝结果
+     */
+    private static final class Denial {
+        private final String message;
+        private final AdmissionDecision decision;
+
+        private Denial(String message) {
+            this.message = message;
+            this.decision = AdmissionDecision.deny(Component.text(message, NamedTextColor.RED));
+        }
+    }
+
+    /**
+     * 单个地址的令牌桶，容量为每分钟允许的次数
+     */
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefill;
+
+        private Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        private synchronized boolean tryAcquire(int perMinute, long now) {
+            tokens = Math.min(perMinute, tokens + (now - lastRefill) * perMinute / 60_000.0);
+            lastRefill = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized boolean isIdle(long now) {
+            return now - lastRefill > IDLE_MS;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.plugin.listtools;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁环形缓冲区，多个生产者、单个消费者
+ * 每个槽位带一个序号：序号等于写入位置时可写，等于写入位置+1时可读，读出后加上容量进入下一圈。
+ * 生产者只在争抢写入位置时 CAS，缓冲区满时 {@link #offer} 立即返回 false，不阻塞也不分配对象
+ *
+ * {@link #drain} 同一时间只能有一个线程调用
+ */
+public final class MpscRingBuffer<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail;
+    // 只由消费者写入，消费者之间由调用方保证先后顺序；volatile 供 size() 在其他线程读取
+    private volatile long head;
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * 写入一个元素
+     * @return 缓冲区已满时返回 false
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    // 发布序号后消费者才能读取该槽位
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // 该槽位上一圈的元素尚未被读出
+                return false;
+            } else {
+                // 其他生产者已占用该位置
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 按写入顺序读出所有已发布的元素
+     * @return 读出的元素数
+     */
+    public int drain(Consumer<E> consumer) {
+        int count = 0;
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                // 空，或者生产者已占用位置但尚未写完
+                return count;
+            }
+            E element = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.set(index, head + mask + 1);
+            head++;
+            count++;
+            consumer.accept(element);
+        }
+    }
+
+    /**
+     * 获取缓冲区中的元素数量，并发写入时为近似值
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,648 @@
+package org.plugin.listtools;
+
+import java.util.*;
+
+/**
+ * 组合模式匹配自动机
+ * 把一组有序的模式编译为同一个确定有限自动机（DFA），玩家名只需线性扫描一遍即可得到
+ * 第一个匹配的模式序号，匹配耗时只与名字长度有关，与模式数量无关
+ *
+ * 模式以 ^ 开头时按正则表达式解析，支持字面字符、.、字符类 [a-z] / [^...]、
+ * \d \w \s 及其取反、分组 ()、选择 |、量词 * + ? {m} {m,} {m,n}；
+ * 其他模式按通配符解析：* 匹配任意字符串，? 匹配单个字符，[...] 为字符类。
+ * 所有模式都要求完整匹配玩家名。非ASCII字符统一视为同一类字符
+ */
+public final class PatternMatcher {
+    // 非ASCII字符共用的字符编号
+    private static final int OTHER = 128;
+    private static final int ALPHABET = 129;
+    // 量词展开的最大次数
+    private static final int MAX_REPEAT = 64;
+    // DFA 的最大状态数，超过时拒绝编译，保证内存和匹配延迟可预期
+    private static final int MAX_STATES = 50000;
+    // 所有模式合计的 NFA 最大状态数，嵌套量词展开后超过时拒绝编译
+    private static final int MAX_NFA_STATES = 20000;
+    // 子集构造中所有状态集合合计占用的最大 long 数（约 32MB）
+    private static final long MAX_SUBSET_WORDS = 4_000_000;
+    private static final int DEAD = 0;
+
+    // 字符到等价类的映射
+    private final int[] classOf;
+    private final int classCount;
+    // 转移表：state * classCount + class
+    private final int[] transitions;
+    // 每个状态接受的最小模式序号，-1 表示不接受
+    private final int[] accepting;
+
+    private PatternMatcher(int[] classOf, int classCount, int[] transitions, int[] accepting) {
+        this.classOf = classOf;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    /**
+     * 编译一组有序模式
+     * @throws IllegalArgumentException 模式语法错误或自动机规模超出限制时抛出
+     */
+    public static PatternMatcher compile(List<String> patterns) {
+        List<Node> trees = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            trees.add(parse(pattern));
+        }
+        return new Builder(trees).build();
+    }
+
+    /**
+     * 校验单个模式的语法
+     * @throws IllegalArgumentException 模式语法错误时抛出
+     */
+    public static void validate(String pattern) {
+        parse(pattern);
+    }
+
+    /**
+     * 匹配玩家名
+     * @return 第一个完整匹配的模式序号（从0开始），没有匹配时返回-1
+     */
+    public int match(CharSequence name) {
+        int state = 1;
+        int length = name.length();
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            state = transitions[state * classCount + classOf[c < OTHER ? c : OTHER]];
+            if (state == DEAD) {
+                return -1;
+            }
+        }
+        return accepting[state];
+    }
+
+    /**
+     * 获取DFA状态数
+     */
+    public int getStateCount() {
+        return accepting.length;
+    }
+
+    // ===== 解析 =====
+
+    private static Node parse(String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            throw new IllegalArgumentException("模式为空");
+        }
+        Node node = pattern.startsWith("^") ? new RegexParser(pattern).parseAll() : parseGlob(pattern);
+        // 在构建自动机之前按语法树估算展开后的规模，避免嵌套量词在编译时耗尽内存
+        if (nfaSize(node) > MAX_NFA_STATES) {
+            throw new IllegalArgumentException("模式过于复杂，量词展开后超过 " + MAX_NFA_STATES + " 个状态");
+        }
+        return node;
+    }
+
+    /**
+     * 估算语法树经 Thompson 构造后的 NFA 状态数，超过上限后不再精确计算
+     */
+    private static long nfaSize(Node node) {
+        long size;
+        if (node instanceof Node.Chars) {
+            size = 2;
+        } else if (node instanceof Node.Concat) {
+            size = 1;
+            for (Node part : ((Node.Concat) node).parts) {
+                size += nfaSize(part);
+            }
+        } else if (node instanceof Node.Alternation) {
+            size = 2;
+            for (Node option : ((Node.Alternation) node).options) {
+                size += nfaSize(option);
+            }
+        } else {
+            Node.Repeat repeat = (Node.Repeat) node;
+            long inner = nfaSize(repeat.node);
+            long copies = repeat.max < 0 ? repeat.min + 1L : repeat.max;
+            size = 2 + copies * inner;
+        }
+        return Math.min(size, MAX_NFA_STATES + 1L);
+    }
+
+    private static Node parseGlob(String pattern) {
+        List<Node> parts = new ArrayList<>();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '*') {
+                parts.add(new Node.Repeat(new Node.Chars(anyChar()), 0, -1));
+                i++;
+            } else if (c == '?') {
+                parts.add(new Node.Chars(anyChar()));
+                i++;
+            } else if (c == '[') {
+                int[] end = new int[1];
+                parts.add(new Node.Chars(parseClass(pattern, i + 1, end)));
+                i = end[0];
+            } else {
+                parts.add(new Node.Chars(single(c)));
+                i++;
+            }
+        }
+        return new Node.Concat(parts);
+    }
+
+    /**
+     * 解析字符类，start 指向 [ 之后的位置
+     * @param end 输出 ] 之后的位置
+     */
+    private static BitSet parseClass(String pattern, int start, int[] end) {
+        BitSet set = new BitSet(ALPHABET);
+        int i = start;
+        boolean negate = i < pattern.length() && pattern.charAt(i) == '^';
+        if (negate) {
+            i++;
+        }
+
+        boolean first = true;
+        while (i < pattern.length() && (pattern.charAt(i) != ']' || first)) {
+            first = false;
+            char c = pattern.charAt(i);
+            if (c == '\\' && i + 1 < pattern.length()) {
+                BitSet escaped = escape(pattern.charAt(i + 1));
+                i += 2;
+                if (escaped.cardinality() != 1) {
+                    set.or(escaped);
+                    continue;
+                }
+                c = (char) escaped.nextSetBit(0);
+            } else {
+                i++;
+            }
+
+            if (i + 1 < pattern.length() && pattern.charAt(i) == '-' && pattern.charAt(i + 1) != ']') {
+                char to = pattern.charAt(i + 1);
+                if (to < c) {
+                    throw new IllegalArgumentException("无效的字符范围: " + c + "-" + to);
+                }
+                for (int ch = c; ch <= to; ch++) {
+                    set.set(Math.min(ch, OTHER));
+                }
+                i += 2;
+            } else {
+                set.set(Math.min(c, OTHER));
+            }
+        }
+
+        if (i >= pattern.length()) {
+            throw new IllegalArgumentException("字符类缺少 ]");
+        }
+        end[0] = i + 1;
+        if (negate) {
+            set.flip(0, ALPHABET);
+        }
+        return set;
+    }
+
+    private static BitSet escape(char c) {
+        BitSet set = new BitSet(ALPHABET);
+        switch (c) {
+            case 'd':
+            case 'D':
+                set.set('0', '9' + 1);
+                break;
+            case 'w':
+            case 'W':
+                set.set('a', 'z' + 1);
+                set.set('A', 'Z' + 1);
+                set.set('0', '9' + 1);
+                set.set('_');
+                break;
+            case 's':
+            case 'S':
+                set.set(' ');
+                set.set('\t');
+                set.set('\n');
+                set.set('\r');
+                set.set('\f');
+                break;
+            default:
+                set.set(Math.min(c, OTHER));
+                return set;
+        }
+        if (Character.isUpperCase(c)) {
+            set.flip(0, ALPHABET);
+        }
+        return set;
+    }
+
+    private static BitSet single(char c) {
+        BitSet set = new BitSet(ALPHABET);
+        set.set(Math.min(c, OTHER));
+        return set;
+    }
+
+    private static BitSet anyChar() {
+        BitSet set = new BitSet(ALPHABET);
+        set.set(0, ALPHABET);
+        return set;
+    }
+
+    /**
+     * 正则表达式的递归下降解析器
+     * 开头的 ^ 和结尾未转义的 $ 是锚点；所有模式本身就是完整匹配，锚点不产生任何节点
+     */
+    private static class RegexParser {
+        private final String pattern;
+        private final int limit;
+        private int position;
+
+        private RegexParser(String pattern) {
+            this.pattern = pattern;
+            this.limit = pattern.length();
+            this.position = 1;
+        }
+
+        private Node parseAll() {
+            Node node = parseAlternation();
+            if (position < limit) {
+                throw new IllegalArgumentException("无法识别的内容: " + pattern.substring(position));
+            }
+            return node;
+        }
+
+        private Node parseAlternation() {
+            List<Node> options = new ArrayList<>();
+            options.add(parseConcat());
+            while (position < limit && pattern.charAt(position) == '|') {
+                position++;
+                options.add(parseConcat());
+            }
+            return options.size() == 1 ? options.get(0) : new Node.Alternation(options);
+        }
+
+        private Node parseConcat() {
+            List<Node> parts = new ArrayList<>();
+            while (position < limit && pattern.charAt(position) != '|' && pattern.charAt(position) != ')') {
+                parts.add(parseRepeat());
+            }
+            return new Node.Concat(parts);
+        }
+
+        private Node parseRepeat() {
+            Node atom = parseAtom();
+            while (position < limit) {
+                char c = pattern.charAt(position);
+                if (c == '*') {
+                    atom = new Node.Repeat(atom, 0, -1);
+                    position++;
+                } else if (c == '+') {
+                    atom = new Node.Repeat(atom, 1, -1);
+                    position++;
+                } else if (c == '?') {
+                    atom = new Node.Repeat(atom, 0, 1);
+                    position++;
+                } else if (c == '{') {
+                    int close = pattern.indexOf('}', position);
+                    if (close < 0 || close >= limit) {
+                        throw new IllegalArgumentException("量词缺少 }");
+                    }
+                    atom = parseBounds(atom, pattern.substring(position + 1, close));
+                    position = close + 1;
+                } else {
+                    break;
+                }
+            }
+            return atom;
+        }
+
+        private Node parseBounds(Node atom, String bounds) {
+            try {
+                int comma = bounds.indexOf(',');
+                int min;
+                int max;
+                if (comma < 0) {
+                    min = Integer.parseInt(bounds.trim());
+                    max = min;
+                } else {
+                    min = Integer.parseInt(bounds.substring(0, comma).trim());
+                    String upper = bounds.substring(comma + 1).trim();
+                    max = upper.isEmpty() ? -1 : Integer.parseInt(upper);
+                }
+                if (min < 0 || min > MAX_REPEAT || (max >= 0 && (max < min || max > MAX_REPEAT))) {
+                    throw new IllegalArgumentException("量词范围无效: {" + bounds + "}");
+                }
+                return new Node.Repeat(atom, min, max);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("量词格式无效: {" + bounds + "}");
+            }
+        }
+
+        private Node parseAtom() {
+            char c = pattern.charAt(position);
+            switch (c) {
+                case '(': {
+                    position++;
+                    // 非捕获分组写法与普通分组等价
+                    if (pattern.startsWith("?:", position)) {
+                        position += 2;
+                    }
+                    Node inner = parseAlternation();
+                    if (position >= limit || pattern.charAt(position) != ')') {
+                        throw new IllegalArgumentException("缺少右括号");
+                    }
+                    position++;
+                    return inner;
+                }
+                case '[': {
+                    int[] end = new int[1];
+                    BitSet set = parseClass(pattern, position + 1, end);
+                    if (end[0] > limit) {
+                        throw new IllegalArgumentException("字符类缺少 ]");
+                    }
+                    position = end[0];
+                    return new Node.Chars(set);
+                }
+                case '.':
+                    position++;
+                    return new Node.Chars(anyChar());
+                case '\\':
+                    if (position + 1 >= limit) {
+                        throw new IllegalArgumentException("转义符不完整");
+                    }
+                    position += 2;
+                    return new Node.Chars(escape(pattern.charAt(position - 1)));
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw new IllegalArgumentException("量词前缺少内容");
+                case '$':
+                    if (position == limit - 1) {
+                        // 结尾的锚点，转义的 \$ 已在上面作为字面字符读取
+                        position++;
+                        return new Node.Concat(Collections.emptyList());
+                    }
+                    throw new IllegalArgumentException("只支持在开头使用 ^、在结尾使用 $");
+                case '^':
+                    throw new IllegalArgumentException("只支持在开头使用 ^、在结尾使用 $");
+                default:
+                    position++;
+                    return new Node.Chars(single(c));
+            }
+        }
+    }
+
+    // ===== 语法树 =====
+
+    private interface Node {
+        final class Chars implements Node {
+            private final BitSet set;
+
+            private Chars(BitSet set) {
+                this.set = set;
+            }
+        }
+
+        final class Concat implements Node {
+            private final List<Node> parts;
+
+            private Concat(List<Node> parts) {
+                this.parts = parts;
+            }
+        }
+
+        final class Alternation implements Node {
+            private final List<Node> options;
+
+            private Alternation(List<Node> options) {
+                this.options = options;
+            }
+        }
+
+        final class Repeat implements Node {
+            private final Node node;
+            private final int min;
+            // -1 表示无上限
+            private final int max;
+
+            private Repeat(Node node, int min, int max) {
+                this.node = node;
+                this.min = min;
+                this.max = max;
+            }
+        }
+    }
+
+    // ===== 构建 =====
+
+    /**
+     * 先把所有模式构建为一个带 ε 转移的 NFA，再通过子集构造得到 DFA
+     */
+    private static class Builder {
+        private final List<Node> trees;
+        // NFA 状态：字符转移的字符集和目标，以及 ε 转移
+        private final List<BitSet> charSets;
+        private final List<Integer> charTargets;
+        private final List<List<Integer>> epsilons;
+        private final List<Integer> acceptRule;
+
+        private Builder(List<Node> trees) {
+            this.trees = trees;
+            this.charSets = new ArrayList<>();
+            this.charTargets = new ArrayList<>();
+            this.epsilons = new ArrayList<>();
+            this.acceptRule = new ArrayList<>();
+        }
+
+        private PatternMatcher build() {
+            int start = newState();
+            for (int rule = 0; rule < trees.size(); rule++) {
+                int[] fragment = compile(trees.get(rule));
+                epsilons.get(start).add(fragment[0]);
+                acceptRule.set(fragment[1], rule);
+            }
+
+            int[] classOf = new int[ALPHABET];
+            int classCount = computeClasses(classOf);
+            int[] representative = new int[classCount];
+            for (int c = ALPHABET - 1; c >= 0; c--) {
+                representative[classOf[c]] = c;
+            }
+
+            // 子集构造；状态0为死状态，状态1为起始状态
+            Map<BitSet, Integer> index = new HashMap<>();
+            long subsetWords = 0;
+            List<BitSet> subsets = new ArrayList<>();
+            List<int[]> rows = new ArrayList<>();
+            BitSet dead = new BitSet();
+            index.put(dead, DEAD);
+            subsets.add(dead);
+            rows.add(new int[classCount]);
+
+            BitSet initial = new BitSet();
+            initial.set(start);
+            closure(initial);
+            index.put(initial, 1);
+            subsets.add(initial);
+            rows.add(new int[classCount]);
+
+            for (int state = 1; state < subsets.size(); state++) {
+                BitSet subset = subsets.get(state);
+                int[] row = rows.get(state);
+                for (int cls = 0; cls < classCount; cls++) {
+                    int c = representative[cls];
+                    BitSet next = new BitSet();
+                    for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+                        BitSet set = charSets.get(s);
+                        if (set != null && set.get(c)) {
+                            next.set(charTargets.get(s));
+                        }
+                    }
+                    closure(next);
+
+                    Integer target = index.get(next);
+                    if (target == null) {
+                        subsetWords += (next.length() + 63) / 64;
+                        if (subsets.size() >= MAX_STATES || subsetWords > MAX_SUBSET_WORDS) {
+                            throw new IllegalArgumentException("模式组合过于复杂，自动机超过 " + MAX_STATES + " 个状态");
+                        }
+                        target = subsets.size();
+                        index.put(next, target);
+                        subsets.add(next);
+                        rows.add(new int[classCount]);
+                    }
+                    row[cls] = target;
+                }
+            }
+
+            int[] transitions = new int[subsets.size() * classCount];
+            int[] accepting = new int[subsets.size()];
+            for (int state = 0; state < subsets.size(); state++) {
+                System.arraycopy(rows.get(state), 0, transitions, state * classCount, classCount);
+                int best = -1;
+                BitSet subset = subsets.get(state);
+                for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+                    int rule = acceptRule.get(s);
+                    if (rule >= 0 && (best < 0 || rule < best)) {
+                        best = rule;
+                    }
+                }
+                accepting[state] = best;
+            }
+            return new PatternMatcher(classOf, classCount, transitions, accepting);
+        }
+
+        /**
+         * 按所有字符集把字母表划分为等价类，行为相同的字符共用一列转移表
+         */
+        private int computeClasses(int[] classOf) {
+            Map<BitSet, Integer> signatures = new HashMap<>();
+            List<BitSet> sets = new ArrayList<>();
+            for (BitSet set : charSets) {
+                if (set != null) {
+                    sets.add(set);
+                }
+            }
+            for (int c = 0; c < ALPHABET; c++) {
+                BitSet signature = new BitSet(sets.size());
+                for (int i = 0; i < sets.size(); i++) {
+                    if (sets.get(i).get(c)) {
+                        signature.set(i);
+                    }
+                }
+                Integer cls = signatures.get(signature);
+                if (cls == null) {
+                    cls = signatures.size();
+                    signatures.put(signature, cls);
+                }
+                classOf[c] = cls;
+            }
+            return signatures.size();
+        }
+
+        private void closure(BitSet states) {
+            Deque<Integer> stack = new ArrayDeque<>();
+            for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+                stack.push(s);
+            }
+            while (!stack.isEmpty()) {
+                int s = stack.pop();
+                for (int target : epsilons.get(s)) {
+                    if (!states.get(target)) {
+                        states.set(target);
+                        stack.push(target);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Thompson 构造，返回片段的起始和结束状态
+         */
+        private int[] compile(Node node) {
+            if (node instanceof Node.Chars) {
+                int from = newState();
+                int to = newState();
+                charSets.set(from, ((Node.Chars) node).set);
+                charTargets.set(from, to);
+                return new int[]{from, to};
+            }
+            if (node instanceof Node.Concat) {
+                int from = newState();
+                int current = from;
+                for (Node part : ((Node.Concat) node).parts) {
+                    int[] fragment = compile(part);
+                    epsilons.get(current).add(fragment[0]);
+                    current = fragment[1];
+                }
+                return new int[]{from, current};
+            }
+            if (node instanceof Node.Alternation) {
+                int from = newState();
+                int to = newState();
+                for (Node option : ((Node.Alternation) node).options) {
+                    int[] fragment = compile(option);
+                    epsilons.get(from).add(fragment[0]);
+                    epsilons.get(fragment[1]).add(to);
+                }
+                return new int[]{from, to};
+            }
+
+            Node.Repeat repeat = (Node.Repeat) node;
+            int from = newState();
+            int current = from;
+            for (int i = 0; i < repeat.min; i++) {
+                int[] fragment = compile(repeat.node);
+                epsilons.get(current).add(fragment[0]);
+                current = fragment[1];
+            }
+            if (repeat.max < 0) {
+                // 无上限：循环
+                int[] fragment = compile(repeat.node);
+                int to = newState();
+                epsilons.get(current).add(fragment[0]);
+                epsilons.get(current).add(to);
+                epsilons.get(fragment[1]).add(fragment[0]);
+                epsilons.get(fragment[1]).add(to);
+                return new int[]{from, to};
+            }
+            int to = newState();
+            epsilons.get(current).add(to);
+            for (int i = repeat.min; i < repeat.max; i++) {
+                int[] fragment = compile(repeat.node);
+                epsilons.get(current).add(fragment[0]);
+                epsilons.get(fragment[1]).add(to);
+                current = fragment[1];
+            }
+            return new int[]{from, to};
+        }
+
+        private int newState() {
+            if (charSets.size() >= MAX_NFA_STATES) {
+                throw new IllegalArgumentException("模式组合过于复杂，超过 " + MAX_NFA_STATES + " 个状态");
+            }
+            charSets.add(null);
+            charTargets.add(-1);
+            epsilons.add(new ArrayList<>());
+            acceptRule.add(-1);
+            return charSets.size() - 1;
+        }
+    }
+}
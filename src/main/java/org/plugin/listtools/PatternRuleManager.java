@@ -0,0 +1,205 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模式规则管理器
+ * 维护有序的通配符/正则规则列表，规则变化时重新编译为一个组合自动机，
+ * 按顺序第一个匹配的规则决定放行或拒绝
+ */
+public class PatternRuleManager {
+    private final ConfigManager configManager;
+    private final Logger logger;
+    private final Object writeLock;
+    private final AtomicLong version;
+    private volatile Compiled compiled;
+
+    public PatternRuleManager(ConfigManager configManager, Logger logger) {
+        this.configManager = configManager;
+        this.logger = logger;
+        this.writeLock = new Object();
+        this.version = new AtomicLong();
+        this.compiled = new Compiled(Collections.emptyList(), null);
+
+        refresh();
+    }
+
+    /**
+     * 从配置重新加载模式规则
+     * 无效的规则会被忽略并记录警告
+     */
+    public void refresh() {
+        synchronized (writeLock) {
+            List<PatternRule> loaded = new ArrayList<>();
+            for (Map<String, String> entry : configManager.getPatternRules()) {
+                String pattern = entry.get("pattern");
+                boolean allow = !"deny".equalsIgnoreCase(entry.get("action"));
+                try {
+                    PatternMatcher.validate(pattern);
+                    loaded.add(new PatternRule(pattern, allow));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("忽略无效的模式规则 \"{}\": {}", pattern, e.getMessage());
+                }
+            }
+
+            try {
+                publish(loaded);
+            } catch (IllegalArgumentException e) {
+                logger.error("模式规则编译失败，已禁用所有模式规则: {}", e.getMessage());
+                publish(Collections.emptyList());
+            }
+            logger.debug("模式规则已刷新，共 {} 条规则", loaded.size());
+        }
+    }
+
+    /**
+     * 按顺序匹配玩家名
+     * @return 第一个匹配的规则，没有匹配时返回 null
+     */
+    public PatternRule match(String playerName) {
+        Compiled current = compiled;
+        if (current.matcher == null || playerName == null) {
+            return null;
+        }
+        int index = current.matcher.match(playerName);
+        return index >= 0 ? current.rules.get(index) : null;
+    }
+
+    /**
+     * 在指定位置插入规则
+     * @param position 插入位置，从1开始；超出范围时追加到末尾
+     * @throws IllegalArgumentException 模式语法错误或组合后的自动机超出规模限制时抛出
+     */
+    public PatternRule addRule(String pattern, boolean allow, int position) {
+        PatternMatcher.validate(pattern);
+        PatternRule rule = new PatternRule(pattern, allow);
+        synchronized (writeLock) {
+            List<PatternRule> updated = new ArrayList<>(compiled.rules);
+            if (position >= 1 && position <= updated.size()) {
+                updated.add(position - 1, rule);
+            } else {
+                updated.add(rule);
+            }
+            publish(updated);
+            save();
+        }
+        logger.info("已添加模式规则: {}", rule);
+        return rule;
+    }
+
+    /**
+     * 移除规则
+     * @param index 规则序号，从1开始
+     * @return 被移除的规则，序号无效时返回 null
+     */
+    public PatternRule removeRule(int index) {
+        synchronized (writeLock) {
+            List<PatternRule> updated = new ArrayList<>(compiled.rules);
+            if (index < 1 || index > updated.size()) {
+                return null;
+            }
+            PatternRule removed = updated.remove(index - 1);
+            publish(updated);
+            save();
+            logger.info("已移除模式规则: {}", removed);
+            return removed;
+        }
+    }
+
+    /**
+     * 获取所有规则
+     */
+    public List<PatternRule> getRules() {
+        return compiled.rules;
+    }
+
+    /**
+     * 获取组合自动机的状态数
+     */
+    public int getStateCount() {
+        PatternMatcher matcher = compiled.matcher;
+        return matcher != null ? matcher.getStateCount() : 0;
+    }
+
+    /**
+     * 获取规则版本号，规则变化时递增
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 编译并发布规则列表，编译失败时保留原有规则
+     * 调用方需持有写锁
+     */
+    private void publish(List<PatternRule> rules) {
+        PatternMatcher matcher = null;
+        if (!rules.isEmpty()) {
+            List<String> patterns = new ArrayList<>(rules.size());
+            for (PatternRule rule : rules) {
+                patterns.add(rule.getPattern());
+            }
+            matcher = PatternMatcher.compile(patterns);
+        }
+        compiled = new Compiled(Collections.unmodifiableList(new ArrayList<>(rules)), matcher);
+        version.incrementAndGet();
+    }
+
+    /**
+     * 保存规则到配置
+     * 调用方需持有写锁
+     */
+    private void save() {
+        List<Map<String, String>> persisted = new ArrayList<>();
+        for (PatternRule rule : compiled.rules) {
+            Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("pattern", rule.getPattern());
+            entry.put("action", rule.isAllow() ? "allow" : "deny");
+            persisted.add(entry);
+        }
+        configManager.setPatternRules(persisted);
+        configManager.saveConfigAsync();
+    }
+
+    /**
+     * 编译后的规则列表和对应的自动机
+     */
+    private static class Compiled {
+        private final List<PatternRule> rules;
+        private final PatternMatcher matcher;
+
+        private Compiled(List<PatternRule> rules, PatternMatcher matcher) {
+            this.rules = rules;
+            this.matcher = matcher;
+        }
+    }
+
+    /**
+     * 一条模式规则
+     */
+    public static class PatternRule {
+        private final String pattern;
+        private final boolean allow;
+
+        public PatternRule(String pattern, boolean allow) {
+            this.pattern = pattern;
+            this.allow = allow;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public boolean isAllow() {
+            return allow;
+        }
+
+        @Override
+        public String toString() {
+            return (allow ? "allow " : "deny ") + pattern;
+        }
+    }
+}
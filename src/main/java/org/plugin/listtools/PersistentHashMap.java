@@ -0,0 +1,444 @@
+package org.plugin.listtools;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 不可变的哈希映射（哈希数组映射前缀树）
+ * 每层使用哈希值的5位选择32路分支，put 和 remove 只复制从根到目标位置的路径，
+ * 其余子树在新旧版本间共享，因此保存任意版本都只需保留根节点
+ *
+ * {@link #diff} 在两个版本间比较时跳过引用相同的子树，耗时只与变化的条目数量有关
+ */
+public final class PersistentHashMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object node = root;
+        int hash = hash(key);
+        int shift = 0;
+        while (true) {
+            if (node instanceof BitmapNode) {
+                BitmapNode bitmapNode = (BitmapNode) node;
+                int bit = 1 << ((hash >>> shift) & MASK);
+                if ((bitmapNode.bitmap & bit) == 0) {
+                    return null;
+                }
+                node = bitmapNode.array[Integer.bitCount(bitmapNode.bitmap & (bit - 1))];
+                shift += BITS;
+            } else if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                return leaf.hash == hash && leaf.key.equals(key) ? (V) leaf.value : null;
+            } else {
+                CollisionNode collision = (CollisionNode) node;
+                if (collision.hash != hash) {
+                    return null;
+                }
+                for (Leaf leaf : collision.leaves) {
+                    if (leaf.key.equals(key)) {
+                        return (V) leaf.value;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 返回包含该映射的新版本，值相同时返回自身
+     * 不支持 null 键或 null 值
+     */
+    public PersistentHashMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        boolean[] added = new boolean[1];
+        Object newRoot = insert(root, new Leaf(hash(key), key, value), 0, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>((Node) newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * 返回不包含该键的新版本，键不存在时返回自身
+     */
+    public PersistentHashMap<K, V> remove(Object key) {
+        if (key == null) {
+            return this;
+        }
+        Object newRoot = delete(root, hash(key), key, 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot != null ? toNode(newRoot) : BitmapNode.EMPTY, size - 1);
+    }
+
+    /**
+     * 遍历所有条目，顺序不确定
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEachLeaf(root, leaf -> action.accept((K) leaf.key, (V) leaf.value));
+    }
+
+    /**
+     * 返回所有键
+     */
+    public List<K> keys() {
+        List<K> result = new ArrayList<>(size);
+        forEach((key, value) -> result.add(key));
+        return result;
+    }
+
+    /**
+     * 遍历所有键，顺序与 {@link #forEach} 相同
+     * 直接在树上遍历，不复制键
+     */
+    public Iterator<K> keyIterator() {
+        return new KeyIterator<>((BitmapNode) root);
+    }
+
+    /**
+     * 比较两个版本
+     * @param visitor 依次收到 from 中没有而 to 中有、from 中有而 to 中没有、以及值不同的条目
+     */
+    public static <K, V> void diff(PersistentHashMap<K, V> from, PersistentHashMap<K, V> to, DiffVisitor<K, V> visitor) {
+        if (from.root != to.root) {
+            diffNodes(from.root, to.root, visitor);
+        }
+    }
+
+    /**
+     * 两个版本之间差异的接收者
+     */
+    public interface DiffVisitor<K, V> {
+        void added(K key, V value);
+
+        void removed(K key, V value);
+
+        void changed(K key, V oldValue, V newValue);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static Object insert(Object node, Leaf leaf, int shift, boolean[] added) {
+        if (node instanceof BitmapNode) {
+            BitmapNode bitmapNode = (BitmapNode) node;
+            int bit = 1 << ((leaf.hash >>> shift) & MASK);
+            int index = Integer.bitCount(bitmapNode.bitmap & (bit - 1));
+            if ((bitmapNode.bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] array = new Object[bitmapNode.array.length + 1];
+                System.arraycopy(bitmapNode.array, 0, array, 0, index);
+                array[index] = leaf;
+                System.arraycopy(bitmapNode.array, index, array, index + 1, bitmapNode.array.length - index);
+                return new BitmapNode(bitmapNode.bitmap | bit, array);
+            }
+            Object child = bitmapNode.array[index];
+            Object newChild = insert(child, leaf, shift + BITS, added);
+            if (newChild == child) {
+                return bitmapNode;
+            }
+            Object[] array = bitmapNode.array.clone();
+            array[index] = newChild;
+            return new BitmapNode(bitmapNode.bitmap, array);
+        }
+
+        if (node instanceof Leaf) {
+            Leaf existing = (Leaf) node;
+            if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+                return existing.value.equals(leaf.value) ? existing : leaf;
+            }
+            added[0] = true;
+            if (existing.hash == leaf.hash) {
+                return new CollisionNode(leaf.hash, new Leaf[]{existing, leaf});
+            }
+            return split(existing, leaf, shift);
+        }
+
+        CollisionNode collision = (CollisionNode) node;
+        if (collision.hash != leaf.hash) {
+            added[0] = true;
+            return split(collision, leaf, shift);
+        }
+        for (int i = 0; i < collision.leaves.length; i++) {
+            Leaf existing = collision.leaves[i];
+            if (existing.key.equals(leaf.key)) {
+                if (existing.value.equals(leaf.value)) {
+                    return collision;
+                }
+                Leaf[] leaves = collision.leaves.clone();
+                leaves[i] = leaf;
+                return new CollisionNode(collision.hash, leaves);
+            }
+        }
+        added[0] = true;
+        Leaf[] leaves = Arrays.copyOf(collision.leaves, collision.leaves.length + 1);
+        leaves[collision.leaves.length] = leaf;
+        return new CollisionNode(collision.hash, leaves);
+    }
+
+    /**
+     * 为两个哈希值不同的条目建立分支节点，直到它们在某一层分开
+     */
+    private static Object split(Object existing, Leaf leaf, int shift) {
+        int existingHash = existing instanceof Leaf ? ((Leaf) existing).hash : ((CollisionNode) existing).hash;
+        int existingFragment = (existingHash >>> shift) & MASK;
+        int leafFragment = (leaf.hash >>> shift) & MASK;
+        if (existingFragment == leafFragment) {
+            return new BitmapNode(1 << existingFragment, new Object[]{split(existing, leaf, shift + BITS)});
+        }
+        Object[] array = existingFragment < leafFragment
+            ? new Object[]{existing, leaf}
+            : new Object[]{leaf, existing};
+        return new BitmapNode((1 << existingFragment) | (1 << leafFragment), array);
+    }
+
+    /**
+     * 删除条目
+     * @return 新节点；节点为空时返回 null，只剩一个条目时返回该条目以便上层收缩
+     */
+    private static Object delete(Object node, int hash, Object key, int shift) {
+        if (node instanceof BitmapNode) {
+            BitmapNode bitmapNode = (BitmapNode) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmapNode.bitmap & bit) == 0) {
+                return bitmapNode;
+            }
+            int index = Integer.bitCount(bitmapNode.bitmap & (bit - 1));
+            Object child = bitmapNode.array[index];
+            Object newChild = delete(child, hash, key, shift + BITS);
+            if (newChild == child) {
+                return bitmapNode;
+            }
+            if (newChild == null) {
+                if (bitmapNode.array.length == 1) {
+                    return null;
+                }
+                Object[] array = new Object[bitmapNode.array.length - 1];
+                System.arraycopy(bitmapNode.array, 0, array, 0, index);
+                System.arraycopy(bitmapNode.array, index + 1, array, index, array.length - index);
+                if (array.length == 1 && !(array[0] instanceof BitmapNode)) {
+                    // 只剩一个条目时交给上层直接引用
+                    return array[0];
+                }
+                return new BitmapNode(bitmapNode.bitmap & ~bit, array);
+            }
+            if (bitmapNode.array.length == 1 && !(newChild instanceof BitmapNode)) {
+                return newChild;
+            }
+            Object[] array = bitmapNode.array.clone();
+            array[index] = newChild;
+            return new BitmapNode(bitmapNode.bitmap, array);
+        }
+
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            return leaf.hash == hash && leaf.key.equals(key) ? null : leaf;
+        }
+
+        CollisionNode collision = (CollisionNode) node;
+        if (collision.hash != hash) {
+            return collision;
+        }
+        for (int i = 0; i < collision.leaves.length; i++) {
+            if (collision.leaves[i].key.equals(key)) {
+                if (collision.leaves.length == 2) {
+                    return collision.leaves[1 - i];
+                }
+                Leaf[] leaves = new Leaf[collision.leaves.length - 1];
+                System.arraycopy(collision.leaves, 0, leaves, 0, i);
+                System.arraycopy(collision.leaves, i + 1, leaves, i, leaves.length - i);
+                return new CollisionNode(hash, leaves);
+            }
+        }
+        return collision;
+    }
+
+    /**
+     * 根节点必须是分支节点，单个条目需要重新包装到对应槽位
+     */
+    private static Node toNode(Object node) {
+        if (node instanceof BitmapNode) {
+            return (Node) node;
+        }
+        int hash = node instanceof Leaf ? ((Leaf) node).hash : ((CollisionNode) node).hash;
+        return new BitmapNode(1 << (hash & MASK), new Object[]{node});
+    }
+
+    private static void forEachLeaf(Object node, java.util.function.Consumer<Leaf> action) {
+        if (node instanceof BitmapNode) {
+            for (Object child : ((BitmapNode) node).array) {
+                forEachLeaf(child, action);
+            }
+        } else if (node instanceof Leaf) {
+            action.accept((Leaf) node);
+        } else if (node instanceof CollisionNode) {
+            for (Leaf leaf : ((CollisionNode) node).leaves) {
+                action.accept(leaf);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> void diffNodes(Object from, Object to, DiffVisitor<K, V> visitor) {
+        if (from == to) {
+            return;
+        }
+        if (from instanceof BitmapNode && to instanceof BitmapNode) {
+            BitmapNode fromNode = (BitmapNode) from;
+            BitmapNode toNode = (BitmapNode) to;
+            int bits = fromNode.bitmap | toNode.bitmap;
+            while (bits != 0) {
+                int bit = Integer.lowestOneBit(bits);
+                bits &= ~bit;
+                Object fromChild = (fromNode.bitmap & bit) != 0
+                    ? fromNode.array[Integer.bitCount(fromNode.bitmap & (bit - 1))] : null;
+                Object toChild = (toNode.bitmap & bit) != 0
+                    ? toNode.array[Integer.bitCount(toNode.bitmap & (bit - 1))] : null;
+                diffNodes(fromChild, toChild, visitor);
+            }
+            return;
+        }
+
+        // 结构不同的子树（通常很小）展开后逐个比较
+        Map<Object, Object> fromEntries = new HashMap<>();
+        if (from != null) {
+            forEachLeaf(from, leaf -> fromEntries.put(leaf.key, leaf.value));
+        }
+        if (to != null) {
+            forEachLeaf(to, leaf -> {
+                Object oldValue = fromEntries.remove(leaf.key);
+                if (oldValue == null) {
+                    visitor.added((K) leaf.key, (V) leaf.value);
+                } else if (!oldValue.equals(leaf.value)) {
+                    visitor.changed((K) leaf.key, (V) oldValue, (V) leaf.value);
+                }
+            });
+        }
+        for (Map.Entry<Object, Object> entry : fromEntries.entrySet()) {
+            visitor.removed((K) entry.getKey(), (V) entry.getValue());
+        }
+    }
+
+    /**
+     * 用显式栈做深度优先遍历；每层消耗5位哈希，再加上根节点和冲突节点，深度不超过 {@link #MAX_DEPTH}
+     */
+    private static final class KeyIterator<K> implements Iterator<K> {
+        private static final int MAX_DEPTH = 32 / BITS + 3;
+
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth;
+        private Leaf next;
+
+        private KeyIterator(BitmapNode root) {
+            arrays[0] = root.array;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            Leaf leaf = next;
+            if (leaf == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return (K) leaf.key;
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                if (positions[depth] >= array.length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+                Object child = array[positions[depth]++];
+                if (child instanceof Leaf) {
+                    next = (Leaf) child;
+                    return;
+                }
+                depth++;
+                arrays[depth] = child instanceof BitmapNode ? ((BitmapNode) child).array : ((CollisionNode) child).leaves;
+                positions[depth] = 0;
+            }
+            next = null;
+        }
+    }
+
+    private interface Node {
+    }
+
+    private static final class BitmapNode implements Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        // 每个元素是 Leaf、CollisionNode 或子 BitmapNode
+        private final Object[] array;
+
+        private BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+    }
+
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Leaf[] leaves;
+
+        private CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+
+    private static final class Leaf {
+        private final int hash;
+        private final Object key;
+        private final Object value;
+
+        private Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -1,55 +1,261 @@
 package org.plugin.listtools;
 
+import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.ResultedEvent;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.LoginEvent;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
 import com.velocitypowered.api.event.connection.PreLoginEvent;
 import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.event.player.ServerPreConnectEvent;
+import com.velocitypowered.api.proxy.Player;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.slf4j.Logger;
 
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * 玩家连接事件监听器
- * 处理玩家登录前的白名单检查
+ * 处理玩家登录前的白名单检查和进入后端服务器前的访问列表检查
+ *
+ * 登录前检查在稳定状态下不分配对象：准入请求按线程复用，拒绝结果预先构建，
+ * 同步得出的结论直接处理而不组合 Future，拒绝日志按时间间隔合并
  */
 public class PlayerConnectionListener {
+    // 两条拒绝日志之间的最小间隔，期间的拒绝只计数
+    private static final long DENY_LOG_INTERVAL_MS = 1000;
+
     private final ConfigManager configManager;
     private final WhitelistManager whitelistManager;
+    private final AdmissionPipeline admissionPipeline;
+    private final AdmissionController admissionController;
+    private final AccessPolicy accessPolicy;
+    private final ServerAccessManager serverAccessManager;
+    private final LastSeenTracker lastSeenTracker;
     private final Logger logger;
+    // 每个事件线程复用的准入请求
+    private final ThreadLocal<AdmissionRequest> requests;
+    // 按当前 kick_message 构建的拒绝结果
+    private volatile DeniedResult kickResult;
+    // 最近一次使用的自定义拒绝提示对应的结果
+    private volatile DeniedResult customResult;
+    private final AtomicLong lastDenyLog;
+    private final LongAdder suppressedDenies;
 
-    public PlayerConnectionListener(ConfigManager configManager, WhitelistManager whitelistManager, Logger logger) {
+    public PlayerConnectionListener(ConfigManager configManager, WhitelistManager whitelistManager,
+                                    AdmissionPipeline admissionPipeline, AdmissionController admissionController,
+                                    AccessPolicy accessPolicy, ServerAccessManager serverAccessManager,
+                                    LastSeenTracker lastSeenTracker, Logger logger) {
         this.configManager = configManager;
         this.whitelistManager = whitelistManager;
+        this.admissionPipeline = admissionPipeline;
+        this.admissionController = admissionController;
+        this.accessPolicy = accessPolicy;
+        this.serverAccessManager = serverAccessManager;
+        this.lastSeenTracker = lastSeenTracker;
         this.logger = logger;
+        this.requests = ThreadLocal.withInitial(() -> new AdmissionRequest(null, null));
+        this.lastDenyLog = new AtomicLong();
+        this.suppressedDenies = new LongAdder();
     }
 
     /**
      * 处理玩家登录前事件
-     * 检查白名单状态，拒绝未授权玩家
+     * 交给准入流水线判断，通过后再向登录容量控制器申请许可；
+     * 流水线包含异步阶段或需要排队时，事件会等待其完成后再继续。
+     * 白名单系统关闭时不做任何检查，也不限速或排队
      */
     @Subscribe
-    public void onPreLogin(PreLoginEvent event) {
-        // 检查白名单系统是否启用
-        if (!configManager.isEnabled()) {
-            logger.debug("白名单系统已禁用，允许玩家 {} 连接", event.getUsername());
-            return;
+    public EventTask onPreLogin(PreLoginEvent event) {
+        if (!configManager.isEnabled() || !event.getResult().isAllowed()) {
+            // 白名单系统关闭，或已被其他插件拒绝
+            return null;
         }
 
         String playerName = event.getUsername();
-        
-        // 检查玩家是否在白名单中
-        if (!whitelistManager.isWhitelisted(playerName)) {
-            // 玩家不在白名单中，拒绝连接
-            String kickMessage = configManager.getKickMessage();
-            Component kickComponent = Component.text(kickMessage, NamedTextColor.RED);
-            
-            event.setResult(PreLoginEvent.PreLoginComponentResult.denied(kickComponent));
-            
-            logger.info("拒绝玩家 {} 连接：不在白名单中", playerName);
+        InetSocketAddress remote = event.getConnection().getRemoteAddress();
+        AdmissionRequest request = requests.get().reset(playerName, remote != null ? remote.getAddress() : null);
+
+        CompletableFuture<AdmissionDecision> evaluated = admissionPipeline.evaluate(request);
+        if (!isCompletedNormally(evaluated)) {
+            return resumeWhenComplete(event, playerName, evaluated.thenCompose(decision -> decision.isAllowed()
+                ? admissionController.admit(playerName)
+                : decision.toFuture()));
+        }
+
+        // 常见情况：所有阶段都是同步的，直接处理结论
+        AdmissionDecision decision = evaluated.join();
+        if (decision.isAllowed()) {
+            CompletableFuture<AdmissionDecision> admitted = admissionController.admit(playerName);
+            if (!isCompletedNormally(admitted)) {
+                return resumeWhenComplete(event, playerName, admitted);
+            }
+            decision = admitted.join();
+        }
+        applyDecision(event, playerName, decision);
+        return null;
+    }
+
+    /**
+     * 等待尚未得出的结论，完成后再继续登录
+     */
+    private EventTask resumeWhenComplete(PreLoginEvent event, String playerName,
+                                         CompletableFuture<AdmissionDecision> result) {
+        return EventTask.resumeWhenComplete(result.handle((decision, error) -> {
+            if (error != null) {
+                logger.error("玩家 {} 的准入检查失败，拒绝连接", playerName, error);
+                decision = AdmissionDecision.DENY;
+            }
+            applyDecision(event, playerName, decision);
+            return null;
+        }));
+    }
+
+    private static boolean isCompletedNormally(CompletableFuture<?> future) {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    /**
+     * 将准入结论应用到登录事件
+     */
+    private void applyDecision(PreLoginEvent event, String playerName, AdmissionDecision decision) {
+        if (decision.isAllowed()) {
+            logger.debug("允许玩家 {} 连接", playerName);
+            return;
+        }
+
+        event.setResult(deniedResult(decision));
+        logDenied(playerName);
+    }
+
+    /**
+     * 获取拒绝结果
+     * 提示消息不变时复用同一个结果对象
+     */
+    private PreLoginEvent.PreLoginComponentResult deniedResult(AdmissionDecision decision) {
+        Component message = decision.getMessage();
+        if (message != null) {
+            DeniedResult current = customResult;
+            if (current == null || current.key != message) {
+                current = new DeniedResult(message, message);
+                customResult = current;
+            }
+            return current.result;
+        }
+
+        String kickMessage = configManager.getKickMessage();
+        DeniedResult current = kickResult;
+        if (current == null || !current.key.equals(kickMessage)) {
+            current = new DeniedResult(kickMessage, Component.text(kickMessage, NamedTextColor.RED));
+            kickResult = current;
+        }
+        return current.result;
+    }
+
+    /**
+     * 记录拒绝日志
+     * 连接洪水时每个间隔最多记录一条，其余只计数并在下一条日志中汇总
+     */
+    private void logDenied(String playerName) {
+        long now = System.currentTimeMillis();
+        long last = lastDenyLog.get();
+        if (now - last < DENY_LOG_INTERVAL_MS || !lastDenyLog.compareAndSet(last, now)) {
+            suppressedDenies.increment();
+            return;
+        }
+        long suppressed = suppressedDenies.sumThenReset();
+        if (suppressed > 0) {
+            logger.info("拒绝玩家 {} 连接：未通过准入检查（另有 {} 次拒绝未单独记录）", playerName, suppressed);
+        } else {
+            logger.info("拒绝玩家 {} 连接：未通过准入检查", playerName);
+        }
+    }
+
+    /**
+     * 处理玩家通过身份验证后的登录事件
+     * 开启 uuid_verification 时，已解析UUID的白名单条目只允许对应账号使用
+     */
+    @Subscribe
+    public void onLogin(LoginEvent event) {
+        if (!configManager.isEnabled() || !configManager.isUuidVerificationEnabled()
+                || !event.getResult().isAllowed()) {
             return;
         }
 
-        // 玩家在白名单中，允许连接
-        logger.debug("允许玩家 {} 连接：在白名单中", playerName);
+        Player player = event.getPlayer();
+        UUID expected = whitelistManager.getUuid(player.getUsername());
+        if (expected != null && !expected.equals(player.getUniqueId())) {
+            event.setResult(ResultedEvent.ComponentResult.denied(
+                Component.text(configManager.getUuidMismatchMessage(), NamedTextColor.RED)));
+            admissionController.release(player.getUsername());
+            logger.info("拒绝玩家 {} 连接：UUID {} 与白名单记录的 {} 不一致",
+                        player.getUsername(), player.getUniqueId(), expected);
+        }
+    }
+
+    /**
+     * 处理玩家完成登录事件
+     * 归还登录许可，让排队中的玩家继续登录，并记录白名单玩家的在线时间
+     */
+    @Subscribe
+    public void onPostLogin(PostLoginEvent event) {
+        String playerName = event.getPlayer().getUsername();
+        admissionController.release(playerName);
+        lastSeenTracker.record(playerName, System.currentTimeMillis());
+    }
+
+    /**
+     * 处理玩家断开连接事件
+     * 清除外部准入阶段授予的会话授权，登录未完成就断开时归还登录许可；
+     * 白名单玩家的最后在线时间更新为断开的时间
+     */
+    @Subscribe
+    public void onDisconnect(DisconnectEvent event) {
+        String playerName = event.getPlayer().getUsername();
+        admissionController.release(playerName);
+        accessPolicy.revokeSession(playerName);
+        lastSeenTracker.record(playerName, System.currentTimeMillis());
+    }
+
+    /**
+     * 处理玩家连接后端服务器前事件
+     * 目标服务器配置了访问列表时，拒绝不在列表中的玩家
+     */
+    @Subscribe
+    public void onServerPreConnect(ServerPreConnectEvent event) {
+        if (!configManager.isEnabled() || !event.getResult().isAllowed()) {
+            return;
+        }
+
+        Player player = event.getPlayer();
+        String serverName = event.getResult().getServer()
+            .orElse(event.getOriginalServer())
+            .getServerInfo().getName();
+
+        if (!serverAccessManager.canAccess(serverName, player.getUsername())) {
+            event.setResult(ServerPreConnectEvent.ServerResult.denied());
+            player.sendMessage(Component.text(configManager.getServerDenyMessage(), NamedTextColor.RED));
+            logger.info("拒绝玩家 {} 进入服务器 {}：不在该服务器的访问列表中", player.getUsername(), serverName);
+        }
+    }
+
+    /**
+     * 提示内容及对应的拒绝结果
+     */
+    private static final class DeniedResult {
+        private final Object key;
+        private final PreLoginEvent.PreLoginComponentResult result;
+
+        private DeniedResult(Object key, Component message) {
+            this.key = key;
+            this.result = PreLoginEvent.PreLoginComponentResult.denied(message);
+        }
     }
 
     /**
@@ -0,0 +1,72 @@
+package org.plugin.listtools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 玩家编号注册表
+ * 为玩家名分配从0开始的稠密整数编号，供各类位图共享同一编号空间，
+ * 每个玩家名只保存一份，各服务器/分组只需保存对应的位
+ *
+ * 编号一经分配在插件运行期间不会回收或改变
+ */
+public class PlayerIdRegistry {
+    private final ConcurrentHashMap<String, Integer> ids;
+    private final List<String> names;
+
+    public PlayerIdRegistry() {
+        this.ids = new ConcurrentHashMap<>();
+        this.names = new ArrayList<>();
+    }
+
+    /**
+     * 获取玩家编号，不存在时分配新编号
+     */
+    public int idOf(String playerName) {
+        Integer id = ids.get(playerName);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (names) {
+            id = ids.get(playerName);
+            if (id == null) {
+                id = names.size();
+                names.add(playerName);
+                ids.put(playerName, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * 查找玩家编号，不分配新编号
+     * @return 玩家编号，未注册时返回-1
+     */
+    public int lookup(String playerName) {
+        if (playerName == null) {
+            return -1;
+        }
+        Integer id = ids.get(playerName);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * 根据编号获取玩家名
+     */
+    public String nameOf(int id) {
+        synchronized (names) {
+            return id >= 0 && id < names.size() ? names.get(id) : null;
+        }
+    }
+
+    /**
+     * 获取已分配的编号数量
+     */
+    public int size() {
+        synchronized (names) {
+            return names.size();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 玩家选择器
+ * 把命令参数展开为玩家名列表，普通参数按玩家名处理，支持以下选择器：
+ * <ul>
+ *   <li>@online - 所有在线玩家</li>
+ *   <li>@server:&lt;服务器&gt; - 当前在指定服务器中的玩家</li>
+ *   <li>@file:&lt;路径&gt; - 文件中的玩家名，每行一个，# 开头的行为注释；路径基于插件数据目录，不能位于数据目录之外</li>
+ * </ul>
+ * 结果按首次出现的顺序去重
+ */
+public class PlayerSelector {
+    public static final String ONLINE = "@online";
+    public static final String SERVER_PREFIX = "@server:";
+    public static final String FILE_PREFIX = "@file:";
+
+    private final ProxyServer proxyServer;
+    private final Path baseDirectory;
+
+    public PlayerSelector(ProxyServer proxyServer, Path baseDirectory) {
+        this.proxyServer = proxyServer;
+        this.baseDirectory = baseDirectory;
+    }
+
+    /**
+     * 展开所有参数
+     * 读取文件会阻塞，调用方应在I/O线程上执行
+     * @throws IllegalArgumentException 选择器无效或文件无法读取
+     */
+    public List<String> resolve(Collection<String> targets) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String target : targets) {
+            if (target.equalsIgnoreCase(ONLINE)) {
+                for (Player player : proxyServer.getAllPlayers()) {
+                    result.add(player.getUsername());
+                }
+            } else if (startsWithIgnoreCase(target, SERVER_PREFIX)) {
+                String serverName = target.substring(SERVER_PREFIX.length());
+                RegisteredServer server = proxyServer.getServer(serverName)
+                    .orElseThrow(() -> new IllegalArgumentException("代理中没有名为 " + serverName + " 的服务器"));
+                for (Player player : server.getPlayersConnected()) {
+                    result.add(player.getUsername());
+                }
+            } else if (startsWithIgnoreCase(target, FILE_PREFIX)) {
+                readFile(target.substring(FILE_PREFIX.length()), result);
+            } else if (target.startsWith("@")) {
+                throw new IllegalArgumentException("未知的选择器: " + target);
+            } else if (!target.trim().isEmpty()) {
+                result.add(target.trim());
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private void readFile(String pathText, Set<String> result) {
+        Path path = ConfigManager.resolveDataFile(baseDirectory, pathText);
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    result.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法读取文件 " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean startsWithIgnoreCase(String text, String prefix) {
+        return text.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+}
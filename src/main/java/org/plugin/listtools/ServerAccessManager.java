@@ -0,0 +1,198 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.util.*;
+
+/**
+ * 服务器访问列表管理器
+ * 为后端服务器单独维护白名单，成员以位图形式保存在与全局白名单共享的玩家编号空间上，
+ * 检查某个玩家能否进入某个服务器只需一次位测试
+ *
+ * 未配置访问列表的服务器对所有全局白名单玩家开放。
+ * 位图采用写时复制，读取时无需加锁
+ */
+public class ServerAccessManager {
+    private final ConfigManager configManager;
+    private final PlayerIdRegistry playerIds;
+    private final Logger logger;
+    private final Object writeLock;
+    // 服务器名（小写）到成员位图的映射，发布后不再修改
+    private volatile Map<String, BitSet> serverAccess;
+
+    public ServerAccessManager(ConfigManager configManager, WhitelistManager whitelistManager, Logger logger) {
+        this.configManager = configManager;
+        this.playerIds = whitelistManager.getPlayerIds();
+        this.logger = logger;
+        this.writeLock = new Object();
+        this.serverAccess = Collections.emptyMap();
+
+        refresh();
+    }
+
+    /**
+     * 从配置重新加载服务器访问列表
+     */
+    public void refresh() {
+        synchronized (writeLock) {
+            Map<String, BitSet> loaded = new HashMap<>();
+            for (Map.Entry<String, List<String>> entry : configManager.getServerWhitelists().entrySet()) {
+                BitSet bits = new BitSet();
+                for (String playerName : entry.getValue()) {
+                    if (playerName != null && !playerName.trim().isEmpty()) {
+                        bits.set(playerIds.idOf(playerName.trim()));
+                    }
+                }
+                loaded.put(normalize(entry.getKey()), bits);
+            }
+            serverAccess = loaded;
+            logger.debug("服务器访问列表已刷新，共 {} 个受限服务器", loaded.size());
+        }
+    }
+
+    /**
+     * 检查服务器是否配置了访问列表
+     */
+    public boolean isRestricted(String serverName) {
+        return serverAccess.containsKey(normalize(serverName));
+    }
+
+    /**
+     * 检查玩家能否进入指定服务器
+     * 未配置访问列表的服务器始终允许
+     */
+    public boolean canAccess(String serverName, String playerName) {
+        BitSet bits = serverAccess.get(normalize(serverName));
+        if (bits == null) {
+            return true;
+        }
+        int id = playerIds.lookup(playerName);
+        return id >= 0 && bits.get(id);
+    }
+
+    /**
+     * 批量添加玩家到服务器访问列表
+     * 服务器原本没有访问列表时会创建一个，此后该服务器仅允许列表中的玩家进入
+     * @return 成功添加的玩家数量
+     */
+    public int addPlayers(String serverName, Collection<String> playerNames) {
+        String key = normalize(serverName);
+        synchronized (writeLock) {
+            BitSet current = serverAccess.get(key);
+            BitSet updated = current != null ? (BitSet) current.clone() : new BitSet();
+            int addedCount = 0;
+            for (String playerName : playerNames) {
+                if (playerName == null || playerName.trim().isEmpty()) {
+                    continue;
+                }
+                int id = playerIds.idOf(playerName.trim());
+                if (!updated.get(id)) {
+                    updated.set(id);
+                    addedCount++;
+                }
+            }
+
+            if (addedCount > 0 || current == null) {
+                publish(key, updated);
+                logger.info("服务器 {} 的访问列表添加了 {} 个玩家", key, addedCount);
+            }
+            return addedCount;
+        }
+    }
+
+    /**
+     * 批量从服务器访问列表移除玩家
+     * @return 成功移除的玩家数量
+     */
+    public int removePlayers(String serverName, Collection<String> playerNames) {
+        String key = normalize(serverName);
+        synchronized (writeLock) {
+            BitSet current = serverAccess.get(key);
+            if (current == null) {
+                return 0;
+            }
+
+            BitSet updated = (BitSet) current.clone();
+            int removedCount = 0;
+            for (String playerName : playerNames) {
+                int id = playerName != null ? playerIds.lookup(playerName.trim()) : -1;
+                if (id >= 0 && updated.get(id)) {
+                    updated.clear(id);
+                    removedCount++;
+                }
+            }
+
+            if (removedCount > 0) {
+                publish(key, updated);
+                logger.info("服务器 {} 的访问列表移除了 {} 个玩家", key, removedCount);
+            }
+            return removedCount;
+        }
+    }
+
+    /**
+     * 删除服务器的访问列表，恢复对所有白名单玩家开放
+     * @return 服务器原本是否配置了访问列表
+     */
+    public boolean clearServer(String serverName) {
+        String key = normalize(serverName);
+        synchronized (writeLock) {
+            if (!serverAccess.containsKey(key)) {
+                return false;
+            }
+            publish(key, null);
+            logger.info("服务器 {} 的访问列表已删除", key);
+            return true;
+        }
+    }
+
+    /**
+     * 获取服务器访问列表中的玩家
+     * @return 排序后的玩家名列表，服务器未受限时返回空列表
+     */
+    public List<String> getPlayers(String serverName) {
+        BitSet bits = serverAccess.get(normalize(serverName));
+        List<String> result = new ArrayList<>();
+        if (bits == null) {
+            return result;
+        }
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            String playerName = playerIds.nameOf(id);
+            if (playerName != null) {
+                result.add(playerName);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * 获取所有受限服务器名
+     */
+    public Set<String> getRestrictedServers() {
+        return new TreeSet<>(serverAccess.keySet());
+    }
+
+    /**
+     * 发布新的位图并保存配置
+     * 只转换并写入发生变化的服务器，其他服务器的位图和配置条目保持共享
+     * 调用方需持有写锁
+     * @param bits 新位图，为 null 时删除该服务器的访问列表
+     */
+    private void publish(String key, BitSet bits) {
+        Map<String, BitSet> updated = new HashMap<>(serverAccess);
+        if (bits != null) {
+            updated.put(key, bits);
+        } else {
+            updated.remove(key);
+        }
+        serverAccess = updated;
+
+        configManager.setServerWhitelist(key, bits != null ? getPlayers(key) : null);
+        configManager.saveConfigAsync();
+    }
+
+    private static String normalize(String serverName) {
+        return serverName == null ? "" : serverName.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,329 @@
+package org.plugin.listtools;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 磁盘上的有序玩家名索引，通过内存映射只读访问
+ * 查找在映射的文件上二分，不把玩家名读入堆中；文件写入后不再修改，更新时整体替换
+ *
+ * 文件格式（大端）：
+ * <pre>
+ * int 魔数 int 格式版本 int 玩家数 n int 保留
+ * int[n + 1] 各玩家名在数据区中的起始偏移，最后一项为数据区长度
+ * byte[] 数据区，按 UTF-8 字节无符号顺序排列的玩家名，不含分隔符
+ * </pre>
+ * UTF-8 字节顺序与码点顺序一致，ASCII 玩家名直接逐字符与映射的字节比较，不需要编码
+ */
+public final class SortedNameFile {
+    private static final int MAGIC = 0x4C54494E; // "LTIN"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int dataStart;
+
+    private SortedNameFile(MappedByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+        this.dataStart = HEADER_BYTES + (count + 1) * Integer.BYTES;
+    }
+
+    /**
+     * 映射索引文件
+     * @throws IOException 文件无法读取或格式不正确
+     */
+    public static SortedNameFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("索引文件大小无效: " + size);
+            }
+            // 映射在通道关闭后仍然有效
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("不是有效的玩家名索引文件");
+            }
+            int count = buffer.getInt(8);
+            long dataStart = HEADER_BYTES + (count + 1L) * Integer.BYTES;
+            if (count < 0 || dataStart > size || dataStart + buffer.getInt((int) dataStart - Integer.BYTES) != size) {
+                throw new IOException("索引文件已损坏");
+            }
+            return new SortedNameFile(buffer, count);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 获取文件大小（字节）
+     */
+    public long getSizeInBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 检查玩家名是否在索引中，严格匹配
+     */
+    public boolean contains(String playerName) {
+        byte[] encoded = null;
+        for (int i = 0; i < playerName.length(); i++) {
+            if (playerName.charAt(i) >= 0x80) {
+                encoded = playerName.getBytes(StandardCharsets.UTF_8);
+                break;
+            }
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = encoded != null ? compareAt(mid, encoded) : compareAt(mid, playerName);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 依次计算每个玩家名的 {@link BloomFilter#hash(ByteBuffer, int, int)}，不创建字符串
+     */
+    public void forEachHash(LongConsumer action) {
+        for (int i = 0; i < count; i++) {
+            int start = offset(i);
+            action.accept(BloomFilter.hash(buffer, dataStart + start, offset(i + 1) - start));
+        }
+    }
+
+    /**
+     * 依次读取所有玩家名
+     */
+    public void forEach(Consumer<String> action) {
+        for (int i = 0; i < count; i++) {
+            action.accept(nameAt(i));
+        }
+    }
+
+    private String nameAt(int index) {
+        int start = offset(index);
+        byte[] bytes = new byte[offset(index + 1) - start];
+        buffer.get(dataStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int offset(int index) {
+        return buffer.getInt(HEADER_BYTES + index * Integer.BYTES);
+    }
+
+    /**
+     * 比较第 index 个玩家名与只含 ASCII 字符的玩家名
+     */
+    private int compareAt(int index, String playerName) {
+        int start = dataStart + offset(index);
+        int length = offset(index + 1) - offset(index);
+        int common = Math.min(length, playerName.length());
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(start + i) & 0xff) - playerName.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - playerName.length();
+    }
+
+    private int compareAt(int index, byte[] encoded) {
+        int start = dataStart + offset(index);
+        int length = offset(index + 1) - offset(index);
+        int common = Math.min(length, encoded.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(start + i) & 0xff) - (encoded[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - encoded.length;
+    }
+
+    /**
+     * 按码点比较，与 UTF-8 字节的无符号顺序一致
+     */
+    static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int x = a.codePointAt(i);
+            int y = b.codePointAt(j);
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * 从文本文件建立索引文件（外部排序）
+     * 每读满 chunkSize 个玩家名就排序写成一个临时段，最后多路归并并去重，
+     * 堆中最多同时保存 chunkSize 个玩家名，与输入文件大小无关
+     *
+     * 输入每行一个玩家名，# 开头的行为注释，含空白的行被忽略。
+     * 新文件先写到临时文件，完成后原子替换 output
+     * @return 写入的玩家数
+     */
+    public static int build(Path input, Path output, int chunkSize) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        Path dataFile = output.resolveSibling(output.getFileName() + ".data.tmp");
+        Path offsetFile = output.resolveSibling(output.getFileName() + ".offsets.tmp");
+        Path indexFile = output.resolveSibling(output.getFileName() + ".tmp");
+        try {
+            List<String> chunk = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#") || line.chars().anyMatch(Character::isWhitespace)) {
+                        continue;
+                    }
+                    chunk.add(line);
+                    if (chunk.size() >= chunkSize) {
+                        runs.add(writeRun(chunk, output, runs.size()));
+                        chunk.clear();
+                    }
+                }
+            }
+            if (!chunk.isEmpty() || runs.isEmpty()) {
+                runs.add(writeRun(chunk, output, runs.size()));
+            }
+
+            int count = merge(runs, dataFile, offsetFile);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(indexFile))) {
+                DataOutputStream header = new DataOutputStream(out);
+                header.writeInt(MAGIC);
+                header.writeInt(FORMAT_VERSION);
+                header.writeInt(count);
+                header.writeInt(0);
+                Files.copy(offsetFile, out);
+                Files.copy(dataFile, out);
+            }
+            Files.move(indexFile, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(offsetFile);
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    /**
+     * 写入不含玩家的索引文件，同样先写临时文件再原子改名为 output
+     */
+    public static void writeEmpty(Path output) throws IOException {
+        Path indexFile = output.resolveSibling(output.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(indexFile))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(0);
+                out.writeInt(0);
+                out.writeInt(0);
+            }
+            Files.move(indexFile, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    private static Path writeRun(List<String> chunk, Path output, int number) throws IOException {
+        chunk.sort(SortedNameFile::compareCodePoints);
+        Path run = output.resolveSibling(output.getFileName() + ".run" + number + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            String previous = null;
+            for (String playerName : chunk) {
+                if (!playerName.equals(previous)) {
+                    writer.write(playerName);
+                    writer.write('\n');
+                    previous = playerName;
+                }
+            }
+        }
+        return run;
+    }
+
+    /**
+     * 多路归并各临时段，写出数据区和偏移表
+     */
+    private static int merge(List<Path> runs, Path dataFile, Path offsetFile) throws IOException {
+        List<BufferedReader> readers = new ArrayList<>();
+        PriorityQueue<RunHead> heads = new PriorityQueue<>((a, b) -> compareCodePoints(a.playerName, b.playerName));
+        int count = 0;
+        try (OutputStream data = new BufferedOutputStream(Files.newOutputStream(dataFile));
+             DataOutputStream offsets = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetFile)))) {
+            for (Path run : runs) {
+                BufferedReader reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+                readers.add(reader);
+                String first = reader.readLine();
+                if (first != null) {
+                    heads.add(new RunHead(first, reader));
+                }
+            }
+
+            long position = 0;
+            String previous = null;
+            while (!heads.isEmpty()) {
+                RunHead head = heads.poll();
+                if (!head.playerName.equals(previous)) {
+                    byte[] bytes = head.playerName.getBytes(StandardCharsets.UTF_8);
+                    offsets.writeInt((int) position);
+                    data.write(bytes);
+                    position += bytes.length;
+                    if (position > Integer.MAX_VALUE - HEADER_BYTES - (count + 2L) * Integer.BYTES) {
+                        throw new IOException("玩家名总长度超过索引文件上限");
+                    }
+                    previous = head.playerName;
+                    count++;
+                }
+                String next = head.reader.readLine();
+                if (next != null) {
+                    heads.add(new RunHead(next, head.reader));
+                }
+            }
+            offsets.writeInt((int) position);
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+        }
+        return count;
+    }
+
+    private static final class RunHead {
+        private final String playerName;
+        private final BufferedReader reader;
+
+        private RunHead(String playerName, BufferedReader reader) {
+            this.playerName = playerName;
+            this.reader = reader;
+        }
+    }
+}
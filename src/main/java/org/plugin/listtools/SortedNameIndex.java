@@ -0,0 +1,210 @@
+package org.plugin.listtools;
+
+import java.util.*;
+
+/**
+ * 有序的玩家名索引
+ * 不可变的有序数组，与 {@link WhitelistSnapshot} 一起发布；每次修改只把变化的玩家名合并进上一版本的数组，
+ * 不重新排序。所有查询都返回直接引用该数组的只读视图，不复制玩家名
+ *
+ * 按 {@link #ORDER} 排序：先忽略大小写比较，再区分大小写，
+ * 因此忽略大小写的前缀匹配结果是连续的一段
+ */
+public final class SortedNameIndex {
+    public static final Comparator<String> ORDER =
+        String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private static final SortedNameIndex EMPTY = new SortedNameIndex(new String[0]);
+
+    private final String[] names;
+    private final List<String> all;
+
+    private SortedNameIndex(String[] names) {
+        this.names = names;
+        this.all = new View(0, names.length);
+    }
+
+    static SortedNameIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 对全部玩家名排序建立索引，只在加载时使用
+     */
+    static SortedNameIndex of(Collection<String> playerNames) {
+        String[] sorted = playerNames.toArray(new String[0]);
+        Arrays.sort(sorted, ORDER);
+        return new SortedNameIndex(sorted);
+    }
+
+    /**
+     * 生成应用变化后的索引
+     * 新增的玩家名先单独排序，再按二分查找得到的位置与原数组分段复制合并，耗时 O(n + k log n)
+     * @param added 不在索引中的玩家名
+     * @param removed 在索引中的玩家名
+     */
+    SortedNameIndex withChanges(Collection<String> added, Collection<String> removed) {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return this;
+        }
+        String[] insert = added.toArray(new String[0]);
+        Arrays.sort(insert, ORDER);
+        int[] skip = new int[removed.size()];
+        int count = 0;
+        for (String playerName : removed) {
+            int position = Arrays.binarySearch(names, playerName, ORDER);
+            if (position >= 0) {
+                skip[count++] = position;
+            }
+        }
+        Arrays.sort(skip, 0, count);
+
+        String[] result = new String[names.length + insert.length - count];
+        int source = 0;
+        int target = 0;
+        int skipped = 0;
+        for (int i = 0; i <= insert.length; i++) {
+            int until = i < insert.length ? lowerBound(insert[i]) : names.length;
+            while (skipped < count && skip[skipped] < until) {
+                int length = skip[skipped] - source;
+                System.arraycopy(names, source, result, target, length);
+                target += length;
+                source = skip[skipped++] + 1;
+            }
+            int length = until - source;
+            System.arraycopy(names, source, result, target, length);
+            target += length;
+            source = until;
+            if (i < insert.length) {
+                result[target++] = insert[i];
+            }
+        }
+        return new SortedNameIndex(result);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public boolean isEmpty() {
+        return names.length == 0;
+    }
+
+    /**
+     * 获取第 index 个玩家名
+     */
+    public String get(int index) {
+        return names[index];
+    }
+
+    /**
+     * 获取玩家名的位置，不存在时返回负数
+     */
+    public int indexOf(String playerName) {
+        return playerName != null ? Arrays.binarySearch(names, playerName, ORDER) : -1;
+    }
+
+    /**
+     * 获取按顺序排列的全部玩家名
+     */
+    public List<String> asList() {
+        return all;
+    }
+
+    /**
+     * 获取 [from, to) 范围内的玩家名，任一端为null时不限制该端
+     */
+    public List<String> range(String from, String to) {
+        int start = from != null ? lowerBound(from) : 0;
+        int end = to != null ? lowerBound(to) : names.length;
+        return new View(start, Math.max(start, end));
+    }
+
+    /**
+     * 获取以指定前缀开头的玩家名，忽略大小写
+     */
+    public List<String> withPrefix(String prefix) {
+        if (prefix.isEmpty()) {
+            return all;
+        }
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(names[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int start = low;
+        high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[mid].regionMatches(true, 0, prefix, 0, prefix.length())) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return new View(start, low);
+    }
+
+    /**
+     * 按游标分页遍历
+     * 返回排在 cursor 之后的最多 limit 个玩家名，把本页最后一个玩家名作为下一页的游标；
+     * 游标是玩家名而不是位置，翻页期间白名单被修改也不会重复或遗漏未变化的玩家
+     * @param cursor 上一页的最后一个玩家名，null 表示从头开始
+     */
+    public List<String> after(String cursor, int limit) {
+        int start = 0;
+        if (cursor != null) {
+            int position = Arrays.binarySearch(names, cursor, ORDER);
+            start = position >= 0 ? position + 1 : -position - 1;
+        }
+        return new View(start, start + Math.max(0, Math.min(limit, names.length - start)));
+    }
+
+    /**
+     * 第一个不小于 name 的位置
+     */
+    private int lowerBound(String name) {
+        int position = Arrays.binarySearch(names, name, ORDER);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * 数组中一段的只读视图
+     */
+    private final class View extends AbstractList<String> implements RandomAccess {
+        private final int from;
+        private final int to;
+
+        private View(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, to - from);
+            return names[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public List<String> subList(int fromIndex, int toIndex) {
+            Objects.checkFromToIndex(fromIndex, toIndex, to - from);
+            return new View(from + fromIndex, from + toIndex);
+        }
+
+        @Override
+        public Object[] toArray() {
+            return Arrays.copyOfRange(names, from, to, Object[].class);
+        }
+    }
+}
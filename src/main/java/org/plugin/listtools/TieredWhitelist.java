@@ -0,0 +1,324 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 分层存储的大型白名单
+ * 用于活动期间数百万人的放行名单：名单保存在数据目录的 tiered_whitelist.&lt;编号&gt;.idx 中，通过内存映射查找，
+ * 不占用堆内存；堆中只保留固定大小的布隆过滤器（每人约10位）和最近查询过的玩家的缓存
+ *
+ * 映射中的索引文件不会被改名覆盖或删除：每次导入和清除都写入编号加一的新文件，切换后旧文件
+ * 在不再被引用（映射随之释放）时才删除，删除失败的旧文件在下次加载时清理。
+ * 离线工具生成的 tiered_whitelist.idx 在加载时改名为新的编号后使用
+ *
+ * 查找顺序：W-TinyLFU 缓存 → 布隆过滤器（不在名单中的玩家大多在此返回）→ 磁盘索引。
+ * 这份名单与 config.yml 中由命令维护的白名单并存，不出现在 whitelist list 中，只能整体导入或清除
+ */
+public class TieredWhitelist {
+    public static final String INDEX_FILE = "tiered_whitelist.idx";
+
+    private static final Pattern GENERATION_FILE = Pattern.compile("tiered_whitelist\\.(\\d+)\\.idx");
+    // 在旧索引不再被引用后删除文件
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    // 外部排序时每段的玩家数，决定导入时堆中最多保存的玩家名数量
+    private static final int IMPORT_CHUNK_SIZE = 200000;
+
+    private final Path dataDirectory;
+    private final IoExecutor ioExecutor;
+    private final Logger logger;
+
+    // 未启用或尚未加载时为null，缓存只在启用时创建
+    private volatile Tier tier;
+    private volatile TinyLfuCache<String, Boolean> cache;
+    private volatile boolean enabled;
+
+    private final LongAdder cacheHits;
+    private final LongAdder bloomRejections;
+    private final LongAdder diskLookups;
+
+    public TieredWhitelist(Path dataDirectory, IoExecutor ioExecutor, Logger logger) {
+        this.dataDirectory = dataDirectory;
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+        this.cacheHits = new LongAdder();
+        this.bloomRejections = new LongAdder();
+        this.diskLookups = new LongAdder();
+    }
+
+    /**
+     * 应用配置
+     * 启用时在I/O线程上映射最新的索引文件并建立布隆过滤器，完成前名单视为空；停用时立即释放映射和缓存
+     * @param cacheSize 缓存的玩家数，变化时重建缓存
+     */
+    public synchronized void configure(boolean enabled, int cacheSize) {
+        if (!enabled) {
+            this.enabled = false;
+            tier = null;
+            cache = null;
+            return;
+        }
+        TinyLfuCache<String, Boolean> current = cache;
+        if (current == null || current.capacity() != Math.max(2, cacheSize)) {
+            cache = new TinyLfuCache<>(cacheSize);
+        }
+        if (this.enabled) {
+            return;
+        }
+        this.enabled = true;
+        ioExecutor.run(IoExecutor.TIERED, () -> {
+            try {
+                Path indexFile = prepareIndex();
+                if (indexFile == null) {
+                    logger.info("分层白名单已启用，尚未导入名单");
+                    return;
+                }
+                Tier loaded = Tier.load(indexFile);
+                synchronized (this) {
+                    if (this.enabled) {
+                        install(loaded);
+                    }
+                }
+                logger.info("分层白名单已加载，共 {} 个玩家", loaded.file.size());
+            } catch (IOException e) {
+                logger.error("加载分层白名单失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 检查玩家是否在名单中，严格匹配玩家名
+     * 缓存命中或被布隆过滤器排除时不分配内存
+     */
+    public boolean contains(String playerName) {
+        Tier current = tier;
+        if (current == null || playerName == null) {
+            return false;
+        }
+        TinyLfuCache<String, Boolean> hot = cache;
+        Boolean cached = hot != null ? hot.get(playerName) : null;
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        if (!current.bloom.mightContain(BloomFilter.hash(playerName))) {
+            bloomRejections.increment();
+            return false;
+        }
+        diskLookups.increment();
+        boolean present = current.file.contains(playerName);
+        if (hot != null) {
+            hot.put(playerName, present ? Boolean.TRUE : Boolean.FALSE);
+        }
+        return present;
+    }
+
+    /**
+     * 从文本文件导入名单，整体替换现有名单
+     * 在I/O线程上外部排序后写入新编号的索引文件，完成后切换
+     * @param pathText 文件路径，只能是插件数据目录中的文件，相对路径基于数据目录；每行一个玩家名，# 开头的行为注释
+     * @return 以导入的玩家数结束
+     */
+    public CompletableFuture<Integer> importFile(String pathText) {
+        if (!enabled) {
+            return CompletableFuture.failedFuture(new IllegalStateException("分层白名单未启用"));
+        }
+        Path input;
+        try {
+            input = ConfigManager.resolveDataFile(dataDirectory, pathText);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return ioExecutor.submit(IoExecutor.TIERED, () -> {
+            if (!Files.isRegularFile(input)) {
+                throw new IllegalArgumentException("文件不存在: " + input);
+            }
+            Path indexFile = generationFile(dataDirectory, latestGeneration(dataDirectory) + 1);
+            int count = SortedNameFile.build(input, indexFile, IMPORT_CHUNK_SIZE);
+            Tier loaded = Tier.load(indexFile);
+            synchronized (this) {
+                if (enabled) {
+                    install(loaded);
+                }
+            }
+            logger.info("分层白名单已从 {} 导入 {} 个玩家", input, count);
+            return count;
+        });
+    }
+
+    /**
+     * 清除名单：写入不含玩家的新编号索引文件，旧文件在不再被引用后删除
+     */
+    public CompletableFuture<Void> clear() {
+        synchronized (this) {
+            retire(tier);
+            tier = null;
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        return ioExecutor.run(IoExecutor.TIERED, () -> {
+            try {
+                SortedNameFile.writeEmpty(generationFile(dataDirectory, latestGeneration(dataDirectory) + 1));
+                logger.info("分层白名单已清除");
+            } catch (IOException e) {
+                logger.warn("清除分层白名单失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void install(Tier loaded) {
+        retire(tier);
+        tier = loaded;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 被替换的索引在不再被查询引用后删除文件；Tier 对象不可达时映射也随之释放
+     */
+    private void retire(Tier retired) {
+        if (retired != null) {
+            Path file = retired.path;
+            Logger log = logger;
+            CLEANER.register(retired, () -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.debug("删除旧的分层白名单索引 {} 失败，将在下次加载时清理: {}", file.getFileName(), e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * 找到要加载的索引文件：先把离线工具生成的 tiered_whitelist.idx 改名为新的编号，再删除编号较小的旧文件
+     * 只在I/O线程上调用
+     * @return 编号最大的索引文件，尚未导入时返回null
+     */
+    private Path prepareIndex() throws IOException {
+        long latest = latestGeneration(dataDirectory);
+        Path offline = dataDirectory.resolve(INDEX_FILE);
+        if (Files.exists(offline)) {
+            latest++;
+            Files.move(offline, generationFile(dataDirectory, latest));
+            logger.info("已使用离线生成的分层白名单索引 {}", INDEX_FILE);
+        }
+        if (latest == 0) {
+            return null;
+        }
+        for (Path stale : listGenerations(dataDirectory)) {
+            if (!stale.equals(generationFile(dataDirectory, latest))) {
+                try {
+                    Files.deleteIfExists(stale);
+                } catch (IOException e) {
+                    logger.debug("删除旧的分层白名单索引 {} 失败: {}", stale.getFileName(), e.getMessage());
+                }
+            }
+        }
+        return generationFile(dataDirectory, latest);
+    }
+
+    /**
+     * 获取插件下次加载时使用的索引文件，供离线工具显示
+     * @return 不存在时返回null
+     */
+    public static Path findIndex(Path dataDirectory) throws IOException {
+        Path offline = dataDirectory.resolve(INDEX_FILE);
+        if (Files.exists(offline)) {
+            return offline;
+        }
+        long latest = latestGeneration(dataDirectory);
+        return latest > 0 ? generationFile(dataDirectory, latest) : null;
+    }
+
+    private static Path generationFile(Path dataDirectory, long generation) {
+        return dataDirectory.resolve("tiered_whitelist." + generation + ".idx");
+    }
+
+    private static long latestGeneration(Path dataDirectory) throws IOException {
+        long latest = 0;
+        for (Path file : listGenerations(dataDirectory)) {
+            Matcher matcher = GENERATION_FILE.matcher(file.getFileName().toString());
+            if (matcher.matches()) {
+                latest = Math.max(latest, Long.parseLong(matcher.group(1)));
+            }
+        }
+        return latest;
+    }
+
+    private static List<Path> listGenerations(Path dataDirectory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dataDirectory)) {
+            return files;
+        }
+        try (Stream<Path> entries = Files.list(dataDirectory)) {
+            entries.filter(file -> GENERATION_FILE.matcher(file.getFileName().toString()).matches()).forEach(files::add);
+        }
+        return files;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取名单中的玩家数，未加载时返回0
+     */
+    public int size() {
+        Tier current = tier;
+        return current != null ? current.file.size() : 0;
+    }
+
+    /**
+     * 获取状态摘要，供 status 命令显示
+     */
+    public String getStats() {
+        Tier current = tier;
+        TinyLfuCache<String, Boolean> hot = cache;
+        if (!enabled) {
+            return "未启用";
+        }
+        if (current == null || hot == null) {
+            return "未加载";
+        }
+        return current.file.size() + " 个玩家，索引 " + (current.file.getSizeInBytes() / 1024) + "KB，布隆过滤器 " +
+               (current.bloom.getSizeInBytes() / 1024) + "KB，缓存 " + hot.size() + "/" + hot.capacity() +
+               "；缓存命中 " + cacheHits.sum() + "，过滤器排除 " + bloomRejections.sum() + "，读取索引 " + diskLookups.sum();
+    }
+
+    /**
+     * 已映射的索引文件及其布隆过滤器
+     */
+    private static final class Tier {
+        private final Path path;
+        private final SortedNameFile file;
+        private final BloomFilter bloom;
+
+        private Tier(Path path, SortedNameFile file, BloomFilter bloom) {
+            this.path = path;
+            this.file = file;
+            this.bloom = bloom;
+        }
+
+        private static Tier load(Path indexFile) throws IOException {
+            SortedNameFile file = SortedNameFile.open(indexFile);
+            BloomFilter bloom = new BloomFilter(file.size());
+            file.forEachHash(bloom::add);
+            return new Tier(indexFile, file, bloom);
+        }
+    }
+}
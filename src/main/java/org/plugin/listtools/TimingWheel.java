@@ -0,0 +1,158 @@
+package org.plugin.listtools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 每层64个槽位，定时项按剩余时间放入对应层级，随时间推进逐层下沉，
+ * 添加和每个节拍的推进均为 O(1)，无需轮询全部定时项
+ *
+ * 线程安全：所有公开方法均为同步方法
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = WHEEL_SIZE - 1;
+    // 层数，以1秒节拍计可覆盖约 64^5 秒（约34年）
+    private static final int LEVELS = 5;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMs;
+    private final List<List<Entry<T>>> slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMs 节拍长度（毫秒）
+     * @param startTimeMs 起始时间（毫秒时间戳）
+     */
+    public TimingWheel(long tickMs, long startTimeMs) {
+        this.tickMs = tickMs;
+        this.slots = new ArrayList<>(LEVELS * WHEEL_SIZE);
+        for (int i = 0; i < LEVELS * WHEEL_SIZE; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = startTimeMs / tickMs;
+    }
+
+    /**
+     * 添加定时项
+     * 已到期的定时项会在下一个节拍触发
+     */
+    public synchronized void schedule(T item, long expireAtMs) {
+        long tick = Math.max(expireAtMs / tickMs, currentTick + 1);
+        place(new Entry<>(item, tick));
+        size++;
+    }
+
+    /**
+     * 推进时间轮到指定时间，依次回调所有到期项
+     */
+    public synchronized void advance(long nowMs, Consumer<T> expired) {
+        long targetTick = nowMs / tickMs;
+        if (size == 0) {
+            // 没有定时项时直接跳到目标时间
+            currentTick = Math.max(currentTick, targetTick);
+            return;
+        }
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            List<Entry<T>> due = slots.get((int) (currentTick & SLOT_MASK));
+            if (due.isEmpty()) {
+                continue;
+            }
+
+            List<Entry<T>> fired = new ArrayList<>(due);
+            due.clear();
+            for (Entry<T> entry : fired) {
+                if (entry.tick <= currentTick) {
+                    size--;
+                    expired.accept(entry.item);
+                } else {
+                    place(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * 清空所有定时项
+     */
+    public synchronized void clear() {
+        for (List<Entry<T>> slot : slots) {
+            slot.clear();
+        }
+        size = 0;
+    }
+
+    /**
+     * 获取定时项数量（包括已失效但尚未触发的项）
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 当低层轮转完一圈时，把高层对应槽位的定时项下沉到低层
+     * 先处理高层，保证同一节拍内多级下沉的顺序正确
+     */
+    private void cascade() {
+        int highest = 0;
+        while (highest + 1 < LEVELS && (currentTick & ((1L << (SLOT_BITS * (highest + 1))) - 1)) == 0) {
+            highest++;
+        }
+
+        for (int level = highest; level >= 1; level--) {
+            int index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            List<Entry<T>> slot = slots.get(level * WHEEL_SIZE + index);
+            if (slot.isEmpty()) {
+                continue;
+            }
+
+            List<Entry<T>> moved = new ArrayList<>(slot);
+            slot.clear();
+            for (Entry<T> entry : moved) {
+                place(entry);
+            }
+        }
+    }
+
+    /**
+     * 根据剩余节拍数选择层级，根据到期节拍选择槽位
+     */
+    private void place(Entry<T> entry) {
+        long delta = entry.tick - currentTick;
+        long tick = entry.tick;
+        if (delta > MAX_DELTA) {
+            // 超出最大范围的项放在最高层，下沉时重新计算
+            tick = currentTick + MAX_DELTA;
+            delta = MAX_DELTA;
+        }
+
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+
+        int index = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        slots.get(level * WHEEL_SIZE + index).add(entry);
+    }
+
+    /**
+     * 时间轮中的一个定时项
+     */
+    private static class Entry<T> {
+        private final T item;
+        private final long tick;
+
+        private Entry(T item, long tick) {
+            this.item = item;
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.plugin.listtools;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 容量固定、按访问频率淘汰的缓存（W-TinyLFU）
+ * 新条目先进入占容量1%的窗口区（LRU），被挤出窗口后与主区试用段中最久未用的条目比较历史访问频率，
+ * 频率更高者留下；主区再分为试用段和保护段（占主区80%），试用段中再次命中的条目升入保护段
+ *
+ * 访问频率记录在4位计数的 Count-Min 草图中，记录数达到容量的10倍时所有计数减半，
+ * 使过去的热点逐渐让位。偶尔被扫描到的大量冷门条目无法挤掉频繁访问的条目
+ *
+ * 所有方法在本对象的锁内执行；命中时不分配内存
+ */
+public final class TinyLfuCache<K, V> {
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+    private final LinkedHashMap<K, V> window;
+    private final LinkedHashMap<K, V> probation;
+    private final LinkedHashMap<K, V> protectedSegment;
+    private final FrequencySketch sketch;
+
+    public TinyLfuCache(int capacity) {
+        capacity = Math.max(2, capacity);
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = Math.max(1, mainCapacity * 4 / 5);
+        this.window = new LinkedHashMap<>(16, 0.75f, true);
+        this.probation = new LinkedHashMap<>(16, 0.75f, true);
+        this.protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    /**
+     * 查找缓存，同时记录一次访问
+     * @return 缓存的值，不存在时返回null
+     */
+    public synchronized V get(K key) {
+        sketch.increment(key.hashCode());
+        V value = window.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = protectedSegment.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = probation.remove(key);
+        if (value != null) {
+            // 试用段中再次命中，升入保护段，保护段溢出的条目降回试用段
+            protectedSegment.put(key, value);
+            if (protectedSegment.size() > protectedCapacity) {
+                Map.Entry<K, V> demoted = eldest(protectedSegment);
+                protectedSegment.remove(demoted.getKey());
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 放入缓存
+     * 应在 {@link #get} 未命中后调用，条目先进入窗口区，是否能留在主区取决于访问频率
+     */
+    public synchronized void put(K key, V value) {
+        if (window.containsKey(key)) {
+            window.put(key, value);
+            return;
+        }
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return;
+        }
+        if (probation.containsKey(key)) {
+            probation.put(key, value);
+            return;
+        }
+
+        window.put(key, value);
+        if (window.size() <= windowCapacity) {
+            return;
+        }
+        Map.Entry<K, V> candidate = eldest(window);
+        window.remove(candidate.getKey());
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        Map.Entry<K, V> victim = probation.isEmpty() ? null : eldest(probation);
+        if (victim == null) {
+            return;
+        }
+        if (sketch.frequency(candidate.getKey().hashCode()) > sketch.frequency(victim.getKey().hashCode())) {
+            probation.remove(victim.getKey());
+            probation.put(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /**
+     * 清空缓存和访问频率
+     */
+    public synchronized void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        sketch.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    public int capacity() {
+        return windowCapacity + mainCapacity;
+    }
+
+    private static <K, V> Map.Entry<K, V> eldest(LinkedHashMap<K, V> map) {
+        Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+        return iterator.next();
+    }
+
+    /**
+     * 4位计数的 Count-Min 草图，每个long存放16个计数
+     */
+    private static final class FrequencySketch {
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+            this.table = new long[size];
+            this.sampleSize = capacity * 10;
+        }
+
+        private void increment(int hashCode) {
+            hashCode = spread(hashCode);
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                added |= incrementAt(indexOf(hashCode, row), counterOf(hashCode, row));
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(int hashCode) {
+            hashCode = spread(hashCode);
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < SEEDS.length; row++) {
+                long word = table[indexOf(hashCode, row)];
+                int shift = counterOf(hashCode, row) << 2;
+                frequency = Math.min(frequency, (int) ((word >>> shift) & 0xfL));
+            }
+            return frequency;
+        }
+
+        private boolean incrementAt(int index, int counter) {
+            int shift = counter << 2;
+            long mask = 0xfL << shift;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << shift;
+                return true;
+            }
+            return false;
+        }
+
+        private int indexOf(int hashCode, int row) {
+            long hash = (hashCode + SEEDS[row]) * SEEDS[row];
+            hash += hash >>> 32;
+            return (int) hash & (table.length - 1);
+        }
+
+        private int counterOf(int hashCode, int row) {
+            return (hashCode >>> (row << 3)) & 0xf;
+        }
+
+        private static int spread(int hashCode) {
+            hashCode *= 0x9e3779b9;
+            return hashCode ^ (hashCode >>> 16);
+        }
+
+        /**
+         * 所有计数减半
+         */
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+
+        private void clear() {
+            Arrays.fill(table, 0);
+            additions = 0;
+        }
+    }
+}
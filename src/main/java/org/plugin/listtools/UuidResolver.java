@@ -0,0 +1,437 @@
+package org.plugin.listtools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 玩家名到UUID的批量解析器
+ * 待解析的玩家名先在短暂的窗口内合并，每个请求最多携带 {@link #BATCH_SIZE} 个名字发往
+ * uuid_lookup_url（与官方批量查询接口格式相同）；同一玩家名同时只会有一个查询在进行
+ *
+ * 请求数按 uuid_lookup_rate（次/分钟）限速，接口返回 429 时暂停后重试。
+ * 结果缓存在数据目录的 uuid_cache.txt 中，按 uuid_cache_ttl 过期，重启后不必重新查询
+ */
+public class UuidResolver {
+    public static final String DEFAULT_LOOKUP_URL =
+        "https://api.minecraftservices.com/minecraft/profile/lookup/bulk/byname";
+    // 接口单次请求允许的最大玩家名数量
+    public static final int BATCH_SIZE = 10;
+
+    public static final String CACHE_FILE = "uuid_cache.txt";
+    // 合并单个查询的等待时间
+    private static final long BATCH_WINDOW_MS = 50;
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final long REQUEST_TIMEOUT_MS = 10000;
+    // 被限速后的暂停时间
+    private static final long RATE_LIMITED_BACKOFF_MS = 10000;
+    // 不存在的玩家名最多缓存1小时，以便新注册的账号能及时解析
+    private static final long NEGATIVE_TTL_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long SAVE_DELAY_MS = 5000;
+
+    private final ConfigManager configManager;
+    private final IoExecutor ioExecutor;
+    private final Path cacheFile;
+    private final Logger logger;
+    // 以小写玩家名为键
+    private final ConcurrentHashMap<String, CacheEntry> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<UUID>>> inFlight;
+    private final ConcurrentLinkedDeque<String> pending;
+    private final AtomicBoolean pumpScheduled;
+    private final AtomicBoolean saveScheduled;
+    private final AtomicInteger activeRequests;
+    private volatile long pausedUntil;
+    private volatile HttpClient httpClient;
+    // 请求令牌桶，容量为每分钟允许的请求数
+    private double tokens;
+    private long lastRefill;
+
+    public UuidResolver(ConfigManager configManager, IoExecutor ioExecutor, Path dataDirectory, Logger logger) {
+        this.configManager = configManager;
+        this.ioExecutor = ioExecutor;
+        this.cacheFile = dataDirectory.resolve(CACHE_FILE);
+        this.logger = logger;
+        this.cache = new ConcurrentHashMap<>();
+        this.inFlight = new ConcurrentHashMap<>();
+        this.pending = new ConcurrentLinkedDeque<>();
+        this.pumpScheduled = new AtomicBoolean();
+        this.saveScheduled = new AtomicBoolean();
+        this.activeRequests = new AtomicInteger();
+        this.tokens = configManager.getUuidLookupRate();
+        this.lastRefill = System.currentTimeMillis();
+
+        loadCache();
+    }
+
+    /**
+     * 解析单个玩家名
+     * @return 玩家不存在时为空；查询失败时以异常结束
+     */
+    public CompletableFuture<Optional<UUID>> resolve(String playerName) {
+        String key = playerName.toLowerCase(Locale.ROOT);
+        CacheEntry cached = cache.get(key);
+        if (cached != null && cached.isFresh(System.currentTimeMillis(), configManager.getUuidCacheTtl())) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(cached.uuid));
+        }
+
+        CompletableFuture<Optional<UUID>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<UUID>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        pending.add(key);
+        schedulePump(BATCH_WINDOW_MS);
+        return created;
+    }
+
+    /**
+     * 批量解析玩家名
+     * @return 成功解析的玩家名到UUID的映射，不存在或查询失败的玩家名不在结果中
+     */
+    public CompletableFuture<Map<String, UUID>> resolveAll(Collection<String> playerNames) {
+        Map<String, UUID> result = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> futures = new ArrayList<>(playerNames.size());
+        for (String playerName : playerNames) {
+            futures.add(resolve(playerName).handle((uuid, error) -> {
+                if (uuid != null && uuid.isPresent()) {
+                    result.put(playerName, uuid.get());
+                }
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> result);
+    }
+
+    /**
+     * 获取缓存中未过期的解析结果，不会发起查询
+     */
+    public Optional<UUID> getCached(String playerName) {
+        CacheEntry cached = cache.get(playerName.toLowerCase(Locale.ROOT));
+        if (cached == null || !cached.isFresh(System.currentTimeMillis(), configManager.getUuidCacheTtl())) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cached.uuid);
+    }
+
+    /**
+     * 获取缓存条目数量
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * 获取等待查询的玩家名数量
+     */
+    public int getPendingCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 停止解析器并保存缓存
+     */
+    public void stop() {
+        saveCache();
+    }
+
+    private void schedulePump(long delay) {
+        if (pumpScheduled.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::pump);
+        }
+    }
+
+    /**
+     * 在并发数和速率允许的范围内把待查询的玩家名分批发出
+     */
+    private void pump() {
+        pumpScheduled.set(false);
+        while (!pending.isEmpty()) {
+            long paused = pausedUntil - System.currentTimeMillis();
+            if (paused > 0) {
+                schedulePump(paused);
+                return;
+            }
+            if (!tryReserveRequest()) {
+                // 进行中的请求完成后会再次调度
+                return;
+            }
+            long wait = acquireToken();
+            if (wait > 0) {
+                activeRequests.decrementAndGet();
+                schedulePump(wait);
+                return;
+            }
+
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            String key;
+            while (batch.size() < BATCH_SIZE && (key = pending.poll()) != null) {
+                batch.add(key);
+            }
+            if (batch.isEmpty()) {
+                activeRequests.decrementAndGet();
+                return;
+            }
+            send(batch);
+        }
+    }
+
+    private void send(List<String> batch) {
+        JsonArray body = new JsonArray();
+        for (String key : batch) {
+            body.add(key);
+        }
+
+        String url = configManager.getUuidLookupUrl();
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(REQUEST_TIMEOUT_MS))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        } catch (IllegalArgumentException e) {
+            activeRequests.decrementAndGet();
+            fail(batch, new IOException("无效的UUID查询地址: " + url));
+            return;
+        }
+
+        client().sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            activeRequests.decrementAndGet();
+            if (error != null) {
+                logger.warn("UUID查询请求失败: {}", error.getMessage());
+                fail(batch, error);
+            } else if (response.statusCode() == 429) {
+                // 被限速，放回队列开头稍后重试
+                pausedUntil = System.currentTimeMillis() + RATE_LIMITED_BACKOFF_MS;
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    pending.addFirst(batch.get(i));
+                }
+                logger.warn("UUID查询被限速，{} 秒后重试", RATE_LIMITED_BACKOFF_MS / 1000);
+            } else if (response.statusCode() != 200) {
+                logger.warn("UUID查询返回状态码 {}", response.statusCode());
+                fail(batch, new IOException("HTTP " + response.statusCode()));
+            } else {
+                complete(batch, response.body());
+            }
+            if (!pending.isEmpty()) {
+                schedulePump(0);
+            }
+        });
+    }
+
+    /**
+     * 解析接口返回的档案列表，未出现在返回中的玩家名视为不存在
+     */
+    private void complete(List<String> batch, String body) {
+        Map<String, UUID> found = new HashMap<>();
+        try {
+            JsonElement root = JsonParser.parseString(body);
+            if (root.isJsonArray()) {
+                for (JsonElement element : root.getAsJsonArray()) {
+                    if (!element.isJsonObject()) {
+                        continue;
+                    }
+                    JsonObject profile = element.getAsJsonObject();
+                    if (profile.has("id") && profile.has("name")) {
+                        found.put(profile.get("name").getAsString().toLowerCase(Locale.ROOT),
+                                  parseUuid(profile.get("id").getAsString()));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("无法解析UUID查询结果: {}", e.getMessage());
+            fail(batch, e);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (String key : batch) {
+            UUID uuid = found.get(key);
+            cache.put(key, new CacheEntry(uuid, now));
+            CompletableFuture<Optional<UUID>> future = inFlight.remove(key);
+            if (future != null) {
+                future.complete(Optional.ofNullable(uuid));
+            }
+        }
+        scheduleSave();
+    }
+
+    private void fail(List<String> batch, Throwable error) {
+        for (String key : batch) {
+            CompletableFuture<Optional<UUID>> future = inFlight.remove(key);
+            if (future != null) {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private boolean tryReserveRequest() {
+        while (true) {
+            int active = activeRequests.get();
+            if (active >= MAX_CONCURRENT_REQUESTS) {
+                return false;
+            }
+            if (activeRequests.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 取一个请求令牌
+     * @return 0 表示已取得，否则为需要等待的毫秒数
+     */
+    private synchronized long acquireToken() {
+        int perMinute = configManager.getUuidLookupRate();
+        long now = System.currentTimeMillis();
+        tokens = Math.min(perMinute, tokens + (now - lastRefill) * perMinute / 60_000.0);
+        lastRefill = now;
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1.0 - tokens) * 60_000.0 / perMinute));
+    }
+
+    private HttpClient client() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder()
+                        .executor(ioExecutor.executor())
+                        .connectTimeout(Duration.ofMillis(REQUEST_TIMEOUT_MS))
+                        .build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 解析带或不带连字符的UUID
+     */
+    static UUID parseUuid(String text) {
+        if (text.indexOf('-') >= 0) {
+            return UUID.fromString(text);
+        }
+        if (text.length() != 32) {
+            throw new IllegalArgumentException("无效的UUID: " + text);
+        }
+        return new UUID(Long.parseUnsignedLong(text.substring(0, 16), 16),
+                        Long.parseUnsignedLong(text.substring(16), 16));
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(SAVE_DELAY_MS, TimeUnit.MILLISECONDS).execute(() -> {
+                saveScheduled.set(false);
+                ioExecutor.run(IoExecutor.UUID_CACHE, this::saveCache);
+            });
+        }
+    }
+
+    /**
+     * 读取缓存文件，跳过已过期的条目
+     * 每行格式为: 小写玩家名 \t UUID（不存在时为 -） \t 解析时间戳
+     */
+    private void loadCache() {
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long ttl = configManager.getUuidCacheTtl();
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length != 3) {
+                    continue;
+                }
+                try {
+                    UUID uuid = "-".equals(parts[1]) ? null : UUID.fromString(parts[1]);
+                    CacheEntry entry = new CacheEntry(uuid, Long.parseLong(parts[2]));
+                    if (entry.isFresh(now, ttl)) {
+                        cache.put(parts[0], entry);
+                    }
+                } catch (IllegalArgumentException e) {
+                    logger.debug("忽略无效的UUID缓存行: {}", line);
+                }
+            }
+            logger.debug("已加载 {} 条UUID缓存", cache.size());
+        } catch (IOException e) {
+            logger.warn("读取UUID缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写入缓存文件，同时淘汰已过期的条目
+     * 先写入临时文件再替换，避免中途失败损坏原有缓存
+     */
+    private synchronized void saveCache() {
+        long now = System.currentTimeMillis();
+        long ttl = configManager.getUuidCacheTtl();
+        cache.values().removeIf(entry -> !entry.isFresh(now, ttl));
+
+        Path temp = cacheFile.resolveSibling(CACHE_FILE + ".tmp");
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+                    CacheEntry value = entry.getValue();
+                    writer.write(entry.getKey());
+                    writer.write('\t');
+                    writer.write(value.uuid != null ? value.uuid.toString() : "-");
+                    writer.write('\t');
+                    writer.write(Long.toString(value.resolvedAt));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("UUID缓存已保存，共 {} 条", cache.size());
+        } catch (IOException e) {
+            logger.warn("保存UUID缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 一条解析结果，uuid 为 null 表示玩家不存在
+     */
+    private static final class CacheEntry {
+        private final UUID uuid;
+        private final long resolvedAt;
+
+        private CacheEntry(UUID uuid, long resolvedAt) {
+            this.uuid = uuid;
+            this.resolvedAt = resolvedAt;
+        }
+
+        private boolean isFresh(long now, long ttl) {
+            return now - resolvedAt < (uuid != null ? ttl : Math.min(ttl, NEGATIVE_TTL_MS));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.plugin.listtools;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 白名单事务
+ * 通过 {@link WhitelistManager#beginBatch()} 创建，先暂存任意数量的添加和移除，
+ * 提交时一次性校验、原子地发布并只保存一次配置；同一玩家的多次操作以最后一次为准
+ *
+ * <pre>
+ * WhitelistBatch batch = whitelistManager.beginBatch();
+ * batch.add("Steve").add("Alex", expiresAt).remove("Herobrine");
+ * batch.commit().thenAccept(changes -&gt; ...);
+ * </pre>
+ *
+ * 事务只能提交或回滚一次，且不是线程安全的，应由创建它的线程使用
+ */
+public final class WhitelistBatch {
+    // 暂存操作中表示移除的值，其他值为到期时间（0 表示永久）
+    static final long REMOVE = -1;
+
+    private final WhitelistManager whitelistManager;
+    private final Map<String, Long> operations;
+    private boolean finished;
+
+    WhitelistBatch(WhitelistManager whitelistManager) {
+        this.whitelistManager = whitelistManager;
+        this.operations = new LinkedHashMap<>();
+    }
+
+    /**
+     * 暂存永久添加
+     */
+    public WhitelistBatch add(String playerName) {
+        return add(playerName, 0);
+    }
+
+    /**
+     * 暂存添加，已在白名单中的玩家会更新到期时间
+     * @param expiresAt 到期时间戳（毫秒），0 表示永久
+     */
+    public WhitelistBatch add(String playerName, long expiresAt) {
+        if (expiresAt < 0) {
+            throw new IllegalArgumentException("到期时间不能为负数: " + expiresAt);
+        }
+        return stage(playerName, expiresAt);
+    }
+
+    /**
+     * 暂存批量永久添加
+     */
+    public WhitelistBatch addAll(Collection<String> playerNames) {
+        for (String playerName : playerNames) {
+            add(playerName, 0);
+        }
+        return this;
+    }
+
+    /**
+     * 暂存移除
+     */
+    public WhitelistBatch remove(String playerName) {
+        return stage(playerName, REMOVE);
+    }
+
+    /**
+     * 暂存批量移除
+     */
+    public WhitelistBatch removeAll(Collection<String> playerNames) {
+        for (String playerName : playerNames) {
+            remove(playerName);
+        }
+        return this;
+    }
+
+    /**
+     * 获取暂存的操作数量
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * 提交事务
+     * 所有玩家名先统一校验，任意一个无效时整个事务不生效；校验通过后在写锁内一次性发布，
+     * 读取方要么看到全部变化，要么完全看不到。配置只保存一次，保存失败时自动撤销本次变化
+     * @return 配置写盘后以本次变更集结束；校验或保存失败时以异常结束
+     */
+    public CompletableFuture<WhitelistChangeSet> commit() {
+        return commit("事务");
+    }
+
+    /**
+     * 提交事务，并指定记录到版本历史和变更集中的操作说明
+     * @see #commit()
+     */
+    public CompletableFuture<WhitelistChangeSet> commit(String reason) {
+        finish();
+        try {
+            return whitelistManager.commit(operations, reason);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 放弃暂存的所有操作
+     */
+    public void rollback() {
+        finish();
+        operations.clear();
+    }
+
+    private WhitelistBatch stage(String playerName, long value) {
+        if (finished) {
+            throw new IllegalStateException("事务已经提交或回滚");
+        }
+        // 校验推迟到提交时统一进行
+        operations.put(playerName != null ? playerName.trim() : null, value);
+        return this;
+    }
+
+    private void finish() {
+        if (finished) {
+            throw new IllegalStateException("事务已经提交或回滚");
+        }
+        finished = true;
+    }
+}
@@ -0,0 +1,98 @@
+package org.plugin.listtools;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次白名单变更的内容
+ * 每次提交（单个操作、批量操作或事务）只产生一个变更集，并携带提交后的白名单快照
+ */
+public final class WhitelistChangeSet {
+    private final WhitelistSnapshot snapshot;
+    private final String reason;
+    private final List<String> added;
+    private final List<String> removed;
+    private final List<String> updated;
+
+    WhitelistChangeSet(WhitelistSnapshot snapshot, List<String> added, List<String> removed, List<String> updated) {
+        this(snapshot, "", added, removed, updated);
+    }
+
+    WhitelistChangeSet(WhitelistSnapshot snapshot, String reason, List<String> added, List<String> removed,
+                       List<String> updated) {
+        this.snapshot = snapshot;
+        this.reason = reason;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.updated = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * 获取变更后的白名单版本号
+     */
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * 获取变更后的白名单快照
+     */
+    public WhitelistSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 获取提交原因（如 添加、到期、回滚到 v3），与版本历史中记录的相同
+     * 合并多次提交得到的变更集为空字符串
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * 获取新加入白名单的玩家
+     */
+    public List<String> getAdded() {
+        return added;
+    }
+
+    /**
+     * 获取被移出白名单的玩家
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * 获取仍在白名单中但到期时间发生变化的玩家
+     */
+    public List<String> getUpdated() {
+        return updated;
+    }
+
+    /**
+     * 是否没有任何变化
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && updated.isEmpty();
+    }
+
+    /**
+     * 获取受影响的玩家数量
+     */
+    public int size() {
+        return added.size() + removed.size() + updated.size();
+    }
+
+    /**
+     * 获取变化数量的摘要，格式为 "+新增 -移除 ~更新"
+     */
+    public String getSummary() {
+        return "+" + added.size() + " -" + removed.size() + " ~" + updated.size();
+    }
+
+    @Override
+    public String toString() {
+        return "v" + snapshot.getVersion() + " " + getSummary();
+    }
+}
@@ -0,0 +1,61 @@
+package org.plugin.listtools;
+
+/**
+ * 白名单变化事件
+ * 白名单每次变化后通过 Velocity 事件总线异步触发，监听器不在提交线程上执行，也不会阻塞白名单修改
+ *
+ * 同一时间只有一个事件在派发；派发期间发生的多次提交会合并为下一个事件，
+ * 因此一个事件可能对应多个版本，{@link #getChanges()} 给出这些版本合并后的净变化
+ */
+public final class WhitelistChangedEvent {
+    private final WhitelistChangeSet changes;
+    private final long fromVersion;
+    private final int commitCount;
+
+    WhitelistChangedEvent(WhitelistChangeSet changes, long fromVersion, int commitCount) {
+        this.changes = changes;
+        this.fromVersion = fromVersion;
+        this.commitCount = commitCount;
+    }
+
+    /**
+     * 获取合并后的变化
+     * 在此期间先加入又移除的玩家不会出现；移除后又重新加入的玩家列为更新
+     */
+    public WhitelistChangeSet getChanges() {
+        return changes;
+    }
+
+    /**
+     * 获取变化后的白名单快照
+     */
+    public WhitelistSnapshot getSnapshot() {
+        return changes.getSnapshot();
+    }
+
+    /**
+     * 获取变化前的白名单版本号
+     */
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    /**
+     * 获取变化后的白名单版本号
+     */
+    public long getToVersion() {
+        return changes.getVersion();
+    }
+
+    /**
+     * 获取合并到本事件中的提交数
+     */
+    public int getCommitCount() {
+        return commitCount;
+    }
+
+    @Override
+    public String toString() {
+        return "WhitelistChangedEvent{v" + fromVersion + " -> " + changes + ", " + commitCount + " 次提交}";
+    }
+}
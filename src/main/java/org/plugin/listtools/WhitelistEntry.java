@@ -0,0 +1,63 @@
+package org.plugin.listtools;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 单个白名单条目
+ * 不可变，作为 {@link PersistentHashMap} 的值在各个版本间共享
+ */
+public final class WhitelistEntry {
+    static final WhitelistEntry PERMANENT = new WhitelistEntry(0, null);
+
+    private final long expiresAt;
+    private final UUID uuid;
+
+    private WhitelistEntry(long expiresAt, UUID uuid) {
+        this.expiresAt = expiresAt;
+        this.uuid = uuid;
+    }
+
+    static WhitelistEntry of(long expiresAt, UUID uuid) {
+        return expiresAt == 0 && uuid == null ? PERMANENT : new WhitelistEntry(expiresAt, uuid);
+    }
+
+    /**
+     * 获取到期时间戳（毫秒），0 表示永久
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * 获取已解析的UUID，尚未解析时返回null
+     */
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    WhitelistEntry withExpiresAt(long expiresAt) {
+        return of(expiresAt, uuid);
+    }
+
+    WhitelistEntry withUuid(UUID uuid) {
+        return of(expiresAt, uuid);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WhitelistEntry)) {
+            return false;
+        }
+        WhitelistEntry other = (WhitelistEntry) o;
+        return expiresAt == other.expiresAt && Objects.equals(uuid, other.uuid);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(expiresAt) * 31 + Objects.hashCode(uuid);
+    }
+}
@@ -0,0 +1,128 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.event.EventManager;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 把白名单变更集转换为 {@link WhitelistChangedEvent} 并异步触发
+ * 作为 {@link WhitelistManager} 的变更监听器注册，在写锁内按版本顺序收到变更集，只做合并，不等待事件派发
+ *
+ * 同一时间只有一个事件在派发，期间到达的变更集按玩家合并净效果，上一个事件派发完成后作为一个事件触发，
+ * 大量连续修改不会在事件总线上堆积
+ */
+public class WhitelistEventPublisher implements Consumer<WhitelistChangeSet> {
+    private final EventManager eventManager;
+    private final Logger logger;
+    private final Object lock;
+
+    // 以下字段由 lock 保护
+    // 玩家名到 {合并前是否在白名单中, 合并后是否在白名单中}，保持首次出现的顺序
+    private final Map<String, boolean[]> pending;
+    private WhitelistSnapshot pendingSnapshot;
+    private long pendingFromVersion;
+    private int pendingCommits;
+    private boolean firing;
+
+    public WhitelistEventPublisher(EventManager eventManager, Logger logger) {
+        this.eventManager = eventManager;
+        this.logger = logger;
+        this.lock = new Object();
+        this.pending = new LinkedHashMap<>();
+    }
+
+    @Override
+    public void accept(WhitelistChangeSet changes) {
+        synchronized (lock) {
+            if (pendingCommits == 0) {
+                pendingFromVersion = changes.getVersion() - 1;
+            }
+            for (String playerName : changes.getAdded()) {
+                track(playerName, false, true);
+            }
+            for (String playerName : changes.getRemoved()) {
+                track(playerName, true, false);
+            }
+            for (String playerName : changes.getUpdated()) {
+                track(playerName, true, true);
+            }
+            pendingSnapshot = changes.getSnapshot();
+            pendingCommits++;
+            if (firing) {
+                return;
+            }
+            firing = true;
+        }
+        fireNext();
+    }
+
+    private void track(String playerName, boolean wasPresent, boolean isPresent) {
+        boolean[] state = pending.get(playerName);
+        if (state == null) {
+            pending.put(playerName, new boolean[]{wasPresent, isPresent});
+        } else {
+            state[1] = isPresent;
+        }
+    }
+
+    /**
+     * 把已合并的变化作为一个事件触发，派发完成后继续触发期间积累的变化
+     */
+    private void fireNext() {
+        WhitelistChangedEvent event;
+        synchronized (lock) {
+            event = drain();
+            if (event == null) {
+                firing = false;
+                return;
+            }
+        }
+
+        try {
+            eventManager.fire(event).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    logger.error("派发白名单变化事件失败", error);
+                }
+                fireNext();
+            });
+        } catch (Exception e) {
+            logger.error("派发白名单变化事件失败", e);
+            fireNext();
+        }
+    }
+
+    /**
+     * 取出已合并的变化，没有净变化（如期间先加入又移除）时返回null
+     * 调用方需持有 lock
+     */
+    private WhitelistChangedEvent drain() {
+        if (pendingCommits == 0) {
+            return null;
+        }
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<String> updated = new ArrayList<>();
+        for (Map.Entry<String, boolean[]> entry : pending.entrySet()) {
+            boolean wasPresent = entry.getValue()[0];
+            boolean isPresent = entry.getValue()[1];
+            if (!wasPresent && isPresent) {
+                added.add(entry.getKey());
+            } else if (wasPresent && !isPresent) {
+                removed.add(entry.getKey());
+            } else if (wasPresent) {
+                updated.add(entry.getKey());
+            }
+        }
+        WhitelistChangeSet changes = new WhitelistChangeSet(pendingSnapshot, added, removed, updated);
+        WhitelistChangedEvent event = new WhitelistChangedEvent(changes, pendingFromVersion, pendingCommits);
+        pending.clear();
+        pendingSnapshot = null;
+        pendingCommits = 0;
+        return changes.isEmpty() ? null : event;
+    }
+}
@@ -0,0 +1,363 @@
+package org.plugin.listtools;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 白名单数据的文件格式
+ * 除 YAML 外，各格式都逐条流式读写，内存占用与文件大小无关；
+ * YAML 即插件的 config.yml，通过 {@link ConfigManager} 读写，与插件使用同一套解析代码
+ */
+public enum WhitelistFormat {
+    /** 插件的 config.yml，路径可以是数据目录或其中的 config.yml */
+    YAML("yml"),
+    /** 原版服务端的 whitelist.json: [{"uuid": "...", "name": "..."}] */
+    JSON("json"),
+    /** 每行 玩家名,UUID，UUID 可以为空，第一行可以是表头 */
+    CSV("csv"),
+    /** 每行一个玩家名，# 开头的行为注释，与分层白名单的导入文件相同 */
+    TEXT("txt"),
+    /** 分层白名单的有序索引文件 */
+    INDEX("idx");
+
+    // 写入索引文件时外部排序每块的行数
+    private static final int INDEX_CHUNK_SIZE = 200000;
+
+    private final String extension;
+
+    WhitelistFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 按名称查找格式，名称为扩展名（yml、json、csv、txt、idx）
+     * @return 未知名称返回null
+     */
+    public static WhitelistFormat byName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if ("yaml".equals(lower)) {
+            return YAML;
+        }
+        for (WhitelistFormat format : values()) {
+            if (format.extension.equals(lower)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按文件扩展名判断格式，目录视为数据目录中的 config.yml
+     * @return 无法判断时返回null
+     */
+    public static WhitelistFormat of(Path path) {
+        if (Files.isDirectory(path)) {
+            return YAML;
+        }
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? byName(fileName.substring(dot + 1)) : null;
+    }
+
+    /**
+     * 逐条读取白名单
+     * @param consumer 接收玩家名和UUID，没有UUID时为null
+     * @return 读取的条目数
+     */
+    public int read(Path path, IoExecutor ioExecutor, Logger logger, BiConsumer<String, UUID> consumer) throws IOException {
+        switch (this) {
+            case YAML:
+                return readYaml(path, ioExecutor, logger, consumer);
+            case JSON:
+                return readJson(path, consumer);
+            case INDEX:
+                return readIndex(path, consumer);
+            default:
+                return readLines(path, consumer);
+        }
+    }
+
+    /**
+     * 创建写入器，关闭时完成写入
+     * 输出文件已存在时被覆盖；YAML 格式只替换 config.yml 中的白名单，其他配置保持不变
+     */
+    public Writer openWriter(Path path, IoExecutor ioExecutor, Logger logger) throws IOException {
+        switch (this) {
+            case YAML:
+                return new YamlWriter(path, ioExecutor, logger);
+            case JSON:
+                return new JsonFileWriter(path);
+            case INDEX:
+                return new IndexWriter(path);
+            default:
+                return new LineWriter(path, this == CSV);
+        }
+    }
+
+    private static Path configDirectory(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            return path;
+        }
+        if (!"config.yml".equals(path.getFileName().toString())) {
+            throw new IOException("YAML 格式只支持插件数据目录中的 config.yml: " + path);
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        return parent;
+    }
+
+    private static int readYaml(Path path, IoExecutor ioExecutor, Logger logger, BiConsumer<String, UUID> consumer) throws IOException {
+        Path directory = configDirectory(path);
+        if (!Files.exists(directory.resolve("config.yml"))) {
+            throw new IOException("找不到配置文件: " + directory.resolve("config.yml"));
+        }
+        ConfigManager configManager = new ConfigManager(directory, ioExecutor, logger);
+        configManager.loadConfig();
+        Map<String, UUID> uuids = configManager.getWhitelistUuids();
+        List<String> whitelist = configManager.getWhitelist();
+        for (String playerName : whitelist) {
+            consumer.accept(playerName, uuids.get(playerName));
+        }
+        return whitelist.size();
+    }
+
+    private static int readJson(Path path, BiConsumer<String, UUID> consumer) throws IOException {
+        int count = 0;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String playerName = null;
+                UUID uuid = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else if ("name".equals(key)) {
+                        playerName = reader.nextString();
+                    } else if ("uuid".equals(key)) {
+                        uuid = parseUuid(reader.nextString());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (playerName != null && !playerName.isBlank()) {
+                    consumer.accept(playerName, uuid);
+                    count++;
+                }
+            }
+            reader.endArray();
+        } catch (IllegalStateException e) {
+            throw new IOException("whitelist.json 格式错误: " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    private static int readIndex(Path path, BiConsumer<String, UUID> consumer) throws IOException {
+        SortedNameFile file = SortedNameFile.open(path);
+        file.forEach(playerName -> consumer.accept(playerName, null));
+        return file.size();
+    }
+
+    private int readLines(Path path, BiConsumer<String, UUID> consumer) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                boolean header = first && this == CSV && "name".equalsIgnoreCase(unquote(line.split(",", -1)[0]));
+                first = false;
+                if (line.isEmpty() || line.startsWith("#") || header) {
+                    continue;
+                }
+                String playerName = line;
+                UUID uuid = null;
+                if (this == CSV) {
+                    String[] parts = line.split(",", -1);
+                    playerName = unquote(parts[0]);
+                    uuid = parts.length > 1 ? parseUuid(unquote(parts[1])) : null;
+                }
+                if (!playerName.isEmpty()) {
+                    consumer.accept(playerName, uuid);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static String unquote(String field) {
+        String value = field.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).replace("\"\"", "\"");
+        }
+        return value.trim();
+    }
+
+    private static UUID parseUuid(String text) {
+        if (text == null || text.isBlank() || "-".equals(text)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(text.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 逐条写入白名单
+     */
+    public interface Writer extends Closeable {
+        /**
+         * @param uuid 没有UUID时为null
+         */
+        void write(String playerName, UUID uuid) throws IOException;
+    }
+
+    /**
+     * 写入 config.yml
+     * 配置文件整体读入内存，条目先收集起来，关闭时去重后一次性保存
+     */
+    private static final class YamlWriter implements Writer {
+        private final ConfigManager configManager;
+        private final Set<String> players;
+        private final Map<String, UUID> uuids;
+
+        YamlWriter(Path path, IoExecutor ioExecutor, Logger logger) throws IOException {
+            this.configManager = new ConfigManager(configDirectory(path), ioExecutor, logger);
+            configManager.loadConfig();
+            this.players = new LinkedHashSet<>();
+            this.uuids = new HashMap<>();
+        }
+
+        @Override
+        public void write(String playerName, UUID uuid) {
+            players.add(playerName);
+            if (uuid != null) {
+                uuids.put(playerName, uuid);
+            }
+        }
+
+        @Override
+        public void close() {
+            // 只保留仍在白名单中的到期时间
+            Map<String, Long> expiries = configManager.getWhitelistExpiries();
+            expiries.keySet().retainAll(players);
+            configManager.setWhitelist(new ArrayList<>(players));
+            configManager.setWhitelistExpiries(expiries);
+            configManager.setWhitelistUuids(uuids);
+            configManager.saveConfig();
+        }
+    }
+
+    private static final class JsonFileWriter implements Writer {
+        private final JsonWriter writer;
+
+        JsonFileWriter(Path path) throws IOException {
+            this.writer = new JsonWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+            writer.setIndent("  ");
+            writer.beginArray();
+        }
+
+        @Override
+        public void write(String playerName, UUID uuid) throws IOException {
+            writer.beginObject();
+            if (uuid != null) {
+                writer.name("uuid").value(uuid.toString());
+            }
+            writer.name("name").value(playerName);
+            writer.endObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writer.endArray();
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    private static final class LineWriter implements Writer {
+        private final BufferedWriter writer;
+        private final boolean csv;
+
+        LineWriter(Path path, boolean csv) throws IOException {
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            this.csv = csv;
+            if (csv) {
+                writer.write("name,uuid");
+                writer.newLine();
+            }
+        }
+
+        @Override
+        public void write(String playerName, UUID uuid) throws IOException {
+            writer.write(playerName);
+            if (csv) {
+                writer.write(',');
+                if (uuid != null) {
+                    writer.write(uuid.toString());
+                }
+            }
+            writer.newLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * 写入索引文件
+     * 玩家名先写入临时文本文件，关闭时外部排序、去重生成索引，内存占用与名单大小无关；索引不保存UUID
+     */
+    private static final class IndexWriter implements Writer {
+        private final Path output;
+        private final Path temp;
+        private final BufferedWriter writer;
+
+        IndexWriter(Path output) throws IOException {
+            this.output = output;
+            this.temp = Files.createTempFile(output.toAbsolutePath().getParent(), "listtools-index", ".txt");
+            this.writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(String playerName, UUID uuid) throws IOException {
+            writer.write(playerName);
+            writer.newLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writer.close();
+                SortedNameFile.build(temp, output, INDEX_CHUNK_SIZE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
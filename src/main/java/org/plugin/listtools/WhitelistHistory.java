@@ -0,0 +1,478 @@
+package org.plugin.listtools;
+
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 白名单版本历史
+ * 最近的 whitelist_history_size 个版本直接保留其 {@link PersistentHashMap} 快照，
+ * 各版本共享未变化的部分，内存占用只与变化量有关，恢复这些版本不需要读盘
+ *
+ * 超出数量的旧版本被压缩到数据目录的 whitelist_history.log 中，只记录与下一个版本不同的条目；
+ * 恢复时从内存中最旧的版本开始逐条倒推。日志超过 {@link #MAX_JOURNAL_BYTES} 时改名为 .old，
+ * 其中的版本不再可恢复
+ *
+ * 正常关闭时在日志末尾写入一条同步记录，包含最新版本号和该版本内容的指纹。启动时只有当前配置与同步记录一致，
+ * 才从该版本继续编号；否则（上次未正常关闭，或关闭后修改了配置文件）从日志中最大的版本号之后开始新的基准，
+ * 避免新版本沿用旧版本号、回滚时按不匹配的内容倒推
+ */
+public class WhitelistHistory {
+    public static final String JOURNAL_FILE = "whitelist_history.log";
+
+    private static final long MAX_JOURNAL_BYTES = 4L * 1024 * 1024;
+    private static final long FLUSH_TIMEOUT_MS = 5000;
+
+    private final Path journalFile;
+    private final IoExecutor ioExecutor;
+    private final Logger logger;
+    // 按版本号从旧到新排列
+    private final ArrayDeque<Version> versions;
+    private int capacity;
+    // 日志中可恢复的版本数
+    private int compactedCount;
+
+    public WhitelistHistory(Path dataDirectory, int capacity, IoExecutor ioExecutor, Logger logger) {
+        this.journalFile = dataDirectory.resolve(JOURNAL_FILE);
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+        this.versions = new ArrayDeque<>();
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 读取日志，返回启动时白名单应使用的版本号，没有日志时返回0
+     * 在启动时调用一次。当前配置与日志末尾的同步记录一致时沿用该版本号，使日志与重启后的版本衔接；
+     * 不一致时返回日志中最大版本号加一，之前的版本不再可恢复
+     * @param current 从配置读取的白名单
+     */
+    public long load(PersistentHashMap<String, WhitelistEntry> current) {
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+        long lastVersion = 0;
+        int count = 0;
+        String[] sync = null;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("@\t")) {
+                    String[] parts = line.split("\t", 7);
+                    try {
+                        lastVersion = Math.max(lastVersion, Long.parseLong(parts[2]));
+                        count++;
+                    } catch (RuntimeException e) {
+                        logger.debug("忽略无效的白名单历史记录: {}", line);
+                    }
+                } else if (line.startsWith("#\t")) {
+                    sync = line.split("\t");
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("读取白名单历史日志失败: {}", e.getMessage());
+            return 0;
+        }
+
+        long syncVersion = -1;
+        boolean matches = false;
+        if (sync != null && sync.length == 4) {
+            try {
+                syncVersion = Long.parseLong(sync[1]);
+                matches = Integer.parseInt(sync[2]) == current.size() && Long.parseLong(sync[3]) == fingerprint(current);
+            } catch (NumberFormatException e) {
+                logger.debug("忽略无效的白名单历史同步记录: {}", String.join("\t", sync));
+            }
+        }
+        if (matches && syncVersion >= lastVersion) {
+            synchronized (this) {
+                compactedCount = count;
+            }
+            logger.debug("白名单历史日志中有 {} 个版本，最新为 v{}", count, syncVersion);
+            return syncVersion;
+        }
+
+        long base = Math.max(lastVersion, syncVersion) + 1;
+        logger.warn("白名单与历史日志不一致（上次未正常关闭或配置文件被修改），从 v{} 开始新的版本，之前的版本不再可恢复", base);
+        return base;
+    }
+
+    /**
+     * 设置内存中保留的版本数，多出的旧版本立即压缩到日志
+     */
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        while (versions.size() > this.capacity) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * 记录一个新版本
+     * 调用方需保证版本号递增
+     */
+    synchronized void record(long version, String reason, String summary, PersistentHashMap<String, WhitelistEntry> snapshot) {
+        versions.addLast(new Version(version, System.currentTimeMillis(), reason, summary, snapshot));
+        while (versions.size() > capacity) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * 替换最新版本的快照
+     * 用于不改变白名单成员、不递增版本号的修改（如记录UUID）
+     */
+    synchronized void replaceLatest(PersistentHashMap<String, WhitelistEntry> snapshot) {
+        Version latest = versions.pollLast();
+        if (latest != null) {
+            versions.addLast(new Version(latest.version, latest.timestamp, latest.reason, latest.summary, snapshot));
+        }
+    }
+
+    /**
+     * 获取内存中的版本，从新到旧排列
+     */
+    public synchronized List<Version> getVersions() {
+        List<Version> result = new ArrayList<>(versions);
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 获取已压缩到日志中、仍可恢复的版本数
+     */
+    public synchronized int getCompactedCount() {
+        return compactedCount;
+    }
+
+    /**
+     * 获取指定版本的快照
+     * 内存中的版本立即返回；更早的版本在I/O线程上读取日志倒推得到
+     * @return 以快照结束；版本不存在或日志不完整时以 IllegalArgumentException 结束
+     */
+    CompletableFuture<PersistentHashMap<String, WhitelistEntry>> restore(long version) {
+        Version base;
+        synchronized (this) {
+            for (Version candidate : versions) {
+                if (candidate.version == version) {
+                    return CompletableFuture.completedFuture(candidate.snapshot);
+                }
+            }
+            base = versions.peekFirst();
+        }
+        if (base == null || version <= 0 || version > base.version) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("历史记录中没有版本 v" + version));
+        }
+        // 与日志写入在同一队列中执行，能读到之前压缩的所有版本
+        return ioExecutor.submit(IoExecutor.HISTORY, () -> replay(base, version));
+    }
+
+    /**
+     * 把内存中除最新版本外的所有版本压缩到日志，并等待写入完成
+     * 在插件关闭时调用，使重启后仍能恢复这些版本
+     */
+    public void flush() {
+        synchronized (this) {
+            while (versions.size() > 1) {
+                evictOldest();
+            }
+            Version latest = versions.peekLast();
+            if (latest != null) {
+                // 同步记录写在最后，启动时据此判断配置是否仍是该版本
+                String text = "#\t" + latest.version + "\t" + latest.snapshot.size() + "\t" +
+                              fingerprint(latest.snapshot) + "\n";
+                ioExecutor.run(IoExecutor.HISTORY, () -> append(text));
+            }
+        }
+        try {
+            ioExecutor.run(IoExecutor.HISTORY, () -> { }).get(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("等待白名单历史日志写入超时");
+        }
+    }
+
+    /**
+     * 离线压缩数据目录中的历史日志，只能在插件未运行时调用
+     * 只保留最新的 keep 个版本，并丢弃与后续版本不连续（无法倒推到）的旧记录、格式无效的行和已归档的 .old 日志。
+     * 分两遍流式读取，第一遍只记录版本号，内存占用与日志大小无关
+     * @return 保留的版本数
+     */
+    public static int compactJournal(Path dataDirectory, int keep) throws IOException {
+        Path journalFile = dataDirectory.resolve(JOURNAL_FILE);
+        Files.deleteIfExists(journalFile.resolveSibling(JOURNAL_FILE + ".old"));
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+
+        // 第一遍: 找出最后一处断链，之前的记录都无法恢复
+        int valid = 0;
+        int firstRecoverable = 0;
+        long previousTo = -1;
+        String sync = null;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#\t")) {
+                    sync = line;
+                }
+                long[] header = parseHeader(line);
+                if (header != null) {
+                    if (previousTo >= 0 && header[0] != previousTo) {
+                        firstRecoverable = valid;
+                    }
+                    previousTo = header[1];
+                    valid++;
+                }
+            }
+        }
+        int first = Math.max(firstRecoverable, valid - Math.max(0, keep));
+
+        // 第二遍: 写出保留的记录
+        Path temp = journalFile.resolveSibling(JOURNAL_FILE + ".tmp");
+        int index = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            boolean copying = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("@\t")) {
+                    copying = parseHeader(line) != null && index++ >= first;
+                    if (!copying) {
+                        continue;
+                    }
+                } else if (!copying || !(line.startsWith("=\t") && line.split("\t").length == 4
+                                         || line.startsWith("x\t") && line.split("\t").length == 2)) {
+                    continue;
+                }
+                writer.write(line);
+                writer.newLine();
+            }
+            // 保留最后一条同步记录，否则下次启动会认为配置与日志不一致
+            if (sync != null) {
+                writer.write(sync);
+                writer.newLine();
+            }
+        }
+        Files.move(temp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return valid - first;
+    }
+
+    /**
+     * 计算白名单内容的指纹，与遍历顺序无关
+     */
+    static long fingerprint(PersistentHashMap<String, WhitelistEntry> snapshot) {
+        long[] sum = new long[1];
+        snapshot.forEach((playerName, entry) -> {
+            long h = playerName.hashCode() * 0x9E3779B97F4A7C15L;
+            h ^= entry.getExpiresAt() * 0xC2B2AE3D27D4EB4FL;
+            h ^= entry.getUuid() != null ? entry.getUuid().hashCode() * 0x165667B19E3779F9L : 0;
+            // 混合后再累加，避免不同条目的差异相互抵消
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            sum[0] += h;
+        });
+        return sum[0];
+    }
+
+    /**
+     * @return 记录头中的 {起始版本, 目标版本}，不是有效的记录头时返回null
+     */
+    private static long[] parseHeader(String line) {
+        if (!line.startsWith("@\t")) {
+            return null;
+        }
+        String[] parts = line.split("\t", 7);
+        try {
+            return new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])};
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把最旧的版本写成与下一个版本的差异
+     * 调用方需持有本对象的锁
+     */
+    private void evictOldest() {
+        Version oldest = versions.pollFirst();
+        Version next = versions.peekFirst();
+        if (oldest == null || next == null) {
+            return;
+        }
+
+        StringBuilder record = new StringBuilder();
+        record.append("@\t").append(oldest.version).append('\t').append(next.version).append('\t')
+              .append(oldest.timestamp).append('\t').append(oldest.snapshot.size()).append('\t')
+              .append(oldest.summary).append('\t').append(oldest.reason).append('\n');
+        // 每行记录该玩家在旧版本中的状态
+        PersistentHashMap.diff(next.snapshot, oldest.snapshot, new PersistentHashMap.DiffVisitor<>() {
+            @Override
+            public void added(String playerName, WhitelistEntry entry) {
+                appendEntry(record, playerName, entry);
+            }
+
+            @Override
+            public void removed(String playerName, WhitelistEntry entry) {
+                record.append("x\t").append(playerName).append('\n');
+            }
+
+            @Override
+            public void changed(String playerName, WhitelistEntry oldEntry, WhitelistEntry newEntry) {
+                appendEntry(record, playerName, newEntry);
+            }
+        });
+        compactedCount++;
+        String text = record.toString();
+        ioExecutor.run(IoExecutor.HISTORY, () -> append(text));
+    }
+
+    private static void appendEntry(StringBuilder record, String playerName, WhitelistEntry entry) {
+        record.append("=\t").append(playerName).append('\t').append(entry.getExpiresAt()).append('\t')
+              .append(entry.getUuid() != null ? entry.getUuid().toString() : "-").append('\n');
+    }
+
+    private void append(String text) {
+        try {
+            if (Files.exists(journalFile) && Files.size(journalFile) > MAX_JOURNAL_BYTES) {
+                Files.move(journalFile, journalFile.resolveSibling(JOURNAL_FILE + ".old"),
+                           StandardCopyOption.REPLACE_EXISTING);
+                synchronized (this) {
+                    compactedCount = 1;
+                }
+                logger.info("白名单历史日志已超过 {} 字节，旧日志已归档", MAX_JOURNAL_BYTES);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                                                                  StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(text);
+            }
+        } catch (IOException e) {
+            logger.warn("写入白名单历史日志失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从基准版本开始按日志逐个倒推到目标版本
+     */
+    private PersistentHashMap<String, WhitelistEntry> replay(Version base, long target) throws IOException {
+        // 只保留目标版本到基准版本之间的记录
+        List<List<String>> records = new ArrayList<>();
+        List<Long> froms = new ArrayList<>();
+        List<Long> tos = new ArrayList<>();
+        if (Files.exists(journalFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                List<String> current = null;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("#\t")) {
+                        current = null;
+                    } else if (line.startsWith("@\t")) {
+                        current = null;
+                        String[] parts = line.split("\t", 7);
+                        try {
+                            long from = Long.parseLong(parts[1]);
+                            long to = Long.parseLong(parts[2]);
+                            if (from >= target && to <= base.version) {
+                                current = new ArrayList<>();
+                                records.add(current);
+                                froms.add(from);
+                                tos.add(to);
+                            }
+                        } catch (RuntimeException e) {
+                            logger.debug("忽略无效的白名单历史记录: {}", line);
+                        }
+                    } else if (current != null) {
+                        current.add(line);
+                    }
+                }
+            }
+        }
+
+        PersistentHashMap<String, WhitelistEntry> snapshot = base.snapshot;
+        long current = base.version;
+        for (int i = records.size() - 1; i >= 0 && current != target; i--) {
+            if (tos.get(i) != current) {
+                throw new IllegalArgumentException("白名单历史日志不连续，无法恢复到版本 v" + target);
+            }
+            for (String line : records.get(i)) {
+                String[] parts = line.split("\t");
+                if (parts.length == 2 && "x".equals(parts[0])) {
+                    snapshot = snapshot.remove(parts[1]);
+                } else if (parts.length == 4 && "=".equals(parts[0])) {
+                    UUID uuid = "-".equals(parts[3]) ? null : UUID.fromString(parts[3]);
+                    snapshot = snapshot.put(parts[1], WhitelistEntry.of(Long.parseLong(parts[2]), uuid));
+                }
+            }
+            current = froms.get(i);
+        }
+        if (current != target) {
+            throw new IllegalArgumentException("历史记录中没有版本 v" + target);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 一个历史版本
+     */
+    public static final class Version {
+        private final long version;
+        private final long timestamp;
+        private final String reason;
+        private final String summary;
+        private final PersistentHashMap<String, WhitelistEntry> snapshot;
+
+        private Version(long version, long timestamp, String reason, String summary,
+                        PersistentHashMap<String, WhitelistEntry> snapshot) {
+            this.version = version;
+            this.timestamp = timestamp;
+            this.reason = reason;
+            this.summary = summary;
+            this.snapshot = snapshot;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * 获取产生该版本的时间戳（毫秒）
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * 获取产生该版本的操作
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * 获取与上一版本相比的变化，格式为 "+新增 -移除 ~更新"
+         */
+        public String getSummary() {
+            return summary;
+        }
+
+        /**
+         * 获取该版本的白名单人数
+         */
+        public int getSize() {
+            return snapshot.size();
+        }
+    }
+}
@@ -3,60 +3,79 @@ package org.plugin.listtools;
 import org.slf4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * 白名单管理器
  * 提供线程安全的白名单操作接口
+ *
+ * 白名单保存在不可变的 {@link WhitelistSnapshot} 中，读取直接访问当前快照而不加锁；
+ * 所有修改在写锁内基于当前快照生成新版本并一次性发布，产生一个 {@link WhitelistChangeSet}。
+ * 多步修改可以通过 {@link #beginBatch()} 合并为一个事务，只保存一次配置
+ *
+ * 每个版本的快照记录在 {@link WhitelistHistory} 中，可以通过 {@link #rollback(long)} 恢复
  */
 public class WhitelistManager {
     private final ConfigManager configManager;
     private final Logger logger;
-    private final Set<String> whitelistCache;
-    private final ReadWriteLock lock;
+    private final Object writeLock;
+    // 当前白名单及其版本号，版本号每次内容变化时递增，供自动检查判断是否需要重新扫描
+    private volatile WhitelistSnapshot snapshot;
+    // 驱动限时白名单到期的分层时间轮，节拍为1秒
+    private final TimingWheel<String> expiryWheel;
+    // 与服务器访问列表等位图共享的玩家编号空间
+    private final PlayerIdRegistry playerIds;
+    private final WhitelistSearchIndex searchIndex;
+    private final WhitelistHistory history;
+    // 可选的大型名单，与白名单共同决定是否放行
+    private final TieredWhitelist tieredWhitelist;
+    private final List<Consumer<WhitelistChangeSet>> changeListeners;
 
-    public WhitelistManager(ConfigManager configManager, Logger logger) {
+    public WhitelistManager(ConfigManager configManager, IoExecutor ioExecutor, Logger logger) {
         this.configManager = configManager;
         this.logger = logger;
-        this.whitelistCache = ConcurrentHashMap.newKeySet();
-        this.lock = new ReentrantReadWriteLock();
-        
-        // 初始化缓存
-        refreshCache();
+        this.writeLock = new Object();
+        this.expiryWheel = new TimingWheel<>(1000, System.currentTimeMillis());
+        this.playerIds = new PlayerIdRegistry();
+        this.searchIndex = new WhitelistSearchIndex(playerIds);
+        this.changeListeners = new CopyOnWriteArrayList<>();
+        this.history = new WhitelistHistory(configManager.getDataDirectory(), configManager.getWhitelistHistorySize(),
+                                            ioExecutor, logger);
+        this.tieredWhitelist = new TieredWhitelist(configManager.getDataDirectory(), ioExecutor, logger);
+        tieredWhitelist.configure(configManager.isTieredWhitelist(), configManager.getTieredWhitelistCacheSize());
+
+        // 配置与历史日志的同步记录一致时从该版本继续编号，使重启前压缩的版本仍可恢复
+        PersistentHashMap<String, WhitelistEntry> entries = readConfig(PersistentHashMap.empty());
+        this.snapshot = new WhitelistSnapshot(entries, SortedNameIndex.of(entries.keys()),
+                                              Math.max(1, history.load(entries)));
+        scheduleAll(entries);
+        searchIndex.update(entries.keys(), Collections.emptyList());
+        history.record(snapshot.getVersion(), "启动", "+" + entries.size() + " -0 ~0", entries);
+        logger.debug("白名单已加载，共 {} 个玩家", entries.size());
     }
 
     /**
      * 刷新白名单缓存
      */
     public void refreshCache() {
-        lock.writeLock().lock();
-        try {
-            whitelistCache.clear();
-            List<String> whitelist = configManager.getWhitelist();
-            whitelistCache.addAll(whitelist);
-            logger.debug("白名单缓存已刷新，共 {} 个玩家", whitelistCache.size());
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (writeLock) {
+            history.setCapacity(configManager.getWhitelistHistorySize());
+            tieredWhitelist.configure(configManager.isTieredWhitelist(), configManager.getTieredWhitelistCacheSize());
+            publish(readConfig(snapshot.entries()), "重载");
+            logger.debug("白名单缓存已刷新，共 {} 个玩家", snapshot.size());
         }
     }
 
     /**
      * 检查玩家是否在白名单中
-     * 严格匹配玩家名，区分大小写
+     * 严格匹配玩家名，区分大小写；白名单中的玩家名都不为空白，不需要另外校验
+     * 启用分层白名单时，不在白名单中的玩家再到分层白名单中查找
      */
     public boolean isWhitelisted(String playerName) {
-        if (playerName == null || playerName.trim().isEmpty()) {
-            return false;
-        }
-        
-        lock.readLock().lock();
-        try {
-            return whitelistCache.contains(playerName);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.contains(playerName) || tieredWhitelist.contains(playerName);
     }
 
     /**
@@ -65,32 +84,29 @@ public class WhitelistManager {
      * @return 是否成功添加（如果已存在则返回false）
      */
     public boolean addPlayer(String playerName) {
-        if (playerName == null || playerName.trim().isEmpty()) {
+        return addPlayer(playerName, 0);
+    }
+
+    /**
+     * 添加玩家到白名单，可指定到期时间
+     * 玩家已在白名单中时更新其到期时间
+     * @param playerName 玩家名
+     * @param expiresAt 到期时间戳（毫秒），0 表示永久
+     * @return 是否成功添加或更新（如果已存在且到期时间相同则返回false）
+     */
+    public boolean addPlayer(String playerName, long expiresAt) {
+        if (!isValidName(playerName) || expiresAt < 0) {
             return false;
         }
-        
+
         playerName = playerName.trim();
-        
-        lock.writeLock().lock();
-        try {
-            if (whitelistCache.contains(playerName)) {
-                return false; // 已存在
-            }
-            
-            // 添加到缓存
-            whitelistCache.add(playerName);
-            
-            // 更新配置文件
-            List<String> whitelist = new ArrayList<>(whitelistCache);
-            Collections.sort(whitelist); // 排序以保持一致性
-            configManager.setWhitelist(whitelist);
-            configManager.saveConfig();
-            
+        WhitelistChangeSet changes = apply(Collections.singletonMap(playerName, expiresAt), "添加").changes;
+        if (!changes.getUpdated().isEmpty()) {
+            logger.info("玩家 {} 的白名单到期时间已更新", playerName);
+        } else if (!changes.getAdded().isEmpty()) {
             logger.info("玩家 {} 已添加到白名单", playerName);
-            return true;
-        } finally {
-            lock.writeLock().unlock();
         }
+        return !changes.isEmpty();
     }
 
     /**
@@ -99,73 +115,52 @@ public class WhitelistManager {
      * @return 是否成功移除（如果不存在则返回false）
      */
     public boolean removePlayer(String playerName) {
-        if (playerName == null || playerName.trim().isEmpty()) {
+        if (!isValidName(playerName)) {
             return false;
         }
-        
+
         playerName = playerName.trim();
-        
-        lock.writeLock().lock();
-        try {
-            if (!whitelistCache.contains(playerName)) {
-                return false; // 不存在
-            }
-            
-            // 从缓存中移除
-            whitelistCache.remove(playerName);
-            
-            // 更新配置文件
-            List<String> whitelist = new ArrayList<>(whitelistCache);
-            Collections.sort(whitelist); // 排序以保持一致性
-            configManager.setWhitelist(whitelist);
-            configManager.saveConfig();
-            
-            logger.info("玩家 {} 已从白名单中移除", playerName);
-            return true;
-        } finally {
-            lock.writeLock().unlock();
+        WhitelistChangeSet changes = apply(Collections.singletonMap(playerName, WhitelistBatch.REMOVE), "移除").changes;
+        if (changes.isEmpty()) {
+            return false; // 不存在
         }
+        logger.info("玩家 {} 已从白名单中移除", playerName);
+        return true;
     }
 
     /**
      * 获取白名单列表的副本
+     * 只读遍历时直接使用 {@link #getSnapshot()} 的有序索引，不需要复制
      * @return 排序后的白名单列表
      */
     public List<String> getWhitelistCopy() {
-        lock.readLock().lock();
-        try {
-            List<String> result = new ArrayList<>(whitelistCache);
-            Collections.sort(result);
-            return result;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return new ArrayList<>(snapshot.getSortedPlayers().asList());
+    }
+
+    /**
+     * 获取当前白名单的只读快照
+     * 快照直接引用当前版本的数据，不复制白名单
+     */
+    public WhitelistSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
      * 获取白名单大小
      */
     public int getWhitelistSize() {
-        lock.readLock().lock();
-        try {
-            return whitelistCache.size();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.size();
     }
 
     /**
      * 清空白名单
      */
     public void clearWhitelist() {
-        lock.writeLock().lock();
-        try {
-            whitelistCache.clear();
-            configManager.setWhitelist(new ArrayList<>());
-            configManager.saveConfig();
+        synchronized (writeLock) {
+            publish(PersistentHashMap.empty(), "清空");
+            expiryWheel.clear();
+            saveWhitelist();
             logger.info("白名单已清空");
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
@@ -175,36 +170,33 @@ public class WhitelistManager {
      * @return 成功添加的玩家数量
      */
     public int addPlayers(List<String> playerNames) {
-        if (playerNames == null || playerNames.isEmpty()) {
+        return addPlayers(playerNames, 0);
+    }
+
+    /**
+     * 批量添加玩家到白名单，可指定到期时间
+     * 已在白名单中的玩家会更新到期时间，所有变化只保存一次配置
+     * @param playerNames 玩家名列表
+     * @param expiresAt 到期时间戳（毫秒），0 表示永久
+     * @return 新增或更新了到期时间的玩家数量
+     */
+    public int addPlayers(List<String> playerNames, long expiresAt) {
+        if (playerNames == null || playerNames.isEmpty() || expiresAt < 0) {
             return 0;
         }
-        
-        lock.writeLock().lock();
-        try {
-            int addedCount = 0;
-            for (String playerName : playerNames) {
-                if (playerName != null && !playerName.trim().isEmpty()) {
-                    String trimmedName = playerName.trim();
-                    if (!whitelistCache.contains(trimmedName)) {
-                        whitelistCache.add(trimmedName);
-                        addedCount++;
-                    }
-                }
-            }
-            
-            if (addedCount > 0) {
-                // 更新配置文件
-                List<String> whitelist = new ArrayList<>(whitelistCache);
-                Collections.sort(whitelist);
-                configManager.setWhitelist(whitelist);
-                configManager.saveConfig();
-                logger.info("批量添加了 {} 个玩家到白名单", addedCount);
+
+        Map<String, Long> operations = new LinkedHashMap<>();
+        for (String playerName : playerNames) {
+            if (isValidName(playerName)) {
+                operations.put(playerName.trim(), expiresAt);
             }
-            
-            return addedCount;
-        } finally {
-            lock.writeLock().unlock();
         }
+        WhitelistChangeSet changes = apply(operations, "批量添加").changes;
+        int addedCount = changes.getAdded().size() + changes.getUpdated().size();
+        if (addedCount > 0) {
+            logger.info("批量添加了 {} 个玩家到白名单", addedCount);
+        }
+        return addedCount;
     }
 
     /**
@@ -216,43 +208,465 @@ public class WhitelistManager {
         if (playerNames == null || playerNames.isEmpty()) {
             return 0;
         }
-        
-        lock.writeLock().lock();
+
+        Map<String, Long> operations = new LinkedHashMap<>();
+        for (String playerName : playerNames) {
+            if (isValidName(playerName)) {
+                operations.put(playerName.trim(), WhitelistBatch.REMOVE);
+            }
+        }
+        int removedCount = apply(operations, "批量移除").changes.getRemoved().size();
+        if (removedCount > 0) {
+            logger.info("批量移除了 {} 个玩家从白名单", removedCount);
+        }
+        return removedCount;
+    }
+
+    /**
+     * 开始一个白名单事务
+     */
+    public WhitelistBatch beginBatch() {
+        return new WhitelistBatch(this);
+    }
+
+
+    /**
+     * 一次性移除不活跃的玩家
+     * 与事务相同，只产生一个变更集并只保存一次配置，保存失败时自动撤销
+     * @return 配置写盘后以变更集结束
+     */
+    public CompletableFuture<WhitelistChangeSet> prune(Collection<String> playerNames) {
+        Map<String, Long> operations = new LinkedHashMap<>();
+        for (String playerName : playerNames) {
+            operations.put(playerName, WhitelistBatch.REMOVE);
+        }
         try {
-            int removedCount = 0;
-            for (String playerName : playerNames) {
-                if (playerName != null && !playerName.trim().isEmpty()) {
-                    String trimmedName = playerName.trim();
-                    if (whitelistCache.remove(trimmedName)) {
-                        removedCount++;
+            return commit(operations, "清理");
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 提交事务暂存的操作
+     * 先校验所有玩家名，再一次性发布；保存失败时撤销仍保持本次结果的条目
+     * @throws IllegalArgumentException 存在无效的玩家名，此时不做任何修改
+     */
+    CompletableFuture<WhitelistChangeSet> commit(Map<String, Long> operations, String reason) {
+        List<String> invalid = new ArrayList<>();
+        for (String playerName : operations.keySet()) {
+            if (!isValidName(playerName) || playerName.chars().anyMatch(Character::isWhitespace)) {
+                invalid.add(String.valueOf(playerName));
+            }
+        }
+        if (!invalid.isEmpty()) {
+            throw new IllegalArgumentException("无效的玩家名: " + String.join(", ", invalid));
+        }
+
+        Applied applied = apply(operations, reason);
+        if (applied.changes.isEmpty()) {
+            return CompletableFuture.completedFuture(applied.changes);
+        }
+        logger.info("白名单{}已提交: {}", reason, applied.changes);
+        return applied.saved.handle((ignored, error) -> {
+            if (error == null) {
+                return applied.changes;
+            }
+            revert(applied);
+            throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+        });
+    }
+
+    /**
+     * 把白名单恢复到历史版本
+     * 恢复的内容作为一个新版本发布，只产生一个变更集并只保存一次配置；
+     * 内存中保留的版本直接复用其快照，不需要复制整个白名单
+     * @param targetVersion 要恢复的版本号
+     * @return 配置写盘后以变更集结束；版本不存在时以 IllegalArgumentException 结束
+     */
+    public CompletableFuture<WhitelistChangeSet> rollback(long targetVersion) {
+        return history.restore(targetVersion).thenCompose(restored -> rollback(targetVersion, restored));
+    }
+
+    /**
+     * 立即发布已从历史中取得的版本内容
+     * @param restored {@link WhitelistHistory} 中版本 targetVersion 的快照
+     * @return 配置写盘后以变更集结束
+     */
+    CompletableFuture<WhitelistChangeSet> rollback(long targetVersion, PersistentHashMap<String, WhitelistEntry> restored) {
+        WhitelistChangeSet changes;
+        CompletableFuture<Void> saved;
+        synchronized (writeLock) {
+            PersistentHashMap<String, WhitelistEntry> previous = snapshot.entries();
+            changes = publish(restored, "回滚到 v" + targetVersion);
+            saved = snapshot.entries() != previous ? saveWhitelist() : CompletableFuture.completedFuture(null);
+        }
+        if (!changes.isEmpty()) {
+            logger.info("白名单已回滚到版本 v{}: {}", targetVersion, changes);
+        }
+        return saved.thenApply(ignored -> changes);
+    }
+
+    /**
+     * 获取版本历史
+     */
+    public WhitelistHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * 在写锁内一次性应用操作，版本号只递增一次，配置只保存一次
+     * @param operations 玩家名到到期时间的映射，值为 {@link WhitelistBatch#REMOVE} 时表示移除
+     * @param reason 记录到版本历史中的操作说明
+     */
+    private Applied apply(Map<String, Long> operations, String reason) {
+        synchronized (writeLock) {
+            PersistentHashMap<String, WhitelistEntry> next = snapshot.entries();
+            Map<String, Undo> undo = new HashMap<>();
+
+            for (Map.Entry<String, Long> operation : operations.entrySet()) {
+                String playerName = operation.getKey();
+                long value = operation.getValue();
+                WhitelistEntry existing = next.get(playerName);
+                WhitelistEntry target;
+
+                if (value == WhitelistBatch.REMOVE) {
+                    if (existing == null) {
+                        continue;
+                    }
+                    target = null;
+                    next = next.remove(playerName);
+                } else {
+                    if (existing != null && existing.getExpiresAt() == value) {
+                        continue;
                     }
+                    target = existing != null ? existing.withExpiresAt(value) : WhitelistEntry.of(value, null);
+                    next = next.put(playerName, target);
+                }
+                undo.put(playerName, new Undo(existing, target));
+            }
+
+            if (undo.isEmpty()) {
+                return new Applied(new WhitelistChangeSet(snapshot, new ArrayList<>(), new ArrayList<>(), new ArrayList<>()),
+                                   undo, CompletableFuture.completedFuture(null));
+            }
+            return new Applied(publish(next, reason), undo, saveWhitelist());
+        }
+    }
+
+    /**
+     * 撤销一次提交
+     * 只恢复仍保持该次提交结果的条目，之后又被修改过的条目以新的修改为准
+     */
+    private void revert(Applied applied) {
+        synchronized (writeLock) {
+            PersistentHashMap<String, WhitelistEntry> next = snapshot.entries();
+            for (Map.Entry<String, Undo> entry : applied.undo.entrySet()) {
+                String playerName = entry.getKey();
+                Undo undo = entry.getValue();
+                WhitelistEntry current = next.get(playerName);
+                boolean unchanged = undo.now != null
+                    ? current != null && current.getExpiresAt() == undo.now.getExpiresAt()
+                    : current == null;
+                if (!unchanged) {
+                    continue;
+                }
+                next = undo.previous != null ? next.put(playerName, undo.previous) : next.remove(playerName);
+            }
+            WhitelistChangeSet changes = publish(next, "撤销 v" + applied.changes.getVersion());
+            saveWhitelist();
+            logger.warn("保存白名单失败，已撤销版本 {} 的 {} 项变更", applied.changes.getVersion(), changes.size());
+        }
+    }
+
+    /**
+     * 移除所有已到期的限时白名单
+     * 推进到期时间轮，到期的玩家合并为一次批量移除，只保存一次配置
+     * @param now 当前时间戳（毫秒）
+     * @return 本次移除的玩家名列表
+     */
+    public List<String> expireEntries(long now) {
+        WhitelistChangeSet changes;
+        synchronized (writeLock) {
+            PersistentHashMap<String, WhitelistEntry> current = snapshot.entries();
+            Set<String> expired = new LinkedHashSet<>();
+            expiryWheel.advance(now, playerName -> {
+                // 到期时间可能已被更新或条目已被移除，此时忽略
+                WhitelistEntry entry = current.get(playerName);
+                if (entry != null && entry.getExpiresAt() > 0 && entry.getExpiresAt() <= now) {
+                    expired.add(playerName);
                 }
+            });
+
+            if (expired.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            PersistentHashMap<String, WhitelistEntry> next = current;
+            for (String playerName : expired) {
+                next = next.remove(playerName);
             }
-            
-            if (removedCount > 0) {
-                // 更新配置文件
-                List<String> whitelist = new ArrayList<>(whitelistCache);
-                Collections.sort(whitelist);
-                configManager.setWhitelist(whitelist);
-                configManager.saveConfig();
-                logger.info("批量移除了 {} 个玩家从白名单", removedCount);
+            changes = publish(next, "到期");
+            saveWhitelist();
+            logger.info("{} 个限时白名单已到期并移除", expired.size());
+        }
+        return changes.getRemoved();
+    }
+
+    /**
+     * 获取玩家的白名单到期时间
+     * @return 到期时间戳（毫秒），永久白名单或不在白名单中时返回0
+     */
+    public long getExpiry(String playerName) {
+        return snapshot.getExpiry(playerName);
+    }
+
+    /**
+     * 获取白名单玩家已解析的UUID
+     * @return UUID，尚未解析或不在白名单中时返回null
+     */
+    public UUID getUuid(String playerName) {
+        return snapshot.getUuid(playerName);
+    }
+
+    /**
+     * 记录白名单玩家解析得到的UUID，不在白名单中的玩家被忽略
+     * 所有变化合并为一次保存，不改变白名单版本号
+     * @return 实际记录的数量
+     */
+    public int setUuids(Map<String, UUID> resolved) {
+        synchronized (writeLock) {
+            PersistentHashMap<String, WhitelistEntry> next = snapshot.entries();
+            int updated = 0;
+            for (Map.Entry<String, UUID> item : resolved.entrySet()) {
+                WhitelistEntry entry = next.get(item.getKey());
+                if (entry != null && !item.getValue().equals(entry.getUuid())) {
+                    next = next.put(item.getKey(), entry.withUuid(item.getValue()));
+                    updated++;
+                }
+            }
+            if (updated > 0) {
+                snapshot = new WhitelistSnapshot(next, snapshot.getSortedPlayers(), snapshot.getVersion());
+                history.replaceLatest(next);
+                saveWhitelist();
+                logger.debug("已记录 {} 个白名单玩家的UUID", updated);
+            }
+            return updated;
+        }
+    }
+
+    /**
+     * 获取尚未解析UUID的白名单玩家
+     */
+    public List<String> getUnresolvedPlayers() {
+        WhitelistSnapshot current = snapshot;
+        List<String> result = new ArrayList<>();
+        for (String playerName : current.getSortedPlayers().asList()) {
+            if (current.getUuid(playerName) == null) {
+                result.add(playerName);
             }
-            
-            return removedCount;
-        } finally {
-            lock.writeLock().unlock();
         }
+        return result;
+    }
+
+    /**
+     * 注册变更监听器
+     * 每次提交后在写锁内调用一次，多个提交的变更集严格按版本顺序送达；
+     * 监听器应尽快返回，且不能在其中修改白名单
+     */
+    public void addChangeListener(Consumer<WhitelistChangeSet> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * 注销变更监听器
+     */
+    public void removeChangeListener(Consumer<WhitelistChangeSet> listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * 获取共享的玩家编号注册表
+     */
+    public PlayerIdRegistry getPlayerIds() {
+        return playerIds;
+    }
+
+    /**
+     * 获取随白名单维护的搜索索引
+     */
+    public WhitelistSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * 获取分层白名单
+     */
+    public TieredWhitelist getTieredWhitelist() {
+        return tieredWhitelist;
+    }
+
+    /**
+     * 获取白名单版本号
+     * 每次白名单内容发生变化（包括重载）都会递增
+     */
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * 发布新的白名单快照
+     * 与当前快照比较得出变更集，只有成员或到期时间变化时才递增版本号并记录历史；
+     * 新增或更新了到期时间的条目加入到期时间轮，有变化时通知变更监听器。调用方需持有写锁，并自行保存配置
+     */
+    private WhitelistChangeSet publish(PersistentHashMap<String, WhitelistEntry> next, String reason) {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<String> updated = new ArrayList<>();
+        WhitelistSnapshot current = snapshot;
+        PersistentHashMap.diff(current.entries(), next, new PersistentHashMap.DiffVisitor<>() {
+            @Override
+            public void added(String playerName, WhitelistEntry entry) {
+                added.add(playerName);
+                playerIds.idOf(playerName);
+                schedule(playerName, entry);
+            }
+
+            @Override
+            public void removed(String playerName, WhitelistEntry entry) {
+                removed.add(playerName);
+            }
+
+            @Override
+            public void changed(String playerName, WhitelistEntry oldEntry, WhitelistEntry newEntry) {
+                // 只有UUID变化的条目不算作更新
+                if (oldEntry.getExpiresAt() != newEntry.getExpiresAt()) {
+                    updated.add(playerName);
+                    schedule(playerName, newEntry);
+                }
+            }
+        });
+
+        if (added.isEmpty() && removed.isEmpty() && updated.isEmpty()) {
+            if (next != current.entries()) {
+                snapshot = new WhitelistSnapshot(next, current.getSortedPlayers(), current.getVersion());
+                history.replaceLatest(next);
+            }
+            return new WhitelistChangeSet(snapshot, added, removed, updated);
+        }
+        searchIndex.update(added, removed);
+        // 有序索引只合并新增和移除的玩家名，不重新排序
+        snapshot = new WhitelistSnapshot(next, current.getSortedPlayers().withChanges(added, removed),
+                                         current.getVersion() + 1);
+        WhitelistChangeSet changes = new WhitelistChangeSet(snapshot, reason, added, removed, updated);
+        history.record(changes.getVersion(), reason, changes.getSummary(), next);
+        fireChange(changes);
+        return changes;
+    }
+
+    /**
+     * 在当前快照的基础上应用配置文件中的内容，未变化的条目保持共享
+     */
+    private PersistentHashMap<String, WhitelistEntry> readConfig(PersistentHashMap<String, WhitelistEntry> base) {
+        List<String> whitelist = configManager.getWhitelist();
+        Map<String, Long> expiries = configManager.getWhitelistExpiries();
+        Map<String, UUID> uuids = configManager.getWhitelistUuids();
+
+        PersistentHashMap<String, WhitelistEntry> next = base;
+        Set<String> names = new HashSet<>(whitelist);
+        for (String playerName : base.keys()) {
+            if (!names.contains(playerName)) {
+                next = next.remove(playerName);
+            }
+        }
+        for (String playerName : whitelist) {
+            Long expiresAt = expiries.get(playerName);
+            next = next.put(playerName, WhitelistEntry.of(expiresAt != null && expiresAt > 0 ? expiresAt : 0,
+                                                           uuids.get(playerName)));
+            playerIds.idOf(playerName);
+        }
+        return next;
+    }
+
+    private void scheduleAll(PersistentHashMap<String, WhitelistEntry> snapshot) {
+        snapshot.forEach(this::schedule);
+    }
+
+    private void schedule(String playerName, WhitelistEntry entry) {
+        if (entry.getExpiresAt() > 0) {
+            expiryWheel.schedule(playerName, entry.getExpiresAt());
+        }
+    }
+
+    /**
+     * 将当前快照写入配置并保存
+     * 调用方需持有写锁
+     * @return 配置写盘后结束
+     */
+    private CompletableFuture<Void> saveWhitelist() {
+        WhitelistSnapshot snapshot = this.snapshot;
+        Map<String, Long> expiries = new HashMap<>();
+        Map<String, UUID> uuids = new HashMap<>();
+        snapshot.forEach((playerName, entry) -> {
+            if (entry.getExpiresAt() > 0) {
+                expiries.put(playerName, entry.getExpiresAt());
+            }
+            if (entry.getUuid() != null) {
+                uuids.put(playerName, entry.getUuid());
+            }
+        });
+        configManager.setWhitelist(snapshot.getSortedPlayers().asList()); // 按有序索引保存以保持一致性
+        configManager.setWhitelistExpiries(expiries);
+        configManager.setWhitelistUuids(uuids);
+        return configManager.saveConfigAsync();
+    }
+
+    private void fireChange(WhitelistChangeSet changes) {
+        for (Consumer<WhitelistChangeSet> listener : changeListeners) {
+            try {
+                listener.accept(changes);
+            } catch (Exception e) {
+                logger.error("白名单变更监听器执行失败", e);
+            }
+        }
+    }
+
+    private static boolean isValidName(String playerName) {
+        return playerName != null && !playerName.trim().isEmpty();
     }
 
     /**
      * 检查白名单是否为空
      */
     public boolean isEmpty() {
-        lock.readLock().lock();
-        try {
-            return whitelistCache.isEmpty();
-        } finally {
-            lock.readLock().unlock();
+        return snapshot.isEmpty();
+    }
+
+    /**
+     * 一次已发布的提交及其撤销信息
+     */
+    private static final class Applied {
+        private final WhitelistChangeSet changes;
+        private final Map<String, Undo> undo;
+        private final CompletableFuture<Void> saved;
+
+        private Applied(WhitelistChangeSet changes, Map<String, Undo> undo, CompletableFuture<Void> saved) {
+            this.changes = changes;
+            this.undo = undo;
+            this.saved = saved;
+        }
+    }
+
+    /**
+     * 单个条目在提交前后的状态，null 表示不在白名单中
+     */
+    private static final class Undo {
+        private final WhitelistEntry previous;
+        private final WhitelistEntry now;
+
+        private Undo(WhitelistEntry previous, WhitelistEntry now) {
+            this.previous = previous;
+            this.now = now;
         }
     }
 }
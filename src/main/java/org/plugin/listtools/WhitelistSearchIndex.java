@@ -0,0 +1,304 @@
+package org.plugin.listtools;
+
+import java.util.*;
+
+/**
+ * 白名单搜索索引
+ * 以玩家编号为文档编号的三元组倒排索引，随白名单的每次变化增量维护，支持子串查找和按编辑距离排序的模糊查找，
+ * 只访问与关键词共享三元组的玩家，不逐个扫描白名单
+ *
+ * 玩家名转为小写后在两端各补两个占位符再切分三元组，例如 "abc" 得到 ^^a、^ab、abc、bc$、c$$；
+ * 子串查找使用关键词本身的三元组，模糊查找使用补齐后的三元组，
+ * 每处编辑最多影响3个三元组，编辑距离不超过 k 的玩家名至少与关键词共享 (关键词三元组数 - 3k) 个三元组
+ */
+public class WhitelistSearchIndex {
+    // 占位符，玩家名中不会出现
+    private static final char PAD = '\0';
+
+    private final PlayerIdRegistry playerIds;
+    // 三元组到包含它的玩家编号，由本对象的锁保护
+    private final Map<Long, Postings> postings;
+
+    public WhitelistSearchIndex(PlayerIdRegistry playerIds) {
+        this.playerIds = playerIds;
+        this.postings = new HashMap<>();
+    }
+
+    /**
+     * 更新索引
+     * @param added 新加入白名单的玩家名
+     * @param removed 被移出白名单的玩家名
+     */
+    synchronized void update(Collection<String> added, Collection<String> removed) {
+        for (String playerName : removed) {
+            int id = playerIds.lookup(playerName);
+            if (id < 0) {
+                continue;
+            }
+            for (long gram : grams(playerName)) {
+                Postings list = postings.get(gram);
+                if (list != null && list.remove(id) && list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        for (String playerName : added) {
+            int id = playerIds.idOf(playerName);
+            for (long gram : grams(playerName)) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+            }
+        }
+    }
+
+    /**
+     * 查找名字中包含关键词的玩家，忽略大小写
+     * 完全匹配的排在最前，其次是以关键词开头的，再按名字长度和名字排序
+     * 关键词不足三个字符时无法使用索引，改为按前缀从有序索引中取
+     * @param snapshot 与索引对应的白名单快照，用于短关键词
+     * @param limit 最多返回的数量
+     */
+    public List<String> findContaining(WhitelistSnapshot snapshot, String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>();
+        if (needle.length() < 3) {
+            // 短关键词只能匹配前缀，更长的子串匹配需要至少三个字符
+            List<String> prefixed = snapshot.getSortedPlayers().withPrefix(needle);
+            matches.addAll(prefixed.subList(0, Math.min(limit, prefixed.size())));
+            return matches;
+        }
+
+        Set<Long> queryGrams = new LinkedHashSet<>();
+        for (int i = 0; i + 2 < needle.length(); i++) {
+            queryGrams.add(gram(needle.charAt(i), needle.charAt(i + 1), needle.charAt(i + 2)));
+        }
+        synchronized (this) {
+            // 从最短的倒排表开始，逐个在其他倒排表中二分查找
+            Postings[] lists = new Postings[queryGrams.size()];
+            int count = 0;
+            for (long gram : queryGrams) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return matches;
+                }
+                list.ensureSorted();
+                lists[count++] = list;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+            Postings shortest = lists[0];
+            for (int i = 0; i < shortest.size; i++) {
+                int id = shortest.ids[i];
+                boolean inAll = true;
+                for (int j = 1; j < lists.length && inAll; j++) {
+                    inAll = lists[j].contains(id);
+                }
+                if (!inAll) {
+                    continue;
+                }
+                // 三元组都出现不代表相邻，还需确认
+                String playerName = playerIds.nameOf(id);
+                if (playerName != null && playerName.toLowerCase(Locale.ROOT).contains(needle)) {
+                    matches.add(playerName);
+                }
+            }
+        }
+
+        matches.sort(Comparator.<String>comparingInt(name -> name.equalsIgnoreCase(query) ? 0
+                                    : name.regionMatches(true, 0, query, 0, query.length()) ? 1 : 2)
+                         .thenComparingInt(String::length)
+                         .thenComparing(SortedNameIndex.ORDER));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * 查找与关键词相似的玩家，忽略大小写
+     * 关键词少于3个字符时不做模糊查找；3到5个字符允许1处差异，更长的允许2处
+     * @param limit 最多返回的数量
+     * @return 按编辑距离、名字排序的结果
+     */
+    public List<Match> findSimilar(String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Match> matches = new ArrayList<>();
+        if (needle.length() < 3) {
+            return matches;
+        }
+        int maxDistance = needle.length() <= 5 ? 1 : 2;
+        long[] queryGrams = grams(needle);
+        int threshold = Math.max(1, queryGrams.length - 3 * maxDistance);
+
+        // 只为出现在关键词倒排表中的玩家计数共享的三元组，耗时与倒排表长度有关，与白名单大小无关；
+        // candidates 记录计数达到阈值的玩家
+        Map<Integer, Integer> shared = new HashMap<>();
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        synchronized (this) {
+            for (long gram : queryGrams) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size; i++) {
+                    int id = list.ids[i];
+                    if (shared.merge(id, 1, Integer::sum) == threshold) {
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        }
+                        candidates[candidateCount++] = id;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < candidateCount; i++) {
+            String playerName = playerIds.nameOf(candidates[i]);
+            if (playerName == null || Math.abs(playerName.length() - needle.length()) > maxDistance) {
+                continue;
+            }
+            int distance = distance(needle, playerName.toLowerCase(Locale.ROOT), maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(new Match(playerName, distance));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::getDistance)
+                         .thenComparing(Match::getPlayerName, SortedNameIndex.ORDER));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * 获取索引中的三元组数量
+     */
+    public synchronized int getGramCount() {
+        return postings.size();
+    }
+
+    /**
+     * 补齐后切分出的不重复三元组，按升序排列
+     */
+    private static long[] grams(String playerName) {
+        String padded = "" + PAD + PAD + playerName.toLowerCase(Locale.ROOT) + PAD + PAD;
+        long[] result = new long[padded.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = gram(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2));
+        }
+        Arrays.sort(result);
+        int count = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[count++] = result[i];
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 把三个字符编码为一个键
+     * 乘以奇数常量是可逆的，不会产生冲突；直接拼接时 Long.hashCode 的低位只取决于少数几位，哈希表会严重退化
+     */
+    private static long gram(char a, char b, char c) {
+        return ((long) a << 32 | (long) b << 16 | c) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * 带上限的编辑距离，只计算对角线两侧 max 范围内的单元格，超过上限时返回 max + 1
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length(), i + max);
+            current[0] = i;
+            if (from > 1) {
+                current[from - 1] = max + 1;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(value, max + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length()) {
+                current[to + 1] = max + 1;
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+     * 模糊查找的一个结果
+     */
+    public static final class Match {
+        private final String playerName;
+        private final int distance;
+
+        private Match(String playerName, int distance) {
+            this.playerName = playerName;
+            this.distance = distance;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        /**
+         * 获取与关键词的编辑距离（忽略大小写）
+         */
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    /**
+     * 一个三元组的倒排表
+     * 追加时不保持顺序，查询或删除前才排序，批量导入时不需要反复移动数组
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+        private boolean sorted = true;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (size > 0 && ids[size - 1] > id) {
+                sorted = false;
+            }
+            ids[size++] = id;
+        }
+
+        private boolean remove(int id) {
+            ensureSorted();
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void ensureSorted() {
+            if (!sorted) {
+                Arrays.sort(ids, 0, size);
+                sorted = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.plugin.listtools;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * 白名单在某个版本的只读快照
+ * 直接引用该版本的不可变数据，获取和长期持有快照都不会复制白名单，也不会被之后的修改影响
+ */
+public final class WhitelistSnapshot {
+    private final PersistentHashMap<String, WhitelistEntry> entries;
+    private final SortedNameIndex sortedPlayers;
+    private final long version;
+    // 按需创建的玩家名视图
+    private Set<String> players;
+
+    WhitelistSnapshot(PersistentHashMap<String, WhitelistEntry> entries, SortedNameIndex sortedPlayers, long version) {
+        this.entries = entries;
+        this.sortedPlayers = sortedPlayers;
+        this.version = version;
+    }
+
+    /**
+     * 获取快照对应的白名单版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * 检查玩家是否在白名单中，严格匹配玩家名
+     */
+    public boolean contains(String playerName) {
+        return playerName != null && entries.containsKey(playerName);
+    }
+
+    /**
+     * 获取玩家的白名单条目，不在白名单中时返回null
+     */
+    public WhitelistEntry getEntry(String playerName) {
+        return playerName != null ? entries.get(playerName) : null;
+    }
+
+    /**
+     * 获取玩家的白名单到期时间
+     * @return 到期时间戳（毫秒），永久白名单或不在白名单中时返回0
+     */
+    public long getExpiry(String playerName) {
+        WhitelistEntry entry = getEntry(playerName);
+        return entry != null ? entry.getExpiresAt() : 0;
+    }
+
+    /**
+     * 获取白名单玩家已解析的UUID
+     * @return UUID，尚未解析或不在白名单中时返回null
+     */
+    public UUID getUuid(String playerName) {
+        WhitelistEntry entry = getEntry(playerName);
+        return entry != null ? entry.getUuid() : null;
+    }
+
+    /**
+     * 获取所有玩家名的只读视图
+     * 视图直接遍历快照，不复制玩家名；迭代顺序不确定，需要有序时使用 {@link #getSortedPlayers()}
+     */
+    public Set<String> getPlayers() {
+        Set<String> view = players;
+        if (view == null) {
+            view = new PlayerView();
+            players = view;
+        }
+        return view;
+    }
+
+    /**
+     * 获取按玩家名排序的索引，支持范围查询和游标分页，不复制玩家名
+     */
+    public SortedNameIndex getSortedPlayers() {
+        return sortedPlayers;
+    }
+
+    /**
+     * 遍历所有条目，顺序不确定
+     */
+    public void forEach(BiConsumer<String, WhitelistEntry> action) {
+        entries.forEach(action);
+    }
+
+    PersistentHashMap<String, WhitelistEntry> entries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return "WhitelistSnapshot{v" + version + ", " + entries.size() + " 个玩家}";
+    }
+
+    private final class PlayerView extends AbstractSet<String> {
+        @Override
+        public Iterator<String> iterator() {
+            // 迭代器不支持 remove，视图不可修改
+            return entries.keyIterator();
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o != null && entries.containsKey(o);
+        }
+    }
+}
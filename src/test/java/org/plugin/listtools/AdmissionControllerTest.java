@@ -0,0 +1,84 @@
+package org.plugin.listtools;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link AdmissionController} 的测试：白名单系统关闭时不限制登录
+ */
+class AdmissionControllerTest {
+    private final Logger logger = NOPLogger.NOP_LOGGER;
+
+    @TempDir
+    Path dataDirectory;
+
+    private IoExecutor ioExecutor;
+    private ConfigManager configManager;
+    private AdmissionController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(dataDirectory.resolve("config.yml"), "enabled: true\nlogin_max_in_flight: 1\n", StandardCharsets.UTF_8);
+        ioExecutor = new IoExecutor(logger);
+        configManager = new ConfigManager(dataDirectory, ioExecutor, logger);
+        configManager.loadConfig();
+        WhitelistManager whitelistManager = new WhitelistManager(configManager, ioExecutor, logger);
+        GroupManager groupManager = new GroupManager(configManager, whitelistManager, logger);
+        // 不调用 start()，不需要调度器
+        controller = new AdmissionController(configManager, groupManager, null, logger, new Object());
+    }
+
+    @AfterEach
+    void tearDown() {
+        controller.stop();
+        ioExecutor.shutdown(1000);
+    }
+
+    @Test
+    void queuesBeyondCapacityWhenEnabled() {
+        assertSame(AdmissionDecision.ALLOW, controller.admit("Alice").join());
+        assertFalse(controller.admit("Bob").isDone());
+        assertEquals(1, controller.getQueuedCount());
+    }
+
+    @Test
+    void admitsEveryoneWithoutPermitsWhenDisabled() {
+        configManager.setEnabled(false);
+        for (String playerName : new String[]{"Alice", "Bob", "Carol"}) {
+            CompletableFuture<AdmissionDecision> admitted = controller.admit(playerName);
+            assertTrue(admitted.isDone());
+            assertSame(AdmissionDecision.ALLOW, admitted.join());
+        }
+        assertEquals(0, controller.getInFlightCount());
+        assertEquals(0, controller.getQueuedCount());
+    }
+
+    @Test
+    void releasesQueuedPlayersOnceDisabled() {
+        assertSame(AdmissionDecision.ALLOW, controller.admit("Alice").join());
+        CompletableFuture<AdmissionDecision> waiting = controller.admit("Bob");
+        assertFalse(waiting.isDone());
+
+        configManager.setEnabled(false);
+        // 维护任务每秒调用一次，重新加载时也会调用
+        controller.refresh();
+        assertTrue(waiting.isDone());
+        assertSame(AdmissionDecision.ALLOW, waiting.join());
+        assertEquals(0, controller.getQueuedCount());
+    }
+}
@@ -0,0 +1,53 @@
+package org.plugin.listtools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link AutoCheckTask.SweepPlan} 的测试：一轮分片检查必须在一个检查间隔内覆盖所有玩家
+ */
+class AutoCheckTaskTest {
+
+    private static void assertFitsInterval(int players, int sliceSize, long interval) {
+        AutoCheckTask.SweepPlan plan = AutoCheckTask.SweepPlan.of(players, sliceSize, interval);
+        assertTrue((long) plan.sliceSize * plan.sliceCount >= players, "分片没有覆盖所有玩家");
+        assertTrue((long) plan.sliceSize * (plan.sliceCount - 1) < players, "存在空分片");
+        // 第一个分片立即执行，最后一个分片在 (sliceCount - 1) * period 后执行
+        assertTrue((plan.sliceCount - 1) * plan.period < interval,
+                   "一轮检查超过检查间隔: " + plan.sliceCount + " 个分片，间隔 " + plan.period + "ms");
+    }
+
+    @Test
+    void keepsConfiguredSliceSizeWhenSweepFits() {
+        AutoCheckTask.SweepPlan plan = AutoCheckTask.SweepPlan.of(1000, 100, 30000);
+        assertEquals(100, plan.sliceSize);
+        assertEquals(10, plan.sliceCount);
+        assertEquals(30000 / 11, plan.period);
+        assertFitsInterval(1000, 100, 30000);
+    }
+
+    @Test
+    void growsSlicesWhenPlayersTimesMinimumPeriodExceedsInterval() {
+        // 200 个分片 × 50ms = 10s，超过 5s 的检查间隔
+        AutoCheckTask.SweepPlan plan = AutoCheckTask.SweepPlan.of(10000, 50, 5000);
+        assertTrue(plan.sliceSize > 50);
+        assertEquals(50, plan.period);
+        assertFitsInterval(10000, 50, 5000);
+    }
+
+    @Test
+    void fitsForShortIntervalsAndSmallSlices() {
+        int[] playerCounts = {1, 7, 99, 100, 101, 2500, 20000, 100000};
+        int[] sliceSizes = {1, 10, 100, 1000};
+        long[] intervals = {1, 50, 99, 100, 101, 149, 1000, 5000, 60000};
+        for (int players : playerCounts) {
+            for (int sliceSize : sliceSizes) {
+                for (long interval : intervals) {
+                    assertFitsInterval(players, sliceSize, interval);
+                }
+            }
+        }
+    }
+}
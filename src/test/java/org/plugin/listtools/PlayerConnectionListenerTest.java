@@ -0,0 +1,107 @@
+package org.plugin.listtools;
+
+import com.velocitypowered.api.event.connection.PreLoginEvent;
+import com.velocitypowered.api.proxy.InboundConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PlayerConnectionListener#onPreLogin} 的测试：白名单系统关闭时不经过准入流水线和登录容量控制
+ */
+class PlayerConnectionListenerTest {
+    private final Logger logger = NOPLogger.NOP_LOGGER;
+
+    @TempDir
+    Path dataDirectory;
+
+    private IoExecutor ioExecutor;
+    private ConfigManager configManager;
+    private AdmissionController controller;
+    private PlayerConnectionListener listener;
+    private final AtomicInteger checks = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(dataDirectory.resolve("config.yml"), "enabled: true\nlogin_max_in_flight: 1\n", StandardCharsets.UTF_8);
+        ioExecutor = new IoExecutor(logger);
+        configManager = new ConfigManager(dataDirectory, ioExecutor, logger);
+        configManager.loadConfig();
+        WhitelistManager whitelistManager = new WhitelistManager(configManager, ioExecutor, logger);
+        GroupManager groupManager = new GroupManager(configManager, whitelistManager, logger);
+        controller = new AdmissionController(configManager, groupManager, null, logger, new Object());
+
+        // 模拟限速：每次检查都拒绝
+        AdmissionPipeline pipeline = new AdmissionPipeline(null, logger);
+        pipeline.register(new AdmissionStage() {
+            @Override
+            public String getName() {
+                return "throttle";
+            }
+
+            @Override
+            public int getOrderGroup() {
+                return AdmissionPipeline.ORDER_GATE;
+            }
+
+            @Override
+            public AdmissionDecision check(AdmissionRequest request) {
+                checks.incrementAndGet();
+                return AdmissionDecision.DENY;
+            }
+        });
+        listener = new PlayerConnectionListener(configManager, whitelistManager, pipeline, controller,
+                                                null, null, null, logger);
+    }
+
+    @AfterEach
+    void tearDown() {
+        controller.stop();
+        ioExecutor.shutdown(1000);
+    }
+
+    private static PreLoginEvent preLogin(String playerName) {
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", 25565);
+        InboundConnection connection = (InboundConnection) Proxy.newProxyInstance(
+            InboundConnection.class.getClassLoader(), new Class<?>[]{InboundConnection.class},
+            (proxy, method, args) -> "getRemoteAddress".equals(method.getName()) ? address : null);
+        return new PreLoginEvent(connection, playerName);
+    }
+
+    @Test
+    void deniesThroughPipelineWhenEnabled() {
+        PreLoginEvent event = preLogin("Alice");
+        assertNull(listener.onPreLogin(event));
+        assertFalse(event.getResult().isAllowed());
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    void skipsPipelineAndQueueWhenDisabled() {
+        configManager.setEnabled(false);
+        for (String playerName : new String[]{"Alice", "Bob", "Carol"}) {
+            PreLoginEvent event = preLogin(playerName);
+            assertNull(listener.onPreLogin(event));
+            assertTrue(event.getResult().isAllowed());
+        }
+        assertEquals(0, checks.get());
+        assertEquals(0, controller.getInFlightCount());
+        assertEquals(0, controller.getQueuedCount());
+    }
+}